@@ -0,0 +1,199 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Base {@link AsyncServiceResult} whose outcome is set once through
+ * {@link #succeed(Object)} or {@link #fail(ServiceError)}.
+ * <p>
+ * Lock-free: the state is a single atomic reference that holds either the stack
+ * of callbacks registered so far (pending) or the outcome (succeeded or
+ * failed). Registering a callback and completing both boil down to a
+ * compare-and-set on this reference, neither ever blocks the other.
+ * <p>
+ * The outcome is memoized: each callback is invoked exactly once, either by the
+ * completing thread or, if registered after completion, by the registering
+ * thread at constant cost.
+ * <p>
+ * Cancelling a pending result fails it with a {@link ServiceError#CANCELLED}
+ * error then calls {@link #onCancel()}, where subclasses abort the underlying
+ * request.
+ *
+ * @param <T> type of the result exposed to callbacks
+ */
+public abstract class AbstractAsyncServiceResult<T> implements AsyncServiceResult<T> {
+
+    /**
+     * Either {@code null} (pending, no callback), a {@link CallbackNode}
+     * (pending, top of the callback stack) or an {@link Outcome} (completed).
+     */
+    private final AtomicReference<Object> state = new AtomicReference<>();
+
+    @Override
+    public void onSuccess(ServiceSuccessCallback<T> callback) {
+        register(callback, null);
+    }
+
+    @Override
+    public void onError(ServiceErrorCallback callback) {
+        register(null, callback);
+    }
+
+    @Override
+    public void onCompletion(ServiceCompletionCallback<T> callback) {
+        register(callback, callback);
+    }
+
+    @Override
+    public boolean cancel() {
+        if (fail(SimpleServiceError.cancelled())) {
+            onCancel();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Called once this result has been cancelled, override to abort the
+     * underlying request.
+     */
+    protected void onCancel() {
+    }
+
+    /**
+     * Whether this result already succeeded or failed.
+     *
+     * @return true if this result is completed
+     */
+    public boolean isCompleted() {
+        return state.get() instanceof Outcome;
+    }
+
+    /**
+     * Complete this result successfully, unless it is already completed.
+     *
+     * @param result the result to hand to success callbacks
+     * @return true if this call completed this result
+     */
+    protected boolean succeed(T result) {
+        return complete(new Outcome<>(result, null));
+    }
+
+    /**
+     * Complete this result on error, unless it is already completed.
+     *
+     * @param error the error to hand to error callbacks
+     * @return true if this call completed this result
+     */
+    protected boolean fail(ServiceError error) {
+        return complete(new Outcome<T>(null, error));
+    }
+
+    private void register(ServiceSuccessCallback<T> successCallback, ServiceErrorCallback errorCallback) {
+        CallbackNode<T> node = new CallbackNode<>(successCallback, errorCallback);
+        for (;;) {
+            Object current = state.get();
+            if (current instanceof Outcome) {
+                // Already completed, only notify this very callback
+                @SuppressWarnings("unchecked")
+                Outcome<T> outcome = (Outcome<T>) current;
+                node.next = null; // Might have been linked during a lost race
+                dispatch(node, outcome);
+                return;
+            }
+            @SuppressWarnings("unchecked")
+            CallbackNode<T> next = (CallbackNode<T>) current;
+            node.next = next;
+            if (state.compareAndSet(current, node))
+                return;
+        }
+    }
+
+    private boolean complete(Outcome<T> outcome) {
+        for (;;) {
+            Object current = state.get();
+            if (current instanceof Outcome)
+                return false; // First completion wins
+            if (state.compareAndSet(current, outcome)) {
+                @SuppressWarnings("unchecked")
+                CallbackNode<T> stack = (CallbackNode<T>) current;
+                dispatch(reverse(stack), outcome);
+                return true;
+            }
+        }
+    }
+
+    private static <T> void dispatch(CallbackNode<T> nodes, Outcome<T> outcome) {
+        ServiceError error = outcome.error;
+        if (error != null) {
+            for (CallbackNode<T> node = nodes; node != null; node = node.next) {
+                if (node.errorCallback != null)
+                    node.errorCallback.onError(error);
+            }
+        } else {
+            T result = outcome.result;
+            for (CallbackNode<T> node = nodes; node != null; node = node.next) {
+                if (node.successCallback != null)
+                    node.successCallback.onSuccess(result);
+            }
+        }
+    }
+
+    /**
+     * Reverse the callback stack so that callbacks are called in registration order.
+     */
+    private static <T> CallbackNode<T> reverse(CallbackNode<T> stack) {
+        CallbackNode<T> reversed = null;
+        while (stack != null) {
+            CallbackNode<T> next = stack.next;
+            stack.next = reversed;
+            reversed = stack;
+            stack = next;
+        }
+        return reversed;
+    }
+
+    private static final class CallbackNode<T> {
+        final ServiceSuccessCallback<T> successCallback;
+        final ServiceErrorCallback errorCallback;
+        CallbackNode<T> next;
+
+        CallbackNode(ServiceSuccessCallback<T> successCallback, ServiceErrorCallback errorCallback) {
+            this.successCallback = successCallback;
+            this.errorCallback = errorCallback;
+        }
+    }
+
+    private static final class Outcome<T> {
+        final T result;
+        final ServiceError error;
+
+        Outcome(T result, ServiceError error) {
+            this.result = result;
+            this.error = error;
+        }
+    }
+}
@@ -29,4 +29,13 @@ public interface AsyncServiceResult<T> {
 	void onError(ServiceErrorCallback callback);
 	void onCompletion(ServiceCompletionCallback<T> callback);
 
+	/**
+	 * Cancel the underlying request, if still running. Error callbacks are
+	 * called with a {@link ServiceError#CANCELLED} error and, where the
+	 * underlying service allows it, the request itself is aborted.
+	 *
+	 * @return true if this call cancelled the request, false if it had already completed
+	 */
+	boolean cancel();
+
 }
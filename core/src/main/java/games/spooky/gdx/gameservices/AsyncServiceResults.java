@@ -0,0 +1,500 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Non-blocking combinators over {@link AsyncServiceResult}s.
+ * <p>
+ * Combinators only register callbacks on their sources, they never block nor
+ * start any thread. As requests are started as soon as they are made, passing
+ * several results to {@link #zip(AsyncServiceResult, AsyncServiceResult, Combiner) zip},
+ * {@link #all(Iterable) all} or {@link #firstOf(Iterable) firstOf} lets
+ * underlying requests run concurrently. Errors short-circuit: combined
+ * results fail as soon as one of their sources fails, and sources still
+ * running are then cancelled. Cancelling a combined result cancels its
+ * sources.
+ */
+public final class AsyncServiceResults {
+
+	private AsyncServiceResults() {
+	}
+
+	/**
+	 * Transformation of a successful result value.
+	 */
+	public interface Mapper<TIn, TOut> {
+		TOut map(TIn value) throws Exception;
+	}
+
+	/**
+	 * Chaining of a new request to a successful result value.
+	 */
+	public interface FlatMapper<TIn, TOut> {
+		AsyncServiceResult<TOut> flatMap(TIn value) throws Exception;
+	}
+
+	/**
+	 * Combination of two successful result values.
+	 */
+	public interface Combiner<TFirst, TSecond, TOut> {
+		TOut combine(TFirst first, TSecond second) throws Exception;
+	}
+
+	/**
+	 * Transform the value of given result once it succeeds. Errors, including
+	 * exceptions thrown by the mapper, are propagated as is.
+	 *
+	 * @param source the result to transform
+	 * @param mapper the transformation to apply
+	 * @return the transformed result
+	 */
+	public static <TIn, TOut> AsyncServiceResult<TOut> map(AsyncServiceResult<TIn> source, final Mapper<? super TIn, ? extends TOut> mapper) {
+		final DependentServiceResult<TOut> result = new DependentServiceResult<>(source);
+		source.onCompletion(new ServiceCompletionCallback<TIn>() {
+			@Override
+			public void onSuccess(TIn value) {
+				TOut mapped;
+				try {
+					mapped = mapper.map(value);
+				} catch (Exception e) {
+					result.fail(new ExceptionServiceError(e));
+					return;
+				}
+				result.succeed(mapped);
+			}
+
+			@Override
+			public void onError(ServiceError error) {
+				result.fail(error);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Chain a new request to given result once it succeeds, e.g. login then
+	 * fetch player id. Errors of both requests are propagated as is.
+	 *
+	 * @param source the first request
+	 * @param flatMapper the function making the second request from the value of the first one
+	 * @return the result of the second request
+	 */
+	public static <TIn, TOut> AsyncServiceResult<TOut> flatMap(AsyncServiceResult<TIn> source, final FlatMapper<? super TIn, TOut> flatMapper) {
+		final DependentServiceResult<TOut> result = new DependentServiceResult<>(source);
+		source.onCompletion(new ServiceCompletionCallback<TIn>() {
+			@Override
+			public void onSuccess(TIn value) {
+				AsyncServiceResult<TOut> next;
+				try {
+					next = flatMapper.flatMap(value);
+				} catch (Exception e) {
+					result.fail(new ExceptionServiceError(e));
+					return;
+				}
+				if (next == null) {
+					result.succeed(null);
+				} else {
+					result.dependOn(next);
+					next.onCompletion(forwardTo(result));
+				}
+			}
+
+			@Override
+			public void onError(ServiceError error) {
+				result.fail(error);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Combine the values of two concurrent requests once both succeed. Fails
+	 * as soon as one of them fails.
+	 *
+	 * @param first the first request
+	 * @param second the second request
+	 * @param combiner the combination of both values
+	 * @return the combined result
+	 */
+	public static <TFirst, TSecond, TOut> AsyncServiceResult<TOut> zip(AsyncServiceResult<TFirst> first, AsyncServiceResult<TSecond> second, final Combiner<? super TFirst, ? super TSecond, ? extends TOut> combiner) {
+		final DependentServiceResult<TOut> result = new DependentServiceResult<>(first, second);
+		final AtomicReferenceArray<Object> values = new AtomicReferenceArray<>(2);
+		final AtomicInteger remaining = new AtomicInteger(2);
+		final Runnable combine = new Runnable() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public void run() {
+				TOut combined;
+				try {
+					combined = combiner.combine((TFirst) values.get(0), (TSecond) values.get(1));
+				} catch (Exception e) {
+					result.fail(new ExceptionServiceError(e));
+					return;
+				}
+				result.succeed(combined);
+			}
+		};
+		first.onCompletion(new ServiceCompletionCallback<TFirst>() {
+			@Override
+			public void onSuccess(TFirst value) {
+				values.set(0, value);
+				if (remaining.decrementAndGet() == 0)
+					combine.run();
+			}
+
+			@Override
+			public void onError(ServiceError error) {
+				result.failAndCancelSources(error);
+			}
+		});
+		second.onCompletion(new ServiceCompletionCallback<TSecond>() {
+			@Override
+			public void onSuccess(TSecond value) {
+				values.set(1, value);
+				if (remaining.decrementAndGet() == 0)
+					combine.run();
+			}
+
+			@Override
+			public void onError(ServiceError error) {
+				result.failAndCancelSources(error);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Gather the values of concurrent requests once all of them succeed, in
+	 * iteration order. Fails as soon as one of them fails.
+	 *
+	 * @param sources the requests to gather
+	 * @return a result holding all values, in iteration order
+	 */
+	public static <T> AsyncServiceResult<Array<T>> all(Iterable<? extends AsyncServiceResult<T>> sources) {
+		Array<AsyncServiceResult<T>> list = new Array<>();
+		for (AsyncServiceResult<T> source : sources)
+			list.add(source);
+
+		final DependentServiceResult<Array<T>> result = new DependentServiceResult<>(list);
+
+		final int size = list.size;
+		if (size == 0) {
+			result.succeed(new Array<T>(0));
+			return result;
+		}
+
+		final AtomicReferenceArray<T> values = new AtomicReferenceArray<>(size);
+		final AtomicInteger remaining = new AtomicInteger(size);
+		for (int i = 0; i < size; i++) {
+			final int index = i;
+			list.get(i).onCompletion(new ServiceCompletionCallback<T>() {
+				@Override
+				public void onSuccess(T value) {
+					values.set(index, value);
+					if (remaining.decrementAndGet() == 0) {
+						Array<T> gathered = new Array<>(size);
+						for (int j = 0; j < size; j++)
+							gathered.add(values.get(j));
+						result.succeed(gathered);
+					}
+				}
+
+				@Override
+				public void onError(ServiceError error) {
+					result.failAndCancelSources(error);
+				}
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * Get the value of the first of concurrent requests to succeed, then
+	 * cancel the other ones. Fails only if all of them fail, with the error of
+	 * the last one to fail.
+	 *
+	 * @param sources the competing requests
+	 * @return a result holding the first value available
+	 */
+	public static <T> AsyncServiceResult<T> firstOf(Iterable<? extends AsyncServiceResult<T>> sources) {
+		Array<AsyncServiceResult<T>> list = new Array<>();
+		for (AsyncServiceResult<T> source : sources)
+			list.add(source);
+
+		final DependentServiceResult<T> result = new DependentServiceResult<>(list);
+
+		if (list.size == 0) {
+			result.fail(SimpleServiceError.error("No request to wait for"));
+			return result;
+		}
+
+		final AtomicInteger remaining = new AtomicInteger(list.size);
+		for (AsyncServiceResult<T> source : list) {
+			source.onCompletion(new ServiceCompletionCallback<T>() {
+				@Override
+				public void onSuccess(T value) {
+					if (result.succeed(value))
+						result.cancelSources();
+				}
+
+				@Override
+				public void onError(ServiceError error) {
+					if (remaining.decrementAndGet() == 0)
+						result.fail(error);
+				}
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * Make one request per key, at most {@code maxConcurrency} at a time, and
+	 * gather their outcomes. Unlike {@link #all(Iterable) all}, failures do
+	 * not short-circuit: the returned result succeeds once every request has
+	 * completed, failed ones being reported per key.
+	 *
+	 * @param keys the keys to make a request for, e.g. leaderboard ids
+	 * @param maxConcurrency the maximum number of requests in flight
+	 * @param request the function making the request of a key
+	 * @return a result holding the outcome of every request
+	 */
+	public static <K, T> AsyncServiceResult<BatchResult<K, T>> fanOut(Iterable<? extends K> keys, int maxConcurrency, final FlatMapper<? super K, T> request) {
+		if (maxConcurrency < 1)
+			throw new IllegalArgumentException("Concurrency must be positive: " + maxConcurrency);
+
+		final Array<K> list = new Array<>();
+		for (K key : keys)
+			list.add(key);
+
+		final Set<AsyncServiceResult<T>> inFlight = Collections.newSetFromMap(new ConcurrentHashMap<AsyncServiceResult<T>, Boolean>());
+		final DependentServiceResult<BatchResult<K, T>> result = new DependentServiceResult<>(inFlight);
+		final BatchResult<K, T> batch = new BatchResult<>();
+
+		final int size = list.size;
+		if (size == 0) {
+			result.succeed(batch);
+			return result;
+		}
+
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicInteger remaining = new AtomicInteger(size);
+		Runnable worker = new Runnable() {
+			@Override
+			public void run() {
+				// Requests completing synchronously loop here rather than recurse
+				for (;;) {
+					int index = next.getAndIncrement();
+					if (index >= size || result.isCompleted())
+						return;
+
+					final K key = list.get(index);
+					final Runnable worker = this;
+					final AtomicBoolean registering = new AtomicBoolean(true);
+					ServiceCompletionCallback<T> callback = new ServiceCompletionCallback<T>() {
+						@Override
+						public void onSuccess(T value) {
+							synchronized (batch) {
+								batch.putSuccess(key, value);
+							}
+							done();
+						}
+
+						@Override
+						public void onError(ServiceError error) {
+							synchronized (batch) {
+								batch.putFailure(key, error);
+							}
+							done();
+						}
+
+						private void done() {
+							if (remaining.decrementAndGet() == 0)
+								result.succeed(batch);
+							else if (!registering.compareAndSet(true, false))
+								worker.run();
+						}
+					};
+
+					AsyncServiceResult<T> source;
+					try {
+						source = request.flatMap(key);
+					} catch (Exception e) {
+						source = new SyncErrorServiceResult<>(new ExceptionServiceError(e));
+					}
+					if (source == null)
+						source = new SyncSuccessServiceResult<>(null);
+
+					final AsyncServiceResult<T> tracked = source;
+					inFlight.add(tracked);
+					tracked.onCompletion(new ServiceCompletionCallback<T>() {
+						@Override
+						public void onSuccess(T value) {
+							inFlight.remove(tracked);
+						}
+
+						@Override
+						public void onError(ServiceError error) {
+							inFlight.remove(tracked);
+						}
+					});
+					if (result.isCompleted())
+						tracked.cancel(); // Cancelled meanwhile
+					tracked.onCompletion(callback);
+
+					if (registering.compareAndSet(true, false))
+						return; // Still running, its callback takes over
+				}
+			}
+		};
+		for (int i = Math.min(maxConcurrency, size); i > 0; i--)
+			worker.run();
+		return result;
+	}
+
+	/**
+	 * Make one request per key, at most {@code maxConcurrency} at a time, and
+	 * gather the values of successful ones. Fails only if all requests fail,
+	 * with the error of one of them.
+	 *
+	 * @param keys the keys to make a request for, e.g. leaderboard ids
+	 * @param maxConcurrency the maximum number of requests in flight
+	 * @param request the function making the request of a key
+	 * @return a result holding the values of successful requests, by key
+	 */
+	public static <K, T> AsyncServiceResult<ObjectMap<K, T>> fanOutSuccesses(Iterable<? extends K> keys, int maxConcurrency, FlatMapper<? super K, T> request) {
+		return flatMap(fanOut(keys, maxConcurrency, request), new FlatMapper<BatchResult<K, T>, ObjectMap<K, T>>() {
+			@Override
+			public AsyncServiceResult<ObjectMap<K, T>> flatMap(BatchResult<K, T> batch) {
+				if (batch.getSuccesses().size == 0 && batch.getFailures().size > 0)
+					return new SyncErrorServiceResult<>(batch.getFailures().values().next());
+				return new SyncSuccessServiceResult<>(batch.getSuccesses());
+			}
+		});
+	}
+
+	/**
+	 * Give given request a deadline. If it has not completed by then, the
+	 * returned result fails with a {@link ServiceError#TIMED_OUT} error and the
+	 * request is cancelled.
+	 *
+	 * @param source the request to give a deadline to
+	 * @param timeout the maximum time to wait for the request
+	 * @param unit the unit of the timeout
+	 * @return a result failing if given request does not complete in time
+	 */
+	public static <T> AsyncServiceResult<T> withTimeout(final AsyncServiceResult<T> source, long timeout, TimeUnit unit) {
+		final DependentServiceResult<T> result = new DependentServiceResult<>(source);
+		final ScheduledFuture<?> deadline = ServiceTimer.timer.schedule(new Runnable() {
+			@Override
+			public void run() {
+				if (result.fail(SimpleServiceError.timedOut()))
+					source.cancel();
+			}
+		}, timeout, unit);
+		source.onCompletion(new ServiceCompletionCallback<T>() {
+			@Override
+			public void onSuccess(T value) {
+				deadline.cancel(false);
+				result.succeed(value);
+			}
+
+			@Override
+			public void onError(ServiceError error) {
+				deadline.cancel(false);
+				result.fail(error);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Callback completing given deferred result with the outcome it receives.
+	 *
+	 * @param result the result to complete
+	 * @return a callback forwarding its outcome to given result
+	 */
+	public static <T> ServiceCompletionCallback<T> forwardTo(final DeferredServiceResult<? super T> result) {
+		return new ServiceCompletionCallback<T>() {
+			@Override
+			public void onSuccess(T value) {
+				result.succeed(value);
+			}
+
+			@Override
+			public void onError(ServiceError error) {
+				result.fail(error);
+			}
+		};
+	}
+
+	/**
+	 * Result depending on other results, cancelled along with it.
+	 */
+	private static final class DependentServiceResult<T> extends DeferredServiceResult<T> {
+
+		private volatile Iterable<? extends AsyncServiceResult<?>> sources;
+
+		DependentServiceResult(AsyncServiceResult<?>... sources) {
+			this(Arrays.asList(sources));
+		}
+
+		DependentServiceResult(Iterable<? extends AsyncServiceResult<?>> sources) {
+			this.sources = sources;
+		}
+
+		void dependOn(AsyncServiceResult<?> source) {
+			sources = Collections.singletonList(source);
+			if (isCompleted())
+				source.cancel(); // Cancelled meanwhile
+		}
+
+		void failAndCancelSources(ServiceError error) {
+			if (fail(error))
+				cancelSources();
+		}
+
+		void cancelSources() {
+			for (AsyncServiceResult<?> source : sources)
+				source.cancel();
+		}
+
+		@Override
+		protected void onCancel() {
+			cancelSources();
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Replacement of files by temporary files written next to them, atomic where
+ * the platform allows it. {@code java.nio.file} is used where available
+ * (desktop, Android 8 onwards), including on Windows where renaming over an
+ * existing file fails. Elsewhere renaming is atomic on POSIX file systems.
+ */
+public final class AtomicFiles {
+
+	private static final boolean nio = isNioAvailable();
+
+	private AtomicFiles() {
+	}
+
+	/**
+	 * Replace given file with given temporary file. The temporary file must be
+	 * complete, i.e. written and synced, before this call so that
+	 * {@link #recover(File, File)} can finish an interrupted replacement.
+	 *
+	 * @param from the temporary file
+	 * @param to the file to replace
+	 * @throws IOException if the file cannot be replaced, in which case it is left untouched or missing, never partial
+	 */
+	public static void replace(File from, File to) throws IOException {
+		if (nio && Nio.move(from, to))
+			return;
+		if (!from.renameTo(to) && !(to.delete() && from.renameTo(to)))
+			throw new IOException("Cannot replace " + to + " with " + from);
+	}
+
+	/**
+	 * Finish the replacement of given file by given temporary file if it was
+	 * interrupted past the deletion of the file, or drop the temporary file
+	 * otherwise (most likely partial). To be called before opening the file.
+	 *
+	 * @param file the file to recover
+	 * @param tmp its temporary file
+	 * @throws IOException if the temporary file cannot be moved into place
+	 */
+	public static void recover(File file, File tmp) throws IOException {
+		if (!tmp.exists())
+			return;
+		if (file.exists())
+			tmp.delete();
+		else
+			replace(tmp, file);
+	}
+
+	private static boolean isNioAvailable() {
+		try {
+			Class.forName("java.nio.file.Files");
+			return true;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Only loaded where {@code java.nio.file} exists.
+	 */
+	private static final class Nio {
+
+		static boolean move(File from, File to) throws IOException {
+			try {
+				Files.move(from.toPath(), to.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				return true;
+			} catch (AtomicMoveNotSupportedException e) {
+				return false;
+			}
+		}
+	}
+}
@@ -0,0 +1,388 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+import com.badlogic.gdx.LifecycleListener;
+import com.badlogic.gdx.utils.Array;
+import games.spooky.gdx.gameservices.savedgame.SavedGame;
+import games.spooky.gdx.gameservices.savedgame.SavedGameStreams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GameServicesHandler} decorator coalescing frequent saved game
+ * submissions, e.g. autosaves on checkpoints (write-behind): only the latest
+ * content of each saved game is kept, and sent once no newer content came in
+ * for a debounce delay, or once the oldest pending content waited for the
+ * maximum latency. At most one submission per saved game is in flight,
+ * content coming in meanwhile waiting for it to complete.
+ * <p>
+ * Submissions superseded by newer content complete along with it. Loading a
+ * saved game with pending or in flight content returns that content. Content
+ * is copied on submission, callers may reuse their arrays.
+ * <p>
+ * Register it with {@code Gdx.app.addLifecycleListener(...)} so that pending
+ * content is sent on pause and on exit. On exit, {@link #dispose()} waits up
+ * to {@link #DEFAULT_DISPOSE_TIMEOUT_MILLIS a few seconds} for content to be
+ * sent, including content waiting for a submission in flight. Completions of
+ * the delegate must not need the rendering thread for that wait to succeed,
+ * i.e. dispatch them to it from a decorator around this one, if at all.
+ */
+public class AutosaveGameServicesHandler extends DelegatingGameServicesHandler implements LifecycleListener {
+
+	public static final long DEFAULT_DEBOUNCE_MILLIS = 2000L;
+	public static final long DEFAULT_MAX_LATENCY_MILLIS = 10000L;
+	public static final long DEFAULT_DISPOSE_TIMEOUT_MILLIS = 5000L;
+
+	// All guarded by this
+	private final Map<String, Slot> slots = new HashMap<>();
+	private long debounce;
+	private long maxLatency;
+
+	public AutosaveGameServicesHandler(GameServicesHandler delegate) {
+		this(delegate, DEFAULT_DEBOUNCE_MILLIS, DEFAULT_MAX_LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	public AutosaveGameServicesHandler(GameServicesHandler delegate, long debounce, long maxLatency, TimeUnit unit) {
+		super(delegate);
+		setDelays(debounce, maxLatency, unit);
+	}
+
+	// Configuration
+
+	public synchronized long getDebounce(TimeUnit unit) {
+		return unit.convert(debounce, TimeUnit.NANOSECONDS);
+	}
+
+	public synchronized long getMaxLatency(TimeUnit unit) {
+		return unit.convert(maxLatency, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Set the delays of pending submissions. Applies to content submitted
+	 * from now on.
+	 *
+	 * @param debounce the delay without newer content after which content is sent
+	 * @param maxLatency the delay after which content is sent even if newer content keeps coming in
+	 * @param unit the unit of both delays
+	 */
+	public synchronized void setDelays(long debounce, long maxLatency, TimeUnit unit) {
+		if (debounce < 0 || maxLatency < debounce)
+			throw new IllegalArgumentException("Delays must be positive, maximum latency not below debounce delay");
+		this.debounce = unit.toNanos(debounce);
+		this.maxLatency = unit.toNanos(maxLatency);
+	}
+
+	public synchronized int getPendingCount() {
+		int count = 0;
+		for (Slot slot : slots.values()) {
+			if (slot.pending != null)
+				count++;
+		}
+		return count;
+	}
+
+	// Flush
+
+	/**
+	 * Send the pending content of every saved game now, after the submission
+	 * in flight for those that have one.
+	 */
+	public void flush() {
+		Array<Slot> due = new Array<>();
+		synchronized (this) {
+			for (Slot slot : slots.values()) {
+				if (slot.pending != null)
+					due.add(slot);
+			}
+		}
+		for (Slot slot : due)
+			send(slot);
+	}
+
+	@Override
+	public void pause() {
+		flush();
+	}
+
+	@Override
+	public void resume() {
+	}
+
+	/**
+	 * Wait until no content is pending or in flight anymore, e.g. after
+	 * {@link #flush()}. Content submitted meanwhile is waited for as well.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * @return whether all content was sent, successfully or not, before the timeout
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public synchronized boolean awaitSent(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (!slots.isEmpty()) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0L)
+				return false;
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+		}
+		return true;
+	}
+
+	@Override
+	public void dispose() {
+		flush();
+		try {
+			// Last chance for content waiting for a submission in flight
+			awaitSent(DEFAULT_DISPOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Saved games
+
+	@Override
+	public AsyncServiceResult<byte[]> loadSavedGameData(SavedGame savedGame) {
+		byte[] latest = latest(savedGame);
+		if (latest != null)
+			return new SyncSuccessServiceResult<>(latest.clone());
+		return delegate.loadSavedGameData(savedGame);
+	}
+
+	@Override
+	public AsyncServiceResult<Void> loadSavedGameData(SavedGame savedGame, OutputStream output) {
+		byte[] latest = latest(savedGame);
+		if (latest == null)
+			return delegate.loadSavedGameData(savedGame, output);
+		try {
+			output.write(latest);
+			output.flush();
+		} catch (IOException e) {
+			return new SyncErrorServiceResult<>(new ExceptionServiceError(e));
+		}
+		return new SyncSuccessServiceResult<>(null);
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(SavedGame savedGame, byte[] data) {
+		// Sent later, the caller may reuse its array meanwhile
+		return submit(savedGame, data.clone());
+	}
+
+	private AsyncServiceResult<Void> submit(SavedGame savedGame, byte[] data) {
+		DeferredServiceResult<Void> submission = new DeferredServiceResult<>();
+		final Slot slot;
+		synchronized (this) {
+			String title = savedGame.getTitle();
+			Slot existing = slots.get(title);
+			if (existing == null) {
+				existing = new Slot(title);
+				slots.put(title, existing);
+			}
+			slot = existing;
+			long now = System.nanoTime();
+			PendingSave pending = slot.pending;
+			if (pending == null) {
+				pending = new PendingSave(now);
+				slot.pending = pending;
+			}
+			pending.savedGame = savedGame;
+			pending.data = data;
+			pending.submissions.add(submission);
+
+			// Debounce, within the maximum latency of the oldest pending content
+			if (slot.timer != null)
+				slot.timer.cancel(false);
+			long delay = Math.max(0L, Math.min(debounce, pending.since + maxLatency - now));
+			slot.timer = ServiceTimer.timer.schedule(new Runnable() {
+				@Override
+				public void run() {
+					send(slot);
+				}
+			}, delay, TimeUnit.NANOSECONDS);
+		}
+		return submission;
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(SavedGame savedGame, InputStream data, long length) {
+		// The stream is the caller's, content has to be read now
+		byte[] content;
+		try {
+			content = SavedGameStreams.readFully(data, length);
+		} catch (IOException e) {
+			return new SyncErrorServiceResult<>(new ExceptionServiceError(e));
+		}
+		return submit(savedGame, content);
+	}
+
+	@Override
+	public AsyncServiceResult<Void> deleteSavedGame(final SavedGame savedGame) {
+		Array<DeferredServiceResult<Void>> superseded = null;
+		DeferredServiceResult<Void> inFlight = null;
+		synchronized (this) {
+			Slot slot = slots.get(savedGame.getTitle());
+			if (slot != null) {
+				if (slot.pending != null) {
+					superseded = slot.pending.submissions;
+					slot.pending = null;
+					slot.timer.cancel(false);
+					slot.timer = null;
+				}
+				inFlight = slot.inFlight;
+				if (inFlight == null) {
+					slots.remove(slot.title);
+					notifyAll();
+				}
+			}
+		}
+
+		AsyncServiceResult<Void> result;
+		if (inFlight == null) {
+			result = delegate.deleteSavedGame(savedGame);
+		} else {
+			// Not before the submission in flight, which would recreate it
+			final DeferredServiceResult<Void> deletion = new DeferredServiceResult<>();
+			inFlight.onCompletion(new ServiceCompletionCallback<Void>() {
+				@Override
+				public void onSuccess(Void value) {
+					delete();
+				}
+
+				@Override
+				public void onError(ServiceError error) {
+					delete();
+				}
+
+				private void delete() {
+					delegate.deleteSavedGame(savedGame).onCompletion(AsyncServiceResults.forwardTo(deletion));
+				}
+			});
+			result = deletion;
+		}
+		if (superseded != null) {
+			for (DeferredServiceResult<Void> submission : superseded)
+				result.onCompletion(AsyncServiceResults.forwardTo(submission));
+		}
+		return result;
+	}
+
+	private synchronized byte[] latest(SavedGame savedGame) {
+		Slot slot = slots.get(savedGame.getTitle());
+		if (slot == null)
+			return null;
+		return slot.pending != null ? slot.pending.data : slot.inFlightData;
+	}
+
+	/**
+	 * Send the pending content of given slot, or as soon as its submission in
+	 * flight completes.
+	 */
+	private void send(final Slot slot) {
+		final PendingSave pending;
+		final DeferredServiceResult<Void> flight;
+		synchronized (this) {
+			pending = slot.pending;
+			if (pending == null)
+				return;
+			if (slot.inFlight != null) {
+				slot.due = true;
+				return;
+			}
+			slot.pending = null;
+			if (slot.timer != null) {
+				slot.timer.cancel(false);
+				slot.timer = null;
+			}
+			flight = new DeferredServiceResult<>();
+			slot.inFlight = flight;
+			slot.inFlightData = pending.data;
+		}
+
+		delegate.submitSavedGame(pending.savedGame, pending.data).onCompletion(new ServiceCompletionCallback<Void>() {
+			@Override
+			public void onSuccess(Void value) {
+				done();
+				for (DeferredServiceResult<Void> submission : pending.submissions)
+					submission.succeed(null);
+				flight.succeed(null);
+			}
+
+			@Override
+			public void onError(ServiceError error) {
+				done();
+				for (DeferredServiceResult<Void> submission : pending.submissions)
+					submission.fail(error);
+				flight.fail(error);
+			}
+
+			private void done() {
+				boolean again;
+				synchronized (AutosaveGameServicesHandler.this) {
+					slot.inFlight = null;
+					slot.inFlightData = null;
+					again = slot.due;
+					slot.due = false;
+					if (slot.pending == null) {
+						slots.remove(slot.title);
+						AutosaveGameServicesHandler.this.notifyAll();
+					}
+				}
+				if (again)
+					send(slot);
+			}
+		});
+	}
+
+	private static final class Slot {
+		final String title;
+		PendingSave pending;
+		ScheduledFuture<?> timer;
+		DeferredServiceResult<Void> inFlight;
+		byte[] inFlightData;
+		boolean due;
+
+		Slot(String title) {
+			this.title = title;
+		}
+	}
+
+	private static final class PendingSave {
+		final long since;
+		final Array<DeferredServiceResult<Void>> submissions = new Array<>(false, 4);
+		SavedGame savedGame;
+		byte[] data;
+
+		PendingSave(long since) {
+			this.since = since;
+		}
+	}
+}
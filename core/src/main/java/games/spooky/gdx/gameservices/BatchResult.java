@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Outcome of a batch of operations, one per key: either a value or an error.
+ * Lets callers retry only the operations that failed.
+ *
+ * @param <K> type of the keys identifying operations, e.g. achievement ids
+ * @param <T> type of the values of successful operations
+ */
+public class BatchResult<K, T> {
+
+	private final ObjectMap<K, T> successes = new ObjectMap<>();
+	private final ObjectMap<K, ServiceError> failures = new ObjectMap<>();
+
+	public void putSuccess(K key, T value) {
+		failures.remove(key);
+		successes.put(key, value);
+	}
+
+	public void putFailure(K key, ServiceError error) {
+		successes.remove(key);
+		failures.put(key, error);
+	}
+
+	/**
+	 * Values of successful operations, by key.
+	 *
+	 * @return values of successful operations
+	 */
+	public ObjectMap<K, T> getSuccesses() {
+		return successes;
+	}
+
+	/**
+	 * Errors of failed operations, by key.
+	 *
+	 * @return errors of failed operations
+	 */
+	public ObjectMap<K, ServiceError> getFailures() {
+		return failures;
+	}
+
+	public boolean isSuccessful(K key) {
+		return successes.containsKey(key);
+	}
+
+	/**
+	 * Whether all operations succeeded.
+	 *
+	 * @return true if no operation failed
+	 */
+	public boolean isSuccessful() {
+		return failures.size == 0;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchResult{successes=" + successes + ", failures=" + failures + "}";
+	}
+}
@@ -0,0 +1,268 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+import com.badlogic.gdx.LifecycleListener;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import games.spooky.gdx.gameservices.leaderboard.LeaderboardEntry;
+import games.spooky.gdx.gameservices.leaderboard.LeaderboardOptions;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GameServicesHandler} decorator coalescing bursts of score
+ * submissions: only the best pending score of each leaderboard is sent, on a
+ * periodic flush, on pause or on {@link #flush()}.
+ * <p>
+ * A high-water mark of the best score known for each leaderboard (submitted
+ * through this handler, read through {@link #getPlayerScore(String, LeaderboardOptions)}
+ * or set through {@link #setKnownBest(String, long)}) filters out scores that
+ * cannot beat it: they succeed without being sent. Scores superseded by a
+ * better pending one complete along with it.
+ * <p>
+ * Leaderboards are assumed to rank higher scores first, see
+ * {@link #setSortOrder(String, SortOrder)} for the others.
+ * <p>
+ * Register it with {@code Gdx.app.addLifecycleListener(...)} so that pending
+ * scores are sent on pause and on exit.
+ */
+public class BestScoreGameServicesHandler extends DelegatingGameServicesHandler implements LifecycleListener {
+
+	public enum SortOrder {
+		/**
+		 * Higher scores are better, e.g. points.
+		 */
+		HigherIsBetter,
+		/**
+		 * Lower scores are better, e.g. lap times.
+		 */
+		LowerIsBetter
+	}
+
+	public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 15000L;
+
+	// All guarded by this
+	private final Map<String, PendingScore> pending = new HashMap<>();
+	private final Map<String, Long> knownBest = new HashMap<>();
+	private final Map<String, SortOrder> sortOrders = new HashMap<>();
+	private long flushInterval;
+	private ScheduledFuture<?> scheduledFlush;
+
+	public BestScoreGameServicesHandler(GameServicesHandler delegate) {
+		this(delegate, DEFAULT_FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	public BestScoreGameServicesHandler(GameServicesHandler delegate, long flushInterval, TimeUnit unit) {
+		super(delegate);
+		setFlushInterval(flushInterval, unit);
+	}
+
+	// Configuration
+
+	public synchronized long getFlushInterval(TimeUnit unit) {
+		return unit.convert(flushInterval, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Set the interval between two flushes of pending scores. Zero disables
+	 * periodic flushes, scores then being sent on pause or on {@link #flush()}
+	 * only.
+	 *
+	 * @param flushInterval the interval between flushes
+	 * @param unit the unit of the interval
+	 */
+	public synchronized void setFlushInterval(long flushInterval, TimeUnit unit) {
+		if (flushInterval < 0)
+			throw new IllegalArgumentException("Flush interval must not be negative");
+		this.flushInterval = unit.toNanos(flushInterval);
+		if (scheduledFlush != null) {
+			scheduledFlush.cancel(false);
+			scheduledFlush = null;
+		}
+		if (this.flushInterval > 0) {
+			scheduledFlush = ServiceTimer.timer.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					flush();
+				}
+			}, this.flushInterval, this.flushInterval, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	public synchronized SortOrder getSortOrder(String leaderboardId) {
+		SortOrder order = sortOrders.get(leaderboardId);
+		return order == null ? SortOrder.HigherIsBetter : order;
+	}
+
+	public synchronized void setSortOrder(String leaderboardId, SortOrder order) {
+		sortOrders.put(leaderboardId, order);
+	}
+
+	/**
+	 * Best score known for given leaderboard, below which scores are not sent.
+	 *
+	 * @param leaderboardId the id of the leaderboard
+	 * @return the best known score, or null if unknown
+	 */
+	public synchronized Long getKnownBest(String leaderboardId) {
+		return knownBest.get(leaderboardId);
+	}
+
+	/**
+	 * Seed the best score known for given leaderboard, e.g. from saved data.
+	 * Ignored if not better than the one already known.
+	 *
+	 * @param leaderboardId the id of the leaderboard
+	 * @param score the best score of the player
+	 */
+	public synchronized void setKnownBest(String leaderboardId, long score) {
+		Long best = knownBest.get(leaderboardId);
+		if (best == null || isBetter(leaderboardId, score, best))
+			knownBest.put(leaderboardId, score);
+	}
+
+	public synchronized int getPendingCount() {
+		return pending.size();
+	}
+
+	// Flush
+
+	/**
+	 * Send the best pending score of each leaderboard now.
+	 */
+	public void flush() {
+		Array<PendingScore> scores;
+		synchronized (this) {
+			if (pending.isEmpty())
+				return;
+			scores = new Array<>(pending.size());
+			for (PendingScore score : pending.values())
+				scores.add(score);
+			pending.clear();
+		}
+		for (final PendingScore score : scores) {
+			delegate.submitScore(score.leaderboardId, score.score).onCompletion(new ServiceCompletionCallback<Void>() {
+				@Override
+				public void onSuccess(Void result) {
+					setKnownBest(score.leaderboardId, score.score);
+					for (DeferredServiceResult<Void> submission : score.submissions)
+						submission.succeed(null);
+				}
+
+				@Override
+				public void onError(ServiceError error) {
+					for (DeferredServiceResult<Void> submission : score.submissions)
+						submission.fail(error);
+				}
+			});
+		}
+	}
+
+	@Override
+	public void pause() {
+		flush();
+	}
+
+	@Override
+	public void resume() {
+	}
+
+	@Override
+	public void dispose() {
+		synchronized (this) {
+			if (scheduledFlush != null) {
+				scheduledFlush.cancel(false);
+				scheduledFlush = null;
+			}
+		}
+		flush();
+	}
+
+	// Leaderboards
+
+	@Override
+	public AsyncServiceResult<LeaderboardEntry> getPlayerScore(final String leaderboardId, LeaderboardOptions options) {
+		AsyncServiceResult<LeaderboardEntry> result = delegate.getPlayerScore(leaderboardId, options);
+		result.onSuccess(new ServiceSuccessCallback<LeaderboardEntry>() {
+			@Override
+			public void onSuccess(LeaderboardEntry entry) {
+				if (entry != null)
+					setKnownBest(leaderboardId, entry.getScore());
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public AsyncServiceResult<ObjectMap<String, LeaderboardEntry>> getPlayerScores(Iterable<String> leaderboardIds, LeaderboardOptions options) {
+		AsyncServiceResult<ObjectMap<String, LeaderboardEntry>> result = delegate.getPlayerScores(leaderboardIds, options);
+		result.onSuccess(new ServiceSuccessCallback<ObjectMap<String, LeaderboardEntry>>() {
+			@Override
+			public void onSuccess(ObjectMap<String, LeaderboardEntry> entries) {
+				for (ObjectMap.Entry<String, LeaderboardEntry> entry : entries.entries()) {
+					if (entry.value != null)
+						setKnownBest(entry.key, entry.value.getScore());
+				}
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public synchronized AsyncServiceResult<Void> submitScore(String leaderboardId, long score) {
+		Long best = knownBest.get(leaderboardId);
+		if (best != null && !isBetter(leaderboardId, score, best))
+			return new SyncSuccessServiceResult<>(null); // Would not change anything
+
+		DeferredServiceResult<Void> submission = new DeferredServiceResult<>();
+		PendingScore pendingScore = pending.get(leaderboardId);
+		if (pendingScore == null) {
+			pendingScore = new PendingScore(leaderboardId, score);
+			pending.put(leaderboardId, pendingScore);
+		} else if (isBetter(leaderboardId, score, pendingScore.score)) {
+			pendingScore.score = score;
+		}
+		pendingScore.submissions.add(submission);
+		return submission;
+	}
+
+	private boolean isBetter(String leaderboardId, long score, long than) {
+		return getSortOrder(leaderboardId) == SortOrder.LowerIsBetter ? score < than : score > than;
+	}
+
+	private static final class PendingScore {
+		final String leaderboardId;
+		final Array<DeferredServiceResult<Void>> submissions = new Array<>(false, 4);
+		long score;
+
+		PendingScore(String leaderboardId, long score) {
+			this.leaderboardId = leaderboardId;
+			this.score = score;
+		}
+	}
+}
@@ -0,0 +1,547 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import games.spooky.gdx.gameservices.achievement.Achievement;
+import games.spooky.gdx.gameservices.leaderboard.LeaderboardEntry;
+import games.spooky.gdx.gameservices.leaderboard.LeaderboardOptions;
+import games.spooky.gdx.gameservices.savedgame.SavedGame;
+
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GameServicesHandler} decorator caching reads in a bounded LRU, with a
+ * time to live per {@link CachedRead kind of read}.
+ * <p>
+ * Past its time to live, an entry is still served for a while (the stale
+ * window) while a single background request refreshes it. Entries are
+ * invalidated as soon as a matching write succeeds (e.g. achievements on
+ * {@link #unlockAchievement(String)}, scores of a leaderboard on
+ * {@link #submitScore(String, long)}) and the whole cache is cleared on
+ * login. Errors are never cached.
+ * <p>
+ * Cached values are shared between callers and must not be modified.
+ */
+public class CachingGameServicesHandler extends DelegatingGameServicesHandler {
+
+	/**
+	 * Reads held by the cache.
+	 */
+	public enum CachedRead {
+		PlayerAvatar(TimeUnit.HOURS.toNanos(1)),
+		Achievements(TimeUnit.MINUTES.toNanos(1)),
+		PlayerScore(TimeUnit.SECONDS.toNanos(30)),
+		Scores(TimeUnit.SECONDS.toNanos(30)),
+		SavedGames(TimeUnit.MINUTES.toNanos(1));
+
+		private final long defaultTimeToLive;
+
+		CachedRead(long defaultTimeToLive) {
+			this.defaultTimeToLive = defaultTimeToLive;
+		}
+	}
+
+	public static final int DEFAULT_MAX_ENTRIES = 64;
+	public static final long DEFAULT_STALE_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+	private static final CachedRead[] reads = CachedRead.values();
+
+	// All guarded by entries
+	private final LinkedHashMap<ServiceCallKey, CachedValue> entries;
+	private final long[] timesToLive = new long[reads.length];
+	private final long[] staleWindows = new long[reads.length];
+	private final long[] generations = new long[reads.length]; // Bumped on invalidation, discards values fetched before
+	private int maxEntries;
+	private long hitCount;
+	private long staleHitCount;
+	private long missCount;
+
+	public CachingGameServicesHandler(GameServicesHandler delegate) {
+		this(delegate, DEFAULT_MAX_ENTRIES);
+	}
+
+	public CachingGameServicesHandler(GameServicesHandler delegate, int maxEntries) {
+		super(delegate);
+		if (maxEntries < 1)
+			throw new IllegalArgumentException("Cache must hold at least one entry");
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<ServiceCallKey, CachedValue>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ServiceCallKey, CachedValue> eldest) {
+				return size() > CachingGameServicesHandler.this.maxEntries;
+			}
+		};
+		for (CachedRead read : reads) {
+			timesToLive[read.ordinal()] = read.defaultTimeToLive;
+			staleWindows[read.ordinal()] = DEFAULT_STALE_WINDOW_NANOS;
+		}
+	}
+
+	// Configuration
+
+	public int getMaxEntries() {
+		synchronized (entries) {
+			return maxEntries;
+		}
+	}
+
+	public void setMaxEntries(int maxEntries) {
+		if (maxEntries < 1)
+			throw new IllegalArgumentException("Cache must hold at least one entry");
+		synchronized (entries) {
+			this.maxEntries = maxEntries;
+			Iterator<ServiceCallKey> iterator = entries.keySet().iterator();
+			while (entries.size() > maxEntries) {
+				iterator.next();
+				iterator.remove();
+			}
+		}
+	}
+
+	public long getTimeToLive(CachedRead read, TimeUnit unit) {
+		synchronized (entries) {
+			return unit.convert(timesToLive[read.ordinal()], TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Set how long given kind of read is served from the cache without
+	 * querying the underlying handler. Zero bypasses the cache for this read,
+	 * stale window included: every call queries the underlying handler.
+	 *
+	 * @param read the kind of read
+	 * @param timeToLive the time to live of cached values
+	 * @param unit the unit of the time to live
+	 */
+	public void setTimeToLive(CachedRead read, long timeToLive, TimeUnit unit) {
+		if (timeToLive < 0)
+			throw new IllegalArgumentException("Time to live must not be negative");
+		synchronized (entries) {
+			timesToLive[read.ordinal()] = unit.toNanos(timeToLive);
+		}
+		if (timeToLive == 0)
+			invalidate(read, null);
+	}
+
+	public long getStaleWindow(CachedRead read, TimeUnit unit) {
+		synchronized (entries) {
+			return unit.convert(staleWindows[read.ordinal()], TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Set how long given kind of read is still served from the cache once its
+	 * time to live has expired, while being refreshed in the background. Zero
+	 * disables stale-while-revalidate for this read.
+	 *
+	 * @param read the kind of read
+	 * @param staleWindow the duration stale values are served for
+	 * @param unit the unit of the duration
+	 */
+	public void setStaleWindow(CachedRead read, long staleWindow, TimeUnit unit) {
+		if (staleWindow < 0)
+			throw new IllegalArgumentException("Stale window must not be negative");
+		synchronized (entries) {
+			staleWindows[read.ordinal()] = unit.toNanos(staleWindow);
+		}
+	}
+
+	// Statistics
+
+	public int getSize() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public long getHitCount() {
+		synchronized (entries) {
+			return hitCount;
+		}
+	}
+
+	public long getStaleHitCount() {
+		synchronized (entries) {
+			return staleHitCount;
+		}
+	}
+
+	public long getMissCount() {
+		synchronized (entries) {
+			return missCount;
+		}
+	}
+
+	// Invalidation
+
+	/**
+	 * Remove every cached value of given kind of read.
+	 *
+	 * @param read the kind of read to invalidate
+	 */
+	public void invalidate(CachedRead read) {
+		invalidate(read, null);
+	}
+
+	/**
+	 * Remove every cached value.
+	 */
+	public void invalidateAll() {
+		synchronized (entries) {
+			for (int i = 0; i < generations.length; i++)
+				generations[i]++;
+			entries.clear();
+		}
+	}
+
+	private void invalidate(CachedRead read, String leaderboardId) {
+		String method = read.name();
+		synchronized (entries) {
+			generations[read.ordinal()]++;
+			Iterator<ServiceCallKey> iterator = entries.keySet().iterator();
+			while (iterator.hasNext()) {
+				ServiceCallKey key = iterator.next();
+				if (key.getMethod().equals(method) && (leaderboardId == null || leaderboardId.equals(key.getArgument(0))))
+					iterator.remove();
+			}
+		}
+	}
+
+	private <T> AsyncServiceResult<T> invalidateOnSuccess(AsyncServiceResult<T> write, final CachedRead read, final String leaderboardId) {
+		write.onSuccess(new ServiceSuccessCallback<T>() {
+			@Override
+			public void onSuccess(T result) {
+				invalidate(read, leaderboardId);
+			}
+		});
+		return write;
+	}
+
+	// Authentication
+
+	@Override
+	public AsyncServiceResult<Void> login() {
+		AsyncServiceResult<Void> login = delegate.login();
+		login.onSuccess(new ServiceSuccessCallback<Void>() {
+			@Override
+			public void onSuccess(Void result) {
+				// Possibly another player
+				invalidateAll();
+			}
+		});
+		return login;
+	}
+
+	@Override
+	public AsyncServiceResult<byte[]> getPlayerAvatar() {
+		return read(CachedRead.PlayerAvatar, new ServiceCallKey(CachedRead.PlayerAvatar.name()), new Fetch<byte[]>() {
+			@Override
+			public AsyncServiceResult<byte[]> call() {
+				return delegate.getPlayerAvatar();
+			}
+		});
+	}
+
+	// Achievements
+
+	@Override
+	public AsyncServiceResult<Iterable<Achievement>> getAchievements() {
+		return read(CachedRead.Achievements, new ServiceCallKey(CachedRead.Achievements.name()), new Fetch<Iterable<Achievement>>() {
+			@Override
+			public AsyncServiceResult<Iterable<Achievement>> call() {
+				return delegate.getAchievements();
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<Void> unlockAchievement(String achievementId) {
+		return invalidateOnSuccess(delegate.unlockAchievement(achievementId), CachedRead.Achievements, null);
+	}
+
+	@Override
+	public AsyncServiceResult<BatchResult<String, Void>> unlockAchievements(Iterable<String> achievementIds) {
+		// Even partially successful, the batch changed achievements
+		return invalidateOnSuccess(delegate.unlockAchievements(achievementIds), CachedRead.Achievements, null);
+	}
+
+	// Leaderboards
+
+	@Override
+	public AsyncServiceResult<LeaderboardEntry> getPlayerScore(final String leaderboardId, final LeaderboardOptions options) {
+		return read(CachedRead.PlayerScore, playerScoreKey(leaderboardId, options), new Fetch<LeaderboardEntry>() {
+			@Override
+			public AsyncServiceResult<LeaderboardEntry> call() {
+				return delegate.getPlayerScore(leaderboardId, options);
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<ObjectMap<String, LeaderboardEntry>> getPlayerScores(Iterable<String> leaderboardIds, LeaderboardOptions options) {
+		if (bypasses(CachedRead.PlayerScore))
+			return delegate.getPlayerScores(leaderboardIds, options);
+
+		// Shares entries with getPlayerScore, only leaderboards missing from the cache are fetched
+		final ObjectMap<String, LeaderboardEntry> cached = new ObjectMap<>();
+		Array<String> missing = new Array<>();
+		Array<String> stale = new Array<>();
+		Array<CachedValue> staleEntries = new Array<>();
+		long generation;
+		long now = System.nanoTime();
+		synchronized (entries) {
+			generation = generations[CachedRead.PlayerScore.ordinal()];
+			for (String leaderboardId : leaderboardIds) {
+				CachedValue entry = lookup(CachedRead.PlayerScore, playerScoreKey(leaderboardId, options), now);
+				if (entry == null) {
+					missing.add(leaderboardId);
+				} else {
+					cached.put(leaderboardId, (LeaderboardEntry) entry.value);
+					if (claimRevalidation(CachedRead.PlayerScore, entry, now)) {
+						stale.add(leaderboardId);
+						staleEntries.add(entry);
+					}
+				}
+			}
+		}
+
+		if (stale.size > 0)
+			storePlayerScores(stale, options, generation, staleEntries, delegate.getPlayerScores(stale, options));
+
+		if (missing.size == 0)
+			return new SyncSuccessServiceResult<>(cached);
+
+		AsyncServiceResult<ObjectMap<String, LeaderboardEntry>> fetched = delegate.getPlayerScores(missing, options);
+		storePlayerScores(missing, options, generation, new Array<CachedValue>(0), fetched);
+		if (cached.size == 0)
+			return fetched;
+		return AsyncServiceResults.map(fetched, new AsyncServiceResults.Mapper<ObjectMap<String, LeaderboardEntry>, ObjectMap<String, LeaderboardEntry>>() {
+			@Override
+			public ObjectMap<String, LeaderboardEntry> map(ObjectMap<String, LeaderboardEntry> scores) {
+				ObjectMap<String, LeaderboardEntry> merged = new ObjectMap<>(cached);
+				merged.putAll(scores);
+				return merged;
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<Iterable<LeaderboardEntry>> getScores(final String leaderboardId, final LeaderboardOptions options) {
+		return read(CachedRead.Scores, new ServiceCallKey(CachedRead.Scores.name(), leaderboardId, options), new Fetch<Iterable<LeaderboardEntry>>() {
+			@Override
+			public AsyncServiceResult<Iterable<LeaderboardEntry>> call() {
+				return delegate.getScores(leaderboardId, options);
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitScore(final String leaderboardId, long score) {
+		AsyncServiceResult<Void> submit = delegate.submitScore(leaderboardId, score);
+		submit.onSuccess(new ServiceSuccessCallback<Void>() {
+			@Override
+			public void onSuccess(Void result) {
+				invalidate(CachedRead.PlayerScore, leaderboardId);
+				invalidate(CachedRead.Scores, leaderboardId);
+			}
+		});
+		return submit;
+	}
+
+	// Saved games
+
+	@Override
+	public AsyncServiceResult<Iterable<SavedGame>> getSavedGames() {
+		return read(CachedRead.SavedGames, new ServiceCallKey(CachedRead.SavedGames.name()), new Fetch<Iterable<SavedGame>>() {
+			@Override
+			public AsyncServiceResult<Iterable<SavedGame>> call() {
+				return delegate.getSavedGames();
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(SavedGame savedGame, byte[] data) {
+		return invalidateOnSuccess(delegate.submitSavedGame(savedGame, data), CachedRead.SavedGames, null);
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(SavedGame savedGame, InputStream data, long length) {
+		return invalidateOnSuccess(delegate.submitSavedGame(savedGame, data, length), CachedRead.SavedGames, null);
+	}
+
+	@Override
+	public AsyncServiceResult<Void> deleteSavedGame(SavedGame savedGame) {
+		return invalidateOnSuccess(delegate.deleteSavedGame(savedGame), CachedRead.SavedGames, null);
+	}
+
+	// Read-through
+
+	private <T> AsyncServiceResult<T> read(CachedRead read, ServiceCallKey key, Fetch<T> fetch) {
+		if (bypasses(read))
+			return fetch.call();
+
+		long now = System.nanoTime();
+		CachedValue entry;
+		long generation;
+		boolean revalidate;
+		synchronized (entries) {
+			generation = generations[read.ordinal()];
+			entry = lookup(read, key, now);
+			revalidate = entry != null && claimRevalidation(read, entry, now);
+		}
+
+		if (entry == null) {
+			AsyncServiceResult<T> result = fetch.call();
+			store(read, key, generation, null, result);
+			return result;
+		}
+
+		if (revalidate)
+			store(read, key, generation, entry, fetch.call());
+
+		@SuppressWarnings("unchecked")
+		T value = (T) entry.value;
+		return new SyncSuccessServiceResult<>(value);
+	}
+
+	private boolean bypasses(CachedRead read) {
+		synchronized (entries) {
+			return timesToLive[read.ordinal()] == 0L;
+		}
+	}
+
+	/**
+	 * Cached value of given key that can still be served, fresh or stale.
+	 * Must be called holding the lock on entries.
+	 */
+	private CachedValue lookup(CachedRead read, ServiceCallKey key, long now) {
+		CachedValue entry = entries.get(key);
+		if (entry != null) {
+			long timeToLive = timesToLive[read.ordinal()];
+			long age = now - entry.fetchedAt;
+			if (age < timeToLive) {
+				hitCount++;
+				return entry;
+			} else if (age < timeToLive + staleWindows[read.ordinal()]) {
+				staleHitCount++;
+				return entry;
+			}
+			entries.remove(key);
+		}
+		missCount++;
+		return null;
+	}
+
+	/**
+	 * Whether the caller should refresh given stale value, only one caller
+	 * does. Must be called holding the lock on entries.
+	 */
+	private boolean claimRevalidation(CachedRead read, CachedValue entry, long now) {
+		if (now - entry.fetchedAt < timesToLive[read.ordinal()] || entry.revalidating)
+			return false;
+		entry.revalidating = true;
+		return true;
+	}
+
+	private void storePlayerScores(final Array<String> leaderboardIds, final LeaderboardOptions options, final long generation, final Array<CachedValue> stale, AsyncServiceResult<ObjectMap<String, LeaderboardEntry>> result) {
+		result.onCompletion(new ServiceCompletionCallback<ObjectMap<String, LeaderboardEntry>>() {
+			@Override
+			public void onSuccess(ObjectMap<String, LeaderboardEntry> scores) {
+				synchronized (entries) {
+					// Left out ones were not refreshed, discarded ones neither: let a later read try again
+					for (CachedValue entry : stale)
+						entry.revalidating = false;
+					if (generation != generations[CachedRead.PlayerScore.ordinal()] || timesToLive[CachedRead.PlayerScore.ordinal()] == 0)
+						return;
+					long now = System.nanoTime();
+					for (String leaderboardId : leaderboardIds) {
+						LeaderboardEntry score = scores.get(leaderboardId);
+						if (score != null)
+							entries.put(playerScoreKey(leaderboardId, options), new CachedValue(score, now));
+					}
+				}
+			}
+
+			@Override
+			public void onError(ServiceError error) {
+				synchronized (entries) {
+					for (CachedValue entry : stale)
+						entry.revalidating = false;
+				}
+			}
+		});
+	}
+
+	private static ServiceCallKey playerScoreKey(String leaderboardId, LeaderboardOptions options) {
+		return new ServiceCallKey(CachedRead.PlayerScore.name(), leaderboardId, options);
+	}
+
+	private <T> void store(final CachedRead read, final ServiceCallKey key, final long generation, final CachedValue stale, AsyncServiceResult<T> result) {
+		result.onCompletion(new ServiceCompletionCallback<T>() {
+			@Override
+			public void onSuccess(T value) {
+				synchronized (entries) {
+					// Let a later read try again if the value is dropped
+					if (stale != null)
+						stale.revalidating = false;
+					// Drop values fetched before an invalidation, or not meant to be cached
+					if (generation == generations[read.ordinal()] && timesToLive[read.ordinal()] > 0)
+						entries.put(key, new CachedValue(value, System.nanoTime()));
+				}
+			}
+
+			@Override
+			public void onError(ServiceError error) {
+				if (stale != null) {
+					synchronized (entries) {
+						// Let a later read try again
+						stale.revalidating = false;
+					}
+				}
+			}
+		});
+	}
+
+	private interface Fetch<T> {
+		AsyncServiceResult<T> call();
+	}
+
+	private static final class CachedValue {
+		final Object value;
+		final long fetchedAt;
+		boolean revalidating; // Guarded by entries
+
+		CachedValue(Object value, long fetchedAt) {
+			this.value = value;
+			this.fetchedAt = fetchedAt;
+		}
+	}
+}
@@ -23,88 +23,61 @@
  */
 package games.spooky.gdx.gameservices;
 
-import com.badlogic.gdx.utils.Array;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public abstract class CallbackAsyncServiceResult<TCallback, TResult> implements AsyncServiceResult<TResult> {
+/**
+ * {@link AsyncServiceResult} completed by a callback-based asynchronous call.
+ * <p>
+ * The raw result is transformed only once, upon completion, and the
+ * transformed value (or the transformation failure) is then handed to every
+ * callback, whenever it was registered. See {@link AbstractAsyncServiceResult}
+ * for the underlying lock-free state machine.
+ *
+ * @param <TCallback> type of the raw result of the asynchronous call
+ * @param <TResult> type of the result exposed to callbacks
+ */
+public abstract class CallbackAsyncServiceResult<TCallback, TResult> extends AbstractAsyncServiceResult<TResult> {
 
     public interface Callback<T> {
         void onSuccess(T value);
         void onError(Throwable error);
     }
 
-    private final Array<ServiceSuccessCallback<TResult>> successCallbacks = new Array<>();
-    private final Array<ServiceErrorCallback> errorCallbacks = new Array<>();
-
-    private boolean completed = false;
-
-    private TCallback result;
-    private Throwable error;
+    private final AtomicBoolean completing = new AtomicBoolean();
 
     public CallbackAsyncServiceResult() {
         callAsync(new Callback<TCallback>() {
             @Override
             public void onSuccess(TCallback result) {
-                synchronized (CallbackAsyncServiceResult.this) {
-                    completed = true;
-                    CallbackAsyncServiceResult.this.result = result;
-                    checkExistingResponse();
+                if (!completing.compareAndSet(false, true) || isCompleted())
+                    return; // Completed twice, or cancelled meanwhile
+                TResult transformed;
+                try {
+                    transformed = transformResult(result);
+                } catch (Throwable e) {
+                    fail(toServiceError(e));
+                    return;
                 }
+                succeed(transformed);
             }
 
             @Override
             public void onError(Throwable error) {
-                synchronized (CallbackAsyncServiceResult.this) {
-                    completed = true;
-                    CallbackAsyncServiceResult.this.error = error;
-                    checkExistingResponse();
-                }
+                if (completing.compareAndSet(false, true))
+                    fail(toServiceError(error));
             }
         });
     }
 
-    @Override
-    public void onSuccess(ServiceSuccessCallback<TResult> callback) {
-        synchronized (this) {
-            successCallbacks.add(callback);
-            checkExistingResponse();
-        }
-    }
-
-    @Override
-    public void onError(ServiceErrorCallback callback) {
-        synchronized (this) {
-            errorCallbacks.add(callback);
-            checkExistingResponse();
-        }
-    }
-
-    @Override
-    public void onCompletion(ServiceCompletionCallback<TResult> callback) {
-        synchronized (this) {
-            successCallbacks.add(callback);
-            errorCallbacks.add(callback);
-            checkExistingResponse();
-        }
-    }
-
-    void checkExistingResponse() {
-        if (completed) {
-            if (error != null) {
-                ServiceError serviceError = new ExceptionServiceError(error);
-                for (ServiceErrorCallback callback : errorCallbacks)
-                    callback.onError(serviceError);
-            } else {
-                try {
-                    TResult transformed = transformResult(result);
-                    for (ServiceSuccessCallback<TResult> callback : successCallbacks)
-                        callback.onSuccess(transformed);
-                } catch (Throwable e) {
-                    ServiceError serviceError = new ExceptionServiceError(e);
-                    for (ServiceErrorCallback callback : errorCallbacks)
-                        callback.onError(serviceError);
-                }
-            }
-        }
+    /**
+     * Convert an error raised by the asynchronous call, or by
+     * {@link #transformResult(Object)}, into the error handed to callbacks.
+     *
+     * @param error the error raised
+     * @return the matching service error
+     */
+    protected ServiceError toServiceError(Throwable error) {
+        return error == null ? SimpleServiceError.error(-1) : new ExceptionServiceError(error);
     }
 
     protected abstract void callAsync(Callback<TCallback> callback);
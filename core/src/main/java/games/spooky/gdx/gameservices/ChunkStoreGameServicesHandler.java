@@ -0,0 +1,750 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import games.spooky.gdx.gameservices.savedgame.SavedGame;
+import games.spooky.gdx.gameservices.savedgame.SavedGameStreams;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link GameServicesHandler} decorator keeping the last versions of each
+ * saved game, without as many full copies of them.
+ * <p>
+ * Content is split into chunks by {@link ContentDefinedChunker content-defined
+ * chunking} and each chunk is stored once, as a saved game of its own whose
+ * title is derived from its hash (hidden from {@link #getSavedGames()}). The
+ * saved game itself only holds a manifest listing the chunks of its last
+ * versions. Submitting a new version only uploads chunks the game service
+ * does not already have, and loading any version only downloads chunks not
+ * held locally.
+ * <p>
+ * Chunks and manifests are mirrored in a local directory, chunks no local
+ * manifest refers to anymore being deleted from it. Chunks no manifest of the
+ * game service refers to anymore are deleted from it by
+ * {@link #collectGarbage()}. Content saved before history was kept is loaded
+ * as is.
+ */
+public class ChunkStoreGameServicesHandler extends DelegatingGameServicesHandler {
+
+	public static final int DEFAULT_HISTORY_SIZE = 10;
+
+	static final String CHUNK_PREFIX = ".chunk-";
+
+	private static final byte[] MAGIC = { (byte) 0x89, 'G', 'S', 'M' };
+	private static final int HASH_SIZE = 16;
+	private static final int MAX_CONCURRENCY = 4;
+	// Chunks of a submission in progress, on any device, are not referenced yet
+	private static final long CHUNK_GRACE_MILLIS = 24L * 60L * 60L * 1000L;
+	// Chunks listed longer ago may have been collected by another device since
+	private static final long LISTING_TTL_MILLIS = 60L * 60L * 1000L;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final FileHandle chunkDirectory;
+	private final FileHandle manifestDirectory;
+	private final int historySize;
+	private final Set<String> remoteChunks = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private volatile long remoteChunksListedAt = Long.MIN_VALUE;
+
+	public ChunkStoreGameServicesHandler(GameServicesHandler delegate, FileHandle directory) {
+		this(delegate, directory, DEFAULT_HISTORY_SIZE);
+	}
+
+	/**
+	 * @param delegate the handler to store chunks and manifests with
+	 * @param directory the local directory to mirror chunks and manifests in
+	 * @param historySize the number of versions kept per saved game
+	 */
+	public ChunkStoreGameServicesHandler(GameServicesHandler delegate, FileHandle directory, int historySize) {
+		super(delegate);
+		if (historySize < 1)
+			throw new IllegalArgumentException("History size must be positive");
+		this.chunkDirectory = directory.child("chunks");
+		this.manifestDirectory = directory.child("manifests");
+		this.historySize = historySize;
+	}
+
+	// History
+
+	/**
+	 * Versions of given saved game kept by the game service, most recent
+	 * first. Empty for content saved before history was kept.
+	 *
+	 * @param savedGame the saved game to get versions of
+	 * @return an AsyncServiceResult to handle success/error
+	 */
+	public AsyncServiceResult<Array<Version>> getVersions(final SavedGame savedGame) {
+		return AsyncServiceResults.map(delegate.loadSavedGameData(savedGame), new AsyncServiceResults.Mapper<byte[], Array<Version>>() {
+			@Override
+			public Array<Version> map(byte[] value) throws IOException {
+				if (!isManifest(value))
+					return new Array<>();
+				Array<Version> versions = readManifest(value);
+				storeManifest(savedGame.getTitle(), value);
+				return versions;
+			}
+		});
+	}
+
+	/**
+	 * Load the content of given version, downloading only the chunks not
+	 * held locally.
+	 *
+	 * @param version the version to load, from {@link #getVersions(SavedGame)}
+	 * @return an AsyncServiceResult to handle success/error
+	 */
+	public AsyncServiceResult<byte[]> loadVersion(Version version) {
+		return assemble(version);
+	}
+
+	/**
+	 * Make given version the current one again. No content is uploaded, only
+	 * the manifest.
+	 *
+	 * @param savedGame the saved game to roll back
+	 * @param version the version to restore, from {@link #getVersions(SavedGame)}
+	 * @return an AsyncServiceResult to handle success/error
+	 */
+	public AsyncServiceResult<Void> restoreVersion(SavedGame savedGame, Version version) {
+		return submitManifest(savedGame, version);
+	}
+
+	/**
+	 * Delete the chunks no manifest of the game service refers to anymore,
+	 * loading every manifest. Nothing is deleted if any of them cannot be
+	 * loaded. Chunks uploaded in the last 24 hours are kept, as they may belong
+	 * to a submission in progress.
+	 * <p>
+	 * Devices trust their listing of chunks for an hour, a submission from
+	 * another device reusing a chunk deleted meanwhile would lose it: best
+	 * run when other devices are unlikely to submit, e.g. after signing in.
+	 *
+	 * @return an AsyncServiceResult to handle success/error, holding the number of chunks deleted
+	 */
+	public AsyncServiceResult<Integer> collectGarbage() {
+		final ObjectMap<String, Long> chunks = new ObjectMap<>();
+		final Array<SavedGame> savedGames = new Array<>();
+		final Array<Integer> indices = new Array<>();
+		AsyncServiceResult<Void> listing = AsyncServiceResults.map(delegate.getSavedGames(), new AsyncServiceResults.Mapper<Iterable<SavedGame>, Void>() {
+			@Override
+			public Void map(Iterable<SavedGame> value) {
+				for (SavedGame savedGame : value) {
+					String title = savedGame.getTitle();
+					if (title != null && title.startsWith(CHUNK_PREFIX))
+						chunks.put(title.substring(CHUNK_PREFIX.length()), savedGame.getTimestamp());
+					else
+						savedGames.add(savedGame);
+				}
+				// Saved games may not tell duplicates apart, their indices do
+				for (int i = 0; i < savedGames.size; i++)
+					indices.add(i);
+				return null;
+			}
+		});
+		return AsyncServiceResults.flatMap(listing, new AsyncServiceResults.FlatMapper<Void, Integer>() {
+			@Override
+			public AsyncServiceResult<Integer> flatMap(Void value) {
+				return AsyncServiceResults.flatMap(AsyncServiceResults.fanOut(indices, MAX_CONCURRENCY, new AsyncServiceResults.FlatMapper<Integer, byte[]>() {
+					@Override
+					public AsyncServiceResult<byte[]> flatMap(Integer index) {
+						return delegate.loadSavedGameData(savedGames.get(index));
+					}
+				}), new AsyncServiceResults.FlatMapper<BatchResult<Integer, byte[]>, Integer>() {
+					@Override
+					public AsyncServiceResult<Integer> flatMap(BatchResult<Integer, byte[]> batch) throws IOException {
+						if (batch.getFailures().size > 0)
+							return new SyncErrorServiceResult<>(batch.getFailures().values().next());
+						for (byte[] content : batch.getSuccesses().values()) {
+							if (isManifest(content)) {
+								for (Version version : readManifest(content)) {
+									for (String hash : version.chunks)
+										chunks.remove(hash);
+								}
+							}
+						}
+						return deleteChunks(chunks);
+					}
+				});
+			}
+		});
+	}
+
+	private AsyncServiceResult<Integer> deleteChunks(ObjectMap<String, Long> unreferenced) {
+		long limit = System.currentTimeMillis() - CHUNK_GRACE_MILLIS;
+		Array<String> garbage = new Array<>();
+		for (ObjectMap.Entry<String, Long> entry : unreferenced) {
+			if (entry.value < limit)
+				garbage.add(entry.key);
+		}
+		return AsyncServiceResults.map(AsyncServiceResults.fanOut(garbage, MAX_CONCURRENCY, new AsyncServiceResults.FlatMapper<String, Void>() {
+			@Override
+			public AsyncServiceResult<Void> flatMap(String hash) {
+				remoteChunks.remove(hash);
+				return delegate.deleteSavedGame(new ChunkSavedGame(hash, 0L));
+			}
+		}), new AsyncServiceResults.Mapper<BatchResult<String, Void>, Integer>() {
+			@Override
+			public Integer map(BatchResult<String, Void> batch) {
+				return batch.getSuccesses().size;
+			}
+		});
+	}
+
+	// Saved games
+
+	@Override
+	public AsyncServiceResult<Iterable<SavedGame>> getSavedGames() {
+		return AsyncServiceResults.map(delegate.getSavedGames(), new AsyncServiceResults.Mapper<Iterable<SavedGame>, Iterable<SavedGame>>() {
+			@Override
+			public Iterable<SavedGame> map(Iterable<SavedGame> value) {
+				return listed(value);
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<byte[]> loadSavedGameData(final SavedGame savedGame) {
+		return AsyncServiceResults.flatMap(delegate.loadSavedGameData(savedGame), new AsyncServiceResults.FlatMapper<byte[], byte[]>() {
+			@Override
+			public AsyncServiceResult<byte[]> flatMap(byte[] value) throws IOException {
+				if (!isManifest(value))
+					return new SyncSuccessServiceResult<>(value); // Saved before history was kept
+				Array<Version> versions = readManifest(value);
+				storeManifest(savedGame.getTitle(), value);
+				return assemble(versions.first());
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<Void> loadSavedGameData(SavedGame savedGame, final OutputStream output) {
+		return AsyncServiceResults.map(loadSavedGameData(savedGame), new AsyncServiceResults.Mapper<byte[], Void>() {
+			@Override
+			public Void map(byte[] value) throws IOException {
+				output.write(value);
+				output.flush();
+				return null;
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(final SavedGame savedGame, final byte[] data) {
+		final Version version;
+		try {
+			version = split(data, savedGame.getTimestamp());
+		} catch (GdxRuntimeException e) {
+			return new SyncErrorServiceResult<>(new ExceptionServiceError(e));
+		}
+		return AsyncServiceResults.flatMap(uploadChunks(version, data), new AsyncServiceResults.FlatMapper<Void, Void>() {
+			@Override
+			public AsyncServiceResult<Void> flatMap(Void value) {
+				return submitManifest(savedGame, version);
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(SavedGame savedGame, InputStream data, long length) {
+		// Chunks are hashed and uploaded from the whole content
+		byte[] content;
+		try {
+			content = SavedGameStreams.readFully(data, length);
+		} catch (IOException e) {
+			return new SyncErrorServiceResult<>(new ExceptionServiceError(e));
+		}
+		return submitSavedGame(savedGame, content);
+	}
+
+	@Override
+	public AsyncServiceResult<Void> deleteSavedGame(final SavedGame savedGame) {
+		return AsyncServiceResults.map(delegate.deleteSavedGame(savedGame), new AsyncServiceResults.Mapper<Void, Void>() {
+			@Override
+			public Void map(Void value) {
+				manifestFile(savedGame.getTitle()).delete();
+				pruneChunks();
+				return null;
+			}
+		});
+	}
+
+	// Chunks
+
+	private Iterable<SavedGame> listed(Iterable<SavedGame> savedGames) {
+		Array<SavedGame> listed = new Array<>();
+		for (SavedGame savedGame : savedGames) {
+			String title = savedGame.getTitle();
+			if (title != null && title.startsWith(CHUNK_PREFIX))
+				remoteChunks.add(title.substring(CHUNK_PREFIX.length()));
+			else
+				listed.add(savedGame);
+		}
+		remoteChunksListedAt = System.currentTimeMillis();
+		return listed;
+	}
+
+	/**
+	 * Split given content into chunks, storing new ones locally.
+	 */
+	private Version split(byte[] data, long timestamp) {
+		Array<String> hashes = new Array<>();
+		int[] lengths = new int[data.length / ContentDefinedChunker.MIN_SIZE + 1];
+		int count = 0;
+		for (int offset = 0; offset < data.length; ) {
+			int length = ContentDefinedChunker.chunkLength(data, offset, data.length);
+			String hash = hash(data, offset, length);
+			FileHandle file = chunkDirectory.child(hash);
+			if (file.length() != length)
+				file.writeBytes(data, offset, length, false);
+			hashes.add(hash);
+			lengths[count++] = length;
+			offset += length;
+		}
+		return new Version(timestamp, data.length, hashes.toArray(String.class), Arrays.copyOf(lengths, count));
+	}
+
+	private AsyncServiceResult<Void> uploadChunks(final Version version, final byte[] data) {
+		AsyncServiceResult<Void> listing;
+		if (System.currentTimeMillis() - remoteChunksListedAt < LISTING_TTL_MILLIS) {
+			listing = new SyncSuccessServiceResult<>(null);
+		} else {
+			listing = AsyncServiceResults.map(delegate.getSavedGames(), new AsyncServiceResults.Mapper<Iterable<SavedGame>, Void>() {
+				@Override
+				public Void map(Iterable<SavedGame> value) {
+					listed(value);
+					return null;
+				}
+			});
+		}
+		return AsyncServiceResults.flatMap(listing, new AsyncServiceResults.FlatMapper<Void, Void>() {
+			@Override
+			public AsyncServiceResult<Void> flatMap(Void value) {
+				// Offsets of chunks the game service lacks
+				final ObjectMap<String, Integer> offsets = new ObjectMap<>();
+				Array<String> missing = new Array<>();
+				int offset = 0;
+				for (int i = 0; i < version.chunks.length; i++) {
+					String hash = version.chunks[i];
+					if (!remoteChunks.contains(hash) && !offsets.containsKey(hash)) {
+						offsets.put(hash, offset);
+						missing.add(hash);
+					}
+					offset += version.lengths[i];
+				}
+				return AsyncServiceResults.flatMap(AsyncServiceResults.fanOut(missing, MAX_CONCURRENCY, new AsyncServiceResults.FlatMapper<String, Void>() {
+					@Override
+					public AsyncServiceResult<Void> flatMap(String hash) {
+						int start = offsets.get(hash);
+						int end = start + version.lengthOf(hash);
+						return delegate.submitSavedGame(new ChunkSavedGame(hash, System.currentTimeMillis()), Arrays.copyOfRange(data, start, end));
+					}
+				}), new AsyncServiceResults.FlatMapper<BatchResult<String, Void>, Void>() {
+					@Override
+					public AsyncServiceResult<Void> flatMap(BatchResult<String, Void> batch) {
+						for (String hash : batch.getSuccesses().keys())
+							remoteChunks.add(hash);
+						if (batch.getFailures().size > 0)
+							return new SyncErrorServiceResult<>(batch.getFailures().values().next());
+						return new SyncSuccessServiceResult<>(null);
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Rebuild the content of given version from local chunks, downloading
+	 * missing ones.
+	 */
+	private AsyncServiceResult<byte[]> assemble(final Version version) {
+		if (version.length > Integer.MAX_VALUE)
+			return new SyncErrorServiceResult<>(new ExceptionServiceError(new IOException("Saved game data too large: " + version.length + " bytes")));
+		final byte[] data = new byte[(int) version.length];
+		Array<String> missing = new Array<>();
+		int offset = 0;
+		for (int i = 0; i < version.chunks.length; i++) {
+			String hash = version.chunks[i];
+			if (!readChunk(hash, data, offset, version.lengths[i]) && !missing.contains(hash, false))
+				missing.add(hash);
+			offset += version.lengths[i];
+		}
+		if (missing.size == 0)
+			return new SyncSuccessServiceResult<>(data);
+
+		return AsyncServiceResults.flatMap(AsyncServiceResults.fanOut(missing, MAX_CONCURRENCY, new AsyncServiceResults.FlatMapper<String, byte[]>() {
+			@Override
+			public AsyncServiceResult<byte[]> flatMap(String hash) {
+				return delegate.loadSavedGameData(new ChunkSavedGame(hash, 0L));
+			}
+		}), new AsyncServiceResults.FlatMapper<BatchResult<String, byte[]>, byte[]>() {
+			@Override
+			public AsyncServiceResult<byte[]> flatMap(BatchResult<String, byte[]> batch) throws IOException {
+				if (batch.getFailures().size > 0)
+					return new SyncErrorServiceResult<>(batch.getFailures().values().next());
+				for (ObjectMap.Entry<String, byte[]> entry : batch.getSuccesses()) {
+					String hash = entry.key;
+					byte[] chunk = entry.value;
+					if (chunk.length != version.lengthOf(hash) || !hash.equals(hash(chunk, 0, chunk.length)))
+						throw new IOException("Corrupt saved game chunk: " + hash);
+					chunkDirectory.child(hash).writeBytes(chunk, false);
+					remoteChunks.add(hash);
+					int offset = 0;
+					for (int i = 0; i < version.chunks.length; i++) {
+						if (version.chunks[i].equals(hash))
+							System.arraycopy(chunk, 0, data, offset, chunk.length);
+						offset += version.lengths[i];
+					}
+				}
+				return new SyncSuccessServiceResult<>(data);
+			}
+		});
+	}
+
+	private boolean readChunk(String hash, byte[] data, int offset, int length) {
+		FileHandle file = chunkDirectory.child(hash);
+		if (file.length() != length)
+			return false;
+		try {
+			file.readBytes(data, offset, length);
+		} catch (GdxRuntimeException e) {
+			return false;
+		}
+		// Might have been left half-written
+		return hash.equals(hash(data, offset, length));
+	}
+
+	/**
+	 * Delete local chunks no local manifest refers to.
+	 */
+	private void pruneChunks() {
+		Set<String> referenced = new HashSet<>();
+		for (FileHandle file : manifestDirectory.list()) {
+			try {
+				for (Version version : readManifest(file.readBytes()))
+					Collections.addAll(referenced, version.chunks);
+			} catch (IOException | GdxRuntimeException e) {
+				file.delete();
+			}
+		}
+		for (FileHandle file : chunkDirectory.list()) {
+			if (!referenced.contains(file.name()))
+				file.delete();
+		}
+	}
+
+	private static String hash(byte[] data, int offset, int length) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new GdxRuntimeException(e);
+		}
+		digest.update(data, offset, length);
+		byte[] hash = digest.digest();
+		char[] chars = new char[HASH_SIZE * 2];
+		for (int i = 0; i < HASH_SIZE; i++) {
+			chars[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+			chars[i * 2 + 1] = HEX[hash[i] & 0xF];
+		}
+		return new String(chars);
+	}
+
+	// Manifests
+
+	private AsyncServiceResult<Void> submitManifest(final SavedGame savedGame, final Version version) {
+		return AsyncServiceResults.flatMap(previousVersions(savedGame), new AsyncServiceResults.FlatMapper<Array<Version>, Void>() {
+			@Override
+			public AsyncServiceResult<Void> flatMap(Array<Version> previous) throws IOException {
+				Array<Version> versions = new Array<>(historySize);
+				versions.add(version);
+				for (Version other : previous) {
+					if (versions.size == historySize)
+						break;
+					if (!other.equals(version))
+						versions.add(other);
+				}
+				final byte[] manifest = writeManifest(versions);
+				return AsyncServiceResults.map(delegate.submitSavedGame(savedGame, manifest), new AsyncServiceResults.Mapper<Void, Void>() {
+					@Override
+					public Void map(Void value) {
+						storeManifest(savedGame.getTitle(), manifest);
+						pruneChunks();
+						return null;
+					}
+				});
+			}
+		});
+	}
+
+	private AsyncServiceResult<Array<Version>> previousVersions(final SavedGame savedGame) {
+		FileHandle file = manifestFile(savedGame.getTitle());
+		if (file.exists()) {
+			try {
+				return new SyncSuccessServiceResult<>(readManifest(file.readBytes()));
+			} catch (IOException | GdxRuntimeException e) {
+				// Unreadable, ask the game service
+			}
+		}
+		final DeferredServiceResult<Array<Version>> result = new DeferredServiceResult<>();
+		delegate.loadSavedGameData(savedGame).onCompletion(new ServiceCompletionCallback<byte[]>() {
+			@Override
+			public void onSuccess(byte[] value) {
+				Array<Version> versions = new Array<>();
+				try {
+					if (isManifest(value))
+						versions = readManifest(value);
+				} catch (IOException e) {
+					// No usable history
+				}
+				result.succeed(versions);
+			}
+
+			@Override
+			public void onError(final ServiceError error) {
+				// Only a saved game the game service does not list is new, anything
+				// else would lose its history
+				delegate.getSavedGames().onCompletion(new ServiceCompletionCallback<Iterable<SavedGame>>() {
+					@Override
+					public void onSuccess(Iterable<SavedGame> value) {
+						for (SavedGame listed : listed(value)) {
+							if (savedGame.getTitle().equals(listed.getTitle())) {
+								result.fail(error);
+								return;
+							}
+						}
+						result.succeed(new Array<Version>());
+					}
+
+					@Override
+					public void onError(ServiceError listingError) {
+						result.fail(error);
+					}
+				});
+			}
+		});
+		return result;
+	}
+
+	private void storeManifest(String title, byte[] manifest) {
+		manifestFile(title).writeBytes(manifest, false);
+	}
+
+	private FileHandle manifestFile(String title) {
+		try {
+			return manifestDirectory.child(URLEncoder.encode(title, "UTF-8"));
+		} catch (UnsupportedEncodingException e) {
+			throw new GdxRuntimeException(e);
+		}
+	}
+
+	private static boolean isManifest(byte[] data) {
+		if (data.length < MAGIC.length)
+			return false;
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (data[i] != MAGIC[i])
+				return false;
+		}
+		return true;
+	}
+
+	private static byte[] writeManifest(Array<Version> versions) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		output.write(MAGIC);
+		output.writeInt(versions.size);
+		for (Version version : versions) {
+			output.writeLong(version.timestamp);
+			output.writeLong(version.length);
+			output.writeInt(version.chunks.length);
+			for (int i = 0; i < version.chunks.length; i++) {
+				String hash = version.chunks[i];
+				for (int j = 0; j < HASH_SIZE; j++)
+					output.writeByte(Integer.parseInt(hash.substring(j * 2, j * 2 + 2), 16));
+				output.writeInt(version.lengths[i]);
+			}
+		}
+		output.flush();
+		return bytes.toByteArray();
+	}
+
+	private static Array<Version> readManifest(byte[] data) throws IOException {
+		if (!isManifest(data))
+			throw new IOException("Not a saved game manifest");
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(data, MAGIC.length, data.length - MAGIC.length));
+		int count = input.readInt();
+		if (count < 1 || count > data.length)
+			throw new IOException("Corrupt saved game manifest: " + count + " versions");
+		Array<Version> versions = new Array<>(count);
+		byte[] hash = new byte[HASH_SIZE];
+		for (int v = 0; v < count; v++) {
+			long timestamp = input.readLong();
+			long length = input.readLong();
+			int chunks = input.readInt();
+			if (chunks < 0 || chunks > data.length / (HASH_SIZE + 4))
+				throw new IOException("Corrupt saved game manifest: " + chunks + " chunks");
+			String[] hashes = new String[chunks];
+			int[] lengths = new int[chunks];
+			long total = 0L;
+			for (int i = 0; i < chunks; i++) {
+				input.readFully(hash);
+				char[] chars = new char[HASH_SIZE * 2];
+				for (int j = 0; j < HASH_SIZE; j++) {
+					chars[j * 2] = HEX[(hash[j] >> 4) & 0xF];
+					chars[j * 2 + 1] = HEX[hash[j] & 0xF];
+				}
+				hashes[i] = new String(chars);
+				lengths[i] = input.readInt();
+				total += lengths[i];
+			}
+			if (total != length)
+				throw new IOException("Corrupt saved game manifest: chunks do not add up");
+			versions.add(new Version(timestamp, length, hashes, lengths));
+		}
+		return versions;
+	}
+
+	/**
+	 * A version of a saved game, as listed by its manifest.
+	 */
+	public static final class Version {
+
+		final long timestamp;
+		final long length;
+		final String[] chunks;
+		final int[] lengths;
+
+		Version(long timestamp, long length, String[] chunks, int[] lengths) {
+			this.timestamp = timestamp;
+			this.length = length;
+			this.chunks = chunks;
+			this.lengths = lengths;
+		}
+
+		/**
+		 * @return the timestamp of the saved game when this version was submitted
+		 */
+		public long getTimestamp() {
+			return timestamp;
+		}
+
+		/**
+		 * @return the length of the content of this version
+		 */
+		public long getLength() {
+			return length;
+		}
+
+		int lengthOf(String hash) {
+			for (int i = 0; i < chunks.length; i++) {
+				if (chunks[i].equals(hash))
+					return lengths[i];
+			}
+			return -1;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o)
+				return true;
+			if (!(o instanceof Version))
+				return false;
+			Version other = (Version) o;
+			return timestamp == other.timestamp && length == other.length && Arrays.equals(chunks, other.chunks);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * Long.valueOf(timestamp).hashCode() + Arrays.hashCode(chunks);
+		}
+
+		@Override
+		public String toString() {
+			return "Version{timestamp=" + timestamp + ", length=" + length + ", chunks=" + chunks.length + '}';
+		}
+	}
+
+	/**
+	 * A chunk, stored as a saved game titled after its hash and timestamped
+	 * with its upload.
+	 */
+	private static final class ChunkSavedGame implements SavedGame {
+
+		private final String title;
+		private final long timestamp;
+
+		ChunkSavedGame(String hash, long timestamp) {
+			this.title = CHUNK_PREFIX + hash;
+			this.timestamp = timestamp;
+		}
+
+		@Override
+		public String getId() {
+			return title;
+		}
+
+		@Override
+		public String getTitle() {
+			return title;
+		}
+
+		@Override
+		public String getDescription() {
+			return "";
+		}
+
+		@Override
+		public long getTimestamp() {
+			return timestamp;
+		}
+
+		@Override
+		public long getPlayedTime() {
+			return 0L;
+		}
+
+		@Override
+		public String getDeviceName() {
+			return "";
+		}
+	}
+}
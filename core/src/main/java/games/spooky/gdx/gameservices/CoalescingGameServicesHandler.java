@@ -0,0 +1,277 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+import com.badlogic.gdx.utils.ObjectMap;
+import games.spooky.gdx.gameservices.achievement.Achievement;
+import games.spooky.gdx.gameservices.leaderboard.LeaderboardEntry;
+import games.spooky.gdx.gameservices.leaderboard.LeaderboardOptions;
+import games.spooky.gdx.gameservices.savedgame.SavedGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link GameServicesHandler} decorator coalescing identical concurrent reads
+ * (single-flight): while a read is in flight, the same call with equal
+ * arguments does not reach the delegate but subscribes to the pending
+ * request, and all subscribers get the same result.
+ * <p>
+ * Each subscriber gets its own result: cancelling it only unsubscribes, the
+ * shared request being cancelled once all of its subscribers have cancelled.
+ * Writes are always forwarded.
+ */
+public class CoalescingGameServicesHandler extends DelegatingGameServicesHandler {
+
+	private final ConcurrentMap<ServiceCallKey, Flight<?>> flights = new ConcurrentHashMap<>();
+
+	public CoalescingGameServicesHandler(GameServicesHandler delegate) {
+		super(delegate);
+	}
+
+	/**
+	 * Number of distinct reads currently in flight.
+	 *
+	 * @return the number of requests in flight
+	 */
+	public int getInFlightCount() {
+		return flights.size();
+	}
+
+	// Authentication
+
+	@Override
+	public AsyncServiceResult<String> getPlayerId() {
+		return coalesce(new ServiceCallKey("getPlayerId"), new Read<String>() {
+			@Override
+			public AsyncServiceResult<String> call() {
+				return delegate.getPlayerId();
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<String> getPlayerName() {
+		return coalesce(new ServiceCallKey("getPlayerName"), new Read<String>() {
+			@Override
+			public AsyncServiceResult<String> call() {
+				return delegate.getPlayerName();
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<byte[]> getPlayerAvatar() {
+		return coalesce(new ServiceCallKey("getPlayerAvatar"), new Read<byte[]>() {
+			@Override
+			public AsyncServiceResult<byte[]> call() {
+				return delegate.getPlayerAvatar();
+			}
+		});
+	}
+
+	// Achievements
+
+	@Override
+	public AsyncServiceResult<Iterable<Achievement>> getAchievements() {
+		return coalesce(new ServiceCallKey("getAchievements"), new Read<Iterable<Achievement>>() {
+			@Override
+			public AsyncServiceResult<Iterable<Achievement>> call() {
+				return delegate.getAchievements();
+			}
+		});
+	}
+
+	// Leaderboards
+
+	@Override
+	public AsyncServiceResult<LeaderboardEntry> getPlayerScore(final String leaderboardId, final LeaderboardOptions options) {
+		return coalesce(new ServiceCallKey("getPlayerScore", leaderboardId, options), new Read<LeaderboardEntry>() {
+			@Override
+			public AsyncServiceResult<LeaderboardEntry> call() {
+				return delegate.getPlayerScore(leaderboardId, options);
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<ObjectMap<String, LeaderboardEntry>> getPlayerScores(Iterable<String> leaderboardIds, final LeaderboardOptions options) {
+		// Compared by value, in order
+		final List<String> ids = new ArrayList<>();
+		for (String leaderboardId : leaderboardIds)
+			ids.add(leaderboardId);
+		return coalesce(new ServiceCallKey("getPlayerScores", ids, options), new Read<ObjectMap<String, LeaderboardEntry>>() {
+			@Override
+			public AsyncServiceResult<ObjectMap<String, LeaderboardEntry>> call() {
+				return delegate.getPlayerScores(ids, options);
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<Iterable<LeaderboardEntry>> getScores(final String leaderboardId, final LeaderboardOptions options) {
+		return coalesce(new ServiceCallKey("getScores", leaderboardId, options), new Read<Iterable<LeaderboardEntry>>() {
+			@Override
+			public AsyncServiceResult<Iterable<LeaderboardEntry>> call() {
+				return delegate.getScores(leaderboardId, options);
+			}
+		});
+	}
+
+	// Saved games
+
+	@Override
+	public AsyncServiceResult<Iterable<SavedGame>> getSavedGames() {
+		return coalesce(new ServiceCallKey("getSavedGames"), new Read<Iterable<SavedGame>>() {
+			@Override
+			public AsyncServiceResult<Iterable<SavedGame>> call() {
+				return delegate.getSavedGames();
+			}
+		});
+	}
+
+	// Single-flight
+
+	private <T> AsyncServiceResult<T> coalesce(ServiceCallKey key, Read<T> read) {
+		for (;;) {
+			@SuppressWarnings("unchecked")
+			Flight<T> flight = (Flight<T>) flights.get(key);
+			if (flight != null) {
+				AsyncServiceResult<T> subscription = flight.join();
+				if (subscription != null)
+					return subscription;
+				// Flight being cancelled, start another one
+				flights.remove(key, flight);
+				continue;
+			}
+
+			flight = new Flight<>(key);
+			if (flights.putIfAbsent(key, flight) != null)
+				continue; // Lost the race, join the winner
+
+			AsyncServiceResult<T> subscription = flight.subscription();
+			AsyncServiceResult<T> source;
+			try {
+				source = read.call();
+			} catch (RuntimeException e) {
+				flights.remove(key, flight);
+				throw e;
+			}
+			flight.start(source);
+			return subscription;
+		}
+	}
+
+	private interface Read<T> {
+		AsyncServiceResult<T> call();
+	}
+
+	/**
+	 * A request in flight, shared by its subscribers.
+	 */
+	private final class Flight<T> {
+
+		private final ServiceCallKey key;
+		private final DeferredServiceResult<T> shared = new DeferredServiceResult<>();
+
+		// Count of subscribers still interested in the result, starting with the one making the request, zero once abandoned
+		private final AtomicInteger subscribers = new AtomicInteger(1);
+		private volatile AsyncServiceResult<T> source;
+
+		Flight(ServiceCallKey key) {
+			this.key = key;
+		}
+
+		/**
+		 * Subscribe to this request, unless all its subscribers have already
+		 * cancelled.
+		 *
+		 * @return a new subscription, or null if this request is abandoned
+		 */
+		AsyncServiceResult<T> join() {
+			for (;;) {
+				int count = subscribers.get();
+				if (count == 0)
+					return null;
+				if (subscribers.compareAndSet(count, count + 1))
+					return subscription();
+			}
+		}
+
+		AsyncServiceResult<T> subscription() {
+			Subscription<T> subscription = new Subscription<>(this);
+			shared.onCompletion(AsyncServiceResults.forwardTo(subscription));
+			return subscription;
+		}
+
+		void unsubscribe() {
+			if (subscribers.decrementAndGet() == 0) {
+				flights.remove(key, this);
+				AsyncServiceResult<T> source = this.source;
+				if (source != null)
+					source.cancel();
+				shared.fail(SimpleServiceError.cancelled());
+			}
+		}
+
+		void start(AsyncServiceResult<T> source) {
+			this.source = source;
+			source.onCompletion(new ServiceCompletionCallback<T>() {
+				@Override
+				public void onSuccess(T result) {
+					flights.remove(key, Flight.this);
+					shared.succeed(result);
+				}
+
+				@Override
+				public void onError(ServiceError error) {
+					flights.remove(key, Flight.this);
+					shared.fail(error);
+				}
+			});
+			if (shared.isCompleted())
+				source.cancel(); // Abandoned while starting
+		}
+	}
+
+	/**
+	 * The view of a subscriber on a shared request.
+	 */
+	private static final class Subscription<T> extends DeferredServiceResult<T> {
+
+		private final Flight<T> flight;
+
+		Subscription(Flight<T> flight) {
+			this.flight = flight;
+		}
+
+		@Override
+		protected void onCancel() {
+			flight.unsubscribe();
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+import games.spooky.gdx.gameservices.savedgame.SavedGame;
+import games.spooky.gdx.gameservices.savedgame.SavedGameCodec;
+import games.spooky.gdx.gameservices.savedgame.SavedGameCompression;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * {@link GameServicesHandler} decorator compressing saved game content on
+ * submission and decompressing it on load, see {@link SavedGameCompression}
+ * for the format. Content submitted before compression was enabled is
+ * detected and loaded as is.
+ * <p>
+ * Compression happens on the calling thread. Streamed submissions are
+ * compressed block by block, only compressed content being held whole.
+ */
+public class CompressingGameServicesHandler extends DelegatingGameServicesHandler {
+
+	private volatile SavedGameCodec codec;
+
+	public CompressingGameServicesHandler(GameServicesHandler delegate) {
+		this(delegate, SavedGameCodec.Deflate);
+	}
+
+	public CompressingGameServicesHandler(GameServicesHandler delegate, SavedGameCodec codec) {
+		super(delegate);
+		this.codec = codec;
+	}
+
+	public SavedGameCodec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * Set the codec new submissions are compressed with. Content is still
+	 * decompressed on load whatever its codec.
+	 *
+	 * @param codec the codec, null to submit content uncompressed
+	 */
+	public void setCodec(SavedGameCodec codec) {
+		this.codec = codec;
+	}
+
+	@Override
+	public AsyncServiceResult<byte[]> loadSavedGameData(SavedGame savedGame) {
+		return AsyncServiceResults.map(delegate.loadSavedGameData(savedGame), new AsyncServiceResults.Mapper<byte[], byte[]>() {
+			@Override
+			public byte[] map(byte[] value) throws IOException {
+				return SavedGameCompression.decompress(value);
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<Void> loadSavedGameData(SavedGame savedGame, OutputStream output) {
+		final SavedGameCompression.Decoder decoder = SavedGameCompression.decoder(output);
+		return AsyncServiceResults.map(delegate.loadSavedGameData(savedGame, decoder), new AsyncServiceResults.Mapper<Void, Void>() {
+			@Override
+			public Void map(Void value) throws IOException {
+				decoder.finish();
+				return null;
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(SavedGame savedGame, byte[] data) {
+		SavedGameCodec codec = this.codec;
+		return delegate.submitSavedGame(savedGame, codec == null ? data : SavedGameCompression.compress(data, codec));
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(SavedGame savedGame, InputStream data, long length) {
+		SavedGameCodec codec = this.codec;
+		if (codec == null)
+			return delegate.submitSavedGame(savedGame, data, length);
+		byte[] compressed;
+		try {
+			compressed = SavedGameCompression.compress(data, length, codec);
+		} catch (IOException e) {
+			return new SyncErrorServiceResult<>(new ExceptionServiceError(e));
+		}
+		return delegate.submitSavedGame(savedGame, new ByteArrayInputStream(compressed), compressed.length);
+	}
+}
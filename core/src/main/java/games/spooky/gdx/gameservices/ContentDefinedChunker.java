@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+/**
+ * Content-defined chunking (FastCDC flavour): chunk boundaries are placed
+ * where a Gear rolling hash of the last bytes matches a mask, so that an
+ * edit only moves the boundaries around it and the other chunks of a new
+ * version are found unchanged.
+ * <p>
+ * Chunks are 16 KiB to 256 KiB long, 64 KiB on average. A stricter mask is
+ * used below the average size and a looser one above it, which narrows the
+ * spread of chunk sizes.
+ */
+final class ContentDefinedChunker {
+
+	static final int MIN_SIZE = 16 * 1024;
+	static final int AVERAGE_SIZE = 64 * 1024;
+	static final int MAX_SIZE = 256 * 1024;
+
+	// Gear hash bits flow towards the high end, masks test the high bits
+	private static final int MASK_STRICT = 0xFFFFC000; // 18 bits
+	private static final int MASK_LOOSE = 0xFFFC0000; // 14 bits
+
+	private static final int[] GEAR = new int[256];
+
+	static {
+		// Fixed pseudo-random table, boundaries must be the same everywhere
+		long seed = 0x5350304F4B59L;
+		for (int i = 0; i < GEAR.length; i++) {
+			seed += 0x9E3779B97F4A7C15L;
+			long z = seed;
+			z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+			z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+			GEAR[i] = (int) (z ^ (z >>> 31));
+		}
+	}
+
+	private ContentDefinedChunker() {
+	}
+
+	/**
+	 * Length of the chunk starting at given offset.
+	 *
+	 * @param data the content to chunk
+	 * @param offset the start of the chunk
+	 * @param end the end of the content
+	 * @return the length of the chunk
+	 */
+	static int chunkLength(byte[] data, int offset, int end) {
+		int length = end - offset;
+		if (length <= MIN_SIZE)
+			return length;
+		int normal = Math.min(length, AVERAGE_SIZE);
+		int limit = Math.min(length, MAX_SIZE);
+		int hash = 0;
+		int i = MIN_SIZE;
+		for (; i < normal; i++) {
+			hash = (hash << 1) + GEAR[data[offset + i] & 0xFF];
+			if ((hash & MASK_STRICT) == 0)
+				return i + 1;
+		}
+		for (; i < limit; i++) {
+			hash = (hash << 1) + GEAR[data[offset + i] & 0xFF];
+			if ((hash & MASK_LOOSE) == 0)
+				return i + 1;
+		}
+		return limit;
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+import com.badlogic.gdx.utils.ObjectMap;
+import games.spooky.gdx.gameservices.achievement.Achievement;
+import games.spooky.gdx.gameservices.leaderboard.LeaderboardEntry;
+import games.spooky.gdx.gameservices.leaderboard.LeaderboardOptions;
+import games.spooky.gdx.gameservices.leaderboard.LeaderboardPage;
+import games.spooky.gdx.gameservices.savedgame.SavedGame;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * {@link GameServicesHandler} forwarding every call to another handler.
+ * Base class for decorators, override only what needs to be decorated.
+ */
+public class DelegatingGameServicesHandler implements GameServicesHandler {
+
+	protected final GameServicesHandler delegate;
+
+	public DelegatingGameServicesHandler(GameServicesHandler delegate) {
+		super();
+		if (delegate == null)
+			throw new IllegalArgumentException("Delegate handler must not be null");
+		this.delegate = delegate;
+	}
+
+	public GameServicesHandler getDelegate() {
+		return delegate;
+	}
+
+	// Authentication
+
+	@Override
+	public AsyncServiceResult<Boolean> isLoggedIn() {
+		return delegate.isLoggedIn();
+	}
+
+	@Override
+	public AsyncServiceResult<Void> login() {
+		return delegate.login();
+	}
+
+	@Override
+	public AsyncServiceResult<String> getPlayerId() {
+		return delegate.getPlayerId();
+	}
+
+	@Override
+	public AsyncServiceResult<String> getPlayerName() {
+		return delegate.getPlayerName();
+	}
+
+	@Override
+	public AsyncServiceResult<byte[]> getPlayerAvatar() {
+		return delegate.getPlayerAvatar();
+	}
+
+	// Achievements
+
+	@Override
+	public boolean handlesAchievements() {
+		return delegate.handlesAchievements();
+	}
+
+	@Override
+	public AsyncServiceResult<Iterable<Achievement>> getAchievements() {
+		return delegate.getAchievements();
+	}
+
+	@Override
+	public AsyncServiceResult<Void> unlockAchievement(String achievementId) {
+		return delegate.unlockAchievement(achievementId);
+	}
+
+	@Override
+	public AsyncServiceResult<BatchResult<String, Void>> unlockAchievements(Iterable<String> achievementIds) {
+		return delegate.unlockAchievements(achievementIds);
+	}
+
+	// Leaderboards
+
+	@Override
+	public boolean handlesLeaderboards() {
+		return delegate.handlesLeaderboards();
+	}
+
+	@Override
+	public AsyncServiceResult<LeaderboardEntry> getPlayerScore(String leaderboardId, LeaderboardOptions options) {
+		return delegate.getPlayerScore(leaderboardId, options);
+	}
+
+	@Override
+	public AsyncServiceResult<ObjectMap<String, LeaderboardEntry>> getPlayerScores(Iterable<String> leaderboardIds, LeaderboardOptions options) {
+		return delegate.getPlayerScores(leaderboardIds, options);
+	}
+
+	@Override
+	public AsyncServiceResult<Iterable<LeaderboardEntry>> getScores(String leaderboardId, LeaderboardOptions options) {
+		return delegate.getScores(leaderboardId, options);
+	}
+
+	@Override
+	public AsyncServiceResult<LeaderboardPage> getScoresPage(String leaderboardId, LeaderboardOptions options, LeaderboardPage.Cursor cursor) {
+		return delegate.getScoresPage(leaderboardId, options, cursor);
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitScore(String leaderboardId, long score) {
+		return delegate.submitScore(leaderboardId, score);
+	}
+
+	// Saved games
+
+	@Override
+	public boolean handlesSavedGames() {
+		return delegate.handlesSavedGames();
+	}
+
+	@Override
+	public AsyncServiceResult<Iterable<SavedGame>> getSavedGames() {
+		return delegate.getSavedGames();
+	}
+
+	@Override
+	public AsyncServiceResult<byte[]> loadSavedGameData(SavedGame savedGame) {
+		return delegate.loadSavedGameData(savedGame);
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(SavedGame savedGame, byte[] data) {
+		return delegate.submitSavedGame(savedGame, data);
+	}
+
+	@Override
+	public AsyncServiceResult<Void> loadSavedGameData(SavedGame savedGame, OutputStream output) {
+		return delegate.loadSavedGameData(savedGame, output);
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(SavedGame savedGame, InputStream data, long length) {
+		return delegate.submitSavedGame(savedGame, data, length);
+	}
+
+	@Override
+	public AsyncServiceResult<Void> deleteSavedGame(SavedGame savedGame) {
+		return delegate.deleteSavedGame(savedGame);
+	}
+
+}
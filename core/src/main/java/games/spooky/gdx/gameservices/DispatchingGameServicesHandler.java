@@ -0,0 +1,161 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+import com.badlogic.gdx.utils.ObjectMap;
+import games.spooky.gdx.gameservices.achievement.Achievement;
+import games.spooky.gdx.gameservices.leaderboard.LeaderboardEntry;
+import games.spooky.gdx.gameservices.leaderboard.LeaderboardOptions;
+import games.spooky.gdx.gameservices.leaderboard.LeaderboardPage;
+import games.spooky.gdx.gameservices.savedgame.SavedGame;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * {@link GameServicesHandler} decorator delivering every callback on the
+ * rendering thread, within the per-frame time budget of given
+ * {@link ServiceCallbackDispatcher}.
+ */
+public class DispatchingGameServicesHandler extends DelegatingGameServicesHandler {
+
+	private final ServiceCallbackDispatcher dispatcher;
+
+	public DispatchingGameServicesHandler(GameServicesHandler delegate) {
+		this(delegate, new ServiceCallbackDispatcher());
+	}
+
+	public DispatchingGameServicesHandler(GameServicesHandler delegate, ServiceCallbackDispatcher dispatcher) {
+		super(delegate);
+		this.dispatcher = dispatcher;
+	}
+
+	public ServiceCallbackDispatcher getDispatcher() {
+		return dispatcher;
+	}
+
+	// Authentication
+
+	@Override
+	public AsyncServiceResult<Boolean> isLoggedIn() {
+		return dispatcher.dispatch(delegate.isLoggedIn());
+	}
+
+	@Override
+	public AsyncServiceResult<Void> login() {
+		return dispatcher.dispatch(delegate.login());
+	}
+
+	@Override
+	public AsyncServiceResult<String> getPlayerId() {
+		return dispatcher.dispatch(delegate.getPlayerId());
+	}
+
+	@Override
+	public AsyncServiceResult<String> getPlayerName() {
+		return dispatcher.dispatch(delegate.getPlayerName());
+	}
+
+	@Override
+	public AsyncServiceResult<byte[]> getPlayerAvatar() {
+		return dispatcher.dispatch(delegate.getPlayerAvatar());
+	}
+
+	// Achievements
+
+	@Override
+	public AsyncServiceResult<Iterable<Achievement>> getAchievements() {
+		return dispatcher.dispatch(delegate.getAchievements());
+	}
+
+	@Override
+	public AsyncServiceResult<Void> unlockAchievement(String achievementId) {
+		return dispatcher.dispatch(delegate.unlockAchievement(achievementId));
+	}
+
+	@Override
+	public AsyncServiceResult<BatchResult<String, Void>> unlockAchievements(Iterable<String> achievementIds) {
+		return dispatcher.dispatch(delegate.unlockAchievements(achievementIds));
+	}
+
+	// Leaderboards
+
+	@Override
+	public AsyncServiceResult<LeaderboardEntry> getPlayerScore(String leaderboardId, LeaderboardOptions options) {
+		return dispatcher.dispatch(delegate.getPlayerScore(leaderboardId, options));
+	}
+
+	@Override
+	public AsyncServiceResult<ObjectMap<String, LeaderboardEntry>> getPlayerScores(Iterable<String> leaderboardIds, LeaderboardOptions options) {
+		return dispatcher.dispatch(delegate.getPlayerScores(leaderboardIds, options));
+	}
+
+	@Override
+	public AsyncServiceResult<Iterable<LeaderboardEntry>> getScores(String leaderboardId, LeaderboardOptions options) {
+		return dispatcher.dispatch(delegate.getScores(leaderboardId, options));
+	}
+
+	@Override
+	public AsyncServiceResult<LeaderboardPage> getScoresPage(String leaderboardId, LeaderboardOptions options, LeaderboardPage.Cursor cursor) {
+		return dispatcher.dispatch(delegate.getScoresPage(leaderboardId, options, cursor));
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitScore(String leaderboardId, long score) {
+		return dispatcher.dispatch(delegate.submitScore(leaderboardId, score));
+	}
+
+	// Saved games
+
+	@Override
+	public AsyncServiceResult<Iterable<SavedGame>> getSavedGames() {
+		return dispatcher.dispatch(delegate.getSavedGames());
+	}
+
+	@Override
+	public AsyncServiceResult<byte[]> loadSavedGameData(SavedGame savedGame) {
+		return dispatcher.dispatch(delegate.loadSavedGameData(savedGame));
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(SavedGame savedGame, byte[] data) {
+		return dispatcher.dispatch(delegate.submitSavedGame(savedGame, data));
+	}
+
+	@Override
+	public AsyncServiceResult<Void> loadSavedGameData(SavedGame savedGame, OutputStream output) {
+		return dispatcher.dispatch(delegate.loadSavedGameData(savedGame, output));
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(SavedGame savedGame, InputStream data, long length) {
+		return dispatcher.dispatch(delegate.submitSavedGame(savedGame, data, length));
+	}
+
+	@Override
+	public AsyncServiceResult<Void> deleteSavedGame(SavedGame savedGame) {
+		return dispatcher.dispatch(delegate.deleteSavedGame(savedGame));
+	}
+
+}
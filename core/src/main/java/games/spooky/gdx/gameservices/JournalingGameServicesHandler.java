@@ -0,0 +1,316 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+import com.badlogic.gdx.utils.Array;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link GameServicesHandler} decorator journaling achievement unlocks and
+ * score submissions in a {@link WriteJournal} before handing them to the
+ * underlying handler.
+ * <p>
+ * Such writes succeed as soon as they are journaled, without waiting for the
+ * network, then are replayed in order to the underlying handler until it
+ * accepts them: right away, on successful login and on every call to
+ * {@link #replay()} (e.g. when connectivity returns). Writes pending when the
+ * process dies are replayed on next login. A replay pass stops at the first
+ * {@link #isTransient(ServiceError) transient} failure, the remaining writes
+ * waiting for the next pass. Writes refused for good are dropped and kept
+ * aside in {@link #getRejected()}, so that they do not hold back the others.
+ */
+public class JournalingGameServicesHandler extends DelegatingGameServicesHandler {
+
+	private final WriteJournal journal;
+
+	private final AtomicBoolean replaying = new AtomicBoolean();
+	private volatile boolean replayRequested;
+	private final Array<WriteJournal.Entry> rejected = new Array<>();
+
+	public JournalingGameServicesHandler(GameServicesHandler delegate, WriteJournal journal) {
+		super(delegate);
+		if (journal == null)
+			throw new IllegalArgumentException("Journal must not be null");
+		this.journal = journal;
+	}
+
+	public WriteJournal getJournal() {
+		return journal;
+	}
+
+	/**
+	 * Writes refused for good by the underlying handler since this handler was
+	 * created, oldest first. They were dropped from the journal so as not to
+	 * hold back the writes after them.
+	 *
+	 * @return a copy of rejected writes
+	 */
+	public Array<WriteJournal.Entry> getRejected() {
+		synchronized (rejected) {
+			return new Array<>(rejected);
+		}
+	}
+
+	/**
+	 * Replay pending writes to the underlying handler, in journaling order.
+	 * Does nothing if a replay is already running, apart from making it go
+	 * through writes journaled meanwhile.
+	 */
+	public void replay() {
+		replayRequested = true;
+		if (!replaying.compareAndSet(false, true))
+			return; // Running replay will pick it up
+		replayRequested = false;
+		new Pass(journal.getPending()).next(0);
+	}
+
+	/**
+	 * Whether given error of a replayed write is worth replaying it again
+	 * later, stopping the pass, or means the write is refused for good, in
+	 * which case it is dropped. Errors telling so are trusted, exceptions
+	 * other than I/O ones are final, and anything else (e.g. not being logged
+	 * in) is deemed transient.
+	 *
+	 * @param error the error of the replayed write
+	 * @return whether the write should be replayed again later
+	 */
+	protected boolean isTransient(ServiceError error) {
+		if (error == null)
+			return true;
+		if (error.getErrorCode() == ServiceError.CANCELLED || error.getErrorCode() == ServiceError.TIMED_OUT)
+			return true;
+		if (error instanceof ClassifiedServiceError)
+			return ((ClassifiedServiceError) error).isTransient();
+		if (error instanceof ExceptionServiceError) {
+			for (Throwable cause = ((ExceptionServiceError) error).getException(); cause != null; cause = cause.getCause()) {
+				if (cause instanceof IOException)
+					return true; // Most likely offline
+			}
+			return false;
+		}
+		return true;
+	}
+
+	private void acknowledge(WriteJournal.Entry entry) {
+		try {
+			journal.acknowledge(entry.getSequence());
+		} catch (IOException e) {
+			// Replayed again later, both writes are idempotent
+		}
+	}
+
+	private void reject(WriteJournal.Entry entry) {
+		acknowledge(entry);
+		synchronized (rejected) {
+			rejected.add(entry);
+		}
+	}
+
+	/**
+	 * One pass through pending writes. Writes completing synchronously are
+	 * followed in a loop rather than from their callbacks, so that a long
+	 * journal does not overflow the stack.
+	 */
+	private final class Pass {
+		private final Array<WriteJournal.Entry> entries;
+		// Guarded by this
+		private int index;
+		private boolean running;
+		private boolean advanced;
+
+		Pass(Array<WriteJournal.Entry> entries) {
+			this.entries = entries;
+		}
+
+		/**
+		 * Go on with the write of given index, from any thread.
+		 */
+		void next(int index) {
+			synchronized (this) {
+				this.index = index;
+				if (running) {
+					advanced = true; // Picked up by the running loop
+					return;
+				}
+				running = true;
+			}
+			while (true) {
+				int current;
+				synchronized (this) {
+					current = this.index;
+					advanced = false;
+				}
+				step(current);
+				synchronized (this) {
+					if (!advanced) {
+						running = false;
+						return;
+					}
+				}
+			}
+		}
+
+		private void stop() {
+			// Remaining writes wait for next pass
+			replaying.set(false);
+		}
+
+		private void step(final int index) {
+			if (index >= entries.size) {
+				replaying.set(false);
+				// Writes journaled while replaying
+				if (replayRequested && journal.getPendingCount() > 0)
+					replay();
+				return;
+			}
+
+			final WriteJournal.Entry entry = entries.get(index);
+			if (entry.isAchievementUnlock()) {
+				stepUnlocks(index);
+				return;
+			}
+			delegate.submitScore(entry.getId(), entry.getScore()).onCompletion(new ServiceCompletionCallback<Void>() {
+				@Override
+				public void onSuccess(Void result) {
+					acknowledge(entry);
+					next(index + 1);
+				}
+
+				@Override
+				public void onError(ServiceError error) {
+					if (isTransient(error)) {
+						stop();
+					} else {
+						reject(entry);
+						next(index + 1);
+					}
+				}
+			});
+		}
+
+		/**
+		 * Replay consecutive achievement unlocks at once.
+		 */
+		private void stepUnlocks(final int index) {
+			int end = index;
+			Array<String> achievementIds = new Array<>();
+			while (end < entries.size && entries.get(end).isAchievementUnlock()) {
+				achievementIds.add(entries.get(end).getId());
+				end++;
+			}
+			final int following = end;
+			delegate.unlockAchievements(achievementIds).onCompletion(new ServiceCompletionCallback<BatchResult<String, Void>>() {
+				@Override
+				public void onSuccess(BatchResult<String, Void> result) {
+					boolean retry = false;
+					for (int i = index; i < following; i++) {
+						WriteJournal.Entry entry = entries.get(i);
+						if (result.isSuccessful(entry.getId())) {
+							acknowledge(entry);
+						} else {
+							ServiceError error = result.getFailures().get(entry.getId());
+							if (isTransient(error))
+								retry = true;
+							else
+								reject(entry);
+						}
+					}
+					if (retry)
+						stop();
+					else
+						next(following);
+				}
+
+				@Override
+				public void onError(ServiceError error) {
+					if (isTransient(error)) {
+						stop();
+					} else {
+						for (int i = index; i < following; i++)
+							reject(entries.get(i));
+						next(following);
+					}
+				}
+			});
+		}
+	}
+
+	// Authentication
+
+	@Override
+	public AsyncServiceResult<Void> login() {
+		AsyncServiceResult<Void> login = delegate.login();
+		login.onSuccess(new ServiceSuccessCallback<Void>() {
+			@Override
+			public void onSuccess(Void result) {
+				replay();
+			}
+		});
+		return login;
+	}
+
+	// Achievements
+
+	@Override
+	public AsyncServiceResult<Void> unlockAchievement(String achievementId) {
+		try {
+			journal.appendAchievementUnlock(achievementId);
+		} catch (IOException e) {
+			return new SyncErrorServiceResult<>(new ExceptionServiceError(e));
+		}
+		replay();
+		return new SyncSuccessServiceResult<>(null);
+	}
+
+	@Override
+	public AsyncServiceResult<BatchResult<String, Void>> unlockAchievements(Iterable<String> achievementIds) {
+		BatchResult<String, Void> batch = new BatchResult<>();
+		for (String achievementId : achievementIds) {
+			try {
+				journal.appendAchievementUnlock(achievementId);
+				batch.putSuccess(achievementId, null);
+			} catch (IOException e) {
+				batch.putFailure(achievementId, new ExceptionServiceError(e));
+			}
+		}
+		replay();
+		return new SyncSuccessServiceResult<>(batch);
+	}
+
+	// Leaderboards
+
+	@Override
+	public AsyncServiceResult<Void> submitScore(String leaderboardId, long score) {
+		try {
+			journal.appendScoreSubmission(leaderboardId, score);
+		} catch (IOException e) {
+			return new SyncErrorServiceResult<>(new ExceptionServiceError(e));
+		}
+		replay();
+		return new SyncSuccessServiceResult<>(null);
+	}
+
+}
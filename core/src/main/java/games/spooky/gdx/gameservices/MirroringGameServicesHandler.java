@@ -0,0 +1,897 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+import games.spooky.gdx.gameservices.savedgame.SavedGame;
+import games.spooky.gdx.gameservices.savedgame.SavedGameStreams;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link GameServicesHandler} decorator keeping saved games in a local
+ * directory (write-back): listing, loading and submitting saved games are
+ * served from that mirror, without waiting for the game service, and
+ * submissions and deletions are sent to the underlying handler in the
+ * background.
+ * <p>
+ * Each saved game has a {@link SyncState}. Pending changes are sent right
+ * away, on successful login and on every call to {@link #sync()} (e.g. when
+ * connectivity returns). On login the mirror is also reconciled with the
+ * timestamps listed by the game service: saved games changed elsewhere are
+ * fetched again on next load, or marked {@link SyncState#Conflicted} if they
+ * were changed locally as well, until {@link #resolveConflict(SavedGame, boolean)}
+ * is called.
+ * <p>
+ * Game services do not tell the timestamp they give submitted content, saved
+ * games are listed again right after each submission to learn it. Should
+ * that listing fail, the next one is assumed to hold the content this device
+ * sent: a change made elsewhere in between goes unnoticed, and is overwritten
+ * by the next local change.
+ * <p>
+ * Content is written to a temporary file then renamed into place, so that an
+ * interrupted write leaves the previous content untouched.
+ */
+public class MirroringGameServicesHandler extends DelegatingGameServicesHandler {
+
+	/**
+	 * Synchronization state of a mirrored saved game.
+	 */
+	public enum SyncState {
+		/** Changed locally, waiting to be sent. */
+		Dirty,
+		/** Changed locally, being sent. */
+		InFlight,
+		/** Same as the game service as of last reconciliation. */
+		Synced,
+		/** Changed both locally and on the game service. */
+		Conflicted,
+	}
+
+	private static final int FORMAT_VERSION = 1;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final String META_EXTENSION = ".meta";
+	private static final String DATA_EXTENSION = ".sav";
+	private static final String TEMP_EXTENSION = ".tmp";
+
+	/** Saved game not known to exist on the game service. */
+	private static final long NOT_REMOTE = Long.MIN_VALUE;
+	/** Saved game sent, timestamp given by the game service not listed yet. */
+	private static final long UNKNOWN_TIMESTAMP = -1L;
+
+	private final File directory;
+
+	// All guarded by this
+	private final Map<String, Slot> slots = new HashMap<>();
+	private boolean reconciled;
+
+	/**
+	 * @param delegate the handler to send saved games to
+	 * @param directory the local directory to mirror saved games in
+	 */
+	public MirroringGameServicesHandler(GameServicesHandler delegate, FileHandle directory) {
+		super(delegate);
+		this.directory = directory.file();
+		this.directory.mkdirs();
+		open();
+	}
+
+	// Synchronization
+
+	/**
+	 * Synchronization state of given saved game.
+	 *
+	 * @param savedGame the saved game to get the state of
+	 * @return the state of given saved game, or null if it is not mirrored
+	 */
+	public synchronized SyncState getSyncState(SavedGame savedGame) {
+		Slot slot = slots.get(savedGame.getTitle());
+		return slot == null ? null : slot.state;
+	}
+
+	public synchronized int getPendingCount() {
+		int count = 0;
+		for (Slot slot : slots.values()) {
+			if (slot.state == SyncState.Dirty || slot.state == SyncState.InFlight)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Send pending changes to the underlying handler. Saved games with a
+	 * change in flight are sent again once it completes, conflicted ones wait
+	 * for the conflict to be resolved.
+	 */
+	public void sync() {
+		Array<Slot> dirty = new Array<>();
+		synchronized (this) {
+			for (Slot slot : slots.values()) {
+				if (slot.state == SyncState.Dirty)
+					dirty.add(slot);
+			}
+		}
+		for (Slot slot : dirty)
+			send(slot);
+	}
+
+	/**
+	 * Reconcile the mirror with the saved games listed by the underlying
+	 * handler, then send pending changes. Done on every successful login.
+	 *
+	 * @return an AsyncServiceResult to handle success/error
+	 */
+	public AsyncServiceResult<Void> reconcile() {
+		return AsyncServiceResults.map(delegate.getSavedGames(), new AsyncServiceResults.Mapper<Iterable<SavedGame>, Void>() {
+			@Override
+			public Void map(Iterable<SavedGame> value) {
+				reconcile(value);
+				sync();
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Resolve the conflict on given saved game, by either sending local
+	 * content over the game service's or dropping it in favor of the game
+	 * service's, fetched again on next load.
+	 *
+	 * @param savedGame the conflicted saved game
+	 * @param keepLocal whether to keep local content
+	 */
+	public void resolveConflict(SavedGame savedGame, boolean keepLocal) {
+		Slot slot;
+		synchronized (this) {
+			slot = slots.get(savedGame.getTitle());
+			if (slot == null || slot.state != SyncState.Conflicted)
+				return;
+			if (keepLocal) {
+				slot.state = SyncState.Dirty;
+			} else {
+				if (slot.remote != null)
+					slot.savedGame = new MirroredSavedGame(slot.remote);
+				dropData(slot);
+				slot.deleted = false;
+				slot.state = SyncState.Synced;
+			}
+			store(slot);
+		}
+		if (keepLocal)
+			send(slot);
+	}
+
+	// Authentication
+
+	@Override
+	public AsyncServiceResult<Void> login() {
+		AsyncServiceResult<Void> login = delegate.login();
+		login.onSuccess(new ServiceSuccessCallback<Void>() {
+			@Override
+			public void onSuccess(Void result) {
+				reconcile();
+			}
+		});
+		return login;
+	}
+
+	// Saved games
+
+	@Override
+	public AsyncServiceResult<Iterable<SavedGame>> getSavedGames() {
+		synchronized (this) {
+			if (reconciled || !slots.isEmpty())
+				return new SyncSuccessServiceResult<Iterable<SavedGame>>(listing());
+		}
+		// Empty mirror, most likely first run on this device
+		return AsyncServiceResults.map(reconcile(), new AsyncServiceResults.Mapper<Void, Iterable<SavedGame>>() {
+			@Override
+			public Iterable<SavedGame> map(Void value) {
+				synchronized (MirroringGameServicesHandler.this) {
+					return listing();
+				}
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<byte[]> loadSavedGameData(final SavedGame savedGame) {
+		File file = null;
+		SavedGame remote = savedGame;
+		synchronized (this) {
+			Slot slot = slots.get(savedGame.getTitle());
+			if (slot != null) {
+				if (slot.deleted)
+					return new SyncErrorServiceResult<>(SimpleServiceError.error("Saved game " + slot.title + " was deleted"));
+				if (slot.hasData)
+					file = dataFile(slot.title, slot.generation);
+				else if (slot.remote != null)
+					remote = slot.remote;
+			}
+		}
+		if (file != null) {
+			try {
+				return new SyncSuccessServiceResult<>(readFile(file));
+			} catch (IOException e) {
+				return new SyncErrorServiceResult<>(new ExceptionServiceError(e));
+			}
+		}
+		final SavedGame fetched = remote;
+		return AsyncServiceResults.map(delegate.loadSavedGameData(fetched), new AsyncServiceResults.Mapper<byte[], byte[]>() {
+			@Override
+			public byte[] map(byte[] value) throws IOException {
+				File tmp = createTempFile();
+				try {
+					write(tmp, value);
+					mirror(fetched, tmp);
+				} finally {
+					tmp.delete();
+				}
+				return value;
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<Void> loadSavedGameData(SavedGame savedGame, final OutputStream output) {
+		File file = null;
+		SavedGame remote = savedGame;
+		synchronized (this) {
+			Slot slot = slots.get(savedGame.getTitle());
+			if (slot != null) {
+				if (slot.deleted)
+					return new SyncErrorServiceResult<>(SimpleServiceError.error("Saved game " + slot.title + " was deleted"));
+				if (slot.hasData)
+					file = dataFile(slot.title, slot.generation);
+				else if (slot.remote != null)
+					remote = slot.remote;
+			}
+		}
+		if (file != null) {
+			try {
+				copy(file, output);
+			} catch (IOException e) {
+				return new SyncErrorServiceResult<>(new ExceptionServiceError(e));
+			}
+			return new SyncSuccessServiceResult<>(null);
+		}
+
+		// Download into the mirror, then copy from there
+		final SavedGame fetched = remote;
+		final File download;
+		try {
+			download = createTempFile();
+		} catch (IOException e) {
+			return new SyncErrorServiceResult<>(new ExceptionServiceError(e));
+		}
+		AsyncServiceResult<Void> result = SavedGameStreams.loadSavedGameData(delegate, fetched, new FileHandle(download));
+		result.onError(new ServiceErrorCallback() {
+			@Override
+			public void onError(ServiceError error) {
+				download.delete();
+			}
+		});
+		return AsyncServiceResults.map(result, new AsyncServiceResults.Mapper<Void, Void>() {
+			@Override
+			public Void map(Void value) throws IOException {
+				try {
+					copy(download, output);
+					mirror(fetched, download);
+				} finally {
+					download.delete();
+				}
+				return null;
+			}
+		});
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(SavedGame savedGame, byte[] data) {
+		try {
+			File tmp = createTempFile();
+			try {
+				write(tmp, data);
+				commit(savedGame, tmp);
+			} finally {
+				tmp.delete();
+			}
+		} catch (IOException e) {
+			return new SyncErrorServiceResult<>(new ExceptionServiceError(e));
+		}
+		return new SyncSuccessServiceResult<>(null);
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(SavedGame savedGame, InputStream data, long length) {
+		try {
+			File tmp = createTempFile();
+			try {
+				write(tmp, data, length);
+				commit(savedGame, tmp);
+			} finally {
+				tmp.delete();
+			}
+		} catch (IOException e) {
+			return new SyncErrorServiceResult<>(new ExceptionServiceError(e));
+		}
+		return new SyncSuccessServiceResult<>(null);
+	}
+
+	@Override
+	public AsyncServiceResult<Void> deleteSavedGame(SavedGame savedGame) {
+		Slot slot;
+		synchronized (this) {
+			slot = slots.get(savedGame.getTitle());
+			if (slot == null) {
+				slot = new Slot(savedGame.getTitle(), new MirroredSavedGame(savedGame));
+				slot.remote = savedGame;
+				slot.remoteTimestamp = savedGame.getTimestamp();
+				slots.put(slot.title, slot);
+			}
+			dropData(slot);
+			slot.generation++;
+			slot.deleted = true;
+			if (slot.state == SyncState.Synced)
+				slot.state = SyncState.Dirty;
+			store(slot);
+		}
+		send(slot);
+		return new SyncSuccessServiceResult<>(null);
+	}
+
+	// Mirror
+
+	private Array<SavedGame> listing() {
+		Array<SavedGame> savedGames = new Array<>(slots.size());
+		for (Slot slot : slots.values()) {
+			if (!slot.deleted)
+				savedGames.add(slot.savedGame);
+		}
+		return savedGames;
+	}
+
+	/**
+	 * Store given temporary file as the new local content of given saved game,
+	 * then send it.
+	 */
+	private void commit(SavedGame savedGame, File tmp) throws IOException {
+		Slot slot;
+		synchronized (this) {
+			slot = slots.get(savedGame.getTitle());
+			if (slot == null) {
+				slot = new Slot(savedGame.getTitle(), null);
+				slots.put(slot.title, slot);
+			}
+			long previous = slot.hasData ? slot.generation : -1L;
+			AtomicFiles.replace(tmp, dataFile(slot.title, slot.generation + 1));
+			slot.generation++;
+			slot.savedGame = new MirroredSavedGame(savedGame);
+			slot.hasData = true;
+			slot.deleted = false;
+			if (slot.state == SyncState.Synced)
+				slot.state = SyncState.Dirty;
+			store(slot);
+			if (previous >= 0L && previous != slot.sending)
+				dataFile(slot.title, previous).delete();
+		}
+		send(slot);
+	}
+
+	/**
+	 * Store given temporary file, content fetched from the game service, as
+	 * the local content of given saved game unless it changed locally
+	 * meanwhile.
+	 */
+	private synchronized void mirror(SavedGame remote, File tmp) {
+		Slot slot = slots.get(remote.getTitle());
+		if (slot == null) {
+			slot = new Slot(remote.getTitle(), new MirroredSavedGame(remote));
+			slot.remote = remote;
+			slot.remoteTimestamp = remote.getTimestamp();
+			slots.put(slot.title, slot);
+		} else if (slot.hasData || slot.deleted || slot.state != SyncState.Synced) {
+			return;
+		}
+		try {
+			AtomicFiles.replace(tmp, dataFile(slot.title, slot.generation + 1));
+		} catch (IOException e) {
+			// Fetched again on next load
+			return;
+		}
+		slot.generation++;
+		slot.hasData = true;
+		store(slot);
+	}
+
+	private synchronized void reconcile(Iterable<SavedGame> remotes) {
+		Set<String> listed = new HashSet<>();
+		for (SavedGame remote : remotes) {
+			listed.add(remote.getTitle());
+			Slot slot = slots.get(remote.getTitle());
+			if (slot == null) {
+				// Fetched on first load
+				slot = new Slot(remote.getTitle(), new MirroredSavedGame(remote));
+				slot.remoteTimestamp = remote.getTimestamp();
+				slot.remote = remote;
+				slots.put(slot.title, slot);
+				store(slot);
+				continue;
+			}
+			slot.remote = remote;
+			if (slot.state == SyncState.InFlight || slot.remoteTimestamp == remote.getTimestamp())
+				continue;
+			if (slot.remoteTimestamp == UNKNOWN_TIMESTAMP) {
+				// First listing since this device sent it, assume it is that content
+				slot.remoteTimestamp = remote.getTimestamp();
+			} else {
+				// Changed elsewhere since last listed
+				slot.remoteTimestamp = remote.getTimestamp();
+				if (slot.state == SyncState.Synced) {
+					slot.savedGame = new MirroredSavedGame(remote);
+					dropData(slot);
+				} else {
+					slot.state = SyncState.Conflicted;
+				}
+			}
+			store(slot);
+		}
+
+		for (Iterator<Slot> iterator = slots.values().iterator(); iterator.hasNext();) {
+			Slot slot = iterator.next();
+			if (listed.contains(slot.title) || slot.state == SyncState.InFlight)
+				continue;
+			slot.remote = null;
+			if (slot.state == SyncState.Synced && slot.remoteTimestamp != NOT_REMOTE || slot.deleted && slot.state != SyncState.Conflicted) {
+				// Deleted elsewhere, or deletion already done
+				iterator.remove();
+				forget(slot);
+			} else if (slot.remoteTimestamp != NOT_REMOTE) {
+				slot.remoteTimestamp = NOT_REMOTE;
+				store(slot);
+			}
+		}
+		reconciled = true;
+	}
+
+	/**
+	 * Send the pending change of given saved game, if any and none is already
+	 * in flight.
+	 */
+	private void send(final Slot slot) {
+		final long generation;
+		final boolean deletion;
+		final SavedGame target;
+		final InputStream input;
+		long length = 0L;
+		synchronized (this) {
+			if (slot.state != SyncState.Dirty)
+				return;
+			generation = slot.generation;
+			deletion = slot.deleted;
+			if (deletion) {
+				if (slot.remoteTimestamp == NOT_REMOTE) {
+					// Never reached the game service
+					slots.remove(slot.title);
+					forget(slot);
+					return;
+				}
+				target = slot.remote != null ? slot.remote : slot.savedGame;
+				input = null;
+			} else {
+				target = slot.savedGame;
+				File file = dataFile(slot.title, generation);
+				try {
+					input = new FileInputStream(file);
+				} catch (IOException e) {
+					return; // Stays dirty
+				}
+				length = file.length();
+			}
+			slot.state = SyncState.InFlight;
+			slot.sending = generation;
+		}
+
+		AsyncServiceResult<Void> request = deletion ? delegate.deleteSavedGame(target) : delegate.submitSavedGame(target, input, length);
+		request.onCompletion(new ServiceCompletionCallback<Void>() {
+			@Override
+			public void onSuccess(Void value) {
+				done(true);
+			}
+
+			@Override
+			public void onError(ServiceError error) {
+				// Most likely offline or logged out, wait for next sync
+				done(false);
+			}
+
+			private void done(boolean success) {
+				StreamUtils.closeQuietly(input);
+				boolean again;
+				boolean relist = false;
+				synchronized (MirroringGameServicesHandler.this) {
+					slot.sending = -1L;
+					if (slot.generation != generation && !deletion)
+						dataFile(slot.title, generation).delete();
+					if (slot.state != SyncState.InFlight)
+						return;
+					again = success && slot.generation != generation;
+					if (success && !again) {
+						if (deletion) {
+							slots.remove(slot.title);
+							forget(slot);
+							return;
+						}
+						slot.state = SyncState.Synced;
+						slot.remoteTimestamp = UNKNOWN_TIMESTAMP;
+						relist = true;
+					} else {
+						slot.state = SyncState.Dirty;
+						if (success)
+							slot.remoteTimestamp = UNKNOWN_TIMESTAMP;
+					}
+					store(slot);
+				}
+				if (again)
+					send(slot);
+				else if (relist)
+					learnTimestamp(slot);
+			}
+		});
+	}
+
+	/**
+	 * List saved games right after given one was sent, so that its listed
+	 * timestamp is known to be the one of the content sent.
+	 */
+	private void learnTimestamp(final Slot slot) {
+		delegate.getSavedGames().onSuccess(new ServiceSuccessCallback<Iterable<SavedGame>>() {
+			@Override
+			public void onSuccess(Iterable<SavedGame> value) {
+				synchronized (MirroringGameServicesHandler.this) {
+					if (slots.get(slot.title) != slot || slot.state == SyncState.InFlight || slot.remoteTimestamp != UNKNOWN_TIMESTAMP)
+						return;
+					for (SavedGame remote : value) {
+						if (slot.title.equals(remote.getTitle())) {
+							slot.remote = remote;
+							slot.remoteTimestamp = remote.getTimestamp();
+							store(slot);
+							return;
+						}
+					}
+				}
+			}
+		});
+	}
+
+	private void dropData(Slot slot) {
+		if (slot.hasData && slot.generation != slot.sending)
+			dataFile(slot.title, slot.generation).delete();
+		slot.hasData = false;
+	}
+
+	private void forget(Slot slot) {
+		dropData(slot);
+		metaFile(slot.title).delete();
+	}
+
+	// Files
+
+	/**
+	 * Load mirrored saved games, deleting leftovers of interrupted writes.
+	 */
+	private void open() {
+		File[] files = directory.listFiles();
+		if (files == null)
+			return;
+		// States whose replacement was interrupted
+		for (File file : files) {
+			String name = file.getName();
+			if (!name.endsWith(META_EXTENSION + TEMP_EXTENSION))
+				continue;
+			try {
+				AtomicFiles.recover(new File(directory, name.substring(0, name.length() - TEMP_EXTENSION.length())), file);
+			} catch (IOException e) {
+				// Content left aside, mirrored again on reconciliation
+			}
+		}
+		files = directory.listFiles();
+		if (files == null)
+			return;
+		for (File file : files) {
+			if (!file.getName().endsWith(META_EXTENSION))
+				continue;
+			try {
+				Slot slot = load(file);
+				slots.put(slot.title, slot);
+			} catch (IOException e) {
+				// Unreadable, mirrored again on reconciliation
+				file.delete();
+			}
+		}
+		Set<String> referenced = new HashSet<>();
+		for (Slot slot : slots.values()) {
+			referenced.add(metaFile(slot.title).getName());
+			if (slot.hasData)
+				referenced.add(dataFile(slot.title, slot.generation).getName());
+		}
+		for (File file : files) {
+			if (!referenced.contains(file.getName()))
+				file.delete();
+		}
+	}
+
+	private Slot load(File file) throws IOException {
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(readFile(file)));
+		if (input.readInt() != FORMAT_VERSION)
+			throw new IOException("Unknown mirror format");
+		String title = input.readUTF();
+		String id = readString(input);
+		String description = readString(input);
+		long timestamp = input.readLong();
+		long playedTime = input.readLong();
+		String deviceName = readString(input);
+		Slot slot = new Slot(title, new MirroredSavedGame(id, title, description, timestamp, playedTime, deviceName));
+		slot.state = SyncState.values()[input.readByte()];
+		slot.generation = input.readLong();
+		slot.remoteTimestamp = input.readLong();
+		slot.hasData = input.readBoolean();
+		slot.deleted = input.readBoolean();
+		if (slot.state == SyncState.InFlight)
+			slot.state = SyncState.Dirty; // Interrupted, send again
+		if (slot.hasData && !dataFile(title, slot.generation).exists())
+			throw new IOException("Missing content of saved game " + title);
+		return slot;
+	}
+
+	/**
+	 * Write the state of given saved game. Failures are ignored, the in memory
+	 * state prevailing until next run.
+	 */
+	private void store(Slot slot) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream output = new DataOutputStream(bytes);
+			SavedGame savedGame = slot.savedGame;
+			output.writeInt(FORMAT_VERSION);
+			output.writeUTF(slot.title);
+			writeString(output, savedGame.getId());
+			writeString(output, savedGame.getDescription());
+			output.writeLong(savedGame.getTimestamp());
+			output.writeLong(savedGame.getPlayedTime());
+			writeString(output, savedGame.getDeviceName());
+			output.writeByte((slot.state == SyncState.InFlight ? SyncState.Dirty : slot.state).ordinal());
+			output.writeLong(slot.generation);
+			output.writeLong(slot.remoteTimestamp);
+			output.writeBoolean(slot.hasData);
+			output.writeBoolean(slot.deleted);
+			output.flush();
+			File meta = metaFile(slot.title);
+			File tmp = metaTempFile(meta);
+			try {
+				write(tmp, bytes.toByteArray());
+				AtomicFiles.replace(tmp, meta);
+			} finally {
+				tmp.delete();
+			}
+		} catch (IOException e) {
+			// Written again on next change
+		}
+	}
+
+	private File metaFile(String title) {
+		return new File(directory, encode(title) + META_EXTENSION);
+	}
+
+	private static File metaTempFile(File meta) {
+		return new File(meta.getPath() + TEMP_EXTENSION);
+	}
+
+	private File dataFile(String title, long generation) {
+		return new File(directory, encode(title) + '.' + generation + DATA_EXTENSION);
+	}
+
+	private File createTempFile() throws IOException {
+		return File.createTempFile("save", TEMP_EXTENSION, directory);
+	}
+
+	private static String encode(String title) {
+		try {
+			return URLEncoder.encode(title, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new GdxRuntimeException(e);
+		}
+	}
+
+	private static void write(File file, byte[] data) throws IOException {
+		FileOutputStream output = new FileOutputStream(file);
+		try {
+			output.write(data);
+			output.getFD().sync();
+		} finally {
+			StreamUtils.closeQuietly(output);
+		}
+	}
+
+	private static void write(File file, InputStream input, long length) throws IOException {
+		FileOutputStream output = new FileOutputStream(file);
+		try {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			long remaining = length < 0L ? Long.MAX_VALUE : length;
+			while (remaining > 0L) {
+				int read = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+				if (read < 0) {
+					if (length >= 0L)
+						throw new IOException("Saved game data ended after " + (length - remaining) + " of " + length + " bytes");
+					break;
+				}
+				output.write(buffer, 0, read);
+				remaining -= read;
+			}
+			output.getFD().sync();
+		} finally {
+			StreamUtils.closeQuietly(output);
+		}
+	}
+
+	private static byte[] readFile(File file) throws IOException {
+		FileInputStream input = new FileInputStream(file);
+		try {
+			FileChannel channel = input.getChannel();
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("Saved game data too large: " + size + " bytes");
+			// Read straight into the array, a mapping would only be copied and
+			// keep the file from being deleted on Windows until collected
+			byte[] data = new byte[(int) size];
+			ByteBuffer buffer = ByteBuffer.wrap(data);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0)
+					throw new IOException("Saved game data ended after " + buffer.position() + " of " + size + " bytes");
+			}
+			return data;
+		} finally {
+			StreamUtils.closeQuietly(input);
+		}
+	}
+
+	private static void copy(File file, OutputStream output) throws IOException {
+		FileInputStream input = new FileInputStream(file);
+		try {
+			long size = input.getChannel().size();
+			byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(size, 1L))];
+			int read;
+			while ((read = input.read(buffer)) >= 0)
+				output.write(buffer, 0, read);
+			output.flush();
+		} finally {
+			StreamUtils.closeQuietly(input);
+		}
+	}
+
+	private static String readString(DataInputStream input) throws IOException {
+		return input.readBoolean() ? input.readUTF() : null;
+	}
+
+	private static void writeString(DataOutputStream output, String value) throws IOException {
+		output.writeBoolean(value != null);
+		if (value != null)
+			output.writeUTF(value);
+	}
+
+	private static final class Slot {
+		final String title;
+		MirroredSavedGame savedGame;
+		/** Last listed by the game service, if any. */
+		SavedGame remote;
+		SyncState state = SyncState.Synced;
+		long generation;
+		long sending = -1L;
+		long remoteTimestamp = NOT_REMOTE;
+		boolean hasData;
+		boolean deleted;
+
+		Slot(String title, MirroredSavedGame savedGame) {
+			this.title = title;
+			this.savedGame = savedGame;
+		}
+	}
+
+	/**
+	 * Metadata of a mirrored saved game, as of its last local change or
+	 * listing.
+	 */
+	private static final class MirroredSavedGame implements SavedGame {
+
+		private final String id;
+		private final String title;
+		private final String description;
+		private final long timestamp;
+		private final long playedTime;
+		private final String deviceName;
+
+		MirroredSavedGame(SavedGame savedGame) {
+			this(savedGame.getId(), savedGame.getTitle(), savedGame.getDescription(), savedGame.getTimestamp(), savedGame.getPlayedTime(), savedGame.getDeviceName());
+		}
+
+		MirroredSavedGame(String id, String title, String description, long timestamp, long playedTime, String deviceName) {
+			this.id = id;
+			this.title = title;
+			this.description = description;
+			this.timestamp = timestamp;
+			this.playedTime = playedTime;
+			this.deviceName = deviceName;
+		}
+
+		@Override
+		public String getId() {
+			return id;
+		}
+
+		@Override
+		public String getTitle() {
+			return title;
+		}
+
+		@Override
+		public String getDescription() {
+			return description;
+		}
+
+		@Override
+		public long getTimestamp() {
+			return timestamp;
+		}
+
+		@Override
+		public long getPlayedTime() {
+			return playedTime;
+		}
+
+		@Override
+		public String getDeviceName() {
+			return deviceName;
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+import java.util.Arrays;
+
+/**
+ * Service method name along with its arguments, compared by value.
+ */
+final class ServiceCallKey {
+
+	private final String method;
+	private final Object[] arguments;
+	private final int hash;
+
+	ServiceCallKey(String method, Object... arguments) {
+		this.method = method;
+		this.arguments = arguments;
+		this.hash = 31 * method.hashCode() + Arrays.hashCode(arguments);
+	}
+
+	String getMethod() {
+		return method;
+	}
+
+	Object getArgument(int index) {
+		return index < arguments.length ? arguments[index] : null;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof ServiceCallKey)) return false;
+		ServiceCallKey other = (ServiceCallKey) o;
+		return hash == other.hash && method.equals(other.method) && Arrays.equals(arguments, other.arguments);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return method + Arrays.toString(arguments);
+	}
+}
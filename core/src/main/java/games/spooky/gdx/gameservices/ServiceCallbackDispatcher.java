@@ -0,0 +1,205 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+import com.badlogic.gdx.Gdx;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers service callbacks on the rendering thread.
+ * <p>
+ * Callbacks of results passed through {@link #dispatch(AsyncServiceResult)}
+ * are queued, whatever the thread completing them, and drained on the
+ * rendering thread via {@code Gdx.app.postRunnable()}. Draining stops once the
+ * per-frame time budget is spent: callbacks left over are carried over to the
+ * next frame, so that a burst of completions never causes a frame spike. At
+ * least one callback is run per frame, so that progress is always made.
+ * <p>
+ * Opt-in: either dispatch results one by one or wrap a whole handler in a
+ * {@link DispatchingGameServicesHandler}.
+ */
+public class ServiceCallbackDispatcher {
+
+	public static final long DEFAULT_FRAME_BUDGET_NANOS = 2000000L; // 2 ms
+
+	private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	private volatile long frameBudgetNanos;
+
+	private final Runnable drainer = new Runnable() {
+		@Override
+		public void run() {
+			try {
+				drain();
+			} finally {
+				scheduled.set(false);
+				if (!queue.isEmpty())
+					schedule();
+			}
+		}
+	};
+
+	public ServiceCallbackDispatcher() {
+		this(DEFAULT_FRAME_BUDGET_NANOS);
+	}
+
+	public ServiceCallbackDispatcher(long frameBudgetNanos) {
+		super();
+		setFrameBudgetNanos(frameBudgetNanos);
+	}
+
+	/**
+	 * Time allowed each frame for running queued callbacks.
+	 *
+	 * @return the per-frame time budget, in nanoseconds
+	 */
+	public long getFrameBudgetNanos() {
+		return frameBudgetNanos;
+	}
+
+	/**
+	 * Set the time allowed each frame for running queued callbacks.
+	 *
+	 * @param frameBudgetNanos the per-frame time budget, in nanoseconds
+	 */
+	public void setFrameBudgetNanos(long frameBudgetNanos) {
+		if (frameBudgetNanos < 0L)
+			throw new IllegalArgumentException("Frame budget must not be negative: " + frameBudgetNanos);
+		this.frameBudgetNanos = frameBudgetNanos;
+	}
+
+	/**
+	 * Number of callbacks waiting to be run on the rendering thread.
+	 *
+	 * @return the number of pending callbacks
+	 */
+	public int getPendingCount() {
+		return queue.size();
+	}
+
+	/**
+	 * Wrap given result so that its callbacks are run on the rendering thread.
+	 *
+	 * @param result the result to wrap
+	 * @param <T> type of the result
+	 * @return a result whose callbacks are run on the rendering thread
+	 */
+	public <T> AsyncServiceResult<T> dispatch(final AsyncServiceResult<T> result) {
+		return new AsyncServiceResult<T>() {
+			@Override
+			public void onSuccess(ServiceSuccessCallback<T> callback) {
+				result.onSuccess(successCallback(callback));
+			}
+
+			@Override
+			public void onError(ServiceErrorCallback callback) {
+				result.onError(errorCallback(callback));
+			}
+
+			@Override
+			public void onCompletion(final ServiceCompletionCallback<T> callback) {
+				final ServiceSuccessCallback<T> successCallback = successCallback(callback);
+				final ServiceErrorCallback errorCallback = errorCallback(callback);
+				result.onCompletion(new ServiceCompletionCallback<T>() {
+					@Override
+					public void onSuccess(T value) {
+						successCallback.onSuccess(value);
+					}
+
+					@Override
+					public void onError(ServiceError error) {
+						errorCallback.onError(error);
+					}
+				});
+			}
+
+			@Override
+			public boolean cancel() {
+				return result.cancel();
+			}
+		};
+	}
+
+	/**
+	 * Queue given runnable to be run on the rendering thread.
+	 *
+	 * @param runnable the runnable to queue
+	 */
+	public void post(Runnable runnable) {
+		queue.add(runnable);
+		schedule();
+	}
+
+	/**
+	 * Run queued callbacks until the queue is empty or the frame budget is
+	 * spent. Called automatically on the rendering thread, only call it
+	 * yourself to flush callbacks at a specific point of the frame.
+	 */
+	public void drain() {
+		long deadline = System.nanoTime() + frameBudgetNanos;
+		Runnable runnable;
+		do {
+			runnable = queue.poll();
+			if (runnable == null)
+				break;
+			runnable.run();
+		} while (System.nanoTime() < deadline);
+	}
+
+	private void schedule() {
+		if (scheduled.compareAndSet(false, true))
+			Gdx.app.postRunnable(drainer);
+	}
+
+	private <T> ServiceSuccessCallback<T> successCallback(final ServiceSuccessCallback<T> callback) {
+		return new ServiceSuccessCallback<T>() {
+			@Override
+			public void onSuccess(final T result) {
+				post(new Runnable() {
+					@Override
+					public void run() {
+						callback.onSuccess(result);
+					}
+				});
+			}
+		};
+	}
+
+	private ServiceErrorCallback errorCallback(final ServiceErrorCallback callback) {
+		return new ServiceErrorCallback() {
+			@Override
+			public void onError(final ServiceError error) {
+				post(new Runnable() {
+					@Override
+					public void run() {
+						callback.onError(error);
+					}
+				});
+			}
+		};
+	}
+}
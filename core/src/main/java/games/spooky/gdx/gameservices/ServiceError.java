@@ -25,6 +25,17 @@ package games.spooky.gdx.gameservices;
 
 public interface ServiceError {
 
+	/**
+	 * Error code of requests cancelled through {@link AsyncServiceResult#cancel()}.
+	 */
+	int CANCELLED = -2;
+
+	/**
+	 * Error code of requests not completed before their deadline, see
+	 * {@link AsyncServiceResults#withTimeout(AsyncServiceResult, long, java.util.concurrent.TimeUnit)}.
+	 */
+	int TIMED_OUT = -3;
+
 	/**
 	 * Error code of game service request.
 	 *
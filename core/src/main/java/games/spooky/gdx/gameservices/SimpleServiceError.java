@@ -55,4 +55,35 @@ public class SimpleServiceError implements ServiceError {
 	public static ServiceError error(int errorCode, String errorMessage) {
 		return new SimpleServiceError(errorCode, errorMessage);
 	}
+
+	public static ServiceError cancelled() {
+		return error(CANCELLED, "Request cancelled");
+	}
+
+	public static ServiceError timedOut() {
+		return error(TIMED_OUT, "Request timed out");
+	}
+
+	/**
+	 * Error of a request the game service refused, bound to fail again if
+	 * sent as is.
+	 *
+	 * @param errorMessage the reason of the refusal
+	 * @return a non-transient error
+	 */
+	public static ServiceError rejected(String errorMessage) {
+		return new Rejected(errorMessage);
+	}
+
+	private static final class Rejected extends SimpleServiceError implements ClassifiedServiceError {
+
+		Rejected(String errorMessage) {
+			super(-1, errorMessage);
+		}
+
+		@Override
+		public boolean isTransient() {
+			return false;
+		}
+	}
 }
@@ -45,6 +45,11 @@ public class SyncErrorServiceResult<T> implements AsyncServiceResult<T> {
         callback.onError(errorResponse);
     }
 
+    @Override
+    public boolean cancel() {
+        return false;
+    }
+
     public static <T> SyncErrorServiceResult<T> syncError(ServiceError errorResponse) {
         return new SyncErrorServiceResult<>(errorResponse);
     }
@@ -46,6 +46,11 @@ public class SyncSuccessServiceResult<T> implements AsyncServiceResult<T> {
         callback.onSuccess(result);
     }
 
+    @Override
+    public boolean cancel() {
+        return false;
+    }
+
     public static <T> SyncSuccessServiceResult<T> sync(T value) {
         return new SyncSuccessServiceResult<>(value);
     }
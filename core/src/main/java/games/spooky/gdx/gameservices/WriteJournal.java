@@ -0,0 +1,438 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of pending writes (achievement unlocks and score
+ * submissions), surviving process deaths.
+ * <p>
+ * Each write is appended as a binary record
+ * {@code [length][type][sequence][payload][crc32]} and removed by appending an
+ * acknowledgement record once the underlying service accepted it. Appends
+ * return as soon as the record is handed to the file system; flushing to disk
+ * (fsync) is batched, at most {@link #getSyncDelay(TimeUnit) sync delay} after
+ * the first unsynced append, or on {@link #sync()}.
+ * <p>
+ * On opening, records are read back up to the first truncated or corrupted
+ * one (e.g. torn by a crash mid-append), the file being truncated there. The
+ * journal is emptied once nothing is pending, and compacted once it grows past
+ * {@link #getCompactionThreshold() a threshold}.
+ */
+public class WriteJournal implements Disposable {
+
+	public static final long DEFAULT_SYNC_DELAY_MILLIS = 100L;
+	public static final long DEFAULT_COMPACTION_THRESHOLD = 64 * 1024;
+
+	private static final byte TYPE_ACHIEVEMENT_UNLOCK = 1;
+	private static final byte TYPE_SCORE_SUBMISSION = 2;
+	private static final byte TYPE_ACKNOWLEDGEMENT = 3;
+
+	// Bound on the length of a record body, anything above is corruption
+	private static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+	/**
+	 * A write still waiting to be accepted by the underlying service.
+	 */
+	public static final class Entry {
+
+		private final long sequence;
+		private final byte type;
+		private final String id;
+		private final long score;
+
+		Entry(long sequence, byte type, String id, long score) {
+			this.sequence = sequence;
+			this.type = type;
+			this.id = id;
+			this.score = score;
+		}
+
+		public long getSequence() {
+			return sequence;
+		}
+
+		public boolean isAchievementUnlock() {
+			return type == TYPE_ACHIEVEMENT_UNLOCK;
+		}
+
+		public boolean isScoreSubmission() {
+			return type == TYPE_SCORE_SUBMISSION;
+		}
+
+		/**
+		 * Id of the unlocked achievement, or of the leaderboard the score is
+		 * submitted to.
+		 *
+		 * @return the id of the achievement or leaderboard
+		 */
+		public String getId() {
+			return id;
+		}
+
+		public long getScore() {
+			return score;
+		}
+	}
+
+	private final File file;
+	private final CRC32 crc = new CRC32();
+
+	// All guarded by this
+	private final LinkedHashMap<Long, Entry> pending = new LinkedHashMap<>();
+	private RandomAccessFile raf;
+	private FileChannel channel;
+	private long nextSequence;
+	private long syncDelay = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SYNC_DELAY_MILLIS);
+	private long compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+	private ScheduledFuture<?> scheduledSync;
+	private boolean dirty;
+
+	/**
+	 * Open given journal file, recovering pending writes from it. The file is
+	 * created if it does not exist.
+	 *
+	 * @param file the journal file, must be writable
+	 * @throws IOException if the file cannot be read or written
+	 */
+	public WriteJournal(FileHandle file) throws IOException {
+		super();
+		this.file = file.file();
+		File parent = this.file.getParentFile();
+		if (parent != null)
+			parent.mkdirs();
+		// Leftover of an interrupted compaction: partial if the journal is still
+		// there, the only complete copy otherwise
+		AtomicFiles.recover(this.file, new File(this.file.getPath() + ".tmp"));
+		open();
+		recover();
+	}
+
+	// Configuration
+
+	public synchronized long getSyncDelay(TimeUnit unit) {
+		return unit.convert(syncDelay, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Set the maximum time appended records may stay unsynced to disk. Zero
+	 * syncs on every append.
+	 *
+	 * @param delay the maximum delay before syncing
+	 * @param unit the unit of the delay
+	 */
+	public synchronized void setSyncDelay(long delay, TimeUnit unit) {
+		if (delay < 0)
+			throw new IllegalArgumentException("Sync delay must not be negative");
+		this.syncDelay = unit.toNanos(delay);
+	}
+
+	public synchronized long getCompactionThreshold() {
+		return compactionThreshold;
+	}
+
+	/**
+	 * Set the size, in bytes, past which the journal is rewritten with pending
+	 * records only.
+	 *
+	 * @param compactionThreshold the size triggering compaction
+	 */
+	public synchronized void setCompactionThreshold(long compactionThreshold) {
+		this.compactionThreshold = compactionThreshold;
+	}
+
+	// Records
+
+	/**
+	 * Journal the unlock of given achievement.
+	 *
+	 * @param achievementId the id of the achievement
+	 * @return the sequence number of the record, to acknowledge
+	 * @throws IOException if the record cannot be written
+	 */
+	public synchronized long appendAchievementUnlock(String achievementId) throws IOException {
+		return append(new Entry(nextSequence, TYPE_ACHIEVEMENT_UNLOCK, achievementId, 0L));
+	}
+
+	/**
+	 * Journal the submission of given score.
+	 *
+	 * @param leaderboardId the id of the leaderboard
+	 * @param score the score to submit
+	 * @return the sequence number of the record, to acknowledge
+	 * @throws IOException if the record cannot be written
+	 */
+	public synchronized long appendScoreSubmission(String leaderboardId, long score) throws IOException {
+		return append(new Entry(nextSequence, TYPE_SCORE_SUBMISSION, leaderboardId, score));
+	}
+
+	/**
+	 * Remove given write from pending ones, once accepted by the underlying
+	 * service.
+	 *
+	 * @param sequence the sequence number of the record
+	 * @throws IOException if the acknowledgement cannot be written
+	 */
+	public synchronized void acknowledge(long sequence) throws IOException {
+		if (pending.remove(sequence) == null)
+			return;
+		ensureOpen();
+		if (pending.isEmpty()) {
+			// Nothing left to replay, start over
+			channel.truncate(0L);
+			channel.force(false);
+			cancelScheduledSync();
+			dirty = false;
+			return;
+		}
+		write(TYPE_ACKNOWLEDGEMENT, sequence, null, 0L);
+		if (channel.size() > compactionThreshold)
+			compact();
+	}
+
+	/**
+	 * Writes still waiting to be accepted, in journaling order.
+	 *
+	 * @return a snapshot of pending writes
+	 */
+	public synchronized Array<Entry> getPending() {
+		Array<Entry> result = new Array<>(pending.size());
+		for (Entry entry : pending.values())
+			result.add(entry);
+		return result;
+	}
+
+	public synchronized int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Flush appended records to disk now.
+	 *
+	 * @throws IOException if the journal cannot be synced
+	 */
+	public synchronized void sync() throws IOException {
+		cancelScheduledSync();
+		if (dirty && channel != null) {
+			channel.force(false);
+			dirty = false;
+		}
+	}
+
+	@Override
+	public synchronized void dispose() {
+		try {
+			sync();
+		} catch (IOException ignored) {
+			// Closing anyway, at worst last writes are lost
+		}
+		StreamUtils.closeQuietly(raf);
+		raf = null;
+		channel = null;
+	}
+
+	// Internals
+
+	private long append(Entry entry) throws IOException {
+		ensureOpen();
+		write(entry.type, entry.sequence, entry.id, entry.score);
+		nextSequence++;
+		pending.put(entry.sequence, entry);
+		return entry.sequence;
+	}
+
+	private void write(byte type, long sequence, String id, long score) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+		DataOutputStream body = new DataOutputStream(bytes);
+		body.writeByte(type);
+		body.writeLong(sequence);
+		if (type != TYPE_ACKNOWLEDGEMENT)
+			body.writeUTF(id);
+		if (type == TYPE_SCORE_SUBMISSION)
+			body.writeLong(score);
+		body.flush();
+
+		byte[] payload = bytes.toByteArray();
+		crc.reset();
+		crc.update(payload, 0, payload.length);
+
+		ByteBuffer record = ByteBuffer.allocate(payload.length + 8);
+		record.putInt(payload.length).put(payload).putInt((int) crc.getValue());
+		record.flip();
+		channel.position(channel.size());
+		while (record.hasRemaining())
+			channel.write(record);
+
+		dirty = true;
+		scheduleSync();
+	}
+
+	private void scheduleSync() throws IOException {
+		if (syncDelay == 0L) {
+			sync();
+		} else if (scheduledSync == null) {
+			scheduledSync = ServiceTimer.timer.schedule(new Runnable() {
+				@Override
+				public void run() {
+					synchronized (WriteJournal.this) {
+						scheduledSync = null;
+						try {
+							sync();
+						} catch (IOException ignored) {
+							// Left dirty, synced again on next append
+						}
+					}
+				}
+			}, syncDelay, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private void cancelScheduledSync() {
+		if (scheduledSync != null) {
+			scheduledSync.cancel(false);
+			scheduledSync = null;
+		}
+	}
+
+	private void recover() throws IOException {
+		long valid = 0L;
+		DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0L))));
+		try {
+			byte[] payload = new byte[64];
+			for (;;) {
+				int length;
+				try {
+					length = input.readInt();
+				} catch (EOFException e) {
+					break;
+				}
+				if (length < 9 || length > MAX_RECORD_LENGTH)
+					break;
+				if (payload.length < length)
+					payload = new byte[length];
+				int checksum;
+				try {
+					input.readFully(payload, 0, length);
+					checksum = input.readInt();
+				} catch (EOFException e) {
+					break; // Torn record
+				}
+				crc.reset();
+				crc.update(payload, 0, length);
+				if ((int) crc.getValue() != checksum)
+					break;
+
+				DataInputStream body = new DataInputStream(new ByteArrayInputStream(payload, 0, length));
+				byte type = body.readByte();
+				long sequence = body.readLong();
+				switch (type) {
+					case TYPE_ACHIEVEMENT_UNLOCK:
+						pending.put(sequence, new Entry(sequence, type, body.readUTF(), 0L));
+						break;
+					case TYPE_SCORE_SUBMISSION:
+						pending.put(sequence, new Entry(sequence, type, body.readUTF(), body.readLong()));
+						break;
+					case TYPE_ACKNOWLEDGEMENT:
+						pending.remove(sequence);
+						break;
+					default:
+						throw new IOException("Unknown journal record type " + type);
+				}
+				nextSequence = Math.max(nextSequence, sequence + 1);
+				valid += length + 8;
+			}
+		} catch (IOException e) {
+			// Unreadable from there, keep what was read so far
+		}
+		if (channel.size() > valid) {
+			channel.truncate(valid);
+			channel.force(false);
+		}
+	}
+
+	private void compact() throws IOException {
+		File compacted = new File(file.getPath() + ".tmp");
+		FileChannel previous = channel;
+		RandomAccessFile previousRaf = raf;
+		try {
+			raf = new RandomAccessFile(compacted, "rw");
+			channel = raf.getChannel();
+			channel.truncate(0L);
+			for (Entry entry : pending.values())
+				write(entry.type, entry.sequence, entry.id, entry.score);
+			channel.force(false);
+		} catch (IOException e) {
+			StreamUtils.closeQuietly(raf);
+			compacted.delete();
+			raf = previousRaf;
+			channel = previous;
+			throw e;
+		}
+		StreamUtils.closeQuietly(raf);
+		StreamUtils.closeQuietly(previousRaf);
+		raf = null;
+		channel = null;
+		cancelScheduledSync();
+		dirty = false;
+		// Either the old journal or the compacted one, both holding pending writes
+		try {
+			AtomicFiles.replace(compacted, file);
+		} finally {
+			// Keep the journal open whatever happened
+			AtomicFiles.recover(file, compacted);
+			open();
+		}
+	}
+
+	private void open() throws IOException {
+		raf = new RandomAccessFile(file, "rw");
+		channel = raf.getChannel();
+	}
+
+	private void ensureOpen() throws IOException {
+		if (channel == null)
+			throw new IOException("Journal " + file + " is closed");
+	}
+}
@@ -24,6 +24,7 @@
 package games.spooky.gdx.gameservices.achievement;
 
 import games.spooky.gdx.gameservices.AsyncServiceResult;
+import games.spooky.gdx.gameservices.BatchResult;
 
 public interface AchievementsHandler {
 
@@ -47,4 +48,15 @@ public interface AchievementsHandler {
 	 */
 	AsyncServiceResult<Void> unlockAchievement(String achievementId);
 
+	/**
+	 * Unlock achievements of given ids from game service, in as few round
+	 * trips as the game service allows. The outcome of each unlock is reported
+	 * separately, so that only failed ones need to be retried.
+	 * 
+	 * @param achievementIds
+	 *            ids of the achievements to unlock
+	 * @return an AsyncServiceResult to handle the outcome of each unlock
+	 */
+	AsyncServiceResult<BatchResult<String, Void>> unlockAchievements(Iterable<String> achievementIds);
+
 }
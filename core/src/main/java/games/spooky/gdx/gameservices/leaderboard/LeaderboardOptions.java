@@ -71,4 +71,20 @@ public class LeaderboardOptions {
 	public int getMaxResults() {
 		return maxResults;
 	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		LeaderboardOptions other = (LeaderboardOptions) o;
+		return maxResults == other.maxResults && window == other.window && scope == other.scope;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = window != null ? window.hashCode() : 0;
+		result = 31 * result + (scope != null ? scope.hashCode() : 0);
+		result = 31 * result + maxResults;
+		return result;
+	}
 }
@@ -0,0 +1,379 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.leaderboard;
+
+import com.badlogic.gdx.utils.Array;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Page of leaderboard entries, along with the cursors to load the pages
+ * before and after it through
+ * {@link LeaderboardsHandler#getScoresPage(String, LeaderboardOptions, Cursor)}.
+ * <p>
+ * Entries are stored column-wise: scores, ranks and timestamps in primitive
+ * arrays, player ids and names interned. Iterating over a page reuses a single
+ * entry object per iterator, only valid until the next call to
+ * {@link Iterator#next()}; use {@link #get(int)} to keep hold of an entry.
+ */
+public class LeaderboardPage implements Iterable<LeaderboardEntry> {
+
+	/**
+	 * Position of a page in a leaderboard, specific to each game service.
+	 */
+	public interface Cursor {
+	}
+
+	private final int size;
+	private final String[] playerIds;
+	private final String[] playerNames;
+	private final String[] sources;
+	private final long[] scores;
+	private final long[] ranks;
+	private final long[] timestamps;
+	private final Cursor previousCursor;
+	private final Cursor nextCursor;
+
+	/**
+	 * @param entries entries of this page, in rank order
+	 * @param previousCursor cursor of the page before this one, null if this is the first page
+	 * @param nextCursor cursor of the page after this one, null if this is the last page
+	 */
+	public LeaderboardPage(Array<LeaderboardEntry> entries, Cursor previousCursor, Cursor nextCursor) {
+		super();
+		this.size = entries.size;
+		this.playerIds = new String[size];
+		this.playerNames = new String[size];
+		this.sources = new String[size];
+		this.scores = new long[size];
+		this.ranks = new long[size];
+		this.timestamps = new long[size];
+		for (int i = 0; i < size; i++) {
+			LeaderboardEntry entry = entries.get(i);
+			Date date = entry.getDate();
+			playerIds[i] = intern(entry.getPlayerId());
+			playerNames[i] = intern(entry.getPlayerName());
+			sources[i] = intern(entry.getSource());
+			scores[i] = entry.getScore();
+			ranks[i] = entry.getRank();
+			timestamps[i] = date == null ? 0L : date.getTime();
+		}
+		this.previousCursor = previousCursor;
+		this.nextCursor = nextCursor;
+	}
+
+	private LeaderboardPage(Builder builder, Cursor previousCursor, Cursor nextCursor) {
+		super();
+		this.size = builder.size;
+		this.playerIds = copy(builder.playerIds, size);
+		this.playerNames = copy(builder.playerNames, size);
+		this.sources = copy(builder.sources, size);
+		this.scores = copy(builder.scores, size);
+		this.ranks = copy(builder.ranks, size);
+		this.timestamps = copy(builder.timestamps, size);
+		this.previousCursor = previousCursor;
+		this.nextCursor = nextCursor;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get entry at given index, as a standalone object that can be kept around.
+	 *
+	 * @param index index of the entry in this page
+	 * @return the entry at given index
+	 */
+	public LeaderboardEntry get(int index) {
+		checkIndex(index);
+		return new Row(index);
+	}
+
+	/**
+	 * Get all entries, as standalone objects that can be kept around.
+	 *
+	 * @return the entries of this page, in rank order
+	 */
+	public Array<LeaderboardEntry> entries() {
+		Array<LeaderboardEntry> entries = new Array<>(size);
+		for (int i = 0; i < size; i++)
+			entries.add(new Row(i));
+		return entries;
+	}
+
+	public String getPlayerId(int index) {
+		checkIndex(index);
+		return playerIds[index];
+	}
+
+	public String getPlayerName(int index) {
+		checkIndex(index);
+		return playerNames[index];
+	}
+
+	public String getSource(int index) {
+		checkIndex(index);
+		return sources[index];
+	}
+
+	public long getScore(int index) {
+		checkIndex(index);
+		return scores[index];
+	}
+
+	public long getRank(int index) {
+		checkIndex(index);
+		return ranks[index];
+	}
+
+	/**
+	 * @param index index of the entry in this page
+	 * @return the submission time of the entry at given index, in milliseconds since epoch
+	 */
+	public long getTimestamp(int index) {
+		checkIndex(index);
+		return timestamps[index];
+	}
+
+	@Override
+	public Iterator<LeaderboardEntry> iterator() {
+		return new Iterator<LeaderboardEntry>() {
+			private final Flyweight flyweight = new Flyweight();
+			private int index;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public LeaderboardEntry next() {
+				if (index >= size)
+					throw new NoSuchElementException();
+				flyweight.index = index++;
+				return flyweight;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	public boolean hasPrevious() {
+		return previousCursor != null;
+	}
+
+	public boolean hasNext() {
+		return nextCursor != null;
+	}
+
+	public Cursor getPreviousCursor() {
+		return previousCursor;
+	}
+
+	public Cursor getNextCursor() {
+		return nextCursor;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("index can't be >= size: " + index + " >= " + size);
+	}
+
+	private static String intern(String value) {
+		// Players show up again page after page, keep a single copy of their strings
+		return value == null ? null : value.intern();
+	}
+
+	private static String[] copy(String[] array, int size) {
+		if (array.length == size)
+			return array;
+		String[] copy = new String[size];
+		System.arraycopy(array, 0, copy, 0, size);
+		return copy;
+	}
+
+	private static long[] copy(long[] array, int size) {
+		if (array.length == size)
+			return array;
+		long[] copy = new long[size];
+		System.arraycopy(array, 0, copy, 0, size);
+		return copy;
+	}
+
+	/**
+	 * Entry backed by a row of this page.
+	 */
+	private class Row implements LeaderboardEntry {
+		int index;
+
+		Row(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public String getPlayerId() {
+			return playerIds[index];
+		}
+
+		@Override
+		public String getPlayerName() {
+			return playerNames[index];
+		}
+
+		@Override
+		public long getScore() {
+			return scores[index];
+		}
+
+		@Override
+		public long getRank() {
+			return ranks[index];
+		}
+
+		@Override
+		public String getSource() {
+			return sources[index];
+		}
+
+		@Override
+		public Date getDate() {
+			return new Date(timestamps[index]);
+		}
+
+		@Override
+		public String toString() {
+			return "LeaderboardEntry{" +
+					"playerId='" + playerIds[index] + '\'' +
+					", playerName='" + playerNames[index] + '\'' +
+					", score=" + scores[index] +
+					", rank=" + ranks[index] +
+					", source='" + sources[index] + '\'' +
+					", timestamp=" + timestamps[index] +
+					'}';
+		}
+	}
+
+	/**
+	 * Row moved along by an iterator, also reusing its date.
+	 */
+	private final class Flyweight extends Row {
+		private final Date date = new Date(0L);
+
+		Flyweight() {
+			super(0);
+		}
+
+		@Override
+		public Date getDate() {
+			date.setTime(timestamps[index]);
+			return date;
+		}
+	}
+
+	/**
+	 * Fills the columns of a page row by row, without intermediate entry objects.
+	 */
+	public static class Builder {
+		private int size;
+		private String[] playerIds;
+		private String[] playerNames;
+		private String[] sources;
+		private long[] scores;
+		private long[] ranks;
+		private long[] timestamps;
+
+		public Builder() {
+			this(16);
+		}
+
+		/**
+		 * @param capacity expected number of entries
+		 */
+		public Builder(int capacity) {
+			super();
+			capacity = Math.max(capacity, 0);
+			playerIds = new String[capacity];
+			playerNames = new String[capacity];
+			sources = new String[capacity];
+			scores = new long[capacity];
+			ranks = new long[capacity];
+			timestamps = new long[capacity];
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public Builder add(String playerId, String playerName, long score, long rank, String source, long timestamp) {
+			if (size == scores.length)
+				resize(Math.max(8, size + (size >> 1)));
+			playerIds[size] = intern(playerId);
+			playerNames[size] = intern(playerName);
+			sources[size] = intern(source);
+			scores[size] = score;
+			ranks[size] = rank;
+			timestamps[size] = timestamp;
+			size++;
+			return this;
+		}
+
+		/**
+		 * Build the page. The builder must not be used afterwards.
+		 *
+		 * @param previousCursor cursor of the page before this one, null if this is the first page
+		 * @param nextCursor cursor of the page after this one, null if this is the last page
+		 * @return the page
+		 */
+		public LeaderboardPage build(Cursor previousCursor, Cursor nextCursor) {
+			return new LeaderboardPage(this, previousCursor, nextCursor);
+		}
+
+		private void resize(int capacity) {
+			String[] newPlayerIds = new String[capacity];
+			String[] newPlayerNames = new String[capacity];
+			String[] newSources = new String[capacity];
+			long[] newScores = new long[capacity];
+			long[] newRanks = new long[capacity];
+			long[] newTimestamps = new long[capacity];
+			System.arraycopy(playerIds, 0, newPlayerIds, 0, size);
+			System.arraycopy(playerNames, 0, newPlayerNames, 0, size);
+			System.arraycopy(sources, 0, newSources, 0, size);
+			System.arraycopy(scores, 0, newScores, 0, size);
+			System.arraycopy(ranks, 0, newRanks, 0, size);
+			System.arraycopy(timestamps, 0, newTimestamps, 0, size);
+			playerIds = newPlayerIds;
+			playerNames = newPlayerNames;
+			sources = newSources;
+			scores = newScores;
+			ranks = newRanks;
+			timestamps = newTimestamps;
+		}
+	}
+}
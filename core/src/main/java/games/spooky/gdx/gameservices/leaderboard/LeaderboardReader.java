@@ -0,0 +1,286 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.leaderboard;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import games.spooky.gdx.gameservices.AsyncServiceResult;
+import games.spooky.gdx.gameservices.ServiceError;
+import games.spooky.gdx.gameservices.ServiceErrorCallback;
+import games.spooky.gdx.gameservices.ServiceSuccessCallback;
+import games.spooky.gdx.gameservices.SimpleServiceError;
+import games.spooky.gdx.gameservices.SyncErrorServiceResult;
+
+/**
+ * Cursor-based reader walking a leaderboard page by page, forwards and
+ * backwards, for scrolling UIs.
+ * <p>
+ * Only the last {@link #getMaxPages() few} pages read are kept, older ones
+ * being dropped from the opposite end. Report rows shown through
+ * {@link #visit(LeaderboardPage, int)}: when they get within
+ * {@link #getPrefetchThreshold() a few rows} of either end of the retained
+ * pages, the page beyond is loaded in the background so that the following
+ * {@link #next()} or {@link #previous()} completes right away.
+ */
+public class LeaderboardReader implements Disposable {
+
+	public static final int DEFAULT_MAX_PAGES = 5;
+	public static final int DEFAULT_PREFETCH_THRESHOLD = 5;
+
+	private final LeaderboardsHandler handler;
+	private final String leaderboardId;
+	private final LeaderboardOptions options;
+
+	// All guarded by this
+	private final Array<LeaderboardPage> pages = new Array<>();
+	private int maxPages = DEFAULT_MAX_PAGES;
+	private int prefetchThreshold = DEFAULT_PREFETCH_THRESHOLD;
+	private Load nextLoad;
+	private Load previousLoad;
+	private int generation; // Bumped on first(), discards loads of a previous walk
+
+	public LeaderboardReader(LeaderboardsHandler handler, String leaderboardId, LeaderboardOptions options) {
+		super();
+		this.handler = handler;
+		this.leaderboardId = leaderboardId;
+		this.options = options;
+	}
+
+	// Configuration
+
+	public synchronized int getMaxPages() {
+		return maxPages;
+	}
+
+	public synchronized void setMaxPages(int maxPages) {
+		if (maxPages < 1)
+			throw new IllegalArgumentException("At least one page must be kept: " + maxPages);
+		this.maxPages = maxPages;
+	}
+
+	public synchronized int getPrefetchThreshold() {
+		return prefetchThreshold;
+	}
+
+	/**
+	 * Set how close to either end of retained pages, in rows, the consumer
+	 * must get for the page beyond to be prefetched. Zero disables prefetching.
+	 *
+	 * @param prefetchThreshold the distance in rows triggering prefetch
+	 */
+	public synchronized void setPrefetchThreshold(int prefetchThreshold) {
+		this.prefetchThreshold = prefetchThreshold;
+	}
+
+	/**
+	 * Pages currently retained, in leaderboard order.
+	 *
+	 * @return a copy of retained pages
+	 */
+	public synchronized Array<LeaderboardPage> getPages() {
+		return new Array<>(pages);
+	}
+
+	// Walk
+
+	/**
+	 * Start over, from the first page given leaderboard options point to.
+	 *
+	 * @return an AsyncServiceResult to handle the first page
+	 */
+	public synchronized AsyncServiceResult<LeaderboardPage> first() {
+		generation++;
+		pages.clear();
+		cancel(nextLoad);
+		cancel(previousLoad);
+		nextLoad = null;
+		previousLoad = null;
+		return retain(load(null), true);
+	}
+
+	/**
+	 * Read the page after the last retained one, starting with the first page
+	 * if none was read yet.
+	 *
+	 * @return an AsyncServiceResult to handle the next page
+	 */
+	public synchronized AsyncServiceResult<LeaderboardPage> next() {
+		if (pages.size == 0)
+			return first();
+		LeaderboardPage last = pages.peek();
+		if (!last.hasNext())
+			return new SyncErrorServiceResult<>(SimpleServiceError.error("No page after the last one"));
+		AsyncServiceResult<LeaderboardPage> result;
+		if (nextLoad != null && nextLoad.from == last) {
+			// Prefetched, or already requested
+			result = nextLoad.result;
+		} else {
+			cancel(nextLoad);
+			result = load(last.getNextCursor());
+			nextLoad = new Load(last, result);
+			forgetOnError(nextLoad);
+		}
+		return retain(result, true);
+	}
+
+	/**
+	 * Read the page before the first retained one, starting with the first
+	 * page if none was read yet.
+	 *
+	 * @return an AsyncServiceResult to handle the previous page
+	 */
+	public synchronized AsyncServiceResult<LeaderboardPage> previous() {
+		if (pages.size == 0)
+			return first();
+		LeaderboardPage first = pages.first();
+		if (!first.hasPrevious())
+			return new SyncErrorServiceResult<>(SimpleServiceError.error("No page before the first one"));
+		AsyncServiceResult<LeaderboardPage> result;
+		if (previousLoad != null && previousLoad.from == first) {
+			// Prefetched, or already requested
+			result = previousLoad.result;
+		} else {
+			cancel(previousLoad);
+			result = load(first.getPreviousCursor());
+			previousLoad = new Load(first, result);
+			forgetOnError(previousLoad);
+		}
+		return retain(result, false);
+	}
+
+	/**
+	 * Report that the row of given index in given page is being shown,
+	 * prefetching the page beyond if it gets close to either end of retained
+	 * pages.
+	 *
+	 * @param page the page of the row, as returned by this reader
+	 * @param index the index of the row in the page
+	 */
+	public synchronized void visit(LeaderboardPage page, int index) {
+		if (pages.size == 0 || prefetchThreshold <= 0)
+			return;
+		LeaderboardPage last = pages.peek();
+		if (page == last && index >= page.size() - prefetchThreshold && page.hasNext()
+				&& (nextLoad == null || nextLoad.from != last)) {
+			cancel(nextLoad);
+			nextLoad = new Load(last, load(last.getNextCursor()));
+			forgetOnError(nextLoad);
+		}
+		LeaderboardPage first = pages.first();
+		if (page == first && index < prefetchThreshold && page.hasPrevious()
+				&& (previousLoad == null || previousLoad.from != first)) {
+			cancel(previousLoad);
+			previousLoad = new Load(first, load(first.getPreviousCursor()));
+			forgetOnError(previousLoad);
+		}
+	}
+
+	/**
+	 * Drop retained pages, releasing their cursors, and cancel prefetches.
+	 */
+	@Override
+	public synchronized void dispose() {
+		generation++;
+		for (LeaderboardPage page : pages) {
+			dispose(page.getPreviousCursor());
+			dispose(page.getNextCursor());
+		}
+		pages.clear();
+		cancel(nextLoad);
+		cancel(previousLoad);
+		nextLoad = null;
+		previousLoad = null;
+	}
+
+	private AsyncServiceResult<LeaderboardPage> load(LeaderboardPage.Cursor cursor) {
+		return handler.getScoresPage(leaderboardId, options, cursor);
+	}
+
+	private AsyncServiceResult<LeaderboardPage> retain(AsyncServiceResult<LeaderboardPage> result, final boolean after) {
+		final int walk = generation;
+		// Registered before the caller's callbacks, pages are retained by the time they are called
+		result.onSuccess(new ServiceSuccessCallback<LeaderboardPage>() {
+			@Override
+			public void onSuccess(LeaderboardPage page) {
+				synchronized (LeaderboardReader.this) {
+					if (walk != generation || pages.contains(page, true))
+						return;
+					if (after) {
+						pages.add(page);
+						while (pages.size > maxPages)
+							pages.removeIndex(0);
+					} else {
+						pages.insert(0, page);
+						while (pages.size > maxPages)
+							pages.pop();
+					}
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Drop given load once it failed, so that the page is requested again
+	 * rather than the failure handed out over and over. Only called once the
+	 * load is stored, as it may already have failed.
+	 */
+	private void forgetOnError(final Load load) {
+		load.result.onError(new ServiceErrorCallback() {
+			@Override
+			public void onError(ServiceError error) {
+				synchronized (LeaderboardReader.this) {
+					if (nextLoad == load)
+						nextLoad = null;
+					if (previousLoad == load)
+						previousLoad = null;
+				}
+			}
+		});
+	}
+
+	private static void dispose(LeaderboardPage.Cursor cursor) {
+		// Some game services hold native resources until then
+		if (cursor instanceof Disposable)
+			((Disposable) cursor).dispose();
+	}
+
+	private static void cancel(Load load) {
+		if (load != null)
+			load.result.cancel();
+	}
+
+	/**
+	 * Load of the page beyond a retained one.
+	 */
+	private static final class Load {
+		final LeaderboardPage from;
+		final AsyncServiceResult<LeaderboardPage> result;
+
+		Load(LeaderboardPage from, AsyncServiceResult<LeaderboardPage> result) {
+			this.from = from;
+			this.result = result;
+		}
+	}
+}
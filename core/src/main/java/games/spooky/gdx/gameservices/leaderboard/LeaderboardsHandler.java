@@ -23,6 +23,7 @@
  */
 package games.spooky.gdx.gameservices.leaderboard;
 
+import com.badlogic.gdx.utils.ObjectMap;
 import games.spooky.gdx.gameservices.AsyncServiceResult;
 import games.spooky.gdx.gameservices.ServiceCompletionCallback;
 
@@ -41,7 +42,23 @@ public interface LeaderboardsHandler {
 	AsyncServiceResult<LeaderboardEntry> getPlayerScore(String leaderboardId, LeaderboardOptions options);
 
 	/**
-	 * Get leaderboard entries for leaderboard of given id.
+	 * Get leaderboard entries of current player for several leaderboards, in
+	 * as few round trips as the game service allows. Leaderboards without
+	 * entry for the player, or whose entry could not be fetched, are left out.
+	 * 
+	 * @param leaderboardIds
+	 *            ids of the leaderboards to get entries from
+	 * @param options
+	 *            leaderboard options, only the {@code scope} field is
+	 *            relevant here
+	 * @return an AsyncServiceResult to handle entries by leaderboard id
+	 */
+	AsyncServiceResult<ObjectMap<String, LeaderboardEntry>> getPlayerScores(Iterable<String> leaderboardIds, LeaderboardOptions options);
+
+	/**
+	 * Get leaderboard entries for leaderboard of given id. Entries are
+	 * standalone objects that can be kept around, unlike the ones iterated
+	 * over from {@link #getScoresPage(String, LeaderboardOptions, LeaderboardPage.Cursor) pages}.
 	 * 
 	 * @param leaderboardId
 	 *            id of the leaderboard to get entries from
@@ -51,6 +68,23 @@ public interface LeaderboardsHandler {
 	 */
 	AsyncServiceResult<Iterable<LeaderboardEntry>> getScores(String leaderboardId, LeaderboardOptions options);
 
+	/**
+	 * Get a page of leaderboard entries for leaderboard of given id. Pages
+	 * around it are loaded by passing its cursors back, see
+	 * {@link LeaderboardReader} to walk a leaderboard page by page.
+	 * 
+	 * @param leaderboardId
+	 *            id of the leaderboard to get entries from
+	 * @param options
+	 *            leaderboard options, all fields relevant, the
+	 *            {@code maxResults} field being the size of pages
+	 * @param cursor
+	 *            cursor of the page to get, from a previously loaded page, or
+	 *            null for the first page
+	 * @return an AsyncServiceResult to handle the page
+	 */
+	AsyncServiceResult<LeaderboardPage> getScoresPage(String leaderboardId, LeaderboardOptions options, LeaderboardPage.Cursor cursor);
+
 	/**
 	 * Submit a new entry to the leaderboard of given id.
 	 * 
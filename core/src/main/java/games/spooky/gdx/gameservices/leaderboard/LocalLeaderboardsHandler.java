@@ -0,0 +1,610 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.leaderboard;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.StreamUtils;
+import games.spooky.gdx.gameservices.AsyncServiceResult;
+import games.spooky.gdx.gameservices.AtomicFiles;
+import games.spooky.gdx.gameservices.BestScoreGameServicesHandler.SortOrder;
+import games.spooky.gdx.gameservices.ExceptionServiceError;
+import games.spooky.gdx.gameservices.SimpleServiceError;
+import games.spooky.gdx.gameservices.SyncErrorServiceResult;
+import games.spooky.gdx.gameservices.SyncSuccessServiceResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * {@link LeaderboardsHandler} answering from leaderboards held in process,
+ * for offline or LAN play, or as a local mirror of a game service fed
+ * through {@link #putScore(String, String, String, long, long)}.
+ * <p>
+ * Each leaderboard keeps the best score of each player in an indexable skip
+ * list: submitting a score, looking up the rank of a player and reading any
+ * window of entries all take O(log n), so that millions of entries are fine.
+ * All results are available right away. Entries are all public, the scope of
+ * {@link LeaderboardOptions} is ignored.
+ * <p>
+ * Leaderboards can be persisted to a memory-mapped file, to which every
+ * accepted score is appended. Appended records survive a crash of the
+ * process as soon as written, and a crash of the system once
+ * {@link #sync() synced}. The file is replayed on opening, up to the first
+ * torn or corrupted record, and compacted once superseded scores outnumber
+ * live ones past {@link #getCompactionThreshold() a threshold}.
+ */
+public class LocalLeaderboardsHandler implements LeaderboardsHandler, Disposable {
+
+	public static final int DEFAULT_PAGE_SIZE = 20;
+	public static final long DEFAULT_COMPACTION_THRESHOLD = 1024 * 1024;
+
+	private static final String SOURCE = "Local";
+
+	private static final int MAGIC = 0x47534c42; // "GSLB"
+	private static final int VERSION = 1;
+	private static final int HEADER_LENGTH = 16; // [magic][version][end of records]
+	private static final int INITIAL_CAPACITY = 64 * 1024;
+
+	private static final byte TYPE_SCORE = 1;
+	private static final byte TYPE_SORT_ORDER = 2;
+
+	// Bound on the length of a record body, anything above is corruption
+	private static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+	private final File file;
+	private final CRC32 crc = new CRC32();
+
+	// All guarded by this
+	private final ObjectMap<String, ScoreSkipList> leaderboards = new ObjectMap<>();
+	private final ObjectMap<String, SortOrder> sortOrders = new ObjectMap<>();
+	private String playerId;
+	private String playerName;
+	private long nextSequence;
+	private long compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+	private long compactionRetryEnd; // Backoff after a failed compaction
+	private int liveRecords;
+	private int supersededRecords;
+	private RandomAccessFile raf;
+	private FileChannel channel;
+	private MappedByteBuffer map;
+	private int end;
+
+	/**
+	 * Create in-memory leaderboards, lost on exit.
+	 *
+	 * @param playerId id of the local player
+	 * @param playerName display name of the local player
+	 */
+	public LocalLeaderboardsHandler(String playerId, String playerName) {
+		super();
+		this.file = null;
+		this.playerId = playerId;
+		this.playerName = playerName;
+	}
+
+	/**
+	 * Open leaderboards persisted to given file, which is created if it does
+	 * not exist.
+	 *
+	 * @param file the leaderboards file, must be writable
+	 * @param playerId id of the local player
+	 * @param playerName display name of the local player
+	 * @throws IOException if the file cannot be read or written
+	 */
+	public LocalLeaderboardsHandler(FileHandle file, String playerId, String playerName) throws IOException {
+		super();
+		this.file = file.file();
+		this.playerId = playerId;
+		this.playerName = playerName;
+		File parent = this.file.getParentFile();
+		if (parent != null)
+			parent.mkdirs();
+		// Leftover of an interrupted compaction: partial if the file is still
+		// there, the only complete copy otherwise
+		AtomicFiles.recover(this.file, new File(this.file.getPath() + ".tmp"));
+		open();
+		recover();
+	}
+
+	// Configuration
+
+	/**
+	 * Set the player whose scores are submitted and looked up.
+	 *
+	 * @param playerId id of the local player
+	 * @param playerName display name of the local player
+	 */
+	public synchronized void setLocalPlayer(String playerId, String playerName) {
+		this.playerId = playerId;
+		this.playerName = playerName;
+	}
+
+	public synchronized SortOrder getSortOrder(String leaderboardId) {
+		SortOrder order = sortOrders.get(leaderboardId);
+		return order == null ? SortOrder.HigherIsBetter : order;
+	}
+
+	/**
+	 * Set how scores of given leaderboard compare, higher scores being better
+	 * by default. Existing entries are ranked again if the order changes.
+	 *
+	 * @param leaderboardId the id of the leaderboard
+	 * @param order the sort order of the leaderboard
+	 * @throws IOException if the order cannot be persisted
+	 */
+	public synchronized void setSortOrder(String leaderboardId, SortOrder order) throws IOException {
+		if (getSortOrder(leaderboardId) == order)
+			return;
+		if (map != null)
+			write(encodeSortOrder(leaderboardId, order));
+		applySortOrder(leaderboardId, order);
+	}
+
+	public synchronized long getCompactionThreshold() {
+		return compactionThreshold;
+	}
+
+	/**
+	 * Set the size, in bytes, past which the file is rewritten with best
+	 * scores only, once superseded ones outnumber them.
+	 *
+	 * @param compactionThreshold the size triggering compaction
+	 */
+	public synchronized void setCompactionThreshold(long compactionThreshold) {
+		this.compactionThreshold = compactionThreshold;
+	}
+
+	// Local operations
+
+	/**
+	 * Record the score of any player, e.g. received from a LAN peer or
+	 * mirrored from a game service. Only the best score of each player is
+	 * kept.
+	 *
+	 * @param leaderboardId the id of the leaderboard
+	 * @param playerId the id of the player
+	 * @param playerName the display name of the player, null to keep the known one
+	 * @param score the score
+	 * @param timestamp the time the score was achieved, in milliseconds since epoch
+	 * @return true if the score is now the best of the player
+	 * @throws IOException if the score cannot be persisted
+	 */
+	public synchronized boolean putScore(String leaderboardId, String playerId, String playerName, long score, long timestamp) throws IOException {
+		ScoreSkipList leaderboard = leaderboard(leaderboardId);
+		ScoreSkipList.Node node = leaderboard.get(playerId);
+		boolean renamed = node != null && playerName != null && !playerName.equals(node.playerName);
+		if (node != null && !renamed && !isBetter(leaderboard, score, node.score))
+			return false;
+
+		if (map != null)
+			write(encodeScore(leaderboardId, playerId, playerName, score, timestamp));
+		if (node == null)
+			liveRecords++;
+		else
+			supersededRecords++;
+		boolean best = leaderboard.put(playerId, playerName, score, timestamp, nextSequence++);
+		if (map != null)
+			compactIfNeeded();
+		return best;
+	}
+
+	/**
+	 * @param leaderboardId the id of the leaderboard
+	 * @return the number of players with a score in given leaderboard
+	 */
+	public synchronized int getEntryCount(String leaderboardId) {
+		ScoreSkipList leaderboard = leaderboards.get(leaderboardId);
+		return leaderboard == null ? 0 : leaderboard.size();
+	}
+
+	/**
+	 * @param leaderboardId the id of the leaderboard
+	 * @param playerId the id of the player
+	 * @return the 1-based rank of given player, 0 if they have no score
+	 */
+	public synchronized int getRank(String leaderboardId, String playerId) {
+		ScoreSkipList leaderboard = leaderboards.get(leaderboardId);
+		ScoreSkipList.Node node = leaderboard == null ? null : leaderboard.get(playerId);
+		return node == null ? 0 : leaderboard.rank(node);
+	}
+
+	/**
+	 * Get entries of given leaderboard from given rank on.
+	 *
+	 * @param leaderboardId the id of the leaderboard
+	 * @param rank the 1-based rank of the first entry
+	 * @param count the maximum number of entries
+	 * @return the entries, possibly empty
+	 */
+	public synchronized LeaderboardPage getEntries(String leaderboardId, int rank, int count) {
+		ScoreSkipList leaderboard = leaderboards.get(leaderboardId);
+		return page(leaderboard, Math.max(1, rank), count);
+	}
+
+	/**
+	 * Flush written scores to disk now.
+	 *
+	 * @throws IOException if the file cannot be synced
+	 */
+	public synchronized void sync() throws IOException {
+		if (map != null)
+			map.force();
+	}
+
+	@Override
+	public synchronized void dispose() {
+		try {
+			sync();
+		} catch (IOException ignored) {
+			// Closing anyway, at worst last writes are lost
+		}
+		close();
+	}
+
+	// LeaderboardsHandler
+
+	@Override
+	public synchronized AsyncServiceResult<LeaderboardEntry> getPlayerScore(String leaderboardId, LeaderboardOptions options) {
+		ScoreSkipList leaderboard = leaderboards.get(leaderboardId);
+		ScoreSkipList.Node node = leaderboard == null ? null : leaderboard.get(playerId);
+		if (node == null)
+			return SyncErrorServiceResult.syncError(SimpleServiceError.error("No local score found"));
+		LeaderboardPage.Builder builder = new LeaderboardPage.Builder(1);
+		add(builder, node, leaderboard.rank(node));
+		return SyncSuccessServiceResult.sync(builder.build(null, null).get(0));
+	}
+
+	@Override
+	public synchronized AsyncServiceResult<ObjectMap<String, LeaderboardEntry>> getPlayerScores(Iterable<String> leaderboardIds, LeaderboardOptions options) {
+		ObjectMap<String, LeaderboardEntry> result = new ObjectMap<>();
+		for (String leaderboardId : leaderboardIds) {
+			ScoreSkipList leaderboard = leaderboards.get(leaderboardId);
+			ScoreSkipList.Node node = leaderboard == null ? null : leaderboard.get(playerId);
+			if (node != null) {
+				LeaderboardPage.Builder builder = new LeaderboardPage.Builder(1);
+				add(builder, node, leaderboard.rank(node));
+				result.put(leaderboardId, builder.build(null, null).get(0));
+			}
+		}
+		return SyncSuccessServiceResult.sync(result);
+	}
+
+	@Override
+	public synchronized AsyncServiceResult<Iterable<LeaderboardEntry>> getScores(String leaderboardId, LeaderboardOptions options) {
+		ScoreSkipList leaderboard = leaderboards.get(leaderboardId);
+		int count = pageSize(options);
+		return SyncSuccessServiceResult.<Iterable<LeaderboardEntry>>sync(page(leaderboard, firstRank(leaderboard, options, count), count).entries());
+	}
+
+	@Override
+	public synchronized AsyncServiceResult<LeaderboardPage> getScoresPage(String leaderboardId, LeaderboardOptions options, LeaderboardPage.Cursor cursor) {
+		if (cursor != null && !(cursor instanceof RankCursor))
+			return SyncErrorServiceResult.syncError(SimpleServiceError.error("Not a local leaderboard cursor: " + cursor));
+		ScoreSkipList leaderboard = leaderboards.get(leaderboardId);
+		int count = pageSize(options);
+		int rank = cursor == null ? firstRank(leaderboard, options, count) : ((RankCursor) cursor).rank;
+		return SyncSuccessServiceResult.sync(page(leaderboard, rank, count));
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitScore(String leaderboardId, long score) {
+		try {
+			synchronized (this) {
+				putScore(leaderboardId, playerId, playerName, score, System.currentTimeMillis());
+			}
+			return SyncSuccessServiceResult.sync(null);
+		} catch (IOException e) {
+			return SyncErrorServiceResult.syncError(new ExceptionServiceError(e));
+		}
+	}
+
+	// Internals
+
+	private ScoreSkipList leaderboard(String leaderboardId) {
+		ScoreSkipList leaderboard = leaderboards.get(leaderboardId);
+		if (leaderboard == null) {
+			leaderboard = new ScoreSkipList(getSortOrder(leaderboardId) == SortOrder.HigherIsBetter);
+			leaderboards.put(leaderboardId, leaderboard);
+		}
+		return leaderboard;
+	}
+
+	private static boolean isBetter(ScoreSkipList leaderboard, long score, long than) {
+		return leaderboard.isHigherBetter() ? score > than : score < than;
+	}
+
+	private void applySortOrder(String leaderboardId, SortOrder order) {
+		sortOrders.put(leaderboardId, order);
+		ScoreSkipList previous = leaderboards.remove(leaderboardId);
+		if (previous == null)
+			return;
+		// Rank again, keeping submission order for ties
+		Array<ScoreSkipList.Node> nodes = new Array<>(previous.size());
+		for (ScoreSkipList.Node node = previous.first(); node != null; node = node.next())
+			nodes.add(node);
+		nodes.sort(new java.util.Comparator<ScoreSkipList.Node>() {
+			@Override
+			public int compare(ScoreSkipList.Node a, ScoreSkipList.Node b) {
+				return a.sequence < b.sequence ? -1 : (a.sequence == b.sequence ? 0 : 1);
+			}
+		});
+		ScoreSkipList leaderboard = leaderboard(leaderboardId);
+		for (ScoreSkipList.Node node : nodes)
+			leaderboard.put(node.playerId, node.playerName, node.score, node.timestamp, node.sequence);
+	}
+
+	private int firstRank(ScoreSkipList leaderboard, LeaderboardOptions options, int count) {
+		if (leaderboard == null || options == null || options.getWindow() != LeaderboardOptions.Window.CenteredOnPlayer)
+			return 1;
+		ScoreSkipList.Node node = leaderboard.get(playerId);
+		if (node == null)
+			return 1;
+		int rank = leaderboard.rank(node) - count / 2;
+		return Math.max(1, Math.min(rank, leaderboard.size() - count + 1));
+	}
+
+	private static int pageSize(LeaderboardOptions options) {
+		int perPage = options == null ? 0 : options.getMaxResults();
+		return perPage > 0 ? perPage : DEFAULT_PAGE_SIZE;
+	}
+
+	private static LeaderboardPage page(ScoreSkipList leaderboard, int rank, int count) {
+		int size = leaderboard == null ? 0 : leaderboard.size();
+		int last = Math.min(size, rank + count - 1);
+		LeaderboardPage.Builder builder = new LeaderboardPage.Builder(Math.max(0, last - rank + 1));
+		ScoreSkipList.Node node = rank <= last ? leaderboard.byRank(rank) : null;
+		for (int r = rank; r <= last; r++, node = node.next())
+			add(builder, node, r);
+		return builder.build(
+				rank > 1 ? new RankCursor(Math.max(1, rank - count)) : null,
+				last < size ? new RankCursor(last + 1) : null);
+	}
+
+	private static void add(LeaderboardPage.Builder builder, ScoreSkipList.Node node, int rank) {
+		builder.add(node.playerId, node.playerName, node.score, rank, SOURCE, node.timestamp);
+	}
+
+	private static final class RankCursor implements LeaderboardPage.Cursor {
+		final int rank;
+
+		RankCursor(int rank) {
+			this.rank = rank;
+		}
+	}
+
+	// Persistence
+
+	private void open() throws IOException {
+		raf = new RandomAccessFile(file, "rw");
+		channel = raf.getChannel();
+		long length = channel.size();
+		if (length > Integer.MAX_VALUE)
+			throw new IOException("Local leaderboard file " + file + " is too large");
+		boolean created = length < HEADER_LENGTH;
+		map = channel.map(FileChannel.MapMode.READ_WRITE, 0L, Math.max(length, INITIAL_CAPACITY));
+		if (created) {
+			map.putInt(0, MAGIC);
+			map.putInt(4, VERSION);
+			map.putLong(8, HEADER_LENGTH);
+		} else if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+			close();
+			throw new IOException("Not a local leaderboard file: " + file);
+		}
+		end = (int) Math.min(Math.max(map.getLong(8), HEADER_LENGTH), map.capacity());
+	}
+
+	private void recover() throws IOException {
+		int position = HEADER_LENGTH;
+		while (position + 8 <= end) {
+			int length = map.getInt(position);
+			if (length <= 0 || length > MAX_RECORD_LENGTH || position + 8 + length > end)
+				break;
+			byte[] payload = new byte[length];
+			map.position(position + 4);
+			map.get(payload);
+			crc.reset();
+			crc.update(payload, 0, length);
+			if (map.getInt(position + 4 + length) != (int) crc.getValue())
+				break;
+			if (!replay(payload))
+				break;
+			position += length + 8;
+		}
+		if (position != end) {
+			// Torn or corrupted tail, drop it
+			end = position;
+			map.putLong(8, end);
+		}
+	}
+
+	private boolean replay(byte[] payload) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		byte type = in.readByte();
+		String leaderboardId = in.readUTF();
+		if (type == TYPE_SCORE) {
+			String playerId = in.readUTF();
+			String playerName = in.readBoolean() ? in.readUTF() : null;
+			long score = in.readLong();
+			long timestamp = in.readLong();
+			ScoreSkipList leaderboard = leaderboard(leaderboardId);
+			if (leaderboard.get(playerId) == null)
+				liveRecords++;
+			else
+				supersededRecords++;
+			leaderboard.put(playerId, playerName, score, timestamp, nextSequence++);
+			return true;
+		} else if (type == TYPE_SORT_ORDER) {
+			int order = in.readByte();
+			if (order < 0 || order >= SortOrder.values().length)
+				return false;
+			applySortOrder(leaderboardId, SortOrder.values()[order]);
+			return true;
+		}
+		return false;
+	}
+
+	private byte[] encodeScore(String leaderboardId, String playerId, String playerName, long score, long timestamp) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		DataOutputStream body = new DataOutputStream(bytes);
+		body.writeByte(TYPE_SCORE);
+		body.writeUTF(leaderboardId);
+		body.writeUTF(playerId);
+		body.writeBoolean(playerName != null);
+		if (playerName != null)
+			body.writeUTF(playerName);
+		body.writeLong(score);
+		body.writeLong(timestamp);
+		body.flush();
+		return bytes.toByteArray();
+	}
+
+	private byte[] encodeSortOrder(String leaderboardId, SortOrder order) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+		DataOutputStream body = new DataOutputStream(bytes);
+		body.writeByte(TYPE_SORT_ORDER);
+		body.writeUTF(leaderboardId);
+		body.writeByte(order.ordinal());
+		body.flush();
+		return bytes.toByteArray();
+	}
+
+	private void write(byte[] payload) throws IOException {
+		ensureOpen();
+		int length = payload.length + 8;
+		ensureCapacity(end + length);
+		crc.reset();
+		crc.update(payload, 0, payload.length);
+		map.position(end);
+		map.putInt(payload.length).put(payload).putInt((int) crc.getValue());
+		// Record first, then its end, a torn record is never pointed to
+		end += length;
+		map.putLong(8, end);
+	}
+
+	private void ensureOpen() throws IOException {
+		if (map == null)
+			throw new IOException("Local leaderboard file " + file + " is closed");
+	}
+
+	private void ensureCapacity(long capacity) throws IOException {
+		if (capacity <= map.capacity())
+			return;
+		long newCapacity = map.capacity();
+		while (newCapacity < capacity)
+			newCapacity *= 2;
+		if (newCapacity > Integer.MAX_VALUE)
+			throw new IOException("Local leaderboard file " + file + " is full");
+		// Previous mapping is released once collected
+		map = channel.map(FileChannel.MapMode.READ_WRITE, 0L, newCapacity);
+	}
+
+	private void compactIfNeeded() throws IOException {
+		if (end < Math.max(compactionThreshold, compactionRetryEnd) || supersededRecords <= liveRecords)
+			return;
+
+		File tmp = new File(file.getPath() + ".tmp");
+		RandomAccessFile out = new RandomAccessFile(tmp, "rw");
+		try {
+			FileChannel tmpChannel = out.getChannel();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+			header.putInt(MAGIC).putInt(VERSION).putLong(0L);
+			header.flip();
+			tmpChannel.write(header);
+			for (ObjectMap.Entry<String, SortOrder> order : sortOrders)
+				writeTo(tmpChannel, encodeSortOrder(order.key, order.value));
+			// Rank order keeps submission order among ties
+			for (ObjectMap.Entry<String, ScoreSkipList> leaderboard : leaderboards) {
+				for (ScoreSkipList.Node node = leaderboard.value.first(); node != null; node = node.next())
+					writeTo(tmpChannel, encodeScore(leaderboard.key, node.playerId, node.playerName, node.score, node.timestamp));
+			}
+			ByteBuffer length = ByteBuffer.allocate(8);
+			length.putLong(tmpChannel.size());
+			length.flip();
+			tmpChannel.write(length, 8L);
+			tmpChannel.force(false);
+		} catch (IOException e) {
+			// Only an optimization, scores are safe in the current file
+			StreamUtils.closeQuietly(out);
+			tmp.delete();
+			compactionRetryEnd = 2L * end;
+			return;
+		} finally {
+			StreamUtils.closeQuietly(out);
+		}
+
+		map.force();
+		close();
+		// Either the old file or the compacted one, both holding the same scores
+		try {
+			AtomicFiles.replace(tmp, file);
+			compactionRetryEnd = 0L;
+		} catch (IOException e) {
+			// Mapping still held by the platform (Windows), keep on appending to
+			// the current file until it doubled rather than rewriting it on every put
+			compactionRetryEnd = 2L * end;
+		} finally {
+			AtomicFiles.recover(file, tmp);
+			reopen();
+		}
+	}
+
+	private void reopen() throws IOException {
+		leaderboards.clear();
+		sortOrders.clear();
+		nextSequence = 0L;
+		liveRecords = 0;
+		supersededRecords = 0;
+		open();
+		recover();
+	}
+
+	private void writeTo(FileChannel target, byte[] payload) throws IOException {
+		crc.reset();
+		crc.update(payload, 0, payload.length);
+		ByteBuffer record = ByteBuffer.allocate(payload.length + 8);
+		record.putInt(payload.length).put(payload).putInt((int) crc.getValue());
+		record.flip();
+		while (record.hasRemaining())
+			target.write(record);
+	}
+
+	private void close() {
+		StreamUtils.closeQuietly(raf);
+		raf = null;
+		channel = null;
+		map = null;
+	}
+}
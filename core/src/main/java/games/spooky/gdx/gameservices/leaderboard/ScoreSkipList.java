@@ -0,0 +1,232 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.leaderboard;
+
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.util.Random;
+
+/**
+ * Indexable skip list of the best score of each player of a leaderboard, in
+ * rank order. Each link knows how many entries it skips, so that insertion,
+ * removal, rank of an entry and entry at a rank all take O(log n).
+ * <p>
+ * Ties are broken by submission order, the earliest submission ranking first.
+ * Not thread-safe.
+ */
+final class ScoreSkipList {
+
+	private static final int MAX_LEVEL = 32;
+
+	static final class Node {
+		final String playerId;
+		String playerName;
+		long score;
+		long timestamp;
+		long sequence;
+		Node[] next;
+		int[] span;
+
+		Node(String playerId, int level) {
+			this.playerId = playerId;
+			this.next = new Node[level];
+			this.span = new int[level];
+		}
+
+		Node next() {
+			return next[0];
+		}
+	}
+
+	private final boolean higherIsBetter;
+	private final Node head = new Node(null, MAX_LEVEL);
+	private final ObjectMap<String, Node> players = new ObjectMap<>();
+	private final Random random = new Random();
+	private final Node[] update = new Node[MAX_LEVEL];
+	private final int[] ranks = new int[MAX_LEVEL];
+	private int level = 1;
+	private int size;
+
+	ScoreSkipList(boolean higherIsBetter) {
+		this.higherIsBetter = higherIsBetter;
+	}
+
+	boolean isHigherBetter() {
+		return higherIsBetter;
+	}
+
+	int size() {
+		return size;
+	}
+
+	Node get(String playerId) {
+		return players.get(playerId);
+	}
+
+	/**
+	 * Record given score, only kept if better than the player's current one.
+	 *
+	 * @return true if the score is now the best of the player
+	 */
+	boolean put(String playerId, String playerName, long score, long timestamp, long sequence) {
+		Node node = players.get(playerId);
+		if (node != null) {
+			if (playerName != null)
+				node.playerName = playerName;
+			if (!isBetter(score, node.score))
+				return false;
+			remove(node);
+		} else {
+			node = new Node(playerId, 1);
+			node.playerName = playerName;
+			players.put(playerId, node);
+		}
+		node.score = score;
+		node.timestamp = timestamp;
+		node.sequence = sequence;
+		insert(node);
+		return true;
+	}
+
+	/**
+	 * @return the 1-based rank of given node
+	 */
+	int rank(Node node) {
+		int rank = 0;
+		Node x = head;
+		for (int i = level - 1; i >= 0; i--) {
+			while (x.next[i] != null && !before(node, x.next[i])) {
+				rank += x.span[i];
+				x = x.next[i];
+			}
+			if (x == node)
+				return rank;
+		}
+		throw new IllegalStateException("Node not in list: " + node.playerId);
+	}
+
+	/**
+	 * @param rank 1-based rank
+	 * @return the node at given rank, null if out of bounds
+	 */
+	Node byRank(int rank) {
+		if (rank < 1 || rank > size)
+			return null;
+		int traversed = 0;
+		Node x = head;
+		for (int i = level - 1; i >= 0; i--) {
+			while (x.next[i] != null && traversed + x.span[i] <= rank) {
+				traversed += x.span[i];
+				x = x.next[i];
+			}
+			if (traversed == rank)
+				return x;
+		}
+		return null;
+	}
+
+	/**
+	 * @return all nodes, in rank order
+	 */
+	Node first() {
+		return head.next[0];
+	}
+
+	private boolean isBetter(long score, long than) {
+		return higherIsBetter ? score > than : score < than;
+	}
+
+	private boolean before(Node a, Node b) {
+		if (a.score != b.score)
+			return isBetter(a.score, b.score);
+		return a.sequence < b.sequence;
+	}
+
+	private void insert(Node node) {
+		Node x = head;
+		for (int i = level - 1; i >= 0; i--) {
+			ranks[i] = i == level - 1 ? 0 : ranks[i + 1];
+			while (x.next[i] != null && before(x.next[i], node)) {
+				ranks[i] += x.span[i];
+				x = x.next[i];
+			}
+			update[i] = x;
+		}
+
+		int nodeLevel = randomLevel();
+		if (nodeLevel > level) {
+			for (int i = level; i < nodeLevel; i++) {
+				ranks[i] = 0;
+				update[i] = head;
+				head.span[i] = size;
+			}
+			level = nodeLevel;
+		}
+
+		if (node.next.length != nodeLevel) {
+			node.next = new Node[nodeLevel];
+			node.span = new int[nodeLevel];
+		}
+		for (int i = 0; i < nodeLevel; i++) {
+			node.next[i] = update[i].next[i];
+			update[i].next[i] = node;
+			node.span[i] = update[i].span[i] - (ranks[0] - ranks[i]);
+			update[i].span[i] = ranks[0] - ranks[i] + 1;
+		}
+		for (int i = nodeLevel; i < level; i++)
+			update[i].span[i]++;
+
+		size++;
+	}
+
+	private void remove(Node node) {
+		Node x = head;
+		for (int i = level - 1; i >= 0; i--) {
+			while (x.next[i] != null && before(x.next[i], node))
+				x = x.next[i];
+			update[i] = x;
+		}
+
+		for (int i = 0; i < level; i++) {
+			if (update[i].next[i] == node) {
+				update[i].span[i] += node.span[i] - 1;
+				update[i].next[i] = node.next[i];
+			} else {
+				update[i].span[i]--;
+			}
+		}
+		while (level > 1 && head.next[level - 1] == null)
+			level--;
+
+		size--;
+	}
+
+	private int randomLevel() {
+		// One in four nodes goes one level up
+		int nodeLevel = 1;
+		while (nodeLevel < MAX_LEVEL && (random.nextInt() & 3) == 0)
+			nodeLevel++;
+		return nodeLevel;
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.savedgame;
+
+import java.io.IOException;
+
+/**
+ * Byte-oriented LZ77 block compression in the spirit of LZ4: sequences of a
+ * token, literals, a 2-byte match offset and a match length, found through
+ * a single hash table probe per position. Much faster than Deflate for a
+ * lower ratio, still well suited to text saves such as JSON.
+ * <p>
+ * As with LZ4 blocks, the last 5 bytes are always literals and no match
+ * starts within the last 12 bytes, so that decoding never overruns.
+ */
+final class LzBlockCodec {
+
+	private static final int MIN_MATCH = 4;
+	private static final int LAST_LITERALS = 5;
+	private static final int MATCH_FIND_LIMIT = 12;
+	private static final int MAX_OFFSET = 0xFFFF;
+	private static final int HASH_LOG = 12;
+	private static final int RUN_MASK = 0xF;
+
+	private LzBlockCodec() {
+	}
+
+	static int maxCompressedLength(int length) {
+		return length + length / 255 + 16;
+	}
+
+	/**
+	 * Compress given bytes into given buffer, which must hold at least
+	 * {@link #maxCompressedLength(int)} bytes from given offset.
+	 *
+	 * @return the number of bytes written
+	 */
+	static int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+		int end = srcOff + srcLen;
+		int matchLimit = end - LAST_LITERALS;
+		int findLimit = end - MATCH_FIND_LIMIT;
+		int anchor = srcOff;
+		int op = dstOff;
+
+		if (srcLen > MATCH_FIND_LIMIT) {
+			// Positions relative to srcOff, unset entries point at srcOff and are checked like any other
+			int[] table = new int[1 << HASH_LOG];
+			int ip = srcOff + 1;
+			while (ip < findLimit) {
+				int sequence = readInt(src, ip);
+				int h = hash(sequence);
+				int ref = srcOff + table[h];
+				table[h] = ip - srcOff;
+				if (ref >= ip || ip - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+					ip++;
+					continue;
+				}
+				// Extend backwards over pending literals
+				while (ip > anchor && ref > srcOff && src[ip - 1] == src[ref - 1]) {
+					ip--;
+					ref--;
+				}
+				int matchLength = MIN_MATCH;
+				while (ip + matchLength < matchLimit && src[ip + matchLength] == src[ref + matchLength])
+					matchLength++;
+				op = writeSequence(src, anchor, ip - anchor, ip - ref, matchLength, dst, op);
+				ip += matchLength;
+				anchor = ip;
+			}
+		}
+
+		return writeLiterals(src, anchor, end - anchor, dst, op, 0);
+	}
+
+	/**
+	 * Decompress given bytes into exactly {@code dstLen} bytes of given
+	 * buffer.
+	 *
+	 * @throws IOException if compressed data is corrupt
+	 */
+	static void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) throws IOException {
+		int ip = srcOff;
+		int end = srcOff + srcLen;
+		int op = dstOff;
+		int dstEnd = dstOff + dstLen;
+		try {
+			while (true) {
+				int token = src[ip++] & 0xFF;
+
+				int literals = token >>> 4;
+				if (literals == RUN_MASK) {
+					int b;
+					do {
+						b = src[ip++] & 0xFF;
+						literals += b;
+					} while (b == 0xFF);
+				}
+				if (literals > end - ip || literals > dstEnd - op)
+					throw new IOException("Corrupt compressed saved game: literals out of bounds");
+				System.arraycopy(src, ip, dst, op, literals);
+				ip += literals;
+				op += literals;
+				if (ip == end)
+					break;
+
+				int offset = (src[ip] & 0xFF) | (src[ip + 1] & 0xFF) << 8;
+				ip += 2;
+				int matchLength = token & RUN_MASK;
+				if (matchLength == RUN_MASK) {
+					int b;
+					do {
+						b = src[ip++] & 0xFF;
+						matchLength += b;
+					} while (b == 0xFF);
+				}
+				matchLength += MIN_MATCH;
+				int ref = op - offset;
+				if (offset == 0 || ref < dstOff || matchLength > dstEnd - op)
+					throw new IOException("Corrupt compressed saved game: match out of bounds");
+				if (offset >= matchLength) {
+					System.arraycopy(dst, ref, dst, op, matchLength);
+				} else {
+					// Overlapping match, repeats the last offset bytes
+					for (int i = 0; i < matchLength; i++)
+						dst[op + i] = dst[ref + i];
+				}
+				op += matchLength;
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new IOException("Corrupt compressed saved game: truncated block");
+		}
+		if (op != dstEnd)
+			throw new IOException("Corrupt compressed saved game: " + (op - dstOff) + " bytes instead of " + dstLen);
+	}
+
+	private static int writeSequence(byte[] src, int literalsOff, int literals, int offset, int matchLength, byte[] dst, int op) {
+		int matchToken = matchLength - MIN_MATCH;
+		op = writeLiterals(src, literalsOff, literals, dst, op, Math.min(matchToken, RUN_MASK));
+		dst[op++] = (byte) offset;
+		dst[op++] = (byte) (offset >>> 8);
+		if (matchToken >= RUN_MASK)
+			op = writeLength(matchToken - RUN_MASK, dst, op);
+		return op;
+	}
+
+	private static int writeLiterals(byte[] src, int off, int literals, byte[] dst, int op, int matchToken) {
+		dst[op++] = (byte) (Math.min(literals, RUN_MASK) << 4 | matchToken);
+		if (literals >= RUN_MASK)
+			op = writeLength(literals - RUN_MASK, dst, op);
+		System.arraycopy(src, off, dst, op, literals);
+		return op + literals;
+	}
+
+	private static int writeLength(int length, byte[] dst, int op) {
+		while (length >= 0xFF) {
+			dst[op++] = (byte) 0xFF;
+			length -= 0xFF;
+		}
+		dst[op++] = (byte) length;
+		return op;
+	}
+
+	private static int readInt(byte[] src, int i) {
+		return (src[i] & 0xFF) | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF) << 16 | (src[i + 3] & 0xFF) << 24;
+	}
+
+	private static int hash(int sequence) {
+		return (sequence * -1640531535) >>> (32 - HASH_LOG);
+	}
+}
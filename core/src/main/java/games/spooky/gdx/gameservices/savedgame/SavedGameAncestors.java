@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.savedgame;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+import games.spooky.gdx.gameservices.AtomicFiles;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
+/**
+ * Last content of each saved game this device got from the game service, the
+ * common ancestor handed to {@link SavedGameConflictResolver}s when versions
+ * conflict. Kept in a local directory, one file per saved game, written to a
+ * temporary file then renamed into place.
+ * <p>
+ * Only content confirmed as the state of the game service is kept: content
+ * loaded as a whole array, and content written by a conflict resolution.
+ * Submissions are not, as they may only have succeeded locally while offline,
+ * in which case they would be one side of the next conflict rather than its
+ * ancestor. An older version still precedes both sides of a conflict, so it
+ * remains a valid ancestor until a newer one replaces it. Failing to read or
+ * write it only costs three-way merges, ancestors being reported unknown.
+ */
+public class SavedGameAncestors {
+
+	private static final String EXTENSION = ".base";
+
+	private final File directory;
+
+	public SavedGameAncestors(FileHandle directory) {
+		this.directory = directory.file();
+	}
+
+	/**
+	 * @param title the title of the saved game
+	 * @return the last content of given saved game, or null if unknown
+	 */
+	public synchronized byte[] get(String title) {
+		File file = file(title);
+		if (!file.exists())
+			return null;
+		FileInputStream input = null;
+		try {
+			input = new FileInputStream(file);
+			return SavedGameStreams.readFully(input, file.length());
+		} catch (IOException e) {
+			return null;
+		} finally {
+			StreamUtils.closeQuietly(input);
+		}
+	}
+
+	/**
+	 * @param title the title of the saved game
+	 * @return the source of the last content of given saved game, read when a conflict asks for it
+	 */
+	public SavedGameConflict.ContentSource source(final String title) {
+		return new SavedGameConflict.ContentSource() {
+			@Override
+			public byte[] load() {
+				return get(title);
+			}
+		};
+	}
+
+	public synchronized void put(String title, byte[] content) {
+		directory.mkdirs();
+		File file = file(title);
+		File tmp = new File(file.getPath() + ".tmp");
+		FileOutputStream output = null;
+		try {
+			output = new FileOutputStream(tmp);
+			output.write(content);
+			output.close();
+		} catch (IOException e) {
+			StreamUtils.closeQuietly(output);
+			tmp.delete();
+			file.delete(); // Outdated
+			return;
+		}
+		try {
+			AtomicFiles.replace(tmp, file);
+		} catch (IOException e) {
+			tmp.delete();
+		}
+	}
+
+	/**
+	 * Forget the last content of given saved game, e.g. when it changed
+	 * without this device getting its content.
+	 *
+	 * @param title the title of the saved game
+	 */
+	public synchronized void remove(String title) {
+		file(title).delete();
+	}
+
+	private File file(String title) {
+		try {
+			return new File(directory, URLEncoder.encode(title, "UTF-8") + EXTENSION);
+		} catch (UnsupportedEncodingException e) {
+			throw new GdxRuntimeException(e);
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.savedgame;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Block compression codecs for saved game content, see
+ * {@link SavedGameCompression}. Their ids are written along with compressed
+ * content and must never change.
+ */
+public enum SavedGameCodec {
+
+	/**
+	 * Deflate (zlib format) at its default level, best ratio.
+	 */
+	Deflate(1) {
+		@Override
+		int maxCompressedLength(int length) {
+			// zlib's deflateBound() with some margin
+			return length + (length >>> 12) + (length >>> 14) + (length >>> 25) + 64;
+		}
+
+		@Override
+		int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+			Deflater deflater = new Deflater();
+			try {
+				deflater.setInput(src, srcOff, srcLen);
+				deflater.finish();
+				int written = 0;
+				int capacity = maxCompressedLength(srcLen);
+				while (!deflater.finished() && written < capacity)
+					written += deflater.deflate(dst, dstOff + written, capacity - written);
+				return written;
+			} finally {
+				deflater.end();
+			}
+		}
+
+		@Override
+		void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) throws IOException {
+			Inflater inflater = new Inflater();
+			try {
+				inflater.setInput(src, srcOff, srcLen);
+				int read = 0;
+				while (read < dstLen) {
+					int count = inflater.inflate(dst, dstOff + read, dstLen - read);
+					if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+						break;
+					read += count;
+				}
+				if (read != dstLen || !inflater.finished())
+					throw new IOException("Corrupt compressed saved game: " + read + " bytes instead of " + dstLen);
+			} catch (DataFormatException e) {
+				throw new IOException("Corrupt compressed saved game", e);
+			} finally {
+				inflater.end();
+			}
+		}
+	},
+
+	/**
+	 * LZ4-like byte-oriented LZ77, several times faster than {@link #Deflate}
+	 * for a lower ratio.
+	 */
+	Fast(2) {
+		@Override
+		int maxCompressedLength(int length) {
+			return LzBlockCodec.maxCompressedLength(length);
+		}
+
+		@Override
+		int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+			return LzBlockCodec.compress(src, srcOff, srcLen, dst, dstOff);
+		}
+
+		@Override
+		void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) throws IOException {
+			LzBlockCodec.decompress(src, srcOff, srcLen, dst, dstOff, dstLen);
+		}
+	};
+
+	private final byte id;
+
+	SavedGameCodec(int id) {
+		this.id = (byte) id;
+	}
+
+	byte getId() {
+		return id;
+	}
+
+	static SavedGameCodec forId(byte id) throws IOException {
+		for (SavedGameCodec codec : values()) {
+			if (codec.id == id)
+				return codec;
+		}
+		throw new IOException("Unknown saved game codec: " + id);
+	}
+
+	abstract int maxCompressedLength(int length);
+
+	/**
+	 * Compress given bytes into given buffer, which must hold at least
+	 * {@link #maxCompressedLength(int)} bytes from given offset.
+	 *
+	 * @return the number of bytes written
+	 */
+	abstract int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff);
+
+	/**
+	 * Decompress given bytes into exactly {@code dstLen} bytes of given
+	 * buffer.
+	 *
+	 * @throws IOException if compressed data is corrupt
+	 */
+	abstract void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) throws IOException;
+}
@@ -0,0 +1,331 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.savedgame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Framed compression of saved game content.
+ * <p>
+ * Compressed content starts with a 13-byte header: a 4-byte magic number,
+ * the id of the {@link SavedGameCodec} and the uncompressed length as a
+ * big-endian long. Blocks of up to 256 KiB of uncompressed content follow,
+ * each compressed independently and prefixed with its compressed length as
+ * a big-endian int, its highest bit set if the block is stored as is because
+ * it did not compress.
+ * <p>
+ * The magic number starts with a byte that can neither start ASCII nor UTF-8
+ * text, content lacking it is considered legacy uncompressed content and
+ * returned as is when decompressed.
+ */
+public final class SavedGameCompression {
+
+	static final int HEADER_SIZE = 13;
+	static final int BLOCK_SIZE = 256 * 1024;
+
+	private static final byte[] MAGIC = { (byte) 0x89, 'G', 'S', 'Z' };
+	private static final int STORED = 0x80000000;
+
+	private SavedGameCompression() {
+	}
+
+	/**
+	 * @param data saved game content
+	 * @return whether given content was compressed by this class
+	 */
+	public static boolean isCompressed(byte[] data) {
+		if (data.length < HEADER_SIZE)
+			return false;
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (data[i] != MAGIC[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Compress given saved game content.
+	 *
+	 * @param data the content to compress
+	 * @param codec the codec to compress blocks with
+	 * @return the compressed content, header included
+	 */
+	public static byte[] compress(byte[] data, SavedGameCodec codec) {
+		ByteArrayOutputStream output = new ByteArrayOutputStream(codec.maxCompressedLength(data.length) / 4 + HEADER_SIZE);
+		writeHeader(output, codec, data.length);
+		byte[] scratch = new byte[codec.maxCompressedLength(Math.min(data.length, BLOCK_SIZE))];
+		for (int offset = 0; offset < data.length; offset += BLOCK_SIZE)
+			writeBlock(output, codec, data, offset, Math.min(BLOCK_SIZE, data.length - offset), scratch);
+		return output.toByteArray();
+	}
+
+	/**
+	 * Compress saved game content read from given stream, block by block.
+	 * Only compressed content is held whole.
+	 *
+	 * @param input the stream to read content from, left open
+	 * @param length the number of bytes to read, or -1 to read to the end of the stream
+	 * @param codec the codec to compress blocks with
+	 * @return the compressed content, header included
+	 * @throws IOException if the stream cannot be read or ends early
+	 */
+	public static byte[] compress(InputStream input, long length, SavedGameCodec codec) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		writeHeader(output, codec, 0L);
+		byte[] block = new byte[length < 0L ? BLOCK_SIZE : (int) Math.min(length, BLOCK_SIZE)];
+		byte[] scratch = new byte[codec.maxCompressedLength(block.length)];
+		long total = 0L;
+		while (length < 0L || total < length) {
+			int wanted = length < 0L ? block.length : (int) Math.min(block.length, length - total);
+			int count = 0;
+			while (count < wanted) {
+				int read = input.read(block, count, wanted - count);
+				if (read < 0)
+					break;
+				count += read;
+			}
+			if (count > 0)
+				writeBlock(output, codec, block, 0, count, scratch);
+			total += count;
+			if (count < wanted) {
+				if (length >= 0L)
+					throw new IOException("Saved game data ended after " + total + " of " + length + " bytes");
+				break;
+			}
+		}
+		byte[] compressed = output.toByteArray();
+		// Uncompressed length only known now
+		for (int i = 0; i < 8; i++)
+			compressed[MAGIC.length + 1 + i] = (byte) (total >>> (56 - 8 * i));
+		return compressed;
+	}
+
+	/**
+	 * Decompress given saved game content into an array allocated once to
+	 * its uncompressed length. Legacy uncompressed content is returned as is.
+	 *
+	 * @param data the content to decompress
+	 * @return the uncompressed content
+	 * @throws IOException if content is corrupt
+	 */
+	public static byte[] decompress(byte[] data) throws IOException {
+		if (!isCompressed(data))
+			return data;
+		SavedGameCodec codec = SavedGameCodec.forId(data[MAGIC.length]);
+		long length = readLong(data, MAGIC.length + 1);
+		if (length < 0L || length > Integer.MAX_VALUE - 8)
+			throw new IOException("Saved game data too large: " + length + " bytes");
+		byte[] output = new byte[(int) length];
+		int position = HEADER_SIZE;
+		for (int offset = 0; offset < output.length; offset += BLOCK_SIZE) {
+			if (data.length - position < 4)
+				throw new IOException("Corrupt compressed saved game: truncated block header");
+			int header = readInt(data, position);
+			position += 4;
+			int size = header & ~STORED;
+			if (size > data.length - position)
+				throw new IOException("Corrupt compressed saved game: truncated block");
+			decodeBlock(codec, header, data, position, output, offset, Math.min(BLOCK_SIZE, output.length - offset));
+			position += size;
+		}
+		if (position != data.length)
+			throw new IOException("Corrupt compressed saved game: trailing data");
+		return output;
+	}
+
+	/**
+	 * Create a stream decompressing content written to it into given stream,
+	 * block by block, passing legacy uncompressed content through.
+	 * {@link Decoder#finish()} must be called once all content has been
+	 * written.
+	 *
+	 * @param output the stream to write uncompressed content to
+	 * @return the decompressing stream
+	 */
+	public static Decoder decoder(OutputStream output) {
+		return new Decoder(output);
+	}
+
+	private static void writeHeader(ByteArrayOutputStream output, SavedGameCodec codec, long length) {
+		output.write(MAGIC, 0, MAGIC.length);
+		output.write(codec.getId());
+		for (int i = 0; i < 8; i++)
+			output.write((int) (length >>> (56 - 8 * i)));
+	}
+
+	private static void writeBlock(ByteArrayOutputStream output, SavedGameCodec codec, byte[] data, int offset, int length, byte[] scratch) {
+		int size = codec.compress(data, offset, length, scratch, 0);
+		if (size < length) {
+			writeInt(output, size);
+			output.write(scratch, 0, size);
+		} else {
+			// Did not compress
+			writeInt(output, length | STORED);
+			output.write(data, offset, length);
+		}
+	}
+
+	private static void decodeBlock(SavedGameCodec codec, int header, byte[] data, int offset, byte[] output, int outputOffset, int length) throws IOException {
+		int size = header & ~STORED;
+		if ((header & STORED) != 0) {
+			if (size != length)
+				throw new IOException("Corrupt compressed saved game: stored block of " + size + " bytes instead of " + length);
+			System.arraycopy(data, offset, output, outputOffset, length);
+		} else {
+			codec.decompress(data, offset, size, output, outputOffset, length);
+		}
+	}
+
+	private static void writeInt(ByteArrayOutputStream output, int value) {
+		output.write(value >>> 24);
+		output.write(value >>> 16);
+		output.write(value >>> 8);
+		output.write(value);
+	}
+
+	private static int readInt(byte[] data, int offset) {
+		return (data[offset] & 0xFF) << 24 | (data[offset + 1] & 0xFF) << 16 | (data[offset + 2] & 0xFF) << 8 | (data[offset + 3] & 0xFF);
+	}
+
+	private static long readLong(byte[] data, int offset) {
+		return (long) readInt(data, offset) << 32 | (readInt(data, offset + 4) & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Stream decompressing content written to it, see
+	 * {@link SavedGameCompression#decoder(OutputStream)}.
+	 */
+	public static final class Decoder extends OutputStream {
+
+		private final OutputStream output;
+		private final byte[] header = new byte[HEADER_SIZE];
+		private int headerCount;
+		private boolean legacy;
+		private SavedGameCodec codec;
+		private long remaining;
+		private int blockHeader;
+		private int blockHeaderCount;
+		private byte[] block;
+		private int blockSize;
+		private int blockCount;
+		private byte[] decoded;
+
+		Decoder(OutputStream output) {
+			this.output = output;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (legacy) {
+				output.write(b, off, len);
+				return;
+			}
+			int end = off + len;
+			while (off < end) {
+				if (headerCount < HEADER_SIZE) {
+					// Frame header, or legacy content as soon as it departs from the magic number
+					byte value = b[off++];
+					header[headerCount++] = value;
+					if (headerCount <= MAGIC.length && value != MAGIC[headerCount - 1]) {
+						legacy = true;
+						output.write(header, 0, headerCount);
+						output.write(b, off, end - off);
+						return;
+					}
+					if (headerCount == HEADER_SIZE) {
+						codec = SavedGameCodec.forId(header[MAGIC.length]);
+						remaining = readLong(header, MAGIC.length + 1);
+						if (remaining < 0L)
+							throw new IOException("Corrupt compressed saved game: negative length");
+					}
+				} else if (remaining == 0L) {
+					throw new IOException("Corrupt compressed saved game: trailing data");
+				} else if (blockHeaderCount < 4) {
+					// Block header
+					blockHeader = blockHeader << 8 | (b[off++] & 0xFF);
+					if (++blockHeaderCount == 4) {
+						blockSize = blockHeader & ~STORED;
+						if (blockSize > codec.maxCompressedLength(BLOCK_SIZE))
+							throw new IOException("Corrupt compressed saved game: block of " + blockSize + " bytes");
+						if (block == null || block.length < blockSize)
+							block = new byte[blockSize];
+						blockCount = 0;
+					}
+				} else {
+					int count = Math.min(end - off, blockSize - blockCount);
+					System.arraycopy(b, off, block, blockCount, count);
+					off += count;
+					blockCount += count;
+					if (blockCount == blockSize) {
+						int length = (int) Math.min(BLOCK_SIZE, remaining);
+						if (decoded == null || decoded.length < length)
+							decoded = new byte[length];
+						decodeBlock(codec, blockHeader, block, 0, decoded, 0, length);
+						output.write(decoded, 0, length);
+						remaining -= length;
+						blockHeader = 0;
+						blockHeaderCount = 0;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Check all content was written and flush the underlying stream.
+		 *
+		 * @throws IOException if content is truncated
+		 */
+		public void finish() throws IOException {
+			if (!legacy) {
+				if (headerCount < HEADER_SIZE) {
+					// Shorter than a header, legacy content as with isCompressed()
+					legacy = true;
+					output.write(header, 0, headerCount);
+				} else if (remaining > 0L) {
+					throw new IOException("Corrupt compressed saved game: truncated");
+				}
+			}
+			output.flush();
+		}
+
+		@Override
+		public void flush() throws IOException {
+			output.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			finish();
+			output.close();
+		}
+	}
+}
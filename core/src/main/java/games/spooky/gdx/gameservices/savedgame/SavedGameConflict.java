@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.savedgame;
+
+import com.badlogic.gdx.utils.Array;
+
+import java.io.IOException;
+import java.util.Comparator;
+
+/**
+ * Conflicting versions of a saved game, handed to a
+ * {@link SavedGameConflictResolver}. Versions are sorted most recent first.
+ * Their content is only loaded when asked for, and at most once, so that
+ * resolvers only looking at metadata do not download anything.
+ */
+public final class SavedGameConflict {
+
+	private static final Comparator<Version> MOST_RECENT_FIRST = new Comparator<Version>() {
+		@Override
+		public int compare(Version a, Version b) {
+			long ta = a.metadata.getTimestamp();
+			long tb = b.metadata.getTimestamp();
+			return ta < tb ? 1 : (ta == tb ? 0 : -1);
+		}
+	};
+
+	private final String title;
+	private final Array<Version> versions;
+	private ContentSource ancestorSource;
+	private byte[] ancestor;
+
+	/**
+	 * @param title the title of the saved game
+	 * @param versions the conflicting versions, at least two
+	 * @param ancestor the source of the content of the last version known to precede all of them, or null if unknown
+	 */
+	public SavedGameConflict(String title, Array<Version> versions, ContentSource ancestor) {
+		if (versions.size < 2)
+			throw new IllegalArgumentException("A conflict needs at least two versions");
+		this.title = title;
+		this.versions = new Array<>(versions);
+		this.versions.sort(MOST_RECENT_FIRST);
+		this.ancestorSource = ancestor;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	/**
+	 * @return the conflicting versions, most recent first, not to be modified
+	 */
+	public Array<Version> getVersions() {
+		return versions;
+	}
+
+	public Version getMostRecent() {
+		return versions.first();
+	}
+
+	/**
+	 * Content of the common ancestor of conflicting versions, for three-way
+	 * merges: the last version this device loaded, if kept.
+	 *
+	 * @return the content of the common ancestor, or null if unknown
+	 * @throws IOException if the content of the common ancestor cannot be loaded
+	 */
+	public synchronized byte[] getAncestor() throws IOException {
+		if (ancestorSource != null) {
+			ancestor = ancestorSource.load();
+			ancestorSource = null;
+		}
+		return ancestor;
+	}
+
+	/**
+	 * Loads the content of a version, e.g. from the game service.
+	 */
+	public interface ContentSource {
+
+		/**
+		 * @return the content, or null if there turns out to be none
+		 * @throws IOException if the content cannot be loaded
+		 */
+		byte[] load() throws IOException;
+	}
+
+	/**
+	 * One of the conflicting versions of a saved game.
+	 */
+	public static final class Version {
+
+		private final SavedGame metadata;
+		private ContentSource source;
+		private byte[] content;
+
+		public Version(SavedGame metadata, byte[] content) {
+			this.metadata = metadata;
+			this.content = content;
+		}
+
+		public Version(SavedGame metadata, ContentSource source) {
+			this.metadata = metadata;
+			this.source = source;
+		}
+
+		public SavedGame getMetadata() {
+			return metadata;
+		}
+
+		/**
+		 * Content of this version, loaded on first call.
+		 *
+		 * @return the content of this version
+		 * @throws IOException if the content cannot be loaded
+		 */
+		public synchronized byte[] getContent() throws IOException {
+			if (content == null) {
+				content = source.load();
+				source = null;
+			}
+			return content;
+		}
+
+		public synchronized boolean isContentLoaded() {
+			return content != null;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.savedgame;
+
+import java.io.IOException;
+
+/**
+ * Decides what becomes of a saved game whose versions conflict, e.g. after
+ * being submitted from two devices while one of them was offline. See
+ * {@link SavedGameConflictResolvers} for common ones.
+ * <p>
+ * Resolvers are never called on the rendering thread and may block, loading
+ * the content of versions is typically a network request.
+ */
+public interface SavedGameConflictResolver {
+
+	/**
+	 * Resolve given conflict, by keeping one of its versions or merging them.
+	 * 
+	 * @param conflict
+	 *            the conflicting versions of the saved game
+	 * @return the resolution of the conflict
+	 * @throws IOException
+	 *             if the content of a version cannot be loaded or merged, the
+	 *             conflict is left unresolved
+	 */
+	SavedGameResolution resolve(SavedGameConflict conflict) throws IOException;
+
+}
@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.savedgame;
+
+import games.spooky.gdx.gameservices.AsyncServiceResult;
+import games.spooky.gdx.gameservices.DeferredServiceResult;
+import games.spooky.gdx.gameservices.ExceptionServiceError;
+
+import java.io.IOException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Common {@link SavedGameConflictResolver}s, and the thread they run on.
+ */
+public final class SavedGameConflictResolvers {
+
+	/**
+	 * Keep the most recently modified version.
+	 */
+	public static final SavedGameConflictResolver MOST_RECENT = new SavedGameConflictResolver() {
+		@Override
+		public SavedGameResolution resolve(SavedGameConflict conflict) {
+			return SavedGameResolution.keep(conflict.getMostRecent());
+		}
+	};
+
+	/**
+	 * Keep the version with the longest played time, the most recent one in
+	 * case of a tie.
+	 */
+	public static final SavedGameConflictResolver LONGEST_PLAYED = new SavedGameConflictResolver() {
+		@Override
+		public SavedGameResolution resolve(SavedGameConflict conflict) {
+			SavedGameConflict.Version longest = null;
+			for (SavedGameConflict.Version version : conflict.getVersions()) {
+				if (longest == null || version.getMetadata().getPlayedTime() > longest.getMetadata().getPlayedTime())
+					longest = version;
+			}
+			return SavedGameResolution.keep(longest);
+		}
+	};
+
+	private static final ThreadPoolExecutor executor;
+
+	static {
+		executor = new ThreadPoolExecutor(1, 1, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "gdx-gameservices-conflicts");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	private SavedGameConflictResolvers() {
+	}
+
+	/**
+	 * Merges the content of two versions of a saved game.
+	 */
+	public interface Merger {
+
+		/**
+		 * @param ancestor the content both versions derive from
+		 * @param ours the content of the most recent version
+		 * @param theirs the content of the other version
+		 * @return the merged content
+		 * @throws IOException if content cannot be merged
+		 */
+		byte[] merge(byte[] ancestor, byte[] ours, byte[] theirs) throws IOException;
+	}
+
+	/**
+	 * Three-way merge of conflicting versions with their common ancestor, most
+	 * recent version first, merged content taking the metadata of the most
+	 * recent version. Conflicts whose common ancestor is unknown are handed to
+	 * given fallback.
+	 *
+	 * @param merger the merge of game specific content
+	 * @param fallback the resolver of conflicts without known ancestor
+	 * @return the three-way merge resolver
+	 */
+	public static SavedGameConflictResolver threeWay(final Merger merger, final SavedGameConflictResolver fallback) {
+		return new SavedGameConflictResolver() {
+			@Override
+			public SavedGameResolution resolve(SavedGameConflict conflict) throws IOException {
+				byte[] ancestor = conflict.getAncestor();
+				if (ancestor == null)
+					return fallback.resolve(conflict);
+				byte[] merged = conflict.getMostRecent().getContent();
+				for (int i = 1; i < conflict.getVersions().size; i++)
+					merged = merger.merge(ancestor, merged, conflict.getVersions().get(i).getContent());
+				return SavedGameResolution.merge(conflict.getMostRecent().getMetadata(), merged);
+			}
+		};
+	}
+
+	/**
+	 * Run given resolver on given conflict on a background thread shared by
+	 * game service handlers.
+	 *
+	 * @param resolver the resolver to run
+	 * @param conflict the conflict to resolve
+	 * @return an AsyncServiceResult to handle the resolution
+	 */
+	public static AsyncServiceResult<SavedGameResolution> resolve(final SavedGameConflictResolver resolver, final SavedGameConflict conflict) {
+		final DeferredServiceResult<SavedGameResolution> result = new DeferredServiceResult<>();
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				SavedGameResolution resolution;
+				try {
+					resolution = resolver.resolve(conflict);
+					if (resolution == null)
+						throw new IOException("No resolution for conflicting saved game " + conflict.getTitle());
+				} catch (Exception e) {
+					result.fail(new ExceptionServiceError(e));
+					return;
+				}
+				result.succeed(resolution);
+			}
+		});
+		return result;
+	}
+}
@@ -0,0 +1,269 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.savedgame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+/**
+ * Binary deltas between two versions of saved game content, so that only
+ * what changed has to be sent.
+ * <p>
+ * The previous version is indexed by the rolling hash of its 32-byte blocks,
+ * the new one is then scanned byte by byte for blocks found in the index,
+ * matches being extended both ways. The resulting patch is a sequence of
+ * copy (offset and length in the previous version) and add (literal bytes)
+ * instructions, VCDIFF-style, preceded by the lengths of both versions and
+ * the CRC32 of the new one.
+ */
+public final class SavedGameDelta {
+
+	private static final byte[] MAGIC = { (byte) 0x89, 'G', 'S', 'D' };
+	private static final int BLOCK_SIZE = 32;
+	private static final int PRIME = 0x01000193;
+	private static final int ADD = 0;
+	private static final int COPY = 1;
+
+	private SavedGameDelta() {
+	}
+
+	/**
+	 * Compute the patch turning given previous version into given new one.
+	 *
+	 * @param source the previous version
+	 * @param target the new version
+	 * @return the patch, to be applied with {@link #patch(byte[], byte[])}
+	 */
+	public static byte[] diff(byte[] source, byte[] target) {
+		ByteArrayOutputStream patch = new ByteArrayOutputStream(64 + target.length / 16);
+		patch.write(MAGIC, 0, MAGIC.length);
+		writeVarInt(patch, source.length);
+		writeVarInt(patch, target.length);
+		CRC32 crc = new CRC32();
+		crc.update(target, 0, target.length);
+		writeInt(patch, (int) crc.getValue());
+
+		BlockIndex index = new BlockIndex(source);
+		int anchor = 0;
+		int position = 0;
+		int power = power();
+		int hash = target.length >= BLOCK_SIZE ? hash(target, 0) : 0;
+		while (position + BLOCK_SIZE <= target.length) {
+			int match = index.find(hash, target, position);
+			if (match < 0) {
+				if (position + BLOCK_SIZE == target.length)
+					break;
+				// Roll over to the next position
+				hash = (hash - (target[position] & 0xFF) * power) * PRIME + (target[position + BLOCK_SIZE] & 0xFF);
+				position++;
+				continue;
+			}
+			int start = position;
+			while (start > anchor && match > 0 && source[match - 1] == target[start - 1]) {
+				start--;
+				match--;
+			}
+			int end = position + BLOCK_SIZE;
+			int sourceEnd = match + (end - start);
+			while (end < target.length && sourceEnd < source.length && source[sourceEnd] == target[end]) {
+				end++;
+				sourceEnd++;
+			}
+			writeAdd(patch, target, anchor, start - anchor);
+			patch.write(COPY);
+			writeVarInt(patch, match);
+			writeVarInt(patch, end - start);
+			anchor = position = end;
+			if (position + BLOCK_SIZE <= target.length)
+				hash = hash(target, position);
+		}
+		writeAdd(patch, target, anchor, target.length - anchor);
+		return patch.toByteArray();
+	}
+
+	/**
+	 * Apply given patch to given previous version, into an array allocated
+	 * once to the length of the new version.
+	 *
+	 * @param source the previous version the patch was computed from
+	 * @param patch the patch computed by {@link #diff(byte[], byte[])}
+	 * @return the new version
+	 * @throws IOException if the patch is corrupt or was computed from another version
+	 */
+	public static byte[] patch(byte[] source, byte[] patch) throws IOException {
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (patch.length <= i || patch[i] != MAGIC[i])
+				throw new IOException("Not a saved game patch");
+		}
+		int[] position = { MAGIC.length };
+		try {
+			int sourceLength = readVarInt(patch, position);
+			if (sourceLength != source.length)
+				throw new IOException("Saved game patch computed from " + sourceLength + " bytes, not " + source.length);
+			int targetLength = readVarInt(patch, position);
+			// Added bytes come from the patch, and each copy (three bytes at least) yields a source at most
+			if (targetLength < 0 || targetLength > patch.length + (long) (patch.length / 3) * source.length)
+				throw new IOException("Corrupt saved game patch: target of " + targetLength + " bytes");
+			byte[] target = new byte[targetLength];
+			int expectedCrc = readInt(patch, position[0]);
+			position[0] += 4;
+			int offset = 0;
+			while (position[0] < patch.length) {
+				int instruction = patch[position[0]++];
+				if (instruction == ADD) {
+					int length = readVarInt(patch, position);
+					if (length > target.length - offset || length > patch.length - position[0])
+						throw new IOException("Corrupt saved game patch: add out of bounds");
+					System.arraycopy(patch, position[0], target, offset, length);
+					position[0] += length;
+					offset += length;
+				} else if (instruction == COPY) {
+					int from = readVarInt(patch, position);
+					int length = readVarInt(patch, position);
+					if (from < 0 || length < 0 || from > source.length - length || length > target.length - offset)
+						throw new IOException("Corrupt saved game patch: copy out of bounds");
+					System.arraycopy(source, from, target, offset, length);
+					offset += length;
+				} else {
+					throw new IOException("Corrupt saved game patch: unknown instruction " + instruction);
+				}
+			}
+			CRC32 crc = new CRC32();
+			crc.update(target, 0, target.length);
+			if (offset != target.length || (int) crc.getValue() != expectedCrc)
+				throw new IOException("Corrupt saved game patch: checksum mismatch");
+			return target;
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new IOException("Corrupt saved game patch: truncated");
+		}
+	}
+
+	private static void writeAdd(ByteArrayOutputStream patch, byte[] data, int offset, int length) {
+		if (length == 0)
+			return;
+		patch.write(ADD);
+		writeVarInt(patch, length);
+		patch.write(data, offset, length);
+	}
+
+	private static int hash(byte[] data, int offset) {
+		int hash = 0;
+		for (int i = 0; i < BLOCK_SIZE; i++)
+			hash = hash * PRIME + (data[offset + i] & 0xFF);
+		return hash;
+	}
+
+	private static int power() {
+		// PRIME^(BLOCK_SIZE - 1), weight of the byte rolled out
+		int power = 1;
+		for (int i = 1; i < BLOCK_SIZE; i++)
+			power *= PRIME;
+		return power;
+	}
+
+	private static void writeVarInt(ByteArrayOutputStream output, int value) {
+		while ((value & ~0x7F) != 0) {
+			output.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		output.write(value);
+	}
+
+	private static int readVarInt(byte[] data, int[] position) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = data[position[0]++];
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("Corrupt saved game patch: malformed length");
+	}
+
+	private static void writeInt(ByteArrayOutputStream output, int value) {
+		output.write(value >>> 24);
+		output.write(value >>> 16);
+		output.write(value >>> 8);
+		output.write(value);
+	}
+
+	private static int readInt(byte[] data, int offset) {
+		return (data[offset] & 0xFF) << 24 | (data[offset + 1] & 0xFF) << 16 | (data[offset + 2] & 0xFF) << 8 | (data[offset + 3] & 0xFF);
+	}
+
+	/**
+	 * Open addressing table from block hashes to their first offset in the
+	 * previous version.
+	 */
+	private static final class BlockIndex {
+
+		private final byte[] source;
+		private final int[] hashes;
+		private final int[] offsets; // Offset + 1, 0 for empty slots
+		private final int mask;
+
+		BlockIndex(byte[] source) {
+			this.source = source;
+			int blocks = source.length / BLOCK_SIZE;
+			int capacity = Integer.highestOneBit(Math.max(blocks, 1) * 2 - 1) << 1;
+			this.hashes = new int[capacity];
+			this.offsets = new int[capacity];
+			this.mask = capacity - 1;
+			for (int offset = 0; offset + BLOCK_SIZE <= source.length; offset += BLOCK_SIZE) {
+				int hash = hash(source, offset);
+				int slot = mix(hash) & mask;
+				while (offsets[slot] != 0 && hashes[slot] != hash)
+					slot = (slot + 1) & mask;
+				if (offsets[slot] == 0) {
+					hashes[slot] = hash;
+					offsets[slot] = offset + 1;
+				}
+			}
+		}
+
+		/**
+		 * @return the offset of a block of the previous version equal to the one at given position, or -1
+		 */
+		int find(int hash, byte[] target, int position) {
+			int slot = mix(hash) & mask;
+			while (offsets[slot] != 0) {
+				if (hashes[slot] == hash) {
+					int offset = offsets[slot] - 1;
+					for (int i = 0; i < BLOCK_SIZE; i++) {
+						if (source[offset + i] != target[position + i])
+							return -1;
+					}
+					return offset;
+				}
+				slot = (slot + 1) & mask;
+			}
+			return -1;
+		}
+
+		private static int mix(int hash) {
+			return hash * 0x9E3779B9 ^ hash >>> 16;
+		}
+	}
+}
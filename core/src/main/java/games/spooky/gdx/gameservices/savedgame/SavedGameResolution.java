@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.savedgame;
+
+import java.io.IOException;
+
+/**
+ * Outcome of a saved game conflict: either one of the conflicting versions is
+ * kept as is, or merged content replaces them all.
+ */
+public final class SavedGameResolution {
+
+	private final SavedGameConflict.Version version;
+	private final SavedGame metadata;
+	private final byte[] content;
+
+	private SavedGameResolution(SavedGameConflict.Version version, SavedGame metadata, byte[] content) {
+		this.version = version;
+		this.metadata = metadata;
+		this.content = content;
+	}
+
+	/**
+	 * Keep given version, dropping the other ones. Its content is not sent
+	 * again where the game service allows it.
+	 *
+	 * @param version the version to keep
+	 * @return the resolution keeping given version
+	 */
+	public static SavedGameResolution keep(SavedGameConflict.Version version) {
+		return new SavedGameResolution(version, version.getMetadata(), null);
+	}
+
+	/**
+	 * Replace all versions with given content.
+	 *
+	 * @param metadata the metadata of the resulting saved game
+	 * @param content the merged content
+	 * @return the resolution replacing versions with given content
+	 */
+	public static SavedGameResolution merge(SavedGame metadata, byte[] content) {
+		return new SavedGameResolution(null, metadata, content);
+	}
+
+	public boolean isMerge() {
+		return version == null;
+	}
+
+	/**
+	 * @return the version kept, or null if versions were merged
+	 */
+	public SavedGameConflict.Version getVersion() {
+		return version;
+	}
+
+	public SavedGame getMetadata() {
+		return metadata;
+	}
+
+	/**
+	 * @return the resulting content, loaded if need be for a kept version
+	 * @throws IOException if the content of the kept version cannot be loaded
+	 */
+	public byte[] getContent() throws IOException {
+		return version == null ? content : version.getContent();
+	}
+}
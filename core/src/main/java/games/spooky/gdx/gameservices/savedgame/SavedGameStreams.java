@@ -0,0 +1,229 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.savedgame;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.StreamUtils;
+import games.spooky.gdx.gameservices.AsyncServiceResult;
+import games.spooky.gdx.gameservices.AsyncServiceResults;
+import games.spooky.gdx.gameservices.ServiceCompletionCallback;
+import games.spooky.gdx.gameservices.ServiceError;
+import games.spooky.gdx.gameservices.ServiceErrorCallback;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming saved game transfers from and to files and buffers, on top of
+ * {@link SavedGamesHandler#loadSavedGameData(SavedGame, OutputStream)} and
+ * {@link SavedGamesHandler#submitSavedGame(SavedGame, InputStream, long)}.
+ * Saved game content never has to be held whole on the heap.
+ */
+public final class SavedGameStreams {
+
+	private SavedGameStreams() {
+	}
+
+	/**
+	 * Download saved game data straight into given file. Data is written to a
+	 * sibling {@code .part} file first, moved over given file on success only,
+	 * so that a failed download leaves the previous file untouched.
+	 *
+	 * @param handler the handler to load data from
+	 * @param savedGame the metadata of the saved game to retrieve content from
+	 * @param file the file to write content to
+	 * @return an AsyncServiceResult to handle success/error
+	 */
+	public static AsyncServiceResult<Void> loadSavedGameData(SavedGamesHandler handler, SavedGame savedGame, final FileHandle file) {
+		final FileHandle part = file.sibling(file.name() + ".part");
+		final OutputStream output = part.write(false);
+		AsyncServiceResult<Void> result = handler.loadSavedGameData(savedGame, output);
+		result.onError(new ServiceErrorCallback() {
+			@Override
+			public void onError(ServiceError error) {
+				StreamUtils.closeQuietly(output);
+				part.delete();
+			}
+		});
+		return AsyncServiceResults.map(result, new AsyncServiceResults.Mapper<Void, Void>() {
+			@Override
+			public Void map(Void value) throws IOException {
+				output.close();
+				part.moveTo(file);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Download saved game data into given buffer, from its position on. The
+	 * position of the buffer is moved past the data on success, the request
+	 * fails if data does not fit.
+	 *
+	 * @param handler the handler to load data from
+	 * @param savedGame the metadata of the saved game to retrieve content from
+	 * @param buffer the buffer to write content to
+	 * @return an AsyncServiceResult to handle success/error
+	 */
+	public static AsyncServiceResult<Void> loadSavedGameData(SavedGamesHandler handler, SavedGame savedGame, ByteBuffer buffer) {
+		return handler.loadSavedGameData(savedGame, new ByteBufferOutputStream(buffer));
+	}
+
+	/**
+	 * Upload saved game data straight from given file.
+	 *
+	 * @param handler the handler to submit data to
+	 * @param savedGame the metadata of the saved game to submit
+	 * @param file the file to read content from
+	 * @return an AsyncServiceResult to handle success/error
+	 */
+	public static AsyncServiceResult<Void> submitSavedGame(SavedGamesHandler handler, SavedGame savedGame, FileHandle file) {
+		final InputStream input = file.read();
+		AsyncServiceResult<Void> result = handler.submitSavedGame(savedGame, input, file.length());
+		result.onCompletion(new ServiceCompletionCallback<Void>() {
+			@Override
+			public void onSuccess(Void value) {
+				StreamUtils.closeQuietly(input);
+			}
+
+			@Override
+			public void onError(ServiceError error) {
+				StreamUtils.closeQuietly(input);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Upload the remaining content of given buffer as saved game data. The
+	 * position of the buffer is left untouched.
+	 *
+	 * @param handler the handler to submit data to
+	 * @param savedGame the metadata of the saved game to submit
+	 * @param buffer the buffer to read content from
+	 * @return an AsyncServiceResult to handle success/error
+	 */
+	public static AsyncServiceResult<Void> submitSavedGame(SavedGamesHandler handler, SavedGame savedGame, ByteBuffer buffer) {
+		ByteBuffer content = buffer.duplicate();
+		return handler.submitSavedGame(savedGame, new ByteBufferInputStream(content), content.remaining());
+	}
+
+	/**
+	 * Copy given content to given stream, for game services only exposing
+	 * saved game data as arrays.
+	 *
+	 * @param data the saved game content
+	 * @param output the stream to write to
+	 * @return an AsyncServiceResult to handle success/error
+	 */
+	public static AsyncServiceResult<Void> copyTo(AsyncServiceResult<byte[]> data, final OutputStream output) {
+		return AsyncServiceResults.map(data, new AsyncServiceResults.Mapper<byte[], Void>() {
+			@Override
+			public Void map(byte[] value) throws IOException {
+				output.write(value);
+				output.flush();
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Read given stream, for game services only accepting saved game data as
+	 * arrays.
+	 *
+	 * @param input the stream to read
+	 * @param length the number of bytes to read, or -1 to read to the end of the stream
+	 * @return the content read
+	 * @throws IOException if the stream cannot be read or ends early
+	 */
+	public static byte[] readFully(InputStream input, long length) throws IOException {
+		if (length < 0L)
+			return StreamUtils.copyStreamToByteArray(input);
+		if (length > Integer.MAX_VALUE)
+			throw new IOException("Saved game data too large: " + length + " bytes");
+		byte[] data = new byte[(int) length];
+		int offset = 0;
+		while (offset < data.length) {
+			int read = input.read(data, offset, data.length - offset);
+			if (read < 0)
+				throw new IOException("Saved game data ended after " + offset + " of " + length + " bytes");
+			offset += read;
+		}
+		return data;
+	}
+
+	private static final class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0)
+				return 0;
+			if (!buffer.hasRemaining())
+				return -1;
+			int count = Math.min(len, buffer.remaining());
+			buffer.get(b, off, count);
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+
+	private static final class ByteBufferOutputStream extends OutputStream {
+		private final ByteBuffer buffer;
+
+		ByteBufferOutputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			try {
+				buffer.put(b, off, len);
+			} catch (BufferOverflowException e) {
+				throw new IOException("Saved game data does not fit in buffer of " + buffer.capacity() + " bytes");
+			}
+		}
+	}
+}
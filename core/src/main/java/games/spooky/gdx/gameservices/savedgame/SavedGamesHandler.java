@@ -25,6 +25,9 @@ package games.spooky.gdx.gameservices.savedgame;
 
 import games.spooky.gdx.gameservices.AsyncServiceResult;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+
 public interface SavedGamesHandler {
 
 	/**
@@ -48,6 +51,20 @@ public interface SavedGamesHandler {
 	 */
 	AsyncServiceResult<byte[]> loadSavedGameData(SavedGame metadata);
 
+	/**
+	 * Stream saved game data from game service for given saved game into given
+	 * stream, without holding the whole content in memory where the game
+	 * service allows it. The stream is left open. See {@link SavedGameStreams}
+	 * to download into a file or a buffer.
+	 * 
+	 * @param metadata
+	 *            the metadata of the saved game to retrieve content from
+	 * @param output
+	 *            the stream to write content to
+	 * @return an AsyncServiceResult to handle success/error
+	 */
+	AsyncServiceResult<Void> loadSavedGameData(SavedGame metadata, OutputStream output);
+
 	/**
 	 * Submit a game save to game service. Both metadata and raw data are sent
 	 * with this call. Any previous version will be erased or at least
@@ -61,6 +78,23 @@ public interface SavedGamesHandler {
 	 */
 	AsyncServiceResult<Void> submitSavedGame(SavedGame savedGame, byte[] data);
 
+	/**
+	 * Submit a game save to game service, streaming its content from given
+	 * stream without holding it whole in memory where the game service allows
+	 * it. The stream is left open. See {@link SavedGameStreams} to upload from
+	 * a file or a buffer.
+	 * 
+	 * @param savedGame
+	 *            the metadata of the saved game to submit
+	 * @param data
+	 *            the stream to read the content of the saved game from
+	 * @param length
+	 *            the number of bytes to read from the stream, or -1 to read it
+	 *            to its end
+	 * @return an AsyncServiceResult to handle success/error
+	 */
+	AsyncServiceResult<Void> submitSavedGame(SavedGame savedGame, InputStream data, long length);
+
 	/**
 	 * Delete a game save from game service. Only metadata needed to retrieve
 	 * the game but both metadata and raw content are to be deleted.
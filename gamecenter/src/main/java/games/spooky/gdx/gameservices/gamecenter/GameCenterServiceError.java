@@ -24,11 +24,16 @@
 package games.spooky.gdx.gameservices.gamecenter;
 
 import com.badlogic.gdx.utils.Null;
-import games.spooky.gdx.gameservices.ServiceError;
+import games.spooky.gdx.gameservices.ClassifiedServiceError;
 import org.robovm.apple.foundation.NSError;
 import org.robovm.apple.foundation.NSErrorCode;
 
-class GameCenterServiceError implements ServiceError {
+class GameCenterServiceError implements ClassifiedServiceError {
+
+	private static final String GAME_KIT_DOMAIN = "GKErrorDomain";
+	// GKErrorCode values worth retrying: unknown, cancelled, communications
+	// failure, invalid credentials, not authenticated, authentication in progress
+	private static final long[] TRANSIENT_CODES = { 1L, 2L, 3L, 5L, 6L, 7L };
 
 	private final NSError error;
 
@@ -51,4 +56,17 @@ class GameCenterServiceError implements ServiceError {
 	public String getErrorMessage() {
 		return error == null ? null : error.getLocalizedDescription();
 	}
+
+	@Override
+	public boolean isTransient() {
+		// Errors of other domains come from the network stack
+		if (error == null || !GAME_KIT_DOMAIN.equals(error.getDomain()))
+			return true;
+		long code = getErrorCode();
+		for (long transientCode : TRANSIENT_CODES) {
+			if (code == transientCode)
+				return true;
+		}
+		return false;
+	}
 }
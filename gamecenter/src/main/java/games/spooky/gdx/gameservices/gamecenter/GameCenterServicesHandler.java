@@ -24,14 +24,23 @@
 package games.spooky.gdx.gameservices.gamecenter;
 
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
 import games.spooky.gdx.gameservices.*;
 import games.spooky.gdx.gameservices.achievement.Achievement;
 import games.spooky.gdx.gameservices.leaderboard.LeaderboardEntry;
 import games.spooky.gdx.gameservices.leaderboard.LeaderboardOptions;
 import games.spooky.gdx.gameservices.leaderboard.LeaderboardOptions.Scope;
+import games.spooky.gdx.gameservices.leaderboard.LeaderboardPage;
 import games.spooky.gdx.gameservices.savedgame.SavedGame;
+import games.spooky.gdx.gameservices.savedgame.SavedGameAncestors;
+import games.spooky.gdx.gameservices.savedgame.SavedGameConflict;
+import games.spooky.gdx.gameservices.savedgame.SavedGameConflictResolver;
+import games.spooky.gdx.gameservices.savedgame.SavedGameConflictResolvers;
+import games.spooky.gdx.gameservices.savedgame.SavedGameResolution;
+import games.spooky.gdx.gameservices.savedgame.SavedGameStreams;
 import org.robovm.apple.foundation.NSArray;
 import org.robovm.apple.foundation.NSData;
+import org.robovm.apple.foundation.NSDate;
 import org.robovm.apple.foundation.NSError;
 import org.robovm.apple.foundation.NSRange;
 import org.robovm.apple.gamekit.*;
@@ -40,6 +49,14 @@ import org.robovm.apple.uikit.UIViewController;
 import org.robovm.objc.block.VoidBlock1;
 import org.robovm.objc.block.VoidBlock2;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
 import static games.spooky.gdx.gameservices.SyncSuccessServiceResult.sync;
 import static games.spooky.gdx.gameservices.gamecenter.GameCenterSavedGameWrapper.unwrap;
 
@@ -48,12 +65,51 @@ import static games.spooky.gdx.gameservices.gamecenter.GameCenterSavedGameWrappe
  */
 public class GameCenterServicesHandler implements GameServicesHandler {
 
+	// Bound on fanned out requests, for operations without batch call
+	private static final int MAX_CONCURRENT_REQUESTS = 4;
+
+	// Game Center default range length
+	private static final int DEFAULT_PAGE_SIZE = 25;
+
 	private final UIViewController viewController;
 
+	private volatile SavedGameConflictResolver conflictResolver;
+	private volatile SavedGameAncestors savedGameAncestors;
+
 	public GameCenterServicesHandler(UIViewController viewController) {
 		this.viewController = viewController;
 	}
 
+	public SavedGameConflictResolver getConflictResolver() {
+		return conflictResolver;
+	}
+
+	/**
+	 * Set the resolver of saved games Game Center lists several times, e.g.
+	 * after being saved from two devices while one of them was offline.
+	 * Conflicts are resolved when listing saved games. Without resolver, all
+	 * conflicting saved games are listed.
+	 *
+	 * @param conflictResolver the resolver of conflicting saved games, null to list them all
+	 */
+	public void setConflictResolver(SavedGameConflictResolver conflictResolver) {
+		this.conflictResolver = conflictResolver;
+	}
+
+	public SavedGameAncestors getSavedGameAncestors() {
+		return savedGameAncestors;
+	}
+
+	/**
+	 * Keep the last content of each saved game loaded or written by a conflict
+	 * resolution, handed to the conflict resolver as common ancestor.
+	 *
+	 * @param savedGameAncestors the store of common ancestors, null to keep none
+	 */
+	public void setSavedGameAncestors(SavedGameAncestors savedGameAncestors) {
+		this.savedGameAncestors = savedGameAncestors;
+	}
+
 	@Override
 	public AsyncServiceResult<Boolean> isLoggedIn() {
 		return sync(GKLocalPlayer.getLocalPlayer().isAuthenticated());
@@ -152,6 +208,43 @@ public class GameCenterServicesHandler implements GameServicesHandler {
 		};
 	}
 
+	@Override
+	public AsyncServiceResult<BatchResult<String, Void>> unlockAchievements(Iterable<String> achievementIds) {
+		final Array<String> ids = new Array<>();
+		for (String achievementId : achievementIds)
+			ids.add(achievementId);
+		return new GameCenterAsyncServiceResultBase<Void, BatchResult<String, Void>>() {
+			{
+				// Single report, either all unlocked or none
+				List<GKAchievement> achievements = new ArrayList<>(ids.size);
+				for (String achievementId : ids)
+					achievements.add(new GKAchievement(achievementId));
+				GKAchievement.reportAchievements(new NSArray<>(achievements), new VoidBlock1<NSError>() {
+					@Override
+					public void invoke(NSError nsError) {
+						if (nsError == null) {
+							complete(null, null);
+						} else {
+							BatchResult<String, Void> batch = new BatchResult<>();
+							GameCenterServiceError error = new GameCenterServiceError(nsError);
+							for (String achievementId : ids)
+								batch.putFailure(achievementId, error);
+							succeed(batch);
+						}
+					}
+				});
+			}
+
+			@Override
+			protected BatchResult<String, Void> transformResult(Void result) {
+				BatchResult<String, Void> batch = new BatchResult<>();
+				for (String achievementId : ids)
+					batch.putSuccess(achievementId, null);
+				return batch;
+			}
+		};
+	}
+
 	@Override
 	public boolean handlesLeaderboards() {
 		return true;
@@ -159,11 +252,58 @@ public class GameCenterServicesHandler implements GameServicesHandler {
 
 	@Override
 	public AsyncServiceResult<LeaderboardEntry> getPlayerScore(String leaderboardId, LeaderboardOptions options) {
-		GKLeaderboard leaderboard = getLeaderboard(leaderboardId, options);
-		GKScore score = leaderboard.getLocalPlayerScore();
-		return score == null ?
-				SyncErrorServiceResult.<LeaderboardEntry>syncError(SimpleServiceError.error("No local score found")) :
-				SyncSuccessServiceResult.<LeaderboardEntry>sync(new GameCenterLeaderboardEntryWrapper(score));
+		return AsyncServiceResults.flatMap(loadPlayerScore(leaderboardId, options), new AsyncServiceResults.FlatMapper<LeaderboardEntry, LeaderboardEntry>() {
+			@Override
+			public AsyncServiceResult<LeaderboardEntry> flatMap(LeaderboardEntry entry) {
+				return entry == null ?
+						SyncErrorServiceResult.<LeaderboardEntry>syncError(SimpleServiceError.error("No local score found")) :
+						SyncSuccessServiceResult.sync(entry);
+			}
+		});
+	}
+
+	/**
+	 * Load the score of the local player in given leaderboard, null if the
+	 * player has none. Game Center only knows of it once scores are loaded,
+	 * a single one is enough.
+	 */
+	private AsyncServiceResult<LeaderboardEntry> loadPlayerScore(String leaderboardId, LeaderboardOptions options) {
+		final GKLeaderboard leaderboard = getLeaderboard(leaderboardId, options);
+		leaderboard.setRange(new NSRange(1, 1));
+		return new GameCenterAsyncServiceResult<NSArray<GKScore>, LeaderboardEntry>() {
+			@Override
+			protected void call(VoidBlock2<NSArray<GKScore>, NSError> block) {
+				leaderboard.loadScores(block);
+			}
+
+			@Override
+			protected LeaderboardEntry transformResult(NSArray<GKScore> scores) {
+				GKScore score = leaderboard.getLocalPlayerScore();
+				return score == null ? null : new GameCenterLeaderboardEntryWrapper(score);
+			}
+		};
+	}
+
+	@Override
+	public AsyncServiceResult<ObjectMap<String, LeaderboardEntry>> getPlayerScores(Iterable<String> leaderboardIds, final LeaderboardOptions options) {
+		AsyncServiceResult<ObjectMap<String, LeaderboardEntry>> scores = AsyncServiceResults.fanOutSuccesses(leaderboardIds, MAX_CONCURRENT_REQUESTS, new AsyncServiceResults.FlatMapper<String, LeaderboardEntry>() {
+			@Override
+			public AsyncServiceResult<LeaderboardEntry> flatMap(String leaderboardId) {
+				return loadPlayerScore(leaderboardId, options);
+			}
+		});
+		return AsyncServiceResults.map(scores, new AsyncServiceResults.Mapper<ObjectMap<String, LeaderboardEntry>, ObjectMap<String, LeaderboardEntry>>() {
+			@Override
+			public ObjectMap<String, LeaderboardEntry> map(ObjectMap<String, LeaderboardEntry> value) {
+				// Leaderboards the player has no score in are left out
+				ObjectMap<String, LeaderboardEntry> entries = new ObjectMap<>(value.size);
+				for (ObjectMap.Entry<String, LeaderboardEntry> entry : value) {
+					if (entry.value != null)
+						entries.put(entry.key, entry.value);
+				}
+				return entries;
+			}
+		});
 	}
 
 	@Override
@@ -177,14 +317,31 @@ public class GameCenterServicesHandler implements GameServicesHandler {
 
 			@Override
 			protected Iterable<LeaderboardEntry> transformResult(NSArray<GKScore> scores) {
-				return scores == null ?
-						new Array<LeaderboardEntry>(0) :
-						new TransformIterable<GKScore, LeaderboardEntry>(scores) {
-							@Override
-							protected LeaderboardEntry transform(GKScore item) {
-								return new GameCenterLeaderboardEntryWrapper(item);
-							}
-						};
+				return toLeaderboardPage(scores, null, null).entries();
+			}
+		};
+	}
+
+	@Override
+	public AsyncServiceResult<LeaderboardPage> getScoresPage(final String leaderboardId, final LeaderboardOptions options, LeaderboardPage.Cursor cursor) {
+		if (cursor != null && !(cursor instanceof RankCursor))
+			return SyncErrorServiceResult.syncError(SimpleServiceError.error("Not a Game Center cursor: " + cursor));
+		final int start = cursor == null ? 1 : ((RankCursor) cursor).start;
+		final int length = options != null && options.getMaxResults() > 0 ? options.getMaxResults() : DEFAULT_PAGE_SIZE;
+		return new GameCenterAsyncServiceResult<NSArray<GKScore>, LeaderboardPage>() {
+			@Override
+			protected void call(VoidBlock2<NSArray<GKScore>, NSError> block) {
+				GKLeaderboard leaderboard = getLeaderboard(leaderboardId, options);
+				// Ranges are 1-based
+				leaderboard.setRange(new NSRange(start, length));
+				leaderboard.loadScores(block);
+			}
+
+			@Override
+			protected LeaderboardPage transformResult(NSArray<GKScore> scores) {
+				return toLeaderboardPage(scores,
+						start <= 1 ? null : new RankCursor(Math.max(1, start - length)),
+						scores == null || scores.size() < length ? null : new RankCursor(start + length));
 			}
 		};
 	}
@@ -203,6 +360,25 @@ public class GameCenterServicesHandler implements GameServicesHandler {
 		};
 	}
 	
+	private static LeaderboardPage toLeaderboardPage(NSArray<GKScore> scores, LeaderboardPage.Cursor previousCursor, LeaderboardPage.Cursor nextCursor) {
+		// Copy into columns right away, native scores are not kept around
+		LeaderboardPage.Builder builder = new LeaderboardPage.Builder(scores == null ? 0 : scores.size());
+		if (scores != null) {
+			for (GKScore score : scores) {
+				GKPlayer player = score.getPlayer();
+				NSDate date = score.getDate();
+				builder.add(
+						player == null ? null : player.getPlayerID(),
+						player == null ? null : player.getAlias(),
+						score.getValue(),
+						score.getRank(),
+						"Game Center",
+						date == null ? 0L : date.toDate().getTime());
+			}
+		}
+		return builder.build(previousCursor, nextCursor);
+	}
+
 	private GKLeaderboard getLeaderboard(String leaderboardId, LeaderboardOptions options) {
 
 		GKLeaderboard leaderboard = new GKLeaderboard();
@@ -239,6 +415,9 @@ public class GameCenterServicesHandler implements GameServicesHandler {
 
 	@Override
 	public AsyncServiceResult<Iterable<SavedGame>> getSavedGames() {
+		final SavedGameConflictResolver resolver = conflictResolver;
+		if (resolver != null)
+			return getResolvedSavedGames(resolver);
 		return new GameCenterAsyncServiceResult<NSArray<GKSavedGame>, Iterable<SavedGame>>() {
 			@Override
 			protected void call(VoidBlock2<NSArray<GKSavedGame>, NSError> block) {
@@ -257,6 +436,144 @@ public class GameCenterServicesHandler implements GameServicesHandler {
 		};
 	}
 
+	/**
+	 * List saved games, resolving those listed several times first. Saved
+	 * games whose conflict could not be resolved are listed as is.
+	 */
+	private AsyncServiceResult<Iterable<SavedGame>> getResolvedSavedGames(final SavedGameConflictResolver resolver) {
+		AsyncServiceResult<NSArray<GKSavedGame>> fetched = new GameCenterAsyncServiceResult<NSArray<GKSavedGame>, NSArray<GKSavedGame>>() {
+			@Override
+			protected void call(VoidBlock2<NSArray<GKSavedGame>, NSError> block) {
+				GKLocalPlayer.getLocalPlayer().fetchSavedGames(block);
+			}
+
+			@Override
+			protected NSArray<GKSavedGame> transformResult(NSArray<GKSavedGame> savedGames) {
+				return savedGames;
+			}
+		};
+		return AsyncServiceResults.flatMap(fetched, new AsyncServiceResults.FlatMapper<NSArray<GKSavedGame>, Iterable<SavedGame>>() {
+			@Override
+			public AsyncServiceResult<Iterable<SavedGame>> flatMap(NSArray<GKSavedGame> savedGames) {
+				if (savedGames == null)
+					return new SyncSuccessServiceResult<Iterable<SavedGame>>(new Array<SavedGame>(0));
+				final Array<String> names = new Array<>();
+				final ObjectMap<String, List<GKSavedGame>> byName = new ObjectMap<>();
+				Array<String> conflicting = new Array<>();
+				for (GKSavedGame savedGame : savedGames) {
+					List<GKSavedGame> group = byName.get(savedGame.getName());
+					if (group == null) {
+						group = new ArrayList<>(1);
+						byName.put(savedGame.getName(), group);
+						names.add(savedGame.getName());
+					} else if (group.size() == 1) {
+						conflicting.add(savedGame.getName());
+					}
+					group.add(savedGame);
+				}
+				AsyncServiceResult<BatchResult<String, GKSavedGame>> resolutions = AsyncServiceResults.fanOut(conflicting, MAX_CONCURRENT_REQUESTS, new AsyncServiceResults.FlatMapper<String, GKSavedGame>() {
+					@Override
+					public AsyncServiceResult<GKSavedGame> flatMap(String name) {
+						return resolveConflict(name, byName.get(name), resolver);
+					}
+				});
+				return AsyncServiceResults.map(resolutions, new AsyncServiceResults.Mapper<BatchResult<String, GKSavedGame>, Iterable<SavedGame>>() {
+					@Override
+					public Iterable<SavedGame> map(BatchResult<String, GKSavedGame> batch) {
+						Array<SavedGame> listed = new Array<>(names.size);
+						for (String name : names) {
+							GKSavedGame resolved = batch.getSuccesses().get(name);
+							if (resolved != null) {
+								listed.add(new GameCenterSavedGameWrapper(resolved));
+							} else {
+								for (GKSavedGame savedGame : byName.get(name))
+									listed.add(new GameCenterSavedGameWrapper(savedGame));
+							}
+						}
+						return listed;
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Run given resolver on conflicting saved games off the main thread, then
+	 * hand its resolution to Game Center. Content of versions is loaded only
+	 * if the resolver asks for it or keeps that version, only once, and always
+	 * on the resolver thread.
+	 */
+	private AsyncServiceResult<GKSavedGame> resolveConflict(final String name, final List<GKSavedGame> conflicting, final SavedGameConflictResolver resolver) {
+		Array<SavedGameConflict.Version> versions = new Array<>(conflicting.size());
+		for (final GKSavedGame savedGame : conflicting) {
+			versions.add(new SavedGameConflict.Version(new GameCenterSavedGameWrapper(savedGame), new SavedGameConflict.ContentSource() {
+				@Override
+				public byte[] load() throws IOException {
+					return loadData(savedGame);
+				}
+			}));
+		}
+		final SavedGameAncestors ancestors = savedGameAncestors;
+		SavedGameConflict conflict = new SavedGameConflict(name, versions, ancestors == null ? null : ancestors.source(name));
+		SavedGameConflictResolver loading = new SavedGameConflictResolver() {
+			@Override
+			public SavedGameResolution resolve(SavedGameConflict conflict) throws IOException {
+				SavedGameResolution resolution = resolver.resolve(conflict);
+				// Game Center wants content even for a kept version: load it
+				// here, off the thread the resolution is handed to
+				if (resolution != null)
+					resolution.getContent();
+				return resolution;
+			}
+		};
+		return AsyncServiceResults.flatMap(SavedGameConflictResolvers.resolve(loading, conflict), new AsyncServiceResults.FlatMapper<SavedGameResolution, GKSavedGame>() {
+			@Override
+			public AsyncServiceResult<GKSavedGame> flatMap(SavedGameResolution resolution) throws IOException {
+				// Loaded already by the resolver task
+				final byte[] data = resolution.getContent();
+				return new GameCenterAsyncServiceResult<NSArray<GKSavedGame>, GKSavedGame>() {
+					@Override
+					protected void call(VoidBlock2<NSArray<GKSavedGame>, NSError> block) {
+						GKLocalPlayer.getLocalPlayer().resolveConflictingSavedGames(new NSArray<>(conflicting), new NSData(data), block);
+					}
+
+					@Override
+					protected GKSavedGame transformResult(NSArray<GKSavedGame> resolved) {
+						if (ancestors != null)
+							ancestors.put(name, data);
+						return resolved == null || resolved.isEmpty() ? null : resolved.get(0);
+					}
+				};
+			}
+		});
+	}
+
+	/**
+	 * Load given saved game, blocking until Game Center calls back. Never to
+	 * be called from the main thread.
+	 */
+	private static byte[] loadData(GKSavedGame savedGame) throws IOException {
+		final CountDownLatch done = new CountDownLatch(1);
+		final Object[] outcome = new Object[2];
+		savedGame.loadData(new VoidBlock2<NSData, NSError>() {
+			@Override
+			public void invoke(NSData data, NSError error) {
+				outcome[0] = data;
+				outcome[1] = error;
+				done.countDown();
+			}
+		});
+		try {
+			done.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while loading Game Center saved game " + savedGame.getName());
+		}
+		if (outcome[1] != null)
+			throw new IOException("Game Center saved game " + savedGame.getName() + " could not be loaded: " + ((NSError) outcome[1]).getLocalizedDescription());
+		return outcome[0] == null ? new byte[0] : ((NSData) outcome[0]).getBytes();
+	}
+
 	@Override
 	public AsyncServiceResult<byte[]> loadSavedGameData(final SavedGame metadata) {
 		return new GameCenterAsyncServiceResult<NSData, byte[]>() {
@@ -268,11 +585,21 @@ public class GameCenterServicesHandler implements GameServicesHandler {
 
 			@Override
 			protected byte[] transformResult(NSData data) {
-				return data.getBytes();
+				byte[] bytes = data.getBytes();
+				SavedGameAncestors ancestors = savedGameAncestors;
+				if (ancestors != null)
+					ancestors.put(metadata.getTitle(), bytes);
+				return bytes;
 			}
 		};
 	}
 
+	@Override
+	public AsyncServiceResult<Void> loadSavedGameData(SavedGame metadata, OutputStream output) {
+		// Game Center only hands out whole NSData
+		return SavedGameStreams.copyTo(loadSavedGameData(metadata), output);
+	}
+
 	@Override
 	public AsyncServiceResult<Void> submitSavedGame(final SavedGame savedGame, final byte[] data) {
 		return new GameCenterAsyncServiceResult<GKSavedGame, Void>() {
@@ -290,12 +617,27 @@ public class GameCenterServicesHandler implements GameServicesHandler {
 		};
 	}
 
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(SavedGame savedGame, InputStream data, long length) {
+		// Game Center only takes whole NSData
+		byte[] bytes;
+		try {
+			bytes = SavedGameStreams.readFully(data, length);
+		} catch (IOException e) {
+			return SyncErrorServiceResult.syncError(new ExceptionServiceError(e));
+		}
+		return submitSavedGame(savedGame, bytes);
+	}
+
 	@Override
 	public AsyncServiceResult<Void> deleteSavedGame(final SavedGame savedGame) {
 		return new GameCenterVoidAsyncServiceResult() {
 			@Override
 			protected void call(VoidBlock1<NSError> block) {
 				String id = savedGame.getId();
+				SavedGameAncestors ancestors = savedGameAncestors;
+				if (ancestors != null)
+					ancestors.remove(savedGame.getTitle());
 				GKLocalPlayer.getLocalPlayer().deleteSavedGames(id, block);
 			}
 		};
@@ -315,57 +657,29 @@ public class GameCenterServicesHandler implements GameServicesHandler {
 		return data.getBytes();
 	}
 
-	static abstract class GameCenterAsyncServiceResultBase<TBlock, TCallback> implements AsyncServiceResult<TCallback> {
-
-		private final Array<ServiceSuccessCallback<TCallback>> successCallbacks = new Array<>();
-		private final Array<ServiceErrorCallback> errorCallbacks = new Array<>();
+	private static final class RankCursor implements LeaderboardPage.Cursor {
+		final int start;
 
-		protected boolean completed;
-		protected NSError error;
-		protected TBlock result;
-
-		@Override
-		public void onSuccess(ServiceSuccessCallback<TCallback> callback) {
-			synchronized(this) {
-				successCallbacks.add(callback);
-				checkExistingResponse();
-			}
-		}
-
-		@Override
-		public void onError(ServiceErrorCallback callback) {
-			synchronized(this) {
-				errorCallbacks.add(callback);
-				checkExistingResponse();
-			}
-		}
-
-		@Override
-		public void onCompletion(ServiceCompletionCallback<TCallback> callback) {
-			synchronized(this) {
-				successCallbacks.add(callback);
-				errorCallbacks.add(callback);
-				checkExistingResponse();
-			}
+		RankCursor(int start) {
+			this.start = start;
 		}
+	}
 
-		protected void checkExistingResponse() {
-			if (completed) {
-				if (error != null) {
-					ServiceError serviceError = new GameCenterServiceError(error);
-					for (ServiceErrorCallback callback : errorCallbacks)
-						callback.onError(serviceError);
-				} else {
-					try {
-						TCallback transformed = transformResult(result);
-						for (ServiceSuccessCallback<TCallback> callback : successCallbacks)
-							callback.onSuccess(transformed);
-					} catch (Throwable e) {
-						ServiceError serviceError = new ExceptionServiceError(e);
-						for (ServiceErrorCallback callback : errorCallbacks)
-							callback.onError(serviceError);
-					}
+	static abstract class GameCenterAsyncServiceResultBase<TBlock, TCallback> extends AbstractAsyncServiceResult<TCallback> {
+
+		protected void complete(TBlock result, NSError error) {
+			if (error != null) {
+				fail(new GameCenterServiceError(error));
+			} else {
+				// Result is transformed only once, whatever the number of callbacks
+				TCallback transformed;
+				try {
+					transformed = transformResult(result);
+				} catch (Throwable e) {
+					fail(new ExceptionServiceError(e));
+					return;
 				}
+				succeed(transformed);
 			}
 		}
 
@@ -380,12 +694,7 @@ public class GameCenterServicesHandler implements GameServicesHandler {
 			call(new VoidBlock2<TBlock, NSError>() {
 				@Override
 				public void invoke(TBlock result, NSError nsError) {
-					synchronized (GameCenterAsyncServiceResult.this) {
-						GameCenterAsyncServiceResult.this.completed = true;
-						GameCenterAsyncServiceResult.this.error = error;
-						GameCenterAsyncServiceResult.this.result = result;
-						checkExistingResponse();
-					}
+					complete(result, nsError);
 				}
 			});
 		}
@@ -404,12 +713,9 @@ public class GameCenterServicesHandler implements GameServicesHandler {
 			call(new VoidBlock1<NSError>() {
 				@Override
 				public void invoke(NSError nsError) {
-					synchronized (GameCenterVoidAsyncServiceResult.this) {
-						GameCenterVoidAsyncServiceResult.this.error = nsError;
-						checkExistingResponse();
-					}
+					complete(null, nsError);
 				}
 			});
 		}
 	}
-}
\ No newline at end of file
+}
@@ -35,13 +35,18 @@ import android.os.Handler;
 import android.os.Looper;
 import androidx.annotation.NonNull;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.StreamUtils;
 import com.google.android.gms.common.api.ApiException;
 import com.google.android.gms.common.images.ImageManager;
 import com.google.android.gms.games.*;
 import com.google.android.gms.games.achievement.AchievementBuffer;
 import com.google.android.gms.games.leaderboard.LeaderboardScore;
+import com.google.android.gms.games.leaderboard.LeaderboardScoreBuffer;
 import com.google.android.gms.games.leaderboard.LeaderboardVariant;
 import com.google.android.gms.games.snapshot.Snapshot;
+import com.google.android.gms.games.snapshot.SnapshotContents;
 import com.google.android.gms.games.snapshot.SnapshotMetadata;
 import com.google.android.gms.games.snapshot.SnapshotMetadataBuffer;
 import com.google.android.gms.games.snapshot.SnapshotMetadataChange;
@@ -51,10 +56,23 @@ import games.spooky.gdx.gameservices.achievement.Achievement;
 import games.spooky.gdx.gameservices.leaderboard.LeaderboardEntry;
 import games.spooky.gdx.gameservices.leaderboard.LeaderboardOptions;
 import games.spooky.gdx.gameservices.leaderboard.LeaderboardOptions.Scope;
+import games.spooky.gdx.gameservices.leaderboard.LeaderboardPage;
 import games.spooky.gdx.gameservices.savedgame.SavedGame;
+import games.spooky.gdx.gameservices.savedgame.SavedGameAncestors;
+import games.spooky.gdx.gameservices.savedgame.SavedGameConflict;
+import games.spooky.gdx.gameservices.savedgame.SavedGameConflictResolver;
+import games.spooky.gdx.gameservices.savedgame.SavedGameConflictResolvers;
+import games.spooky.gdx.gameservices.savedgame.SavedGameResolution;
 
 import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.CancellationException;
 
 @SuppressLint("VisibleForTests")
 public class GooglePlayServicesHandler implements GameServicesHandler {
@@ -67,6 +85,11 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 	private SnapshotsClient snapshotsClient;
 
 	private int resolutionPolicy = GooglePlaySnapshotResolutionPolicy.LAST_KNOWN_GOOD.rawValue;
+	private volatile SavedGameConflictResolver conflictResolver;
+	private volatile SavedGameAncestors savedGameAncestors;
+
+	// Bound on fanned out requests, for operations without batch call
+	private static final int MAX_CONCURRENT_REQUESTS = 4;
 
 	/**
 	 * Get the current resolution policy that should handle {@link Snapshot} conflicts.
@@ -93,6 +116,41 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 		this.resolutionPolicy = resolutionPolicy;
 	}
 
+	/**
+	 * Get the resolver handling {@link Snapshot} conflicts instead of the resolution policy, if any.
+	 * @return the conflict resolver
+	 */
+	public SavedGameConflictResolver getConflictResolver() {
+		return conflictResolver;
+	}
+
+	/**
+	 * Set the resolver handling {@link Snapshot} conflicts instead of the resolution policy.
+	 * It runs on a background thread, the content of conflicting snapshots being read from the
+	 * snapshots already opened.
+	 * @param conflictResolver the new conflict resolver, null to use the resolution policy
+	 */
+	public void setConflictResolver(SavedGameConflictResolver conflictResolver) {
+		this.conflictResolver = conflictResolver;
+	}
+
+	/**
+	 * Get the store of the last content of each snapshot, handed to the conflict resolver as common ancestor.
+	 * @return the store of common ancestors
+	 */
+	public SavedGameAncestors getSavedGameAncestors() {
+		return savedGameAncestors;
+	}
+
+	/**
+	 * Set the store of the last content of each snapshot loaded as a whole array or written by a conflict resolution,
+	 * handed to the conflict resolver as common ancestor.
+	 * @param savedGameAncestors the new store of common ancestors, null to keep none
+	 */
+	public void setSavedGameAncestors(SavedGameAncestors savedGameAncestors) {
+		this.savedGameAncestors = savedGameAncestors;
+	}
+
 	// Lifecycle
 
 	public void setContext(final Activity activity) {
@@ -220,6 +278,17 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 		return new GooglePlayVoidAsyncServiceResult<>(achievementsClient.unlockImmediate(achievementId));
 	}
 
+	@Override
+	public AsyncServiceResult<BatchResult<String, Void>> unlockAchievements(Iterable<String> achievementIds) {
+		// No batch call in Play Games Services v2, unlock a few at a time
+		return AsyncServiceResults.fanOut(achievementIds, MAX_CONCURRENT_REQUESTS, new AsyncServiceResults.FlatMapper<String, Void>() {
+			@Override
+			public AsyncServiceResult<Void> flatMap(String achievementId) {
+				return unlockAchievement(achievementId);
+			}
+		});
+	}
+
 	// Leaderboards
 
 	@Override
@@ -228,64 +297,161 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 	}
 
 	@Override
-	public AsyncServiceResult<LeaderboardEntry> getPlayerScore(String leaderboardId, LeaderboardOptions options) {
+	public AsyncServiceResult<LeaderboardEntry> getPlayerScore(final String leaderboardId, LeaderboardOptions options) {
+		return new GooglePlayAsyncServiceResult<LeaderboardScore, LeaderboardEntry>(loadPlayerScore(leaderboardId, options)) {
+			@Override
+			protected LeaderboardEntry transformResult(LeaderboardScore result) throws IOException {
+				if (result == null)
+					throw new IOException("No score of current player in leaderboard " + leaderboardId);
+				return new GooglePlayLeaderboardEntry(result);
+			}
+		};
+	}
+
+	@Override
+	public AsyncServiceResult<ObjectMap<String, LeaderboardEntry>> getPlayerScores(Iterable<String> leaderboardIds, final LeaderboardOptions options) {
+		// No bulk call in Play Games Services v2, fetch a few at a time
+		AsyncServiceResult<ObjectMap<String, LeaderboardEntry>> scores = AsyncServiceResults.fanOutSuccesses(leaderboardIds, MAX_CONCURRENT_REQUESTS, new AsyncServiceResults.FlatMapper<String, LeaderboardEntry>() {
+			@Override
+			public AsyncServiceResult<LeaderboardEntry> flatMap(String leaderboardId) {
+				return new GooglePlayAsyncServiceResult<LeaderboardScore, LeaderboardEntry>(loadPlayerScore(leaderboardId, options)) {
+					@Override
+					protected LeaderboardEntry transformResult(LeaderboardScore result) {
+						return result == null ? null : new GooglePlayLeaderboardEntry(result);
+					}
+				};
+			}
+		});
+		return AsyncServiceResults.map(scores, new AsyncServiceResults.Mapper<ObjectMap<String, LeaderboardEntry>, ObjectMap<String, LeaderboardEntry>>() {
+			@Override
+			public ObjectMap<String, LeaderboardEntry> map(ObjectMap<String, LeaderboardEntry> value) {
+				// Leaderboards the player has no score in are left out
+				ObjectMap<String, LeaderboardEntry> entries = new ObjectMap<>(value.size);
+				for (ObjectMap.Entry<String, LeaderboardEntry> entry : value) {
+					if (entry.value != null)
+						entries.put(entry.key, entry.value);
+				}
+				return entries;
+			}
+		});
+	}
+
+	/**
+	 * Load the score of current player in given leaderboard, null if the
+	 * player has none.
+	 */
+	private Task<LeaderboardScore> loadPlayerScore(String leaderboardId, LeaderboardOptions options) {
 		int collection;
 		if (options != null && options.getScope() == Scope.Friends) {
 			collection = LeaderboardVariant.COLLECTION_FRIENDS;
 		} else {
 			collection = LeaderboardVariant.COLLECTION_PUBLIC;
 		}
-		return new GooglePlayAsyncServiceResult<LeaderboardScore, LeaderboardEntry>(
-				leaderboardsClient.loadCurrentPlayerLeaderboardScore(leaderboardId, LeaderboardVariant.TIME_SPAN_ALL_TIME, collection)
-						.continueWith(resolveAnnotated(LeaderboardScore.class))
-		) {
+		return leaderboardsClient.loadCurrentPlayerLeaderboardScore(leaderboardId, LeaderboardVariant.TIME_SPAN_ALL_TIME, collection)
+				.continueWith(new Continuation<AnnotatedData<LeaderboardScore>, LeaderboardScore>() {
+					@Override
+					public LeaderboardScore then(@NonNull Task<AnnotatedData<LeaderboardScore>> task) {
+						// No data when the player has not submitted any score yet
+						AnnotatedData<LeaderboardScore> data = task.getResult();
+						return data == null ? null : data.get();
+					}
+				});
+	}
+
+	@Override
+	public AsyncServiceResult<Iterable<LeaderboardEntry>> getScores(String leaderboardId, LeaderboardOptions options) {
+		return new GooglePlayAsyncServiceResult<LeaderboardsClient.LeaderboardScores, Iterable<LeaderboardEntry>>(
+				loadScores(leaderboardId, options).continueWith(resolveAnnotated(LeaderboardsClient.LeaderboardScores.class))) {
 			@Override
-			protected LeaderboardEntry transformResult(LeaderboardScore result) {
-				return new GooglePlayLeaderboardEntry(result);
+			protected Iterable<LeaderboardEntry> transformResult(LeaderboardsClient.LeaderboardScores result) {
+				LeaderboardScoreBuffer buffer = result.getScores();
+				LeaderboardPage.Builder builder = new LeaderboardPage.Builder(buffer.getCount());
+				for (LeaderboardScore score : buffer) {
+					addTo(builder, score);
+				}
+				result.release();
+				return builder.build(null, null).entries();
 			}
 		};
 	}
 
 	@Override
-	public AsyncServiceResult<Iterable<LeaderboardEntry>> getScores(String leaderboardId, LeaderboardOptions options) {
+	public AsyncServiceResult<LeaderboardPage> getScoresPage(String leaderboardId, LeaderboardOptions options, LeaderboardPage.Cursor cursor) {
+		final int items = pageSize(options);
 
+		if (cursor == null) {
+			return new GooglePlayAsyncServiceResult<LeaderboardsClient.LeaderboardScores, LeaderboardPage>(
+					loadScores(leaderboardId, options).continueWith(resolveAnnotated(LeaderboardsClient.LeaderboardScores.class))) {
+				@Override
+				protected LeaderboardPage transformResult(LeaderboardsClient.LeaderboardScores result) {
+					ScoreBufferHolder holder = new ScoreBufferHolder(result.getScores());
+					return holder.page(0, items);
+				}
+			};
+		}
+
+		if (!(cursor instanceof ScoreBufferCursor))
+			return new SyncErrorServiceResult<>(SimpleServiceError.error("Not a Google Play Games cursor: " + cursor));
+
+		final ScoreBufferCursor scoreCursor = (ScoreBufferCursor) cursor;
+		final ScoreBufferHolder holder = scoreCursor.holder;
+		LeaderboardScoreBuffer buffer;
+		synchronized (holder) {
+			// Entries already fetched along with an adjacent page
+			if (holder.covers(scoreCursor.offset, items))
+				return new SyncSuccessServiceResult<>(holder.page(scoreCursor.offset, items));
+			buffer = holder.buffer;
+		}
+		if (buffer == null)
+			return new SyncErrorServiceResult<>(SimpleServiceError.error("Google Play leaderboard cursor has been disposed"));
+
+		return new GooglePlayAsyncServiceResult<LeaderboardsClient.LeaderboardScores, LeaderboardPage>(
+				leaderboardsClient.loadMoreScores(buffer, items, scoreCursor.direction)
+						.continueWith(resolveAnnotated(LeaderboardsClient.LeaderboardScores.class))) {
+			@Override
+			protected LeaderboardPage transformResult(LeaderboardsClient.LeaderboardScores result) {
+				synchronized (holder) {
+					holder.replace(result.getScores(), scoreCursor.direction);
+					return holder.page(scoreCursor.offset, items);
+				}
+			}
+		};
+	}
+
+	private Task<AnnotatedData<LeaderboardsClient.LeaderboardScores>> loadScores(String leaderboardId, LeaderboardOptions options) {
 		boolean playerCentered;
 		int collection;
-		int items;
 
 		if (options == null) {
 			playerCentered = false;
 			collection = LeaderboardVariant.COLLECTION_PUBLIC;
-			items = 20;
 		} else {
 			LeaderboardOptions.Window window = options.getWindow();
 			playerCentered = window == LeaderboardOptions.Window.CenteredOnPlayer;
 			Scope scope = options.getScope();
 			collection = scope == Scope.Friends ? LeaderboardVariant.COLLECTION_FRIENDS : LeaderboardVariant.COLLECTION_PUBLIC;
-
-			int perPage = options.getMaxResults();
-			if (perPage > 0)
-				items = perPage;
-			else
-				items = 20;
 		}
 
-		Task<AnnotatedData<LeaderboardsClient.LeaderboardScores>> task = playerCentered ?
+		int items = pageSize(options);
+		return playerCentered ?
 			leaderboardsClient.loadPlayerCenteredScores(leaderboardId, LeaderboardVariant.TIME_SPAN_ALL_TIME, collection, items) :
 			leaderboardsClient.loadTopScores(leaderboardId, LeaderboardVariant.TIME_SPAN_ALL_TIME, collection, items);
+	}
 
-		return new GooglePlayAsyncServiceResult<LeaderboardsClient.LeaderboardScores, Iterable<LeaderboardEntry>>(
-				task.continueWith(resolveAnnotated(LeaderboardsClient.LeaderboardScores.class))) {
-			@Override
-			protected Iterable<LeaderboardEntry> transformResult(LeaderboardsClient.LeaderboardScores result) {
-				Array<LeaderboardEntry> scores = new Array<>(result.getScores().getCount());
-				for (LeaderboardScore score : result.getScores()) {
-					scores.add(new GooglePlayLeaderboardEntry(score));
-				}
-				result.release();
-				return scores;
-			}
-		};
+	private static void addTo(LeaderboardPage.Builder builder, LeaderboardScore score) {
+		Player player = score.getScoreHolder();
+		builder.add(
+				player == null ? null : player.getPlayerId(),
+				score.getScoreHolderDisplayName(),
+				score.getRawScore(),
+				score.getRank(),
+				"Google Play Games",
+				score.getTimestampMillis());
+	}
+
+	private static int pageSize(LeaderboardOptions options) {
+		int perPage = options == null ? 0 : options.getMaxResults();
+		return perPage > 0 ? perPage : 20;
 	}
 
 	@Override
@@ -320,21 +486,56 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 
 	@Override
 	public AsyncServiceResult<byte[]> loadSavedGameData(final SavedGame save) {
+		final CancellationTokenSource cancellation = new CancellationTokenSource();
 		return new GooglePlayAsyncServiceResult<Snapshot, byte[]>(
-				snapshotsClient.open(save.getTitle(), false, resolutionPolicy).continueWith(resolveDataOrConflict(save, Snapshot.class))
+				open(save, false)
+						.continueWithTask(resolveDataOrConflict(save))
+						.continueWith(discardIfCancelled(cancellation.getToken())),
+				cancellation
 		) {
 			@Override
 			protected byte[] transformResult(Snapshot result) throws IOException {
-				return result.getSnapshotContents().readFully();
+				byte[] data = result.getSnapshotContents().readFully();
+				SavedGameAncestors ancestors = savedGameAncestors;
+				if (ancestors != null)
+					ancestors.put(save.getTitle(), data);
+				return data;
+			}
+		};
+	}
+
+	@Override
+	public AsyncServiceResult<Void> loadSavedGameData(final SavedGame save, final OutputStream output) {
+		final CancellationTokenSource cancellation = new CancellationTokenSource();
+		return new GooglePlayAsyncServiceResult<Snapshot, Void>(
+				open(save, false)
+						.continueWithTask(resolveDataOrConflict(save))
+						.continueWith(discardIfCancelled(cancellation.getToken())),
+				cancellation
+		) {
+			@Override
+			protected Void transformResult(Snapshot result) throws IOException {
+				try {
+					// Read from the snapshot file itself, content is never held whole
+					FileInputStream input = new FileInputStream(result.getSnapshotContents().getParcelFileDescriptor().getFileDescriptor());
+					input.getChannel().position(0L);
+					StreamUtils.copyStream(input, output);
+					output.flush();
+					return null;
+				} finally {
+					snapshotsClient.discardAndClose(result);
+				}
 			}
 		};
 	}
 
 	@Override
 	public AsyncServiceResult<Void> submitSavedGame(final SavedGame save, final byte[] data) {
+		final CancellationTokenSource cancellation = new CancellationTokenSource();
 		return new GooglePlayVoidAsyncServiceResult<>(
-				snapshotsClient.open(save.getTitle(), true, resolutionPolicy)
-						.continueWith(resolveDataOrConflict(save, Snapshot.class))
+				open(save, true)
+						.continueWithTask(resolveDataOrConflict(save))
+						.continueWith(discardIfCancelled(cancellation.getToken()))
 						.continueWithTask(new Continuation<Snapshot, Task<SnapshotMetadata>>() {
 							@Override
 							public Task<SnapshotMetadata> then(@NonNull Task<Snapshot> task) {
@@ -348,25 +549,83 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 										.build();
 
 								return snapshotsClient.commitAndClose(snapshot, metadataChange);
-							}})
-				);
+							}}),
+				cancellation
+		);
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(final SavedGame save, final InputStream data, final long length) {
+		final CancellationTokenSource cancellation = new CancellationTokenSource();
+		return new GooglePlayVoidAsyncServiceResult<>(
+				open(save, true)
+						.continueWithTask(resolveDataOrConflict(save))
+						.continueWith(discardIfCancelled(cancellation.getToken()))
+						.continueWithTask(new Continuation<Snapshot, Task<SnapshotMetadata>>() {
+							@Override
+							public Task<SnapshotMetadata> then(@NonNull Task<Snapshot> task) throws IOException {
+								Snapshot snapshot = task.getResult();
+								try {
+									// Write to the snapshot file itself, content is never held whole
+									FileChannel channel = new FileOutputStream(snapshot.getSnapshotContents().getParcelFileDescriptor().getFileDescriptor()).getChannel();
+									channel.truncate(0L);
+									channel.position(0L);
+									copy(data, Channels.newOutputStream(channel), length);
+								} catch (IOException e) {
+									snapshotsClient.discardAndClose(snapshot);
+									throw e;
+								}
+
+								SnapshotMetadataChange metadataChange = new SnapshotMetadataChange.Builder()
+										.fromMetadata(snapshot.getMetadata())
+										.setPlayedTimeMillis(save.getPlayedTime())
+										.setDescription(save.getDescription())
+										.build();
+
+								return snapshotsClient.commitAndClose(snapshot, metadataChange);
+							}}),
+				cancellation
+		);
 	}
 
 	@Override
-	public AsyncServiceResult<Void> deleteSavedGame(SavedGame save) {
+	public AsyncServiceResult<Void> deleteSavedGame(final SavedGame save) {
+		final CancellationTokenSource cancellation = new CancellationTokenSource();
 		return new GooglePlayVoidAsyncServiceResult<>(
-				snapshotsClient.open(save.getTitle(), false, resolutionPolicy)
-						.continueWith(resolveDataOrConflict(save, Snapshot.class))
+				open(save, false)
+						.continueWithTask(resolveDataOrConflict(save))
+						.continueWith(discardIfCancelled(cancellation.getToken()))
 						.continueWithTask(new Continuation<Snapshot, Task<String>>() {
 							@Override
 							public Task<String> then(@NonNull Task<Snapshot> task) {
+								SavedGameAncestors ancestors = savedGameAncestors;
+								if (ancestors != null)
+									ancestors.remove(save.getTitle());
 								return snapshotsClient.delete(task.getResult().getMetadata());
 							}
-						}));
+						}),
+				cancellation);
 	}
 
 	// Utilities
 
+	private static void copy(InputStream input, OutputStream output, long length) throws IOException {
+		if (length < 0L) {
+			StreamUtils.copyStream(input, output);
+		} else {
+			byte[] buffer = new byte[StreamUtils.DEFAULT_BUFFER_SIZE];
+			long remaining = length;
+			while (remaining > 0L) {
+				int read = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+				if (read < 0)
+					throw new IOException("Saved game data ended " + remaining + " bytes early");
+				output.write(buffer, 0, read);
+				remaining -= read;
+			}
+		}
+		output.flush();
+	}
+
 	private static Bitmap drawableToBitmap(Drawable drawable) {
 		if (drawable instanceof BitmapDrawable)
 			return ((BitmapDrawable)drawable).getBitmap();
@@ -395,48 +654,35 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 		return stream.toByteArray();
 	}
 
-	private static abstract class GooglePlayAsyncServiceResult<TTask, TCallback> implements AsyncServiceResult<TCallback> {
-		private final Task<TTask> task;
+	private static abstract class GooglePlayAsyncServiceResult<TTask, TCallback> extends AbstractAsyncServiceResult<TCallback> {
 
-		private GooglePlayAsyncServiceResult(Task<TTask> task) {
-			this.task = task;
-		}
+		private final CancellationTokenSource cancellation;
 
-		@Override
-		public void onSuccess(final ServiceSuccessCallback<TCallback> callback) {
-			task.addOnSuccessListener(new OnSuccessListener<TTask>() {
-				@Override
-				public void onSuccess(TTask taskResult) {
-					try {
-						succeed(taskResult, callback);
-					} catch (Exception ignored) {}
-				}
-			});
-		}
-
-		@Override
-		public void onError(final ServiceErrorCallback callback) {
-			task.addOnFailureListener(new OnFailureListener() {
-				@Override
-				public void onFailure(@NonNull Exception exception) {
-					fail(exception, callback);
-				}
-			});
+		private GooglePlayAsyncServiceResult(Task<TTask> task) {
+			this(task, null);
 		}
 
-		@Override
-		public void onCompletion(final ServiceCompletionCallback<TCallback> callback) {
+		private GooglePlayAsyncServiceResult(Task<TTask> task, CancellationTokenSource cancellation) {
+			this.cancellation = cancellation;
+			// Result is transformed only once, some transformations release underlying buffers
 			task.addOnCompleteListener(new OnCompleteListener<TTask>() {
 				@Override
 				public void onComplete(@NonNull Task<TTask> task) {
+					if (isCompleted()) {
+						// Cancelled, nobody is waiting for the result anymore
+						return;
+					}
 					if (task.isSuccessful()) {
+						TCallback transformed;
 						try {
-							succeed(task.getResult(), callback);
+							transformed = transformResult(task.getResult());
 						} catch (Exception e) {
-							fail(e, callback);
+							fail(toServiceError(e));
+							return;
 						}
+						succeed(transformed);
 					} else {
-						fail(task.getException(), callback);
+						fail(toServiceError(task.getException()));
 					}
 				}
 			});
@@ -444,36 +690,211 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 
 		protected abstract TCallback transformResult(TTask result) throws Exception;
 
-		private void succeed(TTask taskResult, ServiceSuccessCallback<TCallback> callback) throws Exception {
-			callback.onSuccess(transformResult(taskResult));
+		@Override
+		protected void onCancel() {
+			if (cancellation != null)
+				cancellation.cancel();
 		}
 
-		private void fail(Exception exception, ServiceErrorCallback callback) {
+		private static ServiceError toServiceError(Exception exception) {
 			if (exception == null) {
-				callback.onError(SimpleServiceError.error(-1));
+				return SimpleServiceError.error(-1);
+			} else if (exception instanceof CancellationException) {
+				return SimpleServiceError.cancelled();
 			} else if (exception instanceof ApiException) {
-				callback.onError(new GooglePlayStatusServiceError(((ApiException) exception).getStatus()));
+				return new GooglePlayStatusServiceError(((ApiException) exception).getStatus());
 			} else {
-				callback.onError(new ExceptionServiceError(exception));
+				return new ExceptionServiceError(exception);
+			}
+		}
+	}
+
+	/**
+	 * Score buffer shared by all pages read from the same first page.
+	 * {@link LeaderboardsClient#loadMoreScores(LeaderboardScoreBuffer, int, int)} hands back a buffer
+	 * holding previously loaded scores as well, so pages are tracked as logical offsets
+	 * from the first loaded score and previous pages shift the buffer origin.
+	 */
+	private static final class ScoreBufferHolder {
+		LeaderboardScoreBuffer buffer;
+		int origin;
+
+		ScoreBufferHolder(LeaderboardScoreBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		synchronized boolean covers(int offset, int items) {
+			return buffer != null && offset >= origin && offset + items <= origin + buffer.getCount();
+		}
+
+		synchronized void replace(LeaderboardScoreBuffer newBuffer, int direction) {
+			if (buffer == null) {
+				// Disposed while loading
+				newBuffer.release();
+				return;
 			}
+			if (direction == PageDirection.PREV)
+				origin -= newBuffer.getCount() - buffer.getCount();
+			if (newBuffer != buffer)
+				buffer.release();
+			buffer = newBuffer;
+		}
+
+		synchronized LeaderboardPage page(int offset, int items) {
+			int count = buffer == null ? 0 : buffer.getCount();
+			int from = Math.max(offset, origin);
+			int to = Math.min(offset + items, origin + count);
+			LeaderboardPage.Builder builder = new LeaderboardPage.Builder(Math.max(0, to - from));
+			for (int i = from; i < to; i++)
+				addTo(builder, buffer.get(i - origin));
+
+			// No way to tell the actual bounds but from the ranks and the size of the page
+			boolean first = from >= to || buffer.get(from - origin).getRank() <= 1;
+			boolean last = to - from < items;
+			if (first && last) {
+				// No cursor to dispose of the buffer later, entries are copies
+				release();
+				return builder.build(null, null);
+			}
+			return builder.build(
+					first ? null : new ScoreBufferCursor(this, from - items, PageDirection.PREV),
+					last ? null : new ScoreBufferCursor(this, to, PageDirection.NEXT));
+		}
+
+		synchronized void release() {
+			if (buffer != null) {
+				buffer.release();
+				buffer = null;
+			}
+		}
+	}
+
+	private static final class ScoreBufferCursor implements LeaderboardPage.Cursor, Disposable {
+		final ScoreBufferHolder holder;
+		final int offset;
+		final int direction;
+
+		ScoreBufferCursor(ScoreBufferHolder holder, int offset, int direction) {
+			this.holder = holder;
+			this.offset = offset;
+			this.direction = direction;
+		}
+
+		@Override
+		public void dispose() {
+			holder.release();
 		}
 	}
 
 	private static class GooglePlayVoidAsyncServiceResult<T> extends GooglePlayAsyncServiceResult<T, Void> {
 		private GooglePlayVoidAsyncServiceResult(Task<T> task) { super(task); }
+		private GooglePlayVoidAsyncServiceResult(Task<T> task, CancellationTokenSource cancellation) { super(task, cancellation); }
 		@Override protected Void transformResult(T result) { return null; }
 	}
 
-	private <T> Continuation<SnapshotsClient.DataOrConflict<T>, T> resolveDataOrConflict(final SavedGame save, Class<T> typeHint) {
-		return new Continuation<SnapshotsClient.DataOrConflict<T>, T>() {
+	private Task<SnapshotsClient.DataOrConflict<Snapshot>> open(SavedGame save, boolean createIfNotFound) {
+		// Conflicts are left to the resolver, if any
+		int policy = conflictResolver == null ? resolutionPolicy : SnapshotsClient.RESOLUTION_POLICY_MANUAL;
+		return snapshotsClient.open(save.getTitle(), createIfNotFound, policy);
+	}
+
+	private Continuation<SnapshotsClient.DataOrConflict<Snapshot>, Task<Snapshot>> resolveDataOrConflict(final SavedGame save) {
+		return new Continuation<SnapshotsClient.DataOrConflict<Snapshot>, Task<Snapshot>>() {
 			@Override
-			public T then(@NonNull Task<SnapshotsClient.DataOrConflict<T>> task) {
-				SnapshotsClient.DataOrConflict<T> result = task.getResult();
-				if (result.isConflict()) {
+			public Task<Snapshot> then(@NonNull Task<SnapshotsClient.DataOrConflict<Snapshot>> task) {
+				SnapshotsClient.DataOrConflict<Snapshot> result = task.getResult();
+				if (!result.isConflict())
+					return Tasks.forResult(result.getData());
+				SavedGameConflictResolver resolver = conflictResolver;
+				if (resolver == null)
 					throw new RuntimeException("Google Play snapshot " + save.getTitle() + " is in conflict state: " + result.getConflict());
+				// Resolving may reveal another conflict
+				return resolveConflict(save, result.getConflict(), resolver).continueWithTask(this);
+			}
+		};
+	}
+
+	/**
+	 * Run given resolver on given conflict off the main thread, then hand its
+	 * resolution to Google Play. A kept snapshot is resolved as is, without
+	 * writing its content again.
+	 */
+	private Task<SnapshotsClient.DataOrConflict<Snapshot>> resolveConflict(final SavedGame save, final SnapshotsClient.SnapshotConflict conflict, SavedGameConflictResolver resolver) {
+		final SavedGameConflict.Version server = version(conflict.getSnapshot());
+		SavedGameConflict.Version local = version(conflict.getConflictingSnapshot());
+		Array<SavedGameConflict.Version> versions = new Array<>(2);
+		versions.add(server);
+		versions.add(local);
+		final SavedGameAncestors ancestors = savedGameAncestors;
+		SavedGameConflict savedGameConflict = new SavedGameConflict(save.getTitle(), versions, ancestors == null ? null : ancestors.source(save.getTitle()));
+
+		final TaskCompletionSource<SnapshotsClient.DataOrConflict<Snapshot>> resolved = new TaskCompletionSource<>();
+		SavedGameConflictResolvers.resolve(resolver, savedGameConflict).onCompletion(new ServiceCompletionCallback<SavedGameResolution>() {
+			@Override
+			public void onSuccess(SavedGameResolution resolution) {
+				Task<SnapshotsClient.DataOrConflict<Snapshot>> task;
+				if (resolution.isMerge()) {
+					byte[] data;
+					try {
+						data = resolution.getContent();
+					} catch (IOException e) {
+						resolved.setException(e);
+						return;
+					}
+					SnapshotContents contents = conflict.getResolutionSnapshotContents();
+					contents.writeBytes(data);
+					SavedGame metadata = resolution.getMetadata();
+					SnapshotMetadataChange metadataChange = new SnapshotMetadataChange.Builder()
+							.setPlayedTimeMillis(metadata.getPlayedTime())
+							.setDescription(metadata.getDescription())
+							.build();
+					task = snapshotsClient.resolveConflict(conflict.getConflictId(), conflict.getSnapshot().getMetadata().getSnapshotId(), metadataChange, contents);
+					if (ancestors != null)
+						ancestors.put(save.getTitle(), data);
 				} else {
-					return result.getData();
+					Snapshot kept = resolution.getVersion() == server ? conflict.getSnapshot() : conflict.getConflictingSnapshot();
+					task = snapshotsClient.resolveConflict(conflict.getConflictId(), kept);
+				}
+				task.addOnCompleteListener(new OnCompleteListener<SnapshotsClient.DataOrConflict<Snapshot>>() {
+					@Override
+					public void onComplete(@NonNull Task<SnapshotsClient.DataOrConflict<Snapshot>> task) {
+						if (task.isSuccessful())
+							resolved.setResult(task.getResult());
+						else
+							resolved.setException(task.getException());
+					}
+				});
+			}
+
+			@Override
+			public void onError(ServiceError error) {
+				resolved.setException(new RuntimeException("Google Play snapshot " + save.getTitle() + " conflict not resolved: " + error.getErrorMessage()));
+			}
+		});
+		return resolved.getTask();
+	}
+
+	private static SavedGameConflict.Version version(final Snapshot snapshot) {
+		return new SavedGameConflict.Version(new GooglePlaySavedGame(snapshot.getMetadata()), new SavedGameConflict.ContentSource() {
+			@Override
+			public byte[] load() throws IOException {
+				// Already opened, read locally
+				return snapshot.getSnapshotContents().readFully();
+			}
+		});
+	}
+
+	private Continuation<Snapshot, Snapshot> discardIfCancelled(final CancellationToken token) {
+		return new Continuation<Snapshot, Snapshot>() {
+			@Override
+			public Snapshot then(@NonNull Task<Snapshot> task) {
+				Snapshot snapshot = task.getResult();
+				if (token.isCancellationRequested()) {
+					// Release the snapshot, leaving remote data untouched
+					snapshotsClient.discardAndClose(snapshot);
+					throw new CancellationException("Google Play snapshot " + snapshot.getMetadata().getUniqueName() + " operation cancelled");
 				}
+				return snapshot;
 			}
 		};
 	}
@@ -24,10 +24,11 @@
 package games.spooky.gdx.gameservices.googleplay;
 
 import androidx.annotation.NonNull;
+import com.google.android.gms.common.api.CommonStatusCodes;
 import com.google.android.gms.common.api.Status;
-import games.spooky.gdx.gameservices.ServiceError;
+import games.spooky.gdx.gameservices.ClassifiedServiceError;
 
-class GooglePlayStatusServiceError implements ServiceError {
+class GooglePlayStatusServiceError implements ClassifiedServiceError {
 
     private final Status status;
 
@@ -45,4 +46,23 @@ class GooglePlayStatusServiceError implements ServiceError {
     public String getErrorMessage() {
         return status.getStatusMessage();
     }
+
+    @Override
+    public boolean isTransient() {
+        switch (status.getStatusCode()) {
+            case CommonStatusCodes.NETWORK_ERROR:
+            case CommonStatusCodes.SIGN_IN_REQUIRED:
+            case CommonStatusCodes.RESOLUTION_REQUIRED:
+            case CommonStatusCodes.INTERNAL_ERROR:
+            case CommonStatusCodes.INTERRUPTED:
+            case CommonStatusCodes.TIMEOUT:
+            case CommonStatusCodes.CANCELED:
+            case CommonStatusCodes.API_NOT_CONNECTED:
+            case CommonStatusCodes.RECONNECTION_TIMED_OUT:
+            case CommonStatusCodes.RECONNECTION_TIMED_OUT_DURING_UPDATE:
+                return true;
+            default:
+                return false;
+        }
+    }
 }
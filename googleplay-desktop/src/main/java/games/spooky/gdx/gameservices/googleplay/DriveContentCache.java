@@ -0,0 +1,372 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.googleplay;
+
+import com.badlogic.gdx.utils.StreamUtils;
+import games.spooky.gdx.gameservices.AtomicFiles;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Local copies of saved game content, addressed by their MD5 checksum, the
+ * digest Drive reports for every file. Content goes through an {@link Entry}
+ * which hashes it on the fly while it is being uploaded or downloaded, and
+ * is only kept under its checksum once complete.
+ * <p>
+ * The least recently used entries are deleted once the cache grows past its
+ * maximum size, the entry just written excepted.
+ */
+final class DriveContentCache {
+
+	private static final String PART_SUFFIX = ".part";
+	private static final long STALE_PART_MILLIS = 24L * 60L * 60L * 1000L;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final java.io.File directory;
+	private final long maximumSize;
+
+	DriveContentCache(java.io.File directory, long maximumSize) {
+		this.directory = directory;
+		this.maximumSize = maximumSize;
+	}
+
+	/**
+	 * Open the content with given checksum and size, if held.
+	 *
+	 * @param checksum the MD5 checksum of the content, as hexadecimal
+	 * @param size the size of the content, null if unknown
+	 * @return a stream over the content, or null if not held
+	 */
+	InputStream open(String checksum, Long size) {
+		if (checksum == null)
+			return null;
+		java.io.File file = new java.io.File(directory, checksum);
+		if (size != null ? file.length() != size : !file.isFile())
+			return null;
+		try {
+			InputStream input = new FileInputStream(file);
+			file.setLastModified(System.currentTimeMillis());
+			return input;
+		} catch (FileNotFoundException e) {
+			// Evicted meanwhile
+			return null;
+		}
+	}
+
+	/**
+	 * Copy the content with given checksum and size to given file, if held.
+	 * Target file is only replaced once the copy succeeded.
+	 *
+	 * @return whether content was held and copied
+	 */
+	boolean copyTo(String checksum, Long size, java.io.File target) throws IOException {
+		InputStream input = open(checksum, size);
+		if (input == null)
+			return false;
+		java.io.File part = new java.io.File(target.getPath() + PART_SUFFIX);
+		OutputStream output = null;
+		try {
+			java.io.File parent = part.getParentFile();
+			if (parent != null)
+				parent.mkdirs();
+			output = new FileOutputStream(part);
+			StreamUtils.copyStream(input, output);
+		} finally {
+			StreamUtils.closeQuietly(input);
+			StreamUtils.closeQuietly(output);
+		}
+		AtomicFiles.replace(part, target);
+		return true;
+	}
+
+	/**
+	 * Keep a copy of given file if its content matches given checksum.
+	 */
+	void put(java.io.File source, String checksum) throws IOException {
+		if (checksum == null || new java.io.File(directory, checksum).length() == source.length())
+			return;
+		Entry entry = begin();
+		InputStream input = null;
+		try {
+			input = new FileInputStream(source);
+			entry.copyFrom(input);
+			entry.commit(checksum);
+		} finally {
+			StreamUtils.closeQuietly(input);
+			entry.discard();
+		}
+	}
+
+	/**
+	 * Keep a copy of given content if it matches given checksum.
+	 *
+	 * @param checksum the expected checksum, null to accept any
+	 * @return whether content matched
+	 */
+	boolean put(byte[] content, String checksum) throws IOException {
+		Entry entry = begin();
+		try {
+			entry.write(content);
+			return entry.commit(checksum);
+		} finally {
+			entry.discard();
+		}
+	}
+
+	/**
+	 * Start writing new content. The returned entry must either be committed
+	 * or discarded.
+	 */
+	Entry begin() throws IOException {
+		directory.mkdirs();
+		return new Entry(java.io.File.createTempFile("content", PART_SUFFIX, directory));
+	}
+
+	private void trim(String keep) {
+		java.io.File[] files = directory.listFiles();
+		if (files == null)
+			return;
+		long now = System.currentTimeMillis();
+		long total = 0L;
+		for (java.io.File file : files) {
+			if (file.getName().endsWith(PART_SUFFIX)) {
+				// Left behind by a crash
+				if (now - file.lastModified() > STALE_PART_MILLIS)
+					file.delete();
+			} else {
+				total += file.length();
+			}
+		}
+		if (total <= maximumSize)
+			return;
+		// Least recently used first
+		Arrays.sort(files, new Comparator<java.io.File>() {
+			@Override
+			public int compare(java.io.File o1, java.io.File o2) {
+				long m1 = o1.lastModified(), m2 = o2.lastModified();
+				return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+			}
+		});
+		for (java.io.File file : files) {
+			if (total <= maximumSize)
+				break;
+			String name = file.getName();
+			if (name.endsWith(PART_SUFFIX) || name.equals(keep))
+				continue;
+			long length = file.length();
+			if (file.delete())
+				total -= length;
+		}
+	}
+
+	private static String hex(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+			chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Content being written to the cache, hashed as it goes.
+	 */
+	final class Entry extends OutputStream {
+
+		private final java.io.File part;
+		private final OutputStream output;
+		private final MessageDigest digest;
+		private long size;
+		private String checksum;
+		private boolean closed;
+
+		Entry(java.io.File part) throws IOException {
+			this.part = part;
+			try {
+				this.digest = MessageDigest.getInstance("MD5");
+			} catch (NoSuchAlgorithmException e) {
+				part.delete();
+				throw new IOException(e);
+			}
+			this.output = new FileOutputStream(part);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			output.write(b);
+			digest.update((byte) b);
+			size++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			output.write(b, off, len);
+			digest.update(b, off, len);
+			size += len;
+		}
+
+		void copyFrom(InputStream input) throws IOException {
+			byte[] buffer = new byte[StreamUtils.DEFAULT_BUFFER_SIZE];
+			int read;
+			while ((read = input.read(buffer)) != -1)
+				write(buffer, 0, read);
+		}
+
+		/**
+		 * Wrap given stream so that everything read from it is written to
+		 * this entry as well.
+		 */
+		InputStream tee(InputStream input) {
+			return new FilterInputStream(input) {
+				@Override
+				public int read() throws IOException {
+					int b = super.read();
+					if (b != -1)
+						write(b);
+					return b;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					int read = super.read(b, off, len);
+					if (read > 0)
+						write(b, off, read);
+					return read;
+				}
+
+				@Override
+				public long skip(long n) throws IOException {
+					// Skipped bytes must be hashed too
+					byte[] buffer = new byte[(int) Math.min(n, StreamUtils.DEFAULT_BUFFER_SIZE)];
+					long skipped = 0L;
+					while (skipped < n) {
+						int read = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+						if (read < 0)
+							break;
+						skipped += read;
+					}
+					return skipped;
+				}
+
+				@Override
+				public boolean markSupported() {
+					return false;
+				}
+			};
+		}
+
+		/**
+		 * Wrap given stream so that everything written to it is written to
+		 * this entry as well.
+		 */
+		OutputStream tee(final OutputStream target) {
+			return new OutputStream() {
+				@Override
+				public void write(int b) throws IOException {
+					target.write(b);
+					Entry.this.write(b);
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					target.write(b, off, len);
+					Entry.this.write(b, off, len);
+				}
+
+				@Override
+				public void flush() throws IOException {
+					target.flush();
+				}
+			};
+		}
+
+		long size() {
+			return size;
+		}
+
+		/**
+		 * @return the MD5 checksum of the content written so far, as hexadecimal
+		 */
+		String checksum() {
+			if (checksum == null)
+				checksum = hex(digest.digest());
+			return checksum;
+		}
+
+		/**
+		 * Keep written content under its checksum, provided it matches given
+		 * one. Entry is discarded otherwise.
+		 *
+		 * @param expected the expected checksum, null to accept any
+		 * @return whether content was kept
+		 */
+		boolean commit(String expected) throws IOException {
+			close();
+			String actual = checksum();
+			if (expected != null && !expected.equals(actual)) {
+				discard();
+				return false;
+			}
+			java.io.File file = new java.io.File(directory, actual);
+			try {
+				AtomicFiles.replace(part, file);
+			} catch (IOException e) {
+				discard();
+				return false;
+			}
+			trim(actual);
+			return true;
+		}
+
+		/**
+		 * Drop written content, if not committed. Safe to call more than once.
+		 */
+		void discard() {
+			try {
+				close();
+			} catch (IOException e) {
+				// Deleted anyway
+			}
+			part.delete();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!closed) {
+				closed = true;
+				output.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.googleplay;
+
+import com.badlogic.gdx.utils.StreamUtils;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.drive.model.File;
+import games.spooky.gdx.gameservices.AtomicFiles;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Drive file ids of saved games by title, so that saved games built by the
+ * game itself resolve without listing files first. Kept up to date from
+ * listings, creations and deletions, and persisted to a properties file
+ * after each change.
+ * <p>
+ * Ids may be outdated by changes made from other devices, callers are
+ * expected to {@link #remove(String, String) forget} those Drive no longer
+ * knows about.
+ */
+final class DriveFileIndex {
+
+	private final java.io.File file;
+	private Properties ids;
+
+	DriveFileIndex(java.io.File file) {
+		this.file = file;
+	}
+
+	/**
+	 * @return the id of the file with given title, or null if unknown
+	 */
+	synchronized String get(String title) {
+		return ids().getProperty(title);
+	}
+
+	synchronized void put(String title, String id) {
+		if (title == null || id == null || id.equals(ids().getProperty(title)))
+			return;
+		ids.setProperty(title, id);
+		store();
+	}
+
+	/**
+	 * Forget the file with given title, provided it still has given id.
+	 *
+	 * @param id the id of the file, null for any
+	 */
+	synchronized void remove(String title, String id) {
+		String current = ids().getProperty(title);
+		if (current == null || (id != null && !id.equals(current)))
+			return;
+		ids.remove(title);
+		store();
+	}
+
+	/**
+	 * Replace known ids with the ones of given listing, the most recently
+	 * modified file winning among those sharing their title.
+	 *
+	 * @param complete whether the listing holds all saved games, in which case titles absent from it are forgotten
+	 */
+	synchronized void update(Iterable<File> files, boolean complete) {
+		Map<String, File> latest = new HashMap<String, File>();
+		for (File file : files) {
+			File other = latest.get(file.getName());
+			if (other == null || time(file.getModifiedTime()) > time(other.getModifiedTime()))
+				latest.put(file.getName(), file);
+		}
+		Properties current = ids();
+		Properties updated = complete ? new Properties() : (Properties) current.clone();
+		for (Map.Entry<String, File> entry : latest.entrySet()) {
+			if (entry.getKey() != null && entry.getValue().getId() != null)
+				updated.setProperty(entry.getKey(), entry.getValue().getId());
+		}
+		if (!updated.equals(current)) {
+			ids = updated;
+			store();
+		}
+	}
+
+	private static long time(DateTime time) {
+		return time == null ? Long.MIN_VALUE : time.getValue();
+	}
+
+	private Properties ids() {
+		if (ids == null) {
+			ids = new Properties();
+			if (file.exists()) {
+				InputStream input = null;
+				try {
+					input = new FileInputStream(file);
+					ids.load(input);
+				} catch (IOException | IllegalArgumentException e) {
+					// Unreadable, start from scratch
+					ids.clear();
+				} finally {
+					StreamUtils.closeQuietly(input);
+				}
+			}
+		}
+		return ids;
+	}
+
+	private void store() {
+		// Only an optimization, failing to persist it is no big deal
+		java.io.File parent = file.getParentFile();
+		if (parent != null)
+			parent.mkdirs();
+		java.io.File tmp = new java.io.File(file.getPath() + ".tmp");
+		OutputStream output = null;
+		try {
+			output = new FileOutputStream(tmp);
+			ids.store(output, null);
+		} catch (IOException e) {
+			StreamUtils.closeQuietly(output);
+			tmp.delete();
+			return;
+		} finally {
+			StreamUtils.closeQuietly(output);
+		}
+		try {
+			AtomicFiles.replace(tmp, file);
+		} catch (IOException e) {
+			tmp.delete();
+		}
+	}
+}
@@ -0,0 +1,400 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.googleplay;
+
+import com.badlogic.gdx.utils.StreamUtils;
+import com.google.api.client.googleapis.media.MediaHttpDownloader;
+import com.google.api.client.googleapis.media.MediaHttpDownloaderProgressListener;
+import com.google.api.client.http.ByteArrayContent;
+import com.google.api.client.http.EmptyContent;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.json.JsonHttpContent;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonObjectParser;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.File;
+import games.spooky.gdx.gameservices.AtomicFiles;
+import games.spooky.gdx.gameservices.savedgame.SavedGame;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * Chunked saved game transfers with Drive, resumable across restarts.
+ * <p>
+ * Uploads follow the Drive resumable upload protocol. The session URI and
+ * the number of bytes acknowledged so far are persisted to a state file after
+ * each chunk, so that submitting the same content again after an
+ * interruption carries on from there. As streams cannot be rewound, the
+ * already sent prefix is read again and checked against its persisted CRC32
+ * before the upload resumes, a mismatch raising a {@link StaleUploadException}
+ * once the state is dropped so that content which can be read again is
+ * submitted afresh. Connection failures are retried within the same
+ * session a few times before giving up.
+ * <p>
+ * Downloads to files go through {@link MediaHttpDownloader} ranged requests,
+ * appending to a partial file kept along with the version it belongs to.
+ */
+final class DriveTransfers {
+
+	private static final String UPLOAD_PATH = "upload/drive/v3/files";
+	private static final int STATUS_RESUME_INCOMPLETE = 308;
+	private static final int MAX_RETRIES = 3;
+	private static final long RETRY_DELAY_MILLIS = 1000L;
+
+	private DriveTransfers() {
+	}
+
+	/**
+	 * Upload given content, resuming a previous upload of the same content if
+	 * its state file is found.
+	 *
+	 * @param fileId id of the file to update, null to create one
+	 * @return the uploaded file
+	 */
+	static File upload(Drive drive, JsonFactory jsonFactory, GooglePlayRequest request, java.io.File stateFile, int chunkSize,
+			SavedGame savedGame, SavedGameTransferListener listener, String fileId, File metadata, InputStream data, long length) throws IOException {
+
+		HttpRequestFactory factory = drive.getRequestFactory();
+		JsonObjectParser parser = new JsonObjectParser(jsonFactory);
+		CRC32 crc = new CRC32();
+		String target = fileId == null ? "" : fileId;
+		long offset = 0L;
+		String session = null;
+
+		Properties state = load(stateFile);
+		if (state != null && target.equals(state.getProperty("fileId")) && String.valueOf(length).equals(state.getProperty("length"))) {
+			session = state.getProperty("session");
+			long acknowledged = Long.parseLong(state.getProperty("offset", "0"));
+			long received = query(factory, parser, session, length);
+			if (received < 0L || received < acknowledged) {
+				// Session expired or lost data, start over
+				session = null;
+			} else {
+				// Check the prefix already sent is the one being submitted now
+				skip(data, acknowledged, crc);
+				if (crc.getValue() != Long.parseLong(state.getProperty("crc", "0"))) {
+					delete(stateFile);
+					throw new StaleUploadException("Saved game " + savedGame.getTitle() + " changed since its interrupted upload, submit it again");
+				}
+				skip(data, received - acknowledged, crc);
+				offset = received;
+			}
+		}
+
+		if (session == null) {
+			session = initiate(factory, drive.getRootUrl(), jsonFactory, fileId, metadata, length);
+			crc.reset();
+			offset = 0L;
+			save(stateFile, target, length, session, 0L, 0L);
+		}
+
+		// Small content is sent at once, without a whole chunk to hold it
+		byte[] chunk = new byte[length >= 0L ? (int) Math.min(chunkSize, length - offset) : chunkSize];
+		int buffered = 0; // Bytes of chunk not acknowledged yet, starting at offset
+		boolean end = false;
+		while (true) {
+			if (request.isCancelled())
+				throw new InterruptedIOException("Request cancelled");
+
+			// Fill the chunk, a short read meaning the end of the content
+			while (!end && buffered < chunk.length) {
+				int read = data.read(chunk, buffered, chunk.length - buffered);
+				if (read < 0)
+					end = true;
+				else
+					buffered += read;
+			}
+			if (length >= 0L && offset + buffered >= length)
+				end = true;
+			long total = end ? offset + buffered : length;
+
+			HttpResponse response = null;
+			long acknowledged;
+			File result = null;
+			int attempt = 0;
+			while (true) {
+				try {
+					response = put(factory, parser, session, chunk, buffered, offset, total);
+					int status = response.getStatusCode();
+					if (status == STATUS_RESUME_INCOMPLETE) {
+						acknowledged = parseRange(response.getHeaders());
+					} else if (response.isSuccessStatusCode()) {
+						result = response.parseAs(File.class);
+						acknowledged = offset + buffered;
+					} else {
+						throw new HttpResponseException(response);
+					}
+					break;
+				} catch (HttpResponseException e) {
+					throw e;
+				} catch (InterruptedIOException e) {
+					throw e;
+				} catch (IOException e) {
+					// Connection dropped, ask where the session stands and go on from there
+					if (++attempt > MAX_RETRIES || request.isCancelled())
+						throw e;
+					sleep(attempt);
+					long received = query(factory, parser, session, length);
+					if (received < offset || received > offset + buffered)
+						throw e;
+					acknowledged = received;
+					break;
+				} finally {
+					if (response != null)
+						response.disconnect();
+					response = null;
+				}
+			}
+
+			int sent = (int) (acknowledged - offset);
+			crc.update(chunk, 0, sent);
+			System.arraycopy(chunk, sent, chunk, 0, buffered - sent);
+			buffered -= sent;
+			offset = acknowledged;
+
+			if (listener != null)
+				listener.onProgress(savedGame, true, offset, end ? offset + buffered : length);
+
+			if (result != null) {
+				delete(stateFile);
+				return result;
+			}
+			save(stateFile, target, length, session, offset, crc.getValue());
+		}
+	}
+
+	/**
+	 * Download content of given file into given output, in chunks.
+	 */
+	static void download(Drive drive, String fileId, int chunkSize, final SavedGame savedGame, final SavedGameTransferListener listener,
+			long alreadyDownloaded, OutputStream output) throws IOException {
+		GenericUrl url = drive.files().get(fileId).buildHttpRequestUrl();
+		url.put("alt", "media");
+
+		HttpRequestFactory factory = drive.getRequestFactory();
+		MediaHttpDownloader downloader = new MediaHttpDownloader(factory.getTransport(), factory.getInitializer())
+				.setDirectDownloadEnabled(false)
+				.setChunkSize(Math.min(chunkSize, MediaHttpDownloader.MAXIMUM_CHUNK_SIZE))
+				.setBytesDownloaded(alreadyDownloaded);
+		if (listener != null) {
+			downloader.setProgressListener(new MediaHttpDownloaderProgressListener() {
+				@Override
+				public void progressChanged(MediaHttpDownloader downloader) {
+					long downloaded = downloader.getNumBytesDownloaded();
+					double progress = downloader.getProgress();
+					listener.onProgress(savedGame, false, downloaded, progress > 0.0 ? Math.round(downloaded / progress) : -1L);
+				}
+			});
+		}
+		downloader.download(url, output);
+	}
+
+	/**
+	 * Download content of given file into a partial file next to given one,
+	 * resumed if it belongs to the same version, then moved over given file.
+	 *
+	 * @param version marker of the remote version, e.g. its modification time
+	 * @param size the size of the remote content, -1 if unknown
+	 */
+	static void download(Drive drive, GooglePlayRequest request, java.io.File stateFile, int chunkSize, SavedGame savedGame,
+			SavedGameTransferListener listener, String fileId, String version, long size, java.io.File file) throws IOException {
+		java.io.File part = new java.io.File(file.getPath() + ".download");
+		Properties state = load(stateFile);
+		boolean resume = state != null && part.exists()
+				&& fileId.equals(state.getProperty("fileId")) && version.equals(state.getProperty("version"))
+				&& (size < 0L || part.length() <= size);
+		if (!resume) {
+			part.delete();
+			Properties fresh = new Properties();
+			fresh.setProperty("fileId", fileId);
+			fresh.setProperty("version", version);
+			store(stateFile, fresh);
+		}
+
+		// Complete already, interrupted before being moved: ranges past the end are refused
+		if (size < 0L || part.length() < size) {
+			OutputStream output = request.track(new FileOutputStream(part, true));
+			try {
+				download(drive, fileId, chunkSize, savedGame, listener, part.length(), output);
+			} finally {
+				StreamUtils.closeQuietly(output);
+			}
+		}
+
+		AtomicFiles.replace(part, file);
+		delete(stateFile);
+	}
+
+	// Protocol
+
+	private static String initiate(HttpRequestFactory factory, String rootUrl, JsonFactory jsonFactory, String fileId, File metadata, long length) throws IOException {
+		GenericUrl url = new GenericUrl(rootUrl + (fileId == null ? UPLOAD_PATH : UPLOAD_PATH + "/" + fileId));
+		url.put("uploadType", "resumable");
+		HttpRequest request = factory.buildRequest(fileId == null ? "POST" : "PATCH", url, new JsonHttpContent(jsonFactory, metadata));
+		HttpHeaders headers = request.getHeaders();
+		headers.set("X-Upload-Content-Type", "application/octet-stream");
+		if (length >= 0L)
+			headers.set("X-Upload-Content-Length", length);
+		HttpResponse response = request.execute();
+		try {
+			String location = response.getHeaders().getLocation();
+			if (location == null)
+				throw new IOException("Drive did not return an upload session");
+			return location;
+		} finally {
+			response.disconnect();
+		}
+	}
+
+	private static HttpResponse put(HttpRequestFactory factory, JsonObjectParser parser, String session, byte[] chunk, int count, long offset, long total) throws IOException {
+		String size = total < 0L ? "*" : String.valueOf(total);
+		HttpRequest request = count == 0 ?
+				factory.buildPutRequest(new GenericUrl(session), new EmptyContent()) :
+				factory.buildPutRequest(new GenericUrl(session), new ByteArrayContent(null, chunk, 0, count));
+		request.getHeaders().setContentRange(count == 0 ?
+				"bytes */" + size :
+				"bytes " + offset + "-" + (offset + count - 1) + "/" + size);
+		request.setParser(parser);
+		request.setThrowExceptionOnExecuteError(false);
+		request.setFollowRedirects(false);
+		return request.execute();
+	}
+
+	/**
+	 * @return the number of bytes received by the session, or -1 if it is over
+	 */
+	private static long query(HttpRequestFactory factory, JsonObjectParser parser, String session, long length) throws IOException {
+		HttpResponse response = put(factory, parser, session, null, 0, 0L, length);
+		try {
+			int status = response.getStatusCode();
+			if (status == STATUS_RESUME_INCOMPLETE)
+				return parseRange(response.getHeaders());
+			return -1L;
+		} finally {
+			response.disconnect();
+		}
+	}
+
+	private static long parseRange(HttpHeaders headers) {
+		// "bytes=0-1234", absent if nothing was received
+		String range = headers.getRange();
+		if (range == null)
+			return 0L;
+		int dash = range.indexOf('-');
+		return Long.parseLong(range.substring(dash + 1).trim()) + 1L;
+	}
+
+	private static void skip(InputStream data, long count, CRC32 crc) throws IOException {
+		byte[] buffer = new byte[StreamUtils.DEFAULT_BUFFER_SIZE];
+		while (count > 0L) {
+			int read = data.read(buffer, 0, (int) Math.min(buffer.length, count));
+			if (read < 0)
+				throw new IOException("Saved game data shorter than its interrupted upload");
+			crc.update(buffer, 0, read);
+			count -= read;
+		}
+	}
+
+	private static void sleep(int attempt) throws InterruptedIOException {
+		try {
+			Thread.sleep(RETRY_DELAY_MILLIS * attempt);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Request cancelled");
+		}
+	}
+
+	// State
+
+	private static void save(java.io.File stateFile, String fileId, long length, String session, long offset, long crc) throws IOException {
+		Properties state = new Properties();
+		state.setProperty("fileId", fileId);
+		state.setProperty("length", String.valueOf(length));
+		state.setProperty("session", session);
+		state.setProperty("offset", String.valueOf(offset));
+		state.setProperty("crc", String.valueOf(crc));
+		store(stateFile, state);
+	}
+
+	private static Properties load(java.io.File stateFile) {
+		if (stateFile == null || !stateFile.exists())
+			return null;
+		InputStream input = null;
+		try {
+			input = new FileInputStream(stateFile);
+			Properties state = new Properties();
+			state.load(input);
+			return state;
+		} catch (IOException | IllegalArgumentException e) {
+			// Unreadable, as if there were none
+			return null;
+		} finally {
+			StreamUtils.closeQuietly(input);
+		}
+	}
+
+	private static void store(java.io.File stateFile, Properties state) throws IOException {
+		if (stateFile == null)
+			return;
+		java.io.File parent = stateFile.getParentFile();
+		if (parent != null)
+			parent.mkdirs();
+		java.io.File tmp = new java.io.File(stateFile.getPath() + ".tmp");
+		OutputStream output = new FileOutputStream(tmp);
+		try {
+			state.store(output, null);
+		} finally {
+			StreamUtils.closeQuietly(output);
+		}
+		AtomicFiles.replace(tmp, stateFile);
+	}
+
+	private static void delete(java.io.File stateFile) {
+		if (stateFile != null)
+			stateFile.delete();
+	}
+
+	/**
+	 * Raised when an interrupted upload turns out to be of other content. Its
+	 * state is dropped, submitting again starts a new upload.
+	 */
+	static final class StaleUploadException extends IOException {
+
+		StaleUploadException(String message) {
+			super(message);
+		}
+	}
+}
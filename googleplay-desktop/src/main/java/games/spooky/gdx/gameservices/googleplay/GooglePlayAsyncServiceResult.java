@@ -0,0 +1,63 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.googleplay;
+
+import com.google.api.client.http.HttpResponseException;
+import games.spooky.gdx.gameservices.CallbackAsyncServiceResult;
+import games.spooky.gdx.gameservices.ServiceError;
+
+/**
+ * {@link CallbackAsyncServiceResult} whose calls are tracked by a
+ * {@link GooglePlayRequest}, aborted on cancellation.
+ */
+abstract class GooglePlayAsyncServiceResult<TCallback, TResult> extends CallbackAsyncServiceResult<TCallback, TResult> {
+
+    // Lazily created: first needed from callAsync(), which the super constructor calls before field initializers run
+    private volatile GooglePlayRequest request;
+
+    protected GooglePlayRequest request() {
+        GooglePlayRequest result = request;
+        if (result == null) {
+            synchronized (this) {
+                result = request;
+                if (result == null)
+                    request = result = new GooglePlayRequest();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected void onCancel() {
+        request().cancel();
+    }
+
+    @Override
+    protected ServiceError toServiceError(Throwable error) {
+        // Tells rejected requests from transient failures
+        if (error instanceof HttpResponseException)
+            return new GooglePlayHttpServiceError((HttpResponseException) error);
+        return super.toServiceError(error);
+    }
+}
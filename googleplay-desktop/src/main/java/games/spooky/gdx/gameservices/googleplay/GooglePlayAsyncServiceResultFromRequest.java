@@ -24,18 +24,21 @@
 package games.spooky.gdx.gameservices.googleplay;
 
 import com.google.api.client.googleapis.services.AbstractGoogleClientRequest;
-import games.spooky.gdx.gameservices.CallbackAsyncServiceResult;
 
 import java.io.IOException;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 import static games.spooky.gdx.gameservices.googleplay.GooglePlayAsyncUtils.performAsyncRequest;
 
-abstract class GooglePlayAsyncServiceResultFromRequest<TRequest, TResult> extends CallbackAsyncServiceResult<TRequest, TResult> {
+abstract class GooglePlayAsyncServiceResultFromRequest<TRequest, TResult> extends GooglePlayAsyncServiceResult<TRequest, TResult> {
 
-    @Override
-    protected void callAsync(final Callback<TRequest> callback) {
-        performAsyncRequest(new Callable<TRequest>() {
+    // Not initialized on purpose: set from callAsync(), which the super constructor calls before field initializers run
+    private Callback<TRequest> callback;
+
+    GooglePlayAsyncServiceResultFromRequest(Executor executor) {
+        super();
+        performAsyncRequest(executor, request(), new Callable<TRequest>() {
             @Override
             public TRequest call() throws Exception {
                 return createRequest().execute();
@@ -43,6 +46,12 @@ abstract class GooglePlayAsyncServiceResultFromRequest<TRequest, TResult> extend
         }, callback);
     }
 
+    @Override
+    protected void callAsync(final Callback<TRequest> callback) {
+        // Actual request is submitted from constructor, once executor is known
+        this.callback = callback;
+    }
+
     protected abstract AbstractGoogleClientRequest<TRequest> createRequest() throws IOException;
 
     protected abstract TResult transformResult(TRequest result);
@@ -26,19 +26,39 @@ package games.spooky.gdx.gameservices.googleplay;
 import games.spooky.gdx.gameservices.CallbackAsyncServiceResult;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 final class GooglePlayAsyncUtils {
-    static <TRequest> void performAsyncRequest(final Callable<TRequest> request, final CallbackAsyncServiceResult.Callback<TRequest> callback) {
-        new Thread(new Runnable() {
+    static <TRequest> void performAsyncRequest(Executor executor, final GooglePlayRequest request, final Callable<TRequest> call, final CallbackAsyncServiceResult.Callback<TRequest> callback) {
+        if (request.isCancelled())
+            return;
+        FutureTask<Void> task = new FutureTask<>(new Runnable() {
             @Override
             public void run() {
+                TRequest result = null;
+                Exception error = null;
+                request.enter();
                 try {
-                    TRequest result = request.call();
-                    callback.onSuccess(result);
+                    result = call.call();
                 } catch (Exception e) {
-                    callback.onError(e);
+                    error = e;
+                } finally {
+                    // Leave before notifying, callback may chain another call on the same request
+                    request.exit();
                 }
+                if (error == null)
+                    callback.onSuccess(result);
+                else
+                    callback.onError(error);
             }
-        }).start();
+        }, null);
+        request.setFuture(task);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            callback.onError(e);
+        }
     }
 }
@@ -0,0 +1,58 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.googleplay;
+
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.HttpStatusCodes;
+import games.spooky.gdx.gameservices.ClassifiedServiceError;
+import games.spooky.gdx.gameservices.ExceptionServiceError;
+
+/**
+ * Error response of a Google API, transient for server errors, throttling
+ * and expired credentials.
+ */
+class GooglePlayHttpServiceError extends ExceptionServiceError implements ClassifiedServiceError {
+
+	private static final int STATUS_CODE_TOO_MANY_REQUESTS = 429;
+
+	private final int statusCode;
+
+	GooglePlayHttpServiceError(HttpResponseException exception) {
+		super(exception);
+		this.statusCode = exception.getStatusCode();
+	}
+
+	@Override
+	public int getErrorCode() {
+		return statusCode;
+	}
+
+	@Override
+	public boolean isTransient() {
+		return statusCode >= HttpStatusCodes.STATUS_CODE_SERVER_ERROR
+				|| statusCode == STATUS_CODE_TOO_MANY_REQUESTS
+				|| statusCode == HttpStatusCodes.STATUS_CODE_UNAUTHORIZED
+				|| statusCode == HttpStatusCodes.STATUS_CODE_FORBIDDEN; // Also quota exceeded
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.googleplay;
+
+import com.badlogic.gdx.utils.StreamUtils;
+import com.google.api.client.http.javanet.ConnectionFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.Future;
+
+/**
+ * Handle on an in-flight request, possibly made of several consecutive
+ * calls, used to abort it on cancellation: queued calls are dropped, the
+ * running one is interrupted and its HTTP connection is closed.
+ * <p>
+ * HTTP connections are tracked through {@link #connectionFactory}, which must
+ * back the HTTP transport of the Games and Drive clients.
+ */
+final class GooglePlayRequest {
+
+	private static final ThreadLocal<GooglePlayRequest> current = new ThreadLocal<>();
+
+	static final ConnectionFactory connectionFactory = new ConnectionFactory() {
+		@Override
+		public HttpURLConnection openConnection(URL url) throws IOException {
+			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+			GooglePlayRequest request = current.get();
+			if (request != null)
+				request.attach(connection);
+			return connection;
+		}
+	};
+
+	private volatile boolean cancelled;
+
+	// Guarded by this
+	private Future<?> future;
+	private HttpURLConnection connection;
+	private Closeable stream;
+
+	boolean isCancelled() {
+		return cancelled;
+	}
+
+	void cancel() {
+		Future<?> future;
+		HttpURLConnection connection;
+		Closeable stream;
+		synchronized (this) {
+			if (cancelled)
+				return;
+			cancelled = true;
+			future = this.future;
+			connection = this.connection;
+			stream = this.stream;
+		}
+		if (future != null)
+			future.cancel(true);
+		if (connection != null)
+			connection.disconnect();
+		StreamUtils.closeQuietly(stream);
+	}
+
+	void setFuture(Future<?> future) {
+		synchronized (this) {
+			if (!cancelled) {
+				this.future = future;
+				return;
+			}
+		}
+		future.cancel(true);
+	}
+
+	/**
+	 * Track given stream, closed if this request is cancelled while reading
+	 * or writing it.
+	 *
+	 * @param stream the stream to track
+	 * @param <T> type of the stream
+	 * @return the stream
+	 * @throws IOException if this request was cancelled
+	 */
+	<T extends Closeable> T track(T stream) throws IOException {
+		synchronized (this) {
+			if (!cancelled) {
+				this.stream = stream;
+				return stream;
+			}
+		}
+		StreamUtils.closeQuietly(stream);
+		throw new InterruptedIOException("Request cancelled");
+	}
+
+	void enter() {
+		current.set(this);
+	}
+
+	void exit() {
+		current.remove();
+		synchronized (this) {
+			connection = null;
+			stream = null;
+		}
+	}
+
+	private void attach(HttpURLConnection connection) throws IOException {
+		synchronized (this) {
+			if (!cancelled) {
+				this.connection = connection;
+				return;
+			}
+		}
+		connection.disconnect();
+		throw new InterruptedIOException("Request cancelled");
+	}
+}
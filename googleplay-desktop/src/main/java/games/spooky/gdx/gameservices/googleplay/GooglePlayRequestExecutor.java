@@ -0,0 +1,235 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017-2023 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.gameservices.googleplay;
+
+import com.badlogic.gdx.LifecycleListener;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded executor running Google Play Games and Drive requests on desktop.
+ * A fixed number of named daemon threads consume a bounded queue, so a burst
+ * of requests neither spawns one thread per call nor grows without limit.
+ * Requests submitted once the queue is full are rejected and reported as
+ * errors to their caller.
+ * <p>
+ * Register it with {@code Gdx.app.addLifecycleListener(...)} (or call
+ * {@link #dispose()} from {@code ApplicationListener.dispose()}) so that it
+ * is shut down along with the application.
+ */
+public class GooglePlayRequestExecutor implements Executor, LifecycleListener {
+
+	public static final int DEFAULT_POOL_SIZE = 4;
+	public static final int DEFAULT_QUEUE_CAPACITY = 64;
+	public static final long DEFAULT_SHUTDOWN_TIMEOUT_MILLIS = 2000L;
+
+	private static final AtomicInteger executorCount = new AtomicInteger();
+
+	private final ThreadPoolExecutor executor;
+	private final int queueCapacity;
+
+	private final AtomicLong rejectedCount = new AtomicLong();
+	private final AtomicInteger peakQueueDepth = new AtomicInteger();
+
+	private long shutdownTimeoutMillis = DEFAULT_SHUTDOWN_TIMEOUT_MILLIS;
+
+	public GooglePlayRequestExecutor() {
+		this(DEFAULT_POOL_SIZE, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	public GooglePlayRequestExecutor(int poolSize, int queueCapacity) {
+		this(poolSize, queueCapacity, "gdx-gameservices-googleplay-" + executorCount.incrementAndGet());
+	}
+
+	public GooglePlayRequestExecutor(int poolSize, int queueCapacity, final String threadNamePrefix) {
+		super();
+		if (poolSize < 1)
+			throw new IllegalArgumentException("Pool size must be positive: " + poolSize);
+		if (queueCapacity < 1)
+			throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+
+		this.queueCapacity = queueCapacity;
+
+		ThreadFactory threadFactory = new ThreadFactory() {
+			private final AtomicInteger threadCount = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, threadNamePrefix + "-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+
+		RejectedExecutionHandler rejectionHandler = new RejectedExecutionHandler() {
+			@Override
+			public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+				rejectedCount.incrementAndGet();
+				throw new RejectedExecutionException(executor.isShutdown() ?
+						"Google Play request executor is shut down" :
+						"Google Play request queue is full (" + GooglePlayRequestExecutor.this.queueCapacity + " pending requests)");
+			}
+		};
+
+		executor = new ThreadPoolExecutor(poolSize, poolSize, 30L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity), threadFactory, rejectionHandler);
+		// Idle threads die out, nothing is kept alive while no request is made
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		executor.execute(command);
+
+		int depth = executor.getQueue().size();
+		int peak;
+		while (depth > (peak = peakQueueDepth.get())) {
+			if (peakQueueDepth.compareAndSet(peak, depth))
+				break;
+		}
+	}
+
+	// Metrics
+
+	/**
+	 * Number of requests currently waiting for a free thread.
+	 *
+	 * @return the current queue depth
+	 */
+	public int getQueueDepth() {
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * Highest queue depth observed since creation or last call to {@link #resetPeakQueueDepth()}.
+	 *
+	 * @return the peak queue depth
+	 */
+	public int getPeakQueueDepth() {
+		return peakQueueDepth.get();
+	}
+
+	public void resetPeakQueueDepth() {
+		peakQueueDepth.set(0);
+	}
+
+	/**
+	 * Maximum number of requests allowed to wait for a free thread.
+	 *
+	 * @return the queue capacity
+	 */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	/**
+	 * Number of requests rejected so far, either because the queue was full or
+	 * because this executor had been shut down.
+	 *
+	 * @return the number of rejected requests
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	/**
+	 * Approximate number of requests currently being executed.
+	 *
+	 * @return the number of active requests
+	 */
+	public int getActiveCount() {
+		return executor.getActiveCount();
+	}
+
+	/**
+	 * Approximate number of requests executed so far.
+	 *
+	 * @return the number of completed requests
+	 */
+	public long getCompletedCount() {
+		return executor.getCompletedTaskCount();
+	}
+
+	public int getPoolSize() {
+		return executor.getMaximumPoolSize();
+	}
+
+	// Lifecycle
+
+	/**
+	 * Time {@link #dispose()} waits for running requests to finish before interrupting them.
+	 *
+	 * @param shutdownTimeoutMillis the shutdown timeout, in milliseconds
+	 */
+	public void setShutdownTimeout(long shutdownTimeoutMillis) {
+		this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+	}
+
+	public boolean isShutdown() {
+		return executor.isShutdown();
+	}
+
+	@Override
+	public void pause() {
+	}
+
+	@Override
+	public void resume() {
+	}
+
+	/**
+	 * Stop accepting requests, let pending ones complete for at most the
+	 * configured shutdown timeout then interrupt whatever is left.
+	 */
+	@Override
+	public void dispose() {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(shutdownTimeoutMillis, TimeUnit.MILLISECONDS))
+				executor.shutdownNow();
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "GooglePlayRequestExecutor{" +
+				"poolSize=" + getPoolSize() +
+				", active=" + getActiveCount() +
+				", queued=" + getQueueDepth() + "/" + queueCapacity +
+				", rejected=" + getRejectedCount() +
+				", completed=" + getCompletedCount() +
+				'}';
+	}
+}
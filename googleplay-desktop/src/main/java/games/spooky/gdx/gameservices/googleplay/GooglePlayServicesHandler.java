@@ -27,6 +27,8 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Net;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.net.HttpStatus;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.Pools;
 import com.badlogic.gdx.utils.StreamUtils;
 import com.google.api.client.auth.oauth2.AuthorizationCodeRequestUrl;
@@ -35,13 +37,17 @@ import com.google.api.client.extensions.java6.auth.oauth2.AuthorizationCodeInsta
 import com.google.api.client.extensions.jetty.auth.oauth2.LocalServerReceiver;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.googleapis.GoogleUtils;
 import com.google.api.client.googleapis.services.AbstractGoogleClientRequest;
-import com.google.api.client.http.AbstractInputStreamContent;
+import com.google.api.client.googleapis.media.MediaHttpUploader;
 import com.google.api.client.http.ByteArrayContent;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.HttpStatusCodes;
 import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.Data;
 import com.google.api.client.util.DateTime;
 import com.google.api.client.util.store.FileDataStoreFactory;
 import com.google.api.services.drive.Drive;
@@ -54,18 +60,37 @@ import games.spooky.gdx.gameservices.*;
 import games.spooky.gdx.gameservices.achievement.Achievement;
 import games.spooky.gdx.gameservices.leaderboard.LeaderboardEntry;
 import games.spooky.gdx.gameservices.leaderboard.LeaderboardOptions;
+import games.spooky.gdx.gameservices.leaderboard.LeaderboardPage;
 import games.spooky.gdx.gameservices.savedgame.SavedGame;
+import games.spooky.gdx.gameservices.savedgame.SavedGameAncestors;
+import games.spooky.gdx.gameservices.savedgame.SavedGameConflict;
+import games.spooky.gdx.gameservices.savedgame.SavedGameConflictResolver;
+import games.spooky.gdx.gameservices.savedgame.SavedGameDelta;
+import games.spooky.gdx.gameservices.savedgame.SavedGameResolution;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URLEncoder;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import static games.spooky.gdx.gameservices.googleplay.GooglePlayAsyncUtils.performAsyncRequest;
 
@@ -73,9 +98,31 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 
     private static final String LOCAL_PLAYER = "me";
     private static final String ALL_TIME_TIMESPAN = "ALL_TIME";
+    private static final String ALL_LEADERBOARDS = "ALL";
+    private static final String SOURCE = "Google Play Games";
+    private static final int MAX_PLAYER_SCORES_PER_PAGE = 30;
     private static final String COLLECTION_PUBLIC = "PUBLIC";
     private static final String COLLECTION_SOCIAL = "SOCIAL";
     private static final String APP_DATA = "appDataFolder";
+    private static final int MAX_FILES_PER_PAGE = 1000;
+    private static final String SAVED_GAME_FIELDS = "id, name, description, modifiedTime, createdTime, md5Checksum, size, appProperties";
+    private static final String DELTA_SUFFIX = ".delta";
+    private static final String DELTA_OF = "deltaOf";
+    private static final String DELTA_HEAD = "deltaHead";
+    private static final String DELTA_PATCH = "delta";
+
+    private static final Comparator<File> MOST_RECENT_FIRST = new Comparator<File>() {
+        @Override
+        public int compare(File o1, File o2) {
+            DateTime t1 = o1.getModifiedTime();
+            DateTime t2 = o2.getModifiedTime();
+            return Long.compare(t2 == null ? Long.MIN_VALUE : t2.getValue(), t1 == null ? Long.MIN_VALUE : t1.getValue());
+        }
+    };
+
+    public static final int DEFAULT_TRANSFER_CHUNK_SIZE = MediaHttpUploader.DEFAULT_CHUNK_SIZE;
+    public static final long DEFAULT_CONTENT_CACHE_SIZE = 64L * 1024L * 1024L;
+    public static final int MAX_DELTA_CHAIN_LENGTH = 16;
 
     protected Games games;
     protected Drive drive;
@@ -95,6 +142,18 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
     private boolean authenticated;
     private boolean authenticating;
 
+    private volatile Executor requestExecutor = new GooglePlayRequestExecutor();
+
+    private volatile int transferChunkSize = DEFAULT_TRANSFER_CHUNK_SIZE;
+    private volatile SavedGameTransferListener transferListener;
+    private volatile java.io.File transferStateDirectory;
+    private volatile java.io.File contentCacheDirectory;
+    private volatile DriveFileIndex savedGameIndex;
+    private volatile long contentCacheSize = DEFAULT_CONTENT_CACHE_SIZE;
+    private volatile int deltaChainLength;
+    private volatile SavedGameConflictResolver conflictResolver;
+    private volatile SavedGameAncestors savedGameAncestors;
+
 	// Lifecycle
 
     public void initialize(String applicationName, FileHandle clientSecretFile) {
@@ -128,13 +187,188 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 
         try {
             clientSecrets = GoogleClientSecrets.load(jsonFactory, new InputStreamReader(clientSecret));
-            httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+            // Connections are tracked so that cancelled requests get aborted
+            httpTransport = new NetHttpTransport.Builder()
+                    .trustCertificates(GoogleUtils.getCertificateTrustStore())
+                    .setConnectionFactory(GooglePlayRequest.connectionFactory)
+                    .build();
             dataStoreFactory = new FileDataStoreFactory(new java.io.File(dataStoreDirectory));
+            if (transferStateDirectory == null)
+                transferStateDirectory = new java.io.File(dataStoreDirectory, "transfers");
+            if (contentCacheDirectory == null)
+                contentCacheDirectory = new java.io.File(dataStoreDirectory, "content");
+            savedGameIndex = new DriveFileIndex(new java.io.File(dataStoreDirectory, "savedgames.properties"));
         } catch (GeneralSecurityException | IOException e) {
             throw new RuntimeException(e);
         }
 	}
 
+	/**
+	 * Executor running all requests made by this handler. Defaults to a
+	 * {@link GooglePlayRequestExecutor} with default pool size and queue
+	 * capacity.
+	 *
+	 * @return the executor running requests
+	 */
+	public Executor getRequestExecutor() {
+		return requestExecutor;
+	}
+
+	/**
+	 * Replace the executor running all requests made by this handler. Previous
+	 * executor is not shut down, it is up to the caller to do so if need be.
+	 *
+	 * @param requestExecutor the new executor running requests
+	 */
+	public void setRequestExecutor(Executor requestExecutor) {
+		if (requestExecutor == null)
+			throw new IllegalArgumentException("Request executor must not be null");
+		this.requestExecutor = requestExecutor;
+	}
+
+	public int getTransferChunkSize() {
+		return transferChunkSize;
+	}
+
+	/**
+	 * Set the size of the chunks saved games are uploaded and downloaded by.
+	 * An interrupted transfer resumes from the last complete chunk. Defaults
+	 * to {@link #DEFAULT_TRANSFER_CHUNK_SIZE}.
+	 *
+	 * @param transferChunkSize the chunk size in bytes, a multiple of 256 KiB
+	 */
+	public void setTransferChunkSize(int transferChunkSize) {
+		if (transferChunkSize <= 0 || transferChunkSize % MediaHttpUploader.MINIMUM_CHUNK_SIZE != 0)
+			throw new IllegalArgumentException("Transfer chunk size must be a positive multiple of " + MediaHttpUploader.MINIMUM_CHUNK_SIZE);
+		this.transferChunkSize = transferChunkSize;
+	}
+
+	public SavedGameTransferListener getTransferListener() {
+		return transferListener;
+	}
+
+	/**
+	 * Set the listener notified of the progress of saved game uploads and
+	 * downloads, from request threads.
+	 *
+	 * @param transferListener the listener, null for none
+	 */
+	public void setTransferListener(SavedGameTransferListener transferListener) {
+		this.transferListener = transferListener;
+	}
+
+	public java.io.File getTransferStateDirectory() {
+		return transferStateDirectory;
+	}
+
+	/**
+	 * Set the directory where the state of interrupted transfers is kept, so
+	 * that they resume after a restart. Defaults to a {@code transfers}
+	 * directory in the data store directory given on initialization.
+	 *
+	 * @param transferStateDirectory the state directory, null to only resume within a transfer
+	 */
+	public void setTransferStateDirectory(java.io.File transferStateDirectory) {
+		this.transferStateDirectory = transferStateDirectory;
+	}
+
+	public java.io.File getContentCacheDirectory() {
+		return contentCacheDirectory;
+	}
+
+	/**
+	 * Set the directory where local copies of saved game content are kept,
+	 * addressed by their checksum. Loading content already held is served
+	 * from there, and submitting content identical to the remote one only
+	 * updates its metadata. Defaults to a {@code content} directory in the
+	 * data store directory given on initialization.
+	 *
+	 * @param contentCacheDirectory the cache directory
+	 */
+	public void setContentCacheDirectory(java.io.File contentCacheDirectory) {
+		if (contentCacheDirectory == null)
+			throw new IllegalArgumentException("Content cache directory must not be null");
+		this.contentCacheDirectory = contentCacheDirectory;
+	}
+
+	public long getContentCacheSize() {
+		return contentCacheSize;
+	}
+
+	/**
+	 * Set the size past which least recently used saved game content is
+	 * deleted from the cache. Defaults to {@link #DEFAULT_CONTENT_CACHE_SIZE}.
+	 *
+	 * @param contentCacheSize the maximum size in bytes, 0 to only keep the latest content
+	 */
+	public void setContentCacheSize(long contentCacheSize) {
+		if (contentCacheSize < 0L)
+			throw new IllegalArgumentException("Content cache size must not be negative");
+		this.contentCacheSize = contentCacheSize;
+	}
+
+	public int getDeltaChainLength() {
+		return deltaChainLength;
+	}
+
+	/**
+	 * Enable delta submissions of saved games: when the previous version of
+	 * a saved game is held in the content cache, submitting a new version
+	 * as a whole array only uploads a binary patch against it, stored in a
+	 * separate file. Once given number of patches piled up, the next
+	 * submission uploads the whole content again. Loading applies patches
+	 * transparently, whether delta submissions are enabled or not.
+	 *
+	 * @param deltaChainLength the maximum number of patches on top of the whole content, 0 to disable delta submissions
+	 */
+	public void setDeltaChainLength(int deltaChainLength) {
+		if (deltaChainLength < 0 || deltaChainLength > MAX_DELTA_CHAIN_LENGTH)
+			throw new IllegalArgumentException("Delta chain length must be between 0 and " + MAX_DELTA_CHAIN_LENGTH);
+		this.deltaChainLength = deltaChainLength;
+	}
+
+	public SavedGameConflictResolver getConflictResolver() {
+		return conflictResolver;
+	}
+
+	/**
+	 * Set the resolver of saved games existing as several Drive files with
+	 * the same name, e.g. created from two devices while one of them was
+	 * offline, whether found by a lookup or by {@link #getSavedGames()}.
+	 * Files not kept are deleted. Without resolver, the most
+	 * recently modified file is used and the other ones are left untouched.
+	 *
+	 * @param conflictResolver the resolver of conflicting saved games, null to use the most recent file
+	 */
+	public void setConflictResolver(SavedGameConflictResolver conflictResolver) {
+		this.conflictResolver = conflictResolver;
+	}
+
+	public SavedGameAncestors getSavedGameAncestors() {
+		return savedGameAncestors;
+	}
+
+	/**
+	 * Keep the last content of each saved game loaded as a whole
+	 * array, handed to the conflict resolver as common ancestor.
+	 *
+	 * @param savedGameAncestors the store of common ancestors, null to keep none
+	 */
+	public void setSavedGameAncestors(SavedGameAncestors savedGameAncestors) {
+		this.savedGameAncestors = savedGameAncestors;
+	}
+
+	/**
+	 * Release resources held by this handler, shutting down its request
+	 * executor if it is a {@link GooglePlayRequestExecutor}. Meant to be called
+	 * from {@code ApplicationListener.dispose()}.
+	 */
+	public void dispose() {
+		Executor executor = requestExecutor;
+		if (executor instanceof GooglePlayRequestExecutor)
+			((GooglePlayRequestExecutor) executor).dispose();
+	}
+
 	// Authentication
 
 	@Override
@@ -156,60 +390,19 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 		if (startLogin) {
 			return new CallbackAsyncServiceResult<Player, Void>() {
 				@Override
-				protected void callAsync(CallbackAsyncServiceResult.Callback<Player> callback) {
+				protected void callAsync(final CallbackAsyncServiceResult.Callback<Player> callback) {
 					try {
-						// Set up authorization code flow
-						String userID = getSystemUserName();
-
-						ArrayList<String> scopes = new ArrayList<>(2);
-						scopes.add(GamesScopes.GAMES);
-						scopes.add(GamesScopes.DRIVE_APPDATA);
-
-						GoogleAuthorizationCodeFlow flow = new GoogleAuthorizationCodeFlow
-								.Builder(httpTransport, jsonFactory, clientSecrets, scopes)
-								.setDataStoreFactory(dataStoreFactory)
-								.build();
-
-						LocalServerReceiver receiver = new LocalServerReceiver
-								.Builder()
-								.setHost(authenticationHost())
-								.setPort(authenticationPort())
-								.build();
-
-						AuthorizationCodeInstalledApp authorizer = new AuthorizationCodeInstalledApp(flow, receiver) {
-							protected void onAuthorization(AuthorizationCodeRequestUrl authorizationUrl) {
-								Gdx.net.openURI(authorizationUrl.build());
+						requestExecutor.execute(new Runnable() {
+							@Override
+							public void run() {
+								authenticate(callback);
 							}
-						};
-						Credential credential = authorizer.authorize(userID);
-
-						games = new Games
-								.Builder(httpTransport, jsonFactory, credential)
-								.setApplicationName(applicationName)
-								.build();
-						drive = new Drive
-								.Builder(httpTransport, jsonFactory, credential)
-								.setApplicationName(applicationName)
-								.build();
-
-						Player player = games.players().get(LOCAL_PLAYER).execute();
-
-						synchronized (this) {
-							authenticated = true;
-
-							// Initialize local player
-							playerId = player.getPlayerId();
-							playerName = player.getDisplayName();
-							playerAvatarUrl = player.getAvatarImageUrl();
-						}
-
-						callback.onSuccess(player);
-					} catch (IOException e) {
-						callback.onError(e);
-					} finally {
-						synchronized (this) {
+						});
+					} catch (RejectedExecutionException e) {
+						synchronized (GooglePlayServicesHandler.this) {
 							authenticating = false;
 						}
+						callback.onError(e);
 					}
 				}
 
@@ -223,6 +416,63 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 		}
 	}
 
+	private void authenticate(CallbackAsyncServiceResult.Callback<Player> callback) {
+		try {
+			// Set up authorization code flow
+			String userID = getSystemUserName();
+
+			ArrayList<String> scopes = new ArrayList<>(2);
+			scopes.add(GamesScopes.GAMES);
+			scopes.add(GamesScopes.DRIVE_APPDATA);
+
+			GoogleAuthorizationCodeFlow flow = new GoogleAuthorizationCodeFlow
+					.Builder(httpTransport, jsonFactory, clientSecrets, scopes)
+					.setDataStoreFactory(dataStoreFactory)
+					.build();
+
+			LocalServerReceiver receiver = new LocalServerReceiver
+					.Builder()
+					.setHost(authenticationHost())
+					.setPort(authenticationPort())
+					.build();
+
+			AuthorizationCodeInstalledApp authorizer = new AuthorizationCodeInstalledApp(flow, receiver) {
+				protected void onAuthorization(AuthorizationCodeRequestUrl authorizationUrl) {
+					Gdx.net.openURI(authorizationUrl.build());
+				}
+			};
+			Credential credential = authorizer.authorize(userID);
+
+			games = new Games
+					.Builder(httpTransport, jsonFactory, credential)
+					.setApplicationName(applicationName)
+					.build();
+			drive = new Drive
+					.Builder(httpTransport, jsonFactory, credential)
+					.setApplicationName(applicationName)
+					.build();
+
+			Player player = games.players().get(LOCAL_PLAYER).execute();
+
+			synchronized (this) {
+				authenticated = true;
+
+				// Initialize local player
+				playerId = player.getPlayerId();
+				playerName = player.getDisplayName();
+				playerAvatarUrl = player.getAvatarImageUrl();
+			}
+
+			callback.onSuccess(player);
+		} catch (IOException e) {
+			callback.onError(e);
+		} finally {
+			synchronized (this) {
+				authenticating = false;
+			}
+		}
+	}
+
 	protected String getSystemUserName() {
 		return System.getProperty("user.name");
 	}
@@ -255,11 +505,15 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 	public AsyncServiceResult<byte[]> getPlayerAvatar() {
 		if (!authenticated) return new SyncErrorServiceResult<>(SimpleServiceError.error("Not authenticated"));
 		return new CallbackAsyncServiceResult<Net.HttpResponse, byte[]>() {
+			// Set from callAsync(), hence no initializer
+			private volatile Net.HttpRequest httpRequest;
+
 			@Override
 			protected void callAsync(final CallbackAsyncServiceResult.Callback<Net.HttpResponse> callback) {
 				Net.HttpRequest httpRequest = Pools.obtain(Net.HttpRequest.class);
 				httpRequest.setMethod(Net.HttpMethods.GET);
 				httpRequest.setUrl(playerAvatarUrl);
+				this.httpRequest = httpRequest;
 
 				Gdx.net.sendHttpRequest(httpRequest, new Net.HttpResponseListener() {
 					@Override
@@ -288,6 +542,13 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 			protected byte[] transformResult(Net.HttpResponse result) {
 				return result.getResult();
 			}
+
+			@Override
+			protected void onCancel() {
+				Net.HttpRequest httpRequest = this.httpRequest;
+				if (httpRequest != null)
+					Gdx.net.cancelHttpRequest(httpRequest);
+			}
 		};
 	}
 
@@ -317,7 +578,7 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 	@Override
 	public AsyncServiceResult<Iterable<Achievement>> getAchievements() {
 		if (!authenticated) return new SyncErrorServiceResult<>(SimpleServiceError.error("Not authenticated"));
-		return new GooglePlayAsyncServiceResultFromRequest<PlayerAchievementListResponse, Iterable<Achievement>>() {
+		return new GooglePlayAsyncServiceResultFromRequest<PlayerAchievementListResponse, Iterable<Achievement>>(requestExecutor) {
 			@Override
 			protected AbstractGoogleClientRequest<PlayerAchievementListResponse> createRequest() throws IOException {
 				return games.achievements().list(LOCAL_PLAYER);
@@ -338,7 +599,7 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 	@Override
 	public AsyncServiceResult<Void> unlockAchievement(final String achievementId) {
 		if (!authenticated) return new SyncErrorServiceResult<>(SimpleServiceError.error("Not authenticated"));
-		return new GooglePlayAsyncServiceResultFromRequest<AchievementUnlockResponse, Void>() {
+		return new GooglePlayAsyncServiceResultFromRequest<AchievementUnlockResponse, Void>(requestExecutor) {
 			@Override
 			protected AbstractGoogleClientRequest<AchievementUnlockResponse> createRequest() throws IOException {
 				return games.achievements().unlock(achievementId);
@@ -351,6 +612,44 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 		};
 	}
 
+	@Override
+	public AsyncServiceResult<BatchResult<String, Void>> unlockAchievements(Iterable<String> achievementIds) {
+		if (!authenticated) return new SyncErrorServiceResult<>(SimpleServiceError.error("Not authenticated"));
+		final List<AchievementUpdateRequest> updates = new ArrayList<>();
+		for (String achievementId : achievementIds) {
+			updates.add(new AchievementUpdateRequest()
+					.setAchievementId(achievementId)
+					.setUpdateType("UNLOCK"));
+		}
+		if (updates.isEmpty())
+			return new SyncSuccessServiceResult<>(new BatchResult<String, Void>());
+		return new GooglePlayAsyncServiceResultFromRequest<AchievementUpdateMultipleResponse, BatchResult<String, Void>>(requestExecutor) {
+			@Override
+			protected AbstractGoogleClientRequest<AchievementUpdateMultipleResponse> createRequest() throws IOException {
+				// Single round trip, whatever the number of achievements
+				return games.achievements().updateMultiple(new AchievementUpdateMultipleRequest().setUpdates(updates));
+			}
+
+			@Override
+			protected BatchResult<String, Void> transformResult(AchievementUpdateMultipleResponse result) {
+				BatchResult<String, Void> batch = new BatchResult<>();
+				List<AchievementUpdateResponse> updated = result.getUpdatedAchievements();
+				if (updated != null) {
+					for (AchievementUpdateResponse response : updated) {
+						if ("UNLOCKED".equals(response.getCurrentState()))
+							batch.putSuccess(response.getAchievementId(), null);
+					}
+				}
+				for (AchievementUpdateRequest update : updates) {
+					String achievementId = update.getAchievementId();
+					if (!batch.isSuccessful(achievementId))
+						batch.putFailure(achievementId, SimpleServiceError.rejected("Achievement not unlocked: " + achievementId));
+				}
+				return batch;
+			}
+		};
+	}
+
 	// Leaderboards
 
 	@Override
@@ -361,7 +660,7 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 	@Override
 	public AsyncServiceResult<LeaderboardEntry> getPlayerScore(final String leaderboardId, final LeaderboardOptions options) {
 		if (!authenticated) return new SyncErrorServiceResult<>(SimpleServiceError.error("Not authenticated"));
-		return new GooglePlayAsyncServiceResultFromRequest<PlayerLeaderboardScoreListResponse, LeaderboardEntry>() {
+		return new GooglePlayAsyncServiceResultFromRequest<PlayerLeaderboardScoreListResponse, LeaderboardEntry>(requestExecutor) {
 			@Override
 			protected AbstractGoogleClientRequest<PlayerLeaderboardScoreListResponse> createRequest() throws IOException {
 				return games.scores().get(playerId, leaderboardId, ALL_TIME_TIMESPAN);
@@ -377,45 +676,146 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 					if (size > 1)
 						error("Multiple scores found for player " + playerName + ", taking first one");
 
-					final PlayerLeaderboardScore entry = items.get(0);
-					final boolean social = options != null && options.getScope() == LeaderboardOptions.Scope.Friends;
-					return new LeaderboardEntry() {
-						@Override public String getSource() {
-							return "";
-						}
+					return toPlayerEntry(items.get(0), options);
+				}
+			}
+		};
+	}
 
-						@Override public long getScore() {
-							return entry.getScoreValue();
-						}
+	@Override
+	public AsyncServiceResult<ObjectMap<String, LeaderboardEntry>> getPlayerScores(Iterable<String> leaderboardIds, final LeaderboardOptions options) {
+		if (!authenticated) return new SyncErrorServiceResult<>(SimpleServiceError.error("Not authenticated"));
+		final Set<String> ids = new HashSet<>();
+		for (String leaderboardId : leaderboardIds)
+			ids.add(leaderboardId);
+		if (ids.isEmpty())
+			return new SyncSuccessServiceResult<>(new ObjectMap<String, LeaderboardEntry>());
+		return new GooglePlayAsyncServiceResult<ObjectMap<String, LeaderboardEntry>, ObjectMap<String, LeaderboardEntry>>() {
+			@Override
+			protected void callAsync(CallbackAsyncServiceResult.Callback<ObjectMap<String, LeaderboardEntry>> callback) {
+				performAsyncRequest(requestExecutor, request(), new Callable<ObjectMap<String, LeaderboardEntry>>() {
+					@Override
+					public ObjectMap<String, LeaderboardEntry> call() throws Exception {
+						// Scores of all leaderboards at once, page by page
+						ObjectMap<String, LeaderboardEntry> entries = new ObjectMap<>(ids.size());
+						String pageToken = null;
+						do {
+							PlayerLeaderboardScoreListResponse response = games.scores()
+									.get(playerId, ALL_LEADERBOARDS, ALL_TIME_TIMESPAN)
+									.setMaxResults(MAX_PLAYER_SCORES_PER_PAGE)
+									.setPageToken(pageToken)
+									.execute();
+							List<PlayerLeaderboardScore> items = response.getItems();
+							if (items != null) {
+								for (PlayerLeaderboardScore item : items) {
+									if (ids.contains(item.getLeaderboardId()))
+										entries.put(item.getLeaderboardId(), toPlayerEntry(item, options));
+								}
+							}
+							pageToken = response.getNextPageToken();
+						} while (pageToken != null && entries.size < ids.size());
+						return entries;
+					}
+				}, callback);
+			}
 
-						@Override public long getRank() {
-							return (social ? entry.getSocialRank() : entry.getPublicRank()).getRank();
-						}
+			@Override
+			protected ObjectMap<String, LeaderboardEntry> transformResult(ObjectMap<String, LeaderboardEntry> result) {
+				return result;
+			}
+		};
+	}
 
-						@Override
-						public String getPlayerName() {
-							return playerName;
-						}
+	private LeaderboardEntry toPlayerEntry(final PlayerLeaderboardScore entry, LeaderboardOptions options) {
+		final boolean social = options != null && options.getScope() == LeaderboardOptions.Scope.Friends;
+		return new LeaderboardEntry() {
+			@Override public String getSource() {
+				return "";
+			}
 
-						@Override
-						public String getPlayerId() {
-							return playerId;
-						}
+			@Override public long getScore() {
+				return entry.getScoreValue();
+			}
 
-						@Override
-						public Date getDate() {
-							return new Date(entry.getWriteTimestamp());
-						}
-					};
-				}
+			@Override public long getRank() {
+				return (social ? entry.getSocialRank() : entry.getPublicRank()).getRank();
+			}
+
+			@Override
+			public String getPlayerName() {
+				return playerName;
+			}
+
+			@Override
+			public String getPlayerId() {
+				return playerId;
+			}
+
+			@Override
+			public Date getDate() {
+				return new Date(entry.getWriteTimestamp());
+			}
+		};
+	}
+
+	@Override
+	public AsyncServiceResult<Iterable<LeaderboardEntry>> getScores(final String leaderboardId, final LeaderboardOptions options) {
+		if (!authenticated) return new SyncErrorServiceResult<>(SimpleServiceError.error("Not authenticated"));
+		return new GooglePlayAsyncServiceResultFromRequest<LeaderboardScores, Iterable<LeaderboardEntry>>(requestExecutor) {
+			@Override
+			protected AbstractGoogleClientRequest<LeaderboardScores> createRequest() throws IOException {
+				return createScoresRequest(leaderboardId, options, null);
+			}
+
+			@Override
+			protected Iterable<LeaderboardEntry> transformResult(LeaderboardScores result) {
+				return toLeaderboardPage(result.getItems(), null, null).entries();
 			}
 		};
 	}
 
 	@Override
-	public AsyncServiceResult<Iterable<LeaderboardEntry>> getScores(final String leaderboardId, LeaderboardOptions options) {
+	public AsyncServiceResult<LeaderboardPage> getScoresPage(final String leaderboardId, final LeaderboardOptions options, LeaderboardPage.Cursor cursor) {
 		if (!authenticated) return new SyncErrorServiceResult<>(SimpleServiceError.error("Not authenticated"));
+		if (cursor != null && !(cursor instanceof PageTokenCursor))
+			return new SyncErrorServiceResult<>(SimpleServiceError.error("Not a Google Play Games cursor: " + cursor));
+		final String pageToken = cursor == null ? null : ((PageTokenCursor) cursor).pageToken;
+		return new GooglePlayAsyncServiceResultFromRequest<LeaderboardScores, LeaderboardPage>(requestExecutor) {
+			@Override
+			protected AbstractGoogleClientRequest<LeaderboardScores> createRequest() throws IOException {
+				return createScoresRequest(leaderboardId, options, pageToken);
+			}
 
+			@Override
+			protected LeaderboardPage transformResult(LeaderboardScores result) {
+				return toLeaderboardPage(result.getItems(), PageTokenCursor.of(result.getPrevPageToken()), PageTokenCursor.of(result.getNextPageToken()));
+			}
+		};
+	}
+
+	private static LeaderboardPage toLeaderboardPage(List<com.google.api.services.games.model.LeaderboardEntry> items, LeaderboardPage.Cursor previousCursor, LeaderboardPage.Cursor nextCursor) {
+		// Copy into columns right away, JSON models are not kept around
+		LeaderboardPage.Builder builder = new LeaderboardPage.Builder(items == null ? 0 : items.size());
+		if (items != null) {
+			for (com.google.api.services.games.model.LeaderboardEntry item : items) {
+				Player player = item.getPlayer();
+				builder.add(
+						player == null ? null : player.getPlayerId(),
+						player == null ? null : player.getDisplayName(),
+						valueOf(item.getScoreValue()),
+						valueOf(item.getScoreRank()),
+						SOURCE,
+						valueOf(item.getWriteTimestampMillis()));
+			}
+		}
+		return builder.build(previousCursor, nextCursor);
+	}
+
+	private static long valueOf(Long value) {
+		return value == null ? 0L : value;
+	}
+
+	private AbstractGoogleClientRequest<LeaderboardScores> createScoresRequest(String leaderboardId, LeaderboardOptions options, String pageToken) throws IOException {
 		final boolean top;
 		final String collection;
 		final int items;
@@ -452,30 +852,15 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 				items = 20;
 		}
 
-		return new GooglePlayAsyncServiceResultFromRequest<LeaderboardScores, Iterable<LeaderboardEntry>>() {
-			@Override
-			protected AbstractGoogleClientRequest<LeaderboardScores> createRequest() throws IOException {
-				return top ?
-					games.scores().listWindow(leaderboardId, collection, ALL_TIME_TIMESPAN).setMaxResults(items) :
-					games.scores().list(leaderboardId, collection, ALL_TIME_TIMESPAN).setMaxResults(items);
-			}
-
-			@Override
-			protected Iterable<LeaderboardEntry> transformResult(LeaderboardScores result) {
-				return new TransformIterable<com.google.api.services.games.model.LeaderboardEntry, LeaderboardEntry>(result.getItems()) {
-					@Override
-					protected LeaderboardEntry transform(com.google.api.services.games.model.LeaderboardEntry item) {
-						return new GooglePlayLeaderboardEntry(item);
-					}
-				};
-			}
-		};
+		return top ?
+			games.scores().list(leaderboardId, collection, ALL_TIME_TIMESPAN).setMaxResults(items).setPageToken(pageToken) :
+			games.scores().listWindow(leaderboardId, collection, ALL_TIME_TIMESPAN).setMaxResults(items).setPageToken(pageToken);
 	}
 
 	@Override
 	public AsyncServiceResult<Void> submitScore(final String leaderboardId, final long score) {
 		if (!authenticated) return new SyncErrorServiceResult<>(SimpleServiceError.error("Not authenticated"));
-		return new GooglePlayAsyncServiceResultFromRequest<PlayerScoreResponse, Void>() {
+		return new GooglePlayAsyncServiceResultFromRequest<PlayerScoreResponse, Void>(requestExecutor) {
 			@Override
 			protected AbstractGoogleClientRequest<PlayerScoreResponse> createRequest() throws IOException {
 				return games.scores().submit(leaderboardId, score);
@@ -498,19 +883,39 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 	@Override
 	public AsyncServiceResult<Iterable<SavedGame>> getSavedGames() {
 		if (!authenticated) return new SyncErrorServiceResult<>(SimpleServiceError.error("Not authenticated"));
-		return new GooglePlayAsyncServiceResultFromRequest<FileList, Iterable<SavedGame>>() {
+		return new GooglePlayAsyncServiceResult<List<File>, Iterable<SavedGame>>() {
 			@Override
-			protected AbstractGoogleClientRequest<FileList> createRequest() throws IOException {
-				return drive.files()
-						.list()
-						.setSpaces(APP_DATA)
-						.setFields("files(id, name, description, modifiedTime, createdTime)")
-						;
+			protected void callAsync(CallbackAsyncServiceResult.Callback<List<File>> callback) {
+				performAsyncRequest(requestExecutor, request(), new Callable<List<File>>() {
+					@Override
+					public List<File> call() throws Exception {
+						// All saved games, page by page
+						List<File> files = new ArrayList<>();
+						String pageToken = null;
+						do {
+							FileList result = drive.files()
+									.list()
+									.setSpaces(APP_DATA)
+									.setPageSize(MAX_FILES_PER_PAGE)
+									.setFields("nextPageToken, files(" + SAVED_GAME_FIELDS + ")")
+									.setPageToken(pageToken)
+									.execute();
+							// Patches of delta submissions are no saved games of their own
+							for (File file : result.getFiles()) {
+								if (!isPatch(file))
+									files.add(file);
+							}
+							pageToken = result.getNextPageToken();
+						} while (pageToken != null);
+						return resolveConflicts(files);
+					}
+				}, callback);
 			}
 
 			@Override
-			protected Iterable<SavedGame> transformResult(FileList result) {
-				return new TransformIterable<File, SavedGame>(result.getFiles()) {
+			protected Iterable<SavedGame> transformResult(List<File> files) {
+				savedGameIndex.update(files, true);
+				return new TransformIterable<File, SavedGame>(files) {
 					@Override
 					protected SavedGame transform(File item) {
 						return new GooglePlaySavedGame(item);
@@ -523,27 +928,27 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 	@Override
 	public AsyncServiceResult<byte[]> loadSavedGameData(final SavedGame save) {
 		if (!authenticated) return new SyncErrorServiceResult<>(SimpleServiceError.error("Not authenticated"));
-		return new CallbackAsyncServiceResult<byte[], byte[]>() {
+		return new GooglePlayAsyncServiceResult<byte[], byte[]>() {
 			@Override
 			protected void callAsync(final CallbackAsyncServiceResult.Callback<byte[]> callback) {
-				resolveSavedGame(save, new CallbackAsyncServiceResult.Callback<File>() {
+				resolveSavedGame(request(), save, new CallbackAsyncServiceResult.Callback<File>() {
 					@Override
 					public void onSuccess(final File remoteFile) {
 						if (remoteFile == null) {
 							callback.onError(new RuntimeException("File not found: " + save.getTitle()));
 						} else {
-							performAsyncRequest(new Callable<byte[]>() {
+							performAsyncRequest(requestExecutor, request(), onSavedGame(save, remoteFile, new SavedGameOperation<byte[]>() {
 								@Override
-								public byte[] call() throws Exception {
-									InputStream stream = null;
-									try {
-										stream = drive.files().get(remoteFile.getId()).executeMediaAsInputStream();
-										return StreamUtils.copyStreamToByteArray(stream);
-									} finally {
-										StreamUtils.closeQuietly(stream);
-									}
+								public byte[] perform(File target) throws Exception {
+									ByteArrayOutputStream output = new ByteArrayOutputStream();
+									loadContent(save, target, output);
+									byte[] content = output.toByteArray();
+									SavedGameAncestors ancestors = savedGameAncestors;
+									if (ancestors != null)
+										ancestors.put(save.getTitle(), content);
+									return content;
 								}
-							}, callback);
+							}), callback);
 						}
 					}
 
@@ -562,42 +967,119 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 	}
 
 	@Override
-	public AsyncServiceResult<Void> submitSavedGame(final SavedGame save, final byte[] data) {
+	public AsyncServiceResult<Void> loadSavedGameData(final SavedGame save, final OutputStream output) {
 		if (!authenticated) return new SyncErrorServiceResult<>(SimpleServiceError.error("Not authenticated"));
-		return new CallbackAsyncServiceResult<File, Void>() {
+		return new GooglePlayAsyncServiceResult<Void, Void>() {
 			@Override
-			protected void callAsync(final CallbackAsyncServiceResult.Callback<File> callback) {
-				resolveSavedGame(save, new CallbackAsyncServiceResult.Callback<File>() {
+			protected void callAsync(final CallbackAsyncServiceResult.Callback<Void> callback) {
+				resolveSavedGame(request(), save, new CallbackAsyncServiceResult.Callback<File>() {
 					@Override
 					public void onSuccess(final File remoteFile) {
-						// No type since it is binary data
-						final AbstractInputStreamContent mediaContent = new ByteArrayContent(null, data);
+						if (remoteFile == null) {
+							callback.onError(new RuntimeException("File not found: " + save.getTitle()));
+						} else {
+							final TrackedOutputStream tracked = new TrackedOutputStream(output);
+							performAsyncRequest(requestExecutor, request(), onSavedGame(save, remoteFile, new SavedGameOperation<Void>() {
+								@Override
+								public Void perform(File target) throws Exception {
+									// Written chunk by chunk, content is never held whole
+									loadContent(save, target, tracked);
+									tracked.flush();
+									return null;
+								}
 
-						performAsyncRequest(new Callable<File>() {
+								@Override
+								boolean canRetry() {
+									return !tracked.touched;
+								}
+							}), callback);
+						}
+					}
+
+					@Override
+					public void onError(Throwable error) {
+						callback.onError(error);
+					}
+				});
+			}
+
+			@Override
+			protected Void transformResult(Void result) {
+				return result;
+			}
+		};
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(SavedGame save, byte[] data) {
+		if (!authenticated) return new SyncErrorServiceResult<>(SimpleServiceError.error("Not authenticated"));
+		return submitSavedGame(save, data, new ByteArrayInputStream(data), data.length);
+	}
+
+	@Override
+	public AsyncServiceResult<Void> submitSavedGame(SavedGame save, InputStream data, long length) {
+		if (!authenticated) return new SyncErrorServiceResult<>(SimpleServiceError.error("Not authenticated"));
+		return submitSavedGame(save, null, data, length);
+	}
+
+	private AsyncServiceResult<Void> submitSavedGame(final SavedGame save, final byte[] whole, final InputStream data, final long length) {
+		return new GooglePlayAsyncServiceResult<File, Void>() {
+			@Override
+			protected void callAsync(final CallbackAsyncServiceResult.Callback<File> callback) {
+				resolveSavedGame(request(), save, new CallbackAsyncServiceResult.Callback<File>() {
+					@Override
+					public void onSuccess(final File remoteFile) {
+						final TrackedInputStream tracked = new TrackedInputStream(data);
+						performAsyncRequest(requestExecutor, request(), onSavedGame(save, remoteFile, new SavedGameOperation<File>() {
 							@Override
-							public File call() throws Exception {
-								if (remoteFile != null) {
-									// File exists, update it
-									File fileMetadata = new File()
+							public File perform(File target) throws Exception {
+								File fileMetadata;
+								if (target != null) {
+									// Size and checksum are needed to skip unchanged content
+									target = describe(target);
+									// File exists, update it, dropping patches of previous delta submissions
+									fileMetadata = new File()
 											.setName(save.getTitle())
 											.setDescription(save.getDescription())
-											.setModifiedTime(new DateTime(save.getTimestamp()));
-
-									return drive.files().update(remoteFile.getId(), fileMetadata, mediaContent).execute();
+											.setModifiedTime(new DateTime(save.getTimestamp()))
+											.setAppProperties(noPatches());
 								} else {
 
 									// File doesn't exist, create it
-									File fileMetadata = new File()
+									fileMetadata = new File()
 											.setName(save.getTitle())
 											.setDescription(save.getDescription())
 											.setModifiedTime(new DateTime(save.getTimestamp()))
 											.setCreatedTime(new DateTime(System.currentTimeMillis()))
 											.setParents(Collections.singletonList(APP_DATA));
+								}
 
-									return drive.files().create(fileMetadata, mediaContent).execute();
+								File result = null;
+								if (whole != null && target != null && deltaChainLength > 0)
+									result = submitPatch(save, target, fileMetadata, whole);
+								if (result == null) {
+									// Content held whole can be read again, streams only if untouched
+									InputStream content = whole != null ? new ByteArrayInputStream(whole) : tracked;
+									try {
+										result = submitContent(request(), save, target, fileMetadata, content, length);
+									} catch (DriveTransfers.StaleUploadException e) {
+										if (whole == null)
+											throw e;
+										// Interrupted upload was of other content, start a new one
+										result = submitContent(request(), save, target, fileMetadata, new ByteArrayInputStream(whole), length);
+									}
+									if (target != null && (deltaChainLength > 0 || !patches(target).isEmpty()))
+										deletePatches(target.getId());
 								}
+								savedGameIndex.put(save.getTitle(), result.getId());
+								return result;
+							}
+
+							@Override
+							boolean canRetry() {
+								return whole != null || !tracked.touched;
 							}
-						}, callback);
+						}), callback);
 					}
 
 					@Override
@@ -614,24 +1096,97 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 		};
 	}
 
+	/**
+	 * Download saved game data straight into given file, resuming a previous
+	 * download of the same version of the saved game interrupted midway,
+	 * including before a restart. Given file is only replaced once the
+	 * download succeeded.
+	 *
+	 * @param save the metadata of the saved game to retrieve content from
+	 * @param file the file to write content to
+	 * @return an AsyncServiceResult to handle success/error
+	 */
+	public AsyncServiceResult<Void> downloadSavedGame(final SavedGame save, final FileHandle file) {
+		if (!authenticated) return new SyncErrorServiceResult<>(SimpleServiceError.error("Not authenticated"));
+		return new GooglePlayAsyncServiceResult<Void, Void>() {
+			@Override
+			protected void callAsync(final CallbackAsyncServiceResult.Callback<Void> callback) {
+				resolveSavedGame(request(), save, new CallbackAsyncServiceResult.Callback<File>() {
+					@Override
+					public void onSuccess(final File remoteFile) {
+						if (remoteFile == null) {
+							callback.onError(new RuntimeException("File not found: " + save.getTitle()));
+						} else {
+							performAsyncRequest(requestExecutor, request(), onSavedGame(save, remoteFile, new SavedGameOperation<Void>() {
+								@Override
+								public Void perform(File target) throws Exception {
+									if (target == null)
+										throw new RuntimeException("File not found: " + save.getTitle());
+									// Version is needed to resume
+									target = describe(target);
+									if (!patches(target).isEmpty()) {
+										// Assembled in memory, patches are only used for small enough saves
+										FileHandle part = file.sibling(file.name() + ".part");
+										part.writeBytes(loadPatchedContent(save, target), false);
+										part.moveTo(file);
+										return null;
+									}
+									DriveContentCache cache = contentCache();
+									String checksum = target.getMd5Checksum();
+									if (cache.copyTo(checksum, target.getSize(), file.file()))
+										return null;
+									String version = String.valueOf(target.getModifiedTime().getValue());
+									Long size = target.getSize();
+									DriveTransfers.download(drive, request(), transferStateFile("download", save), transferChunkSize,
+											save, transferListener, target.getId(), version, size == null ? -1L : size, file.file());
+									cache.put(file.file(), checksum);
+									return null;
+								}
+							}), callback);
+						}
+					}
+
+					@Override
+					public void onError(Throwable error) {
+						callback.onError(error);
+					}
+				});
+			}
+
+			@Override
+			protected Void transformResult(Void result) {
+				return result;
+			}
+		};
+	}
+
 	@Override
 	public AsyncServiceResult<Void> deleteSavedGame(final SavedGame save) {
 		if (!authenticated) return new SyncErrorServiceResult<>(SimpleServiceError.error("Not authenticated"));
-		return new CallbackAsyncServiceResult<Void, Void>() {
+		return new GooglePlayAsyncServiceResult<Void, Void>() {
 			@Override
 			protected void callAsync(final CallbackAsyncServiceResult.Callback<Void> callback) {
-				resolveSavedGame(save, new CallbackAsyncServiceResult.Callback<File>() {
+				resolveSavedGame(request(), save, new CallbackAsyncServiceResult.Callback<File>() {
 					@Override
 					public void onSuccess(final File remoteFile) {
 						if (remoteFile == null) {
 							callback.onSuccess(null);
 						} else {
-							performAsyncRequest(new Callable<Void>() {
+							performAsyncRequest(requestExecutor, request(), onSavedGame(save, remoteFile, new SavedGameOperation<Void>() {
 								@Override
-								public Void call() throws Exception {
-									return drive.files().delete(remoteFile.getId()).execute();
+								public Void perform(File target) throws Exception {
+									if (target == null)
+										return null;
+									drive.files().delete(target.getId()).execute();
+									savedGameIndex.remove(save.getTitle(), target.getId());
+									if (deltaChainLength > 0 || !patches(target).isEmpty())
+										deletePatches(target.getId());
+									SavedGameAncestors ancestors = savedGameAncestors;
+									if (ancestors != null)
+										ancestors.remove(save.getTitle());
+									return null;
 								}
-							}, callback);
+							}), callback);
 						}
 					}
 
@@ -649,44 +1204,466 @@ public class GooglePlayServicesHandler implements GameServicesHandler {
 		};
 	}
 
-	private void resolveSavedGame(final SavedGame savedGame, final CallbackAsyncServiceResult.Callback<File> callback) {
+	private DriveContentCache contentCache() {
+		return new DriveContentCache(contentCacheDirectory, contentCacheSize);
+	}
+
+	private void loadContent(SavedGame save, File remoteFile, OutputStream output) throws IOException {
+		if (remoteFile == null)
+			throw new IOException("File not found: " + save.getTitle());
+		remoteFile = describe(remoteFile);
+		if (patches(remoteFile).isEmpty())
+			loadFileContent(save, remoteFile, output);
+		else
+			output.write(loadPatchedContent(save, remoteFile));
+	}
+
+	private void loadFileContent(SavedGame save, File remoteFile, OutputStream output) throws IOException {
+		DriveContentCache cache = contentCache();
+		InputStream cached = cache.open(remoteFile.getMd5Checksum(), remoteFile.getSize());
+		if (cached != null) {
+			// Already held, no need to download it again
+			try {
+				StreamUtils.copyStream(cached, output);
+			} finally {
+				StreamUtils.closeQuietly(cached);
+			}
+			return;
+		}
+		DriveContentCache.Entry entry = cache.begin();
+		try {
+			DriveTransfers.download(drive, remoteFile.getId(), transferChunkSize, save, transferListener, 0L, entry.tee(output));
+			// Metadata may be outdated, only keep content matching it
+			entry.commit(remoteFile.getMd5Checksum());
+		} finally {
+			entry.discard();
+		}
+	}
+
+	private File submitContent(GooglePlayRequest request, SavedGame save, File remoteFile, File metadata, InputStream data, long length) throws IOException {
+		DriveContentCache cache = contentCache();
+		DriveContentCache.Entry entry = cache.begin();
+		try {
+			Long remoteSize = remoteFile == null ? null : remoteFile.getSize();
+			if (remoteSize != null && remoteSize == length && remoteFile.getMd5Checksum() != null) {
+				// Same size as remote content, hash it first to know whether it changed at all
+				entry.copyFrom(data);
+				entry.commit(null);
+				String checksum = entry.checksum();
+				if (checksum.equals(remoteFile.getMd5Checksum())) {
+					// Only update metadata, unless remote content changed meanwhile
+					File updated = drive.files().update(remoteFile.getId(), metadata).setFields(SAVED_GAME_FIELDS).execute();
+					if (checksum.equals(updated.getMd5Checksum()))
+						return updated;
+				}
+				InputStream spooled = cache.open(checksum, length);
+				if (spooled == null)
+					throw new IOException("Saved game content vanished from cache: " + save.getTitle());
+				try {
+					return upload(request, save, remoteFile, metadata, spooled, length);
+				} finally {
+					StreamUtils.closeQuietly(spooled);
+				}
+			}
+			File uploaded = upload(request, save, remoteFile, metadata, entry.tee(data), length);
+			entry.commit(null);
+			return uploaded;
+		} finally {
+			entry.discard();
+		}
+	}
+
+	private File upload(GooglePlayRequest request, SavedGame save, File remoteFile, File metadata, InputStream data, long length) throws IOException {
+		// Chunked resumable upload, content is never held whole
+		return DriveTransfers.upload(drive, jsonFactory, request, transferStateFile("upload", save), transferChunkSize,
+				save, transferListener, remoteFile == null ? null : remoteFile.getId(), metadata, data, length);
+	}
+
+	private java.io.File transferStateFile(String direction, SavedGame save) throws IOException {
+		java.io.File directory = transferStateDirectory;
+		return directory == null ? null : new java.io.File(directory, direction + "-" + URLEncoder.encode(save.getTitle(), "UTF-8") + ".properties");
+	}
+
+	private void resolveSavedGame(final GooglePlayRequest request, final SavedGame savedGame, final CallbackAsyncServiceResult.Callback<File> callback) {
 		if (savedGame instanceof GooglePlaySavedGame) {
 			if (callback != null)
 				callback.onSuccess(((GooglePlaySavedGame) savedGame).getWrapped());
 		} else {
-			// Open from API in order to get proper metadata (or create if none)
-
-			// Find file by name
+			// Id already known, no need to list files
 			final String name = savedGame.getTitle();
-			performAsyncRequest(new Callable<FileList>() {
+			String id = savedGameIndex.get(name);
+			if (id != null) {
+				if (callback != null)
+					callback.onSuccess(new File().setId(id).setName(name));
+				return;
+			}
+
+			// Open from API in order to get proper metadata (or create if none)
+			performAsyncRequest(requestExecutor, request, new Callable<File>() {
 				@Override
-				public FileList call() throws Exception {
-					return drive.files().list()
-							.setOrderBy("modifiedTime desc")
-							.setSpaces(APP_DATA)
-							.setQ("name='" + name + "'")
-							.execute();
+				public File call() throws Exception {
+					return findSavedGame(name);
 				}
-			}, new CallbackAsyncServiceResult.Callback<FileList>() {
-				@Override
-				public void onSuccess(FileList result) {
-					List<File> files = result.getFiles();
-					int size = files.size();
-					if (size < 1) {
-						error("No file found with name " + name);
-						callback.onSuccess(null);
-					} else {
-						if (size > 1)
-							error("Multiple files exist with name " + name + ", taking first one");
-						callback.onSuccess(files.get(0));
-					}
+			}, callback);
+		}
+	}
+
+	/**
+	 * Metadata of given file, fetched if it was resolved from the index and
+	 * only its id is known.
+	 */
+	private File describe(File remoteFile) throws IOException {
+		if (remoteFile.getModifiedTime() != null)
+			return remoteFile;
+		return drive.files().get(remoteFile.getId()).setFields(SAVED_GAME_FIELDS).execute();
+	}
+
+	// Delta submissions
+
+	private static boolean isPatch(File file) {
+		Map<String, String> properties = file.getAppProperties();
+		return properties != null && properties.containsKey(DELTA_OF);
+	}
+
+	/**
+	 * @return the ids of the patches to apply in order on top of given file content
+	 */
+	private static List<String> patches(File file) {
+		List<String> ids = new ArrayList<>();
+		Map<String, String> properties = file.getAppProperties();
+		if (properties != null) {
+			String id;
+			while ((id = properties.get(DELTA_PATCH + (ids.size() + 1))) != null)
+				ids.add(id);
+		}
+		return ids;
+	}
+
+	/**
+	 * App properties removing all delta submission properties from a file.
+	 */
+	private static Map<String, String> noPatches() {
+		Map<String, String> properties = new HashMap<>();
+		properties.put(DELTA_HEAD, Data.NULL_STRING);
+		for (int i = 1; i <= MAX_DELTA_CHAIN_LENGTH; i++)
+			properties.put(DELTA_PATCH + i, Data.NULL_STRING);
+		return properties;
+	}
+
+	private byte[] loadPatchedContent(SavedGame save, File remoteFile) throws IOException {
+		DriveContentCache cache = contentCache();
+		String checksum = remoteFile.getAppProperties().get(DELTA_HEAD);
+		InputStream cached = cache.open(checksum, null);
+		if (cached != null) {
+			// Patched content already held, typically submitted from here
+			try {
+				return StreamUtils.copyStreamToByteArray(cached);
+			} finally {
+				StreamUtils.closeQuietly(cached);
+			}
+		}
+		ByteArrayOutputStream base = new ByteArrayOutputStream();
+		loadFileContent(save, remoteFile, base);
+		byte[] content = base.toByteArray();
+		for (String id : patches(remoteFile)) {
+			InputStream stream = null;
+			try {
+				stream = drive.files().get(id).executeMediaAsInputStream();
+				content = SavedGameDelta.patch(content, StreamUtils.copyStreamToByteArray(stream));
+			} finally {
+				StreamUtils.closeQuietly(stream);
+			}
+		}
+		if (!cache.put(content, checksum))
+			throw new IOException("Saved game patches do not add up: " + save.getTitle());
+		return content;
+	}
+
+	/**
+	 * Submit given content as a patch against the previous version, if held
+	 * and worth it.
+	 *
+	 * @return the updated file, or null if content has to be uploaded whole
+	 */
+	private File submitPatch(SavedGame save, File remoteFile, File metadata, byte[] data) throws IOException {
+		remoteFile = describe(remoteFile);
+		List<String> patches = patches(remoteFile);
+		if (patches.size() >= deltaChainLength)
+			return null; // Time to compact
+		Map<String, String> properties = remoteFile.getAppProperties();
+		String previousChecksum = patches.isEmpty() ? remoteFile.getMd5Checksum() : properties.get(DELTA_HEAD);
+		DriveContentCache cache = contentCache();
+		InputStream cached = cache.open(previousChecksum, null);
+		if (cached == null)
+			return null;
+		byte[] previous;
+		try {
+			previous = StreamUtils.copyStreamToByteArray(cached);
+		} finally {
+			StreamUtils.closeQuietly(cached);
+		}
+		byte[] patch = SavedGameDelta.diff(previous, data);
+		if (patch.length > data.length / 2)
+			return null; // Barely smaller than content itself
+
+		// Keep new version for next patch, and as the content of this file
+		DriveContentCache.Entry entry = cache.begin();
+		String checksum;
+		try {
+			entry.write(data);
+			entry.commit(null);
+			checksum = entry.checksum();
+		} finally {
+			entry.discard();
+		}
+
+		File patchFile = drive.files().create(new File()
+						.setName(save.getTitle() + DELTA_SUFFIX)
+						.setParents(Collections.singletonList(APP_DATA))
+						.setAppProperties(Collections.singletonMap(DELTA_OF, remoteFile.getId())),
+				new ByteArrayContent("application/octet-stream", patch))
+				.setFields("id")
+				.execute();
+		Map<String, String> delta = new HashMap<>();
+		delta.put(DELTA_HEAD, checksum);
+		delta.put(DELTA_PATCH + (patches.size() + 1), patchFile.getId());
+		metadata.setAppProperties(delta);
+		return drive.files().update(remoteFile.getId(), metadata).setFields(SAVED_GAME_FIELDS).execute();
+	}
+
+	/**
+	 * Delete patches of given file, best effort: leftovers only cost storage.
+	 */
+	private void deletePatches(String fileId) {
+		try {
+			List<File> files = drive.files().list()
+					.setSpaces(APP_DATA)
+					.setQ("appProperties has { key='" + DELTA_OF + "' and value='" + fileId + "' }")
+					.setFields("files(id)")
+					.execute()
+					.getFiles();
+			for (File file : files)
+				drive.files().delete(file.getId()).execute();
+		} catch (IOException e) {
+			error("Could not delete patches of " + fileId + ": " + e.getMessage());
+		}
+	}
+
+	private File findSavedGame(String name) throws IOException {
+		// Find file by name
+		List<File> files = drive.files().list()
+				.setOrderBy("modifiedTime desc")
+				.setSpaces(APP_DATA)
+				.setQ("name='" + name + "'")
+				.setFields("files(" + SAVED_GAME_FIELDS + ")")
+				.execute()
+				.getFiles();
+		int size = files.size();
+		if (size < 1) {
+			error("No file found with name " + name);
+			savedGameIndex.remove(name, null);
+			return null;
+		}
+		File file = files.get(0);
+		if (size > 1) {
+			SavedGameConflictResolver resolver = conflictResolver;
+			if (resolver == null)
+				error("Multiple files exist with name " + name + ", taking first one");
+			else
+				file = resolveConflict(name, files, resolver);
+		}
+		savedGameIndex.put(name, file.getId());
+		return file;
+	}
+
+	/**
+	 * Hand saved games listed as several files to the conflict resolver, if
+	 * any, keeping only the file each resolution kept. Saved games failing to
+	 * resolve are left as listed. Called from the request executor.
+	 */
+	private List<File> resolveConflicts(List<File> files) {
+		SavedGameConflictResolver resolver = conflictResolver;
+		if (resolver == null)
+			return files;
+		Map<String, List<File>> byName = new LinkedHashMap<>();
+		for (File file : files) {
+			List<File> group = byName.get(file.getName());
+			if (group == null) {
+				group = new ArrayList<>(1);
+				byName.put(file.getName(), group);
+			}
+			group.add(file);
+		}
+		if (byName.size() == files.size())
+			return files;
+		List<File> resolved = new ArrayList<>(byName.size());
+		for (Map.Entry<String, List<File>> entry : byName.entrySet()) {
+			String name = entry.getKey();
+			List<File> group = entry.getValue();
+			if (name != null && group.size() > 1) {
+				Collections.sort(group, MOST_RECENT_FIRST);
+				try {
+					resolved.add(resolveConflict(name, group, resolver));
+					continue;
+				} catch (IOException e) {
+					error("Could not resolve conflicting saved game " + name + ": " + e.getMessage());
 				}
+			}
+			resolved.addAll(group);
+		}
+		return resolved;
+	}
 
+	/**
+	 * Resolve files sharing given name, deleting the ones not kept. Called
+	 * from the request executor, never from the rendering thread.
+	 *
+	 * @return the file kept
+	 */
+	private File resolveConflict(String name, List<File> files, SavedGameConflictResolver resolver) throws IOException {
+		Array<SavedGameConflict.Version> versions = new Array<>(files.size());
+		for (final File file : files) {
+			final GooglePlaySavedGame save = new GooglePlaySavedGame(file);
+			versions.add(new SavedGameConflict.Version(save, new SavedGameConflict.ContentSource() {
 				@Override
-				public void onError(Throwable error) {
-					callback.onError(error);
+				public byte[] load() throws IOException {
+					// Served from the content cache when already held
+					ByteArrayOutputStream output = new ByteArrayOutputStream();
+					loadContent(save, file, output);
+					return output.toByteArray();
 				}
-			});
+			}));
+		}
+		SavedGameAncestors ancestors = savedGameAncestors;
+		SavedGameConflict conflict = new SavedGameConflict(name, versions, ancestors == null ? null : ancestors.source(name));
+		SavedGameResolution resolution = resolver.resolve(conflict);
+		if (resolution == null)
+			throw new IOException("No resolution for conflicting saved game " + name);
+
+		File kept;
+		if (resolution.isMerge()) {
+			// Merged content replaces the most recent file
+			File target = ((GooglePlaySavedGame) conflict.getMostRecent().getMetadata()).getWrapped();
+			SavedGame metadata = resolution.getMetadata();
+			byte[] content = resolution.getContent();
+			File fileMetadata = new File()
+					.setName(name)
+					.setDescription(metadata.getDescription())
+					.setModifiedTime(new DateTime(metadata.getTimestamp()))
+					.setAppProperties(noPatches());
+			kept = drive.files().update(target.getId(), fileMetadata, new ByteArrayContent("application/octet-stream", content))
+					.setFields(SAVED_GAME_FIELDS)
+					.execute();
+			contentCache().put(content, kept.getMd5Checksum());
+			if (!patches(target).isEmpty())
+				deletePatches(target.getId());
+			if (ancestors != null)
+				ancestors.put(name, content);
+		} else {
+			kept = ((GooglePlaySavedGame) resolution.getVersion().getMetadata()).getWrapped();
+		}
+
+		for (File file : files) {
+			if (file.getId().equals(kept.getId()))
+				continue;
+			drive.files().delete(file.getId()).execute();
+			if (!patches(file).isEmpty())
+				deletePatches(file.getId());
+		}
+		return kept;
+	}
+
+	/**
+	 * Wrap an operation on a resolved saved game so that it is performed
+	 * again on a fresh lookup if its file id turns out to be outdated, e.g.
+	 * when the saved game was deleted from another device, unless the
+	 * operation already consumed streamed content.
+	 */
+	private <T> Callable<T> onSavedGame(final SavedGame savedGame, final File remoteFile, final SavedGameOperation<T> operation) {
+		return new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				try {
+					return operation.perform(remoteFile);
+				} catch (HttpResponseException e) {
+					if (e.getStatusCode() != HttpStatusCodes.STATUS_CODE_NOT_FOUND || remoteFile == null || savedGame instanceof GooglePlaySavedGame || !operation.canRetry())
+						throw e;
+					savedGameIndex.remove(savedGame.getTitle(), remoteFile.getId());
+					return operation.perform(findSavedGame(savedGame.getTitle()));
+				}
+			}
+		};
+	}
+
+	private abstract static class SavedGameOperation<T> {
+		abstract T perform(File remoteFile) throws Exception;
+
+		boolean canRetry() {
+			return true;
+		}
+	}
+
+	/**
+	 * Input stream telling whether anything was read from it.
+	 */
+	private static final class TrackedInputStream extends FilterInputStream {
+		boolean touched;
+
+		TrackedInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			touched = true;
+			return super.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			touched = true;
+			return super.read(b, off, len);
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			touched = true;
+			return super.skip(n);
+		}
+	}
+
+	/**
+	 * Output stream telling whether anything was written to it.
+	 */
+	private static final class TrackedOutputStream extends FilterOutputStream {
+		boolean touched;
+
+		TrackedOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			touched = true;
+			out.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			touched = true;
+			out.write(b, off, len);
+		}
+	}
+
+	private static final class PageTokenCursor implements LeaderboardPage.Cursor {
+		final String pageToken;
+
+		private PageTokenCursor(String pageToken) {
+			this.pageToken = pageToken;
+		}
+
+		static PageTokenCursor of(String pageToken) {
+			return pageToken == null ? null : new PageTokenCursor(pageToken);
 		}
 	}
 